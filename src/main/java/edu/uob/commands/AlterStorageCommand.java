@@ -0,0 +1,78 @@
+package edu.uob.commands;
+
+import edu.uob.models.Database;
+import edu.uob.models.QueryResult;
+import edu.uob.models.Table;
+import edu.uob.storage.DBManager;
+
+/**
+ * Handles the `ALTER TABLE ... SET` command, which changes how a table is stored on disk
+ * without changing its rows or columns.
+ *
+ * Examples: `ALTER TABLE marks SET STORAGE COLUMNAR;`, `ALTER TABLE marks SET COMPRESSION ON;`
+ */
+public class AlterStorageCommand extends Command {
+    /**
+     * The storage options that can be set on a table.
+     */
+    public enum Setting {
+        STORAGE,    // COLUMNAR adds a columnar copy that queries can read column by column; ROW removes it
+        COMPRESSION // ON stores the table file block-compressed; OFF stores it as plain text
+    }
+
+    private String tableName; // Name of the table to be altered
+    private Setting setting;  // The storage option to change
+    private boolean enabled;  // Whether the option is switched on or off
+
+    /**
+     * Constructs an `ALTER TABLE ... SET` command.
+     *
+     * @param tableName The name of the target table.
+     * @param setting   The storage option to change.
+     * @param enabled   True to switch the option on, false to switch it off.
+     */
+    public AlterStorageCommand(String tableName, Setting setting, boolean enabled) {
+        this.tableName = tableName;
+        this.setting = setting;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Executes the `ALTER TABLE ... SET` command.
+     * The table is rewritten in its new storage format right away.
+     *
+     * @param dbManager The database manager that provides access to the current database.
+     * @return An empty QueryResult indicating success.
+     * @throws RuntimeException if no database is selected, the table does not exist,
+     *                          or the table cannot be rewritten.
+     */
+    @Override
+    public QueryResult execute(DBManager dbManager) {
+        try {
+            Database currentDb = dbManager.getCurrentDatabase();
+            if (currentDb == null) {
+                throw new RuntimeException("No database selected");
+            }
+
+            Table table = currentDb.getTable(tableName);
+            if (table == null) {
+                throw new RuntimeException("Table does not exist: " + tableName);
+            }
+
+            switch (setting) {
+                case STORAGE:
+                    dbManager.setColumnarStorage(tableName, enabled);
+                    break;
+                case COMPRESSION:
+                    dbManager.setCompression(tableName, enabled);
+                    break;
+                default:
+                    throw new RuntimeException("Unsupported setting: " + setting);
+            }
+
+            return new QueryResult();
+        } catch (Exception e) {
+            throw new RuntimeException("Error: " + e.getMessage());
+        }
+    }
+}
@@ -3,7 +3,6 @@ package edu.uob.commands;
 import edu.uob.conditions.Condition;
 import edu.uob.models.Database;
 import edu.uob.models.QueryResult;
-import edu.uob.models.Row;
 import edu.uob.models.Table;
 import edu.uob.storage.DBManager;
 
@@ -52,10 +51,9 @@ public class DeleteCommand extends Command {
 
             // Identify rows that match the condition
             List<Integer> rowIdsToDelete = new ArrayList<>();
-            for (Row row : table.getRows()) {
-                if (condition.evaluate(table, row)) {
-                    rowIdsToDelete.add(row.getId());
-                }
+            for (List<Integer> part : MorselScan.scan(table, condition.compileBatch(table), dbManager.getScanParallelism(),
+                    ArrayList<Integer>::new, (ids, batch, i) -> ids.add(batch.getId(i)))) {
+                rowIdsToDelete.addAll(part);
             }
 
             // Delete the matching rows from the table
@@ -0,0 +1,70 @@
+package edu.uob.commands;
+
+import edu.uob.conditions.Condition;
+import edu.uob.models.Database;
+import edu.uob.models.QueryResult;
+import edu.uob.models.Table;
+import edu.uob.storage.DBManager;
+
+import java.util.Arrays;
+
+/**
+ * Handles the `EXPORT` command, which streams a table's rows, optionally filtered, into files.
+ * Unlike `SELECT`, the rows are never collected into a result, so tables of any size can be dumped.
+ */
+public class ExportCommand extends Command {
+    private String tableName;    // Name of the table to export
+    private Condition condition; // Optional condition for filtering rows
+    private String filePath;     // File to write, or the base name of the partition files
+    private int partitions;      // Number of files written in parallel
+
+    /**
+     * Constructs an `EXPORT` command.
+     *
+     * @param tableName  The name of the table to export.
+     * @param condition  An optional condition to filter the exported rows.
+     * @param filePath   The file to write, relative to the transfer folder; a `.tabz` extension selects the compressed binary format.
+     * @param partitions The number of files to split the output into.
+     */
+    public ExportCommand(String tableName, Condition condition, String filePath, int partitions) {
+        this.tableName = tableName;
+        this.condition = condition;
+        this.filePath = filePath;
+        this.partitions = partitions;
+    }
+
+    /**
+     * Executes the `EXPORT` command.
+     *
+     * @param dbManager The database manager handling the operation.
+     * @return A `QueryResult` with the number of exported rows and files and the export rate.
+     * @throws RuntimeException if no database is selected, the table does not exist,
+     *                          or a file cannot be written.
+     */
+    @Override
+    public QueryResult execute(DBManager dbManager) {
+        try {
+            Database currentDb = dbManager.getCurrentDatabase();
+            if (currentDb == null) {
+                throw new RuntimeException("No database selected");
+            }
+
+            Table table = currentDb.getTable(tableName);
+            if (table == null) {
+                throw new RuntimeException("Table does not exist: " + tableName);
+            }
+
+            long start = System.nanoTime();
+            long exported = dbManager.exportTable(tableName,
+                    condition == null ? row -> true : condition.compile(table), filePath, partitions);
+            long nanos = Math.max(1, System.nanoTime() - start);
+
+            QueryResult result = new QueryResult(Arrays.asList("exported", "files", "seconds", "rows_per_second"));
+            result.addRow(Arrays.asList(String.valueOf(exported), String.valueOf(partitions),
+                    String.format("%.3f", nanos / 1e9), String.valueOf((long) (exported * 1e9 / nanos))));
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException("Error: " + e.getMessage());
+        }
+    }
+}
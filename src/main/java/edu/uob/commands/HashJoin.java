@@ -0,0 +1,86 @@
+package edu.uob.commands;
+
+import edu.uob.models.Row;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Inner equi-join of two row lists through a hash table on the join column of the smaller one.
+ * Pairs are produced in the order a nested loop over the left rows, then the right rows, would
+ * produce them, whichever side the hash table is built on.
+ */
+final class HashJoin {
+
+    private HashJoin() {
+    }
+
+    /**
+     * Joins two lists of rows on one column each, comparing {@link JoinKey} keys.
+     *
+     * @param left        The outer rows.
+     * @param leftColumn  The join column of the outer rows.
+     * @param right       The inner rows.
+     * @param rightColumn The join column of the inner rows.
+     * @param output      Receives each matching pair, left row first.
+     */
+    static void join(List<Row> left, int leftColumn, List<Row> right, int rightColumn, BiConsumer<Row, Row> output) {
+        List<Row> leftRows = new ArrayList<>(left);
+        List<Row> rightRows = new ArrayList<>(right);
+
+        if (rightRows.size() <= leftRows.size()) {
+            // Build on the right rows, probe with the left ones in order
+            Map<Object, List<Row>> buckets = new HashMap<>();
+            for (Row row : rightRows) {
+                Object key = JoinKey.of(row.getValue(rightColumn));
+                if (key != null) {
+                    buckets.computeIfAbsent(key, k -> new ArrayList<>(1)).add(row);
+                }
+            }
+            for (Row row : leftRows) {
+                Object key = JoinKey.of(row.getValue(leftColumn));
+                List<Row> matches = key == null ? null : buckets.get(key);
+                if (matches != null) {
+                    for (Row match : matches) {
+                        output.accept(row, match);
+                    }
+                }
+            }
+        } else {
+            // Build on the left rows; the right rows found for each are then emitted in left order
+            Map<Object, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < leftRows.size(); i++) {
+                Object key = JoinKey.of(leftRows.get(i).getValue(leftColumn));
+                if (key != null) {
+                    buckets.computeIfAbsent(key, k -> new ArrayList<>(1)).add(i);
+                }
+            }
+            List<List<Row>> matches = new ArrayList<>(leftRows.size());
+            for (int i = 0; i < leftRows.size(); i++) {
+                matches.add(null);
+            }
+            for (Row row : rightRows) {
+                Object key = JoinKey.of(row.getValue(rightColumn));
+                List<Integer> positions = key == null ? null : buckets.get(key);
+                if (positions != null) {
+                    for (int position : positions) {
+                        if (matches.get(position) == null) {
+                            matches.set(position, new ArrayList<>(1));
+                        }
+                        matches.get(position).add(row);
+                    }
+                }
+            }
+            for (int i = 0; i < leftRows.size(); i++) {
+                if (matches.get(i) != null) {
+                    for (Row match : matches.get(i)) {
+                        output.accept(leftRows.get(i), match);
+                    }
+                }
+            }
+        }
+    }
+}
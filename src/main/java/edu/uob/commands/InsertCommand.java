@@ -12,23 +12,24 @@ import java.util.List;
  * Handles the SQL `INSERT` command for adding new rows to a table.
  */
 public class InsertCommand extends Command {
-    private String tableName;   // Name of the table where the row will be inserted
-    private List<String> values; // List of values to be inserted
+    private String tableName;       // Name of the table where the rows will be inserted
+    private List<List<String>> rows; // Values of each row to be inserted
 
     /**
-     * Constructs an `INSERT` command.
+     * Constructs an `INSERT` command for one or more rows, which are inserted and persisted together.
      *
      * @param tableName The name of the target table.
-     * @param values    The list of values to insert into the table.
+     * @param rows      The values of each row to insert.
      */
-    public InsertCommand(String tableName, List<String> values) {
+    public InsertCommand(String tableName, List<List<String>> rows) {
         this.tableName = tableName;
-        this.values = values;
+        this.rows = rows;
     }
 
     /**
      * Executes the `INSERT` command.
-     * It processes the values and inserts a new row into the specified table.
+     * It processes the values and inserts the new rows into the specified table.
+     * If any row does not fit the table, none of them is inserted.
      *
      * @param dbManager The database manager handling the operation.
      * @return A `QueryResult` indicating the success of the operation.
@@ -49,17 +50,21 @@ public class InsertCommand extends Command {
             }
 
             // Process values by removing surrounding quotes from string literals
-            List<String> processedValues = new ArrayList<>();
-            for (String value : values) {
-                if (value.startsWith("'") && value.endsWith("'")) {
-                    processedValues.add(value.substring(1, value.length() - 1));
-                } else {
-                    processedValues.add(value);
+            List<List<String>> processedRows = new ArrayList<>();
+            for (List<String> values : rows) {
+                List<String> processedValues = new ArrayList<>();
+                for (String value : values) {
+                    if (value.startsWith("'") && value.endsWith("'")) {
+                        processedValues.add(value.substring(1, value.length() - 1));
+                    } else {
+                        processedValues.add(value);
+                    }
                 }
+                processedRows.add(processedValues);
             }
 
-            // Insert the processed values as a new row in the table
-            dbManager.insertRow(tableName, processedValues);
+            // Insert the processed values as new rows in the table
+            dbManager.insertRows(tableName, processedRows);
 
             return new QueryResult(); // Return an empty QueryResult to indicate success
         } catch (Exception e) {
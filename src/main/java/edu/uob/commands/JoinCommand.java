@@ -1,5 +1,6 @@
 package edu.uob.commands;
 
+import edu.uob.conditions.Condition;
 import edu.uob.models.Column;
 import edu.uob.models.Database;
 import edu.uob.models.QueryResult;
@@ -7,18 +8,30 @@ import edu.uob.models.Row;
 import edu.uob.models.Table;
 import edu.uob.storage.DBManager;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
- * Handles the SQL `JOIN` command, performing an inner join between two tables
- * based on a specified column match.
+ * Handles the SQL `JOIN` command, performing an inner join between two or more tables
+ * based on a specified column match. Numeric join values match by value, so `7` joins `7.0`.
+ * Chains of more than two tables, and joins with a `WHERE` condition, are run by {@link MultiJoin},
+ * which filters each table first and picks the join order from the table sizes.
+ * Joins are hashed; large ones are partitioned by key, joined in parallel and spilled to disk
+ * when they outgrow their memory budget. Tables whose join columns are both already in key order,
+ * as `id` columns are, are merged instead.
  */
 public class JoinCommand extends Command {
-    private String table1Name;     // Name of the first table in the join
-    private String table2Name;     // Name of the second table in the join
-    private String attribute1Name; // Column from table1 used for joining
-    private String attribute2Name; // Column from table2 used for joining
+    // How rows are matched: auto, hash, partitioned or merge (-Dedu.uob.join.strategy)
+    static final String STRATEGY = System.getProperty("edu.uob.join.strategy", "auto");
+    // In auto mode, joins of at least this many rows in total use the partitioned join (-Dedu.uob.join.partitionedMinRows)
+    static final long PARTITIONED_MIN_ROWS = Long.getLong("edu.uob.join.partitionedMinRows", 1L << 20);
+
+    private List<String> tableNames;          // Names of the joined tables, in the order written
+    private List<String> leftAttributeNames;  // For each table after the first, the column of an earlier table it joins on
+    private List<String> rightAttributeNames; // For each table after the first, its own column it joins on
+    private Condition condition;              // Optional condition on the joined rows
 
     /**
      * Constructs a `JOIN` command.
@@ -29,15 +42,30 @@ public class JoinCommand extends Command {
      * @param attribute2Name The column from the second table used as a join key.
      */
     public JoinCommand(String table1Name, String table2Name, String attribute1Name, String attribute2Name) {
-        this.table1Name = table1Name;
-        this.table2Name = table2Name;
-        this.attribute1Name = attribute1Name;
-        this.attribute2Name = attribute2Name;
+        this(List.of(table1Name, table2Name), List.of(attribute1Name), List.of(attribute2Name), null);
+    }
+
+    /**
+     * Constructs a `JOIN` command over a chain of tables.
+     *
+     * @param tableNames          The names of the tables, at least two.
+     * @param leftAttributeNames  For each table after the first, the column of the tables before it to join on,
+     *                            as `table.column` or a column name only one of those tables has.
+     * @param rightAttributeNames For each table after the first, its own column to join on.
+     * @param condition           An optional condition the joined rows must meet, naming columns like the
+     *                            join attributes do.
+     */
+    public JoinCommand(List<String> tableNames, List<String> leftAttributeNames, List<String> rightAttributeNames,
+                       Condition condition) {
+        this.tableNames = tableNames;
+        this.leftAttributeNames = leftAttributeNames;
+        this.rightAttributeNames = rightAttributeNames;
+        this.condition = condition;
     }
 
     /**
      * Executes the `JOIN` command.
-     * It performs an inner join between two tables based on matching values in the specified columns.
+     * It performs an inner join between the tables based on matching values in the specified columns.
      *
      * @param dbManager The database manager that provides access to the tables.
      * @return A `QueryResult` containing the joined data.
@@ -53,77 +81,77 @@ public class JoinCommand extends Command {
             }
 
             // Retrieve tables
-            Table table1 = currentDb.getTable(table1Name);
-            Table table2 = currentDb.getTable(table2Name);
-
-            if (table1 == null) {
-                throw new RuntimeException("Table does not exist: " + table1Name);
-            }
-            if (table2 == null) {
-                throw new RuntimeException("Table does not exist: " + table2Name);
+            List<Table> tables = new ArrayList<>();
+            for (String tableName : tableNames) {
+                Table table = currentDb.getTable(tableName);
+                if (table == null) {
+                    throw new RuntimeException("Table does not exist: " + tableName);
+                }
+                tables.add(table);
             }
 
-            // Get the index of the join attributes in each table
-            int attr1Index = table1.getColumnIndex(attribute1Name);
-            int attr2Index = table2.getColumnIndex(attribute2Name);
-
-            if (attr1Index == -1) {
-                throw new RuntimeException("Column not found in " + table1Name + ": " + attribute1Name);
-            }
-            if (attr2Index == -1) {
-                throw new RuntimeException("Column not found in " + table2Name + ": " + attribute2Name);
+            // Resolve the join attributes: each table joins one of the tables before it
+            List<int[]> joinColumns = new ArrayList<>();
+            for (int step = 1; step < tables.size(); step++) {
+                String leftName = leftAttributeNames.get(step - 1);
+                String rightName = rightAttributeNames.get(step - 1);
+                int[] left = MultiJoin.findColumn(tableNames, tables, 0, step, leftName);
+                int[] right = MultiJoin.findColumn(tableNames, tables, step, step + 1, rightName);
+                if (left == null) {
+                    throw new RuntimeException("Column not found in "
+                            + String.join(", ", tableNames.subList(0, step)) + ": " + leftName);
+                }
+                if (right == null) {
+                    throw new RuntimeException("Column not found in " + tableNames.get(step) + ": " + rightName);
+                }
+                joinColumns.add(new int[]{left[0], left[1], right[1]});
             }
 
             // Construct the column headers for the joined table
             List<String> resultColumns = new ArrayList<>();
             resultColumns.add("id"); // New ID for joined rows
 
-            // Add columns from table1 (excluding its original ID column)
-            for (Column col : table1.getColumns()) {
-                if (!col.getName().equalsIgnoreCase("id")) {
-                    resultColumns.add(table1Name + "." + col.getName());
+            // Add the columns of each table (excluding its original ID column)
+            for (int t = 0; t < tables.size(); t++) {
+                for (Column col : tables.get(t).getColumns()) {
+                    if (!col.getName().equalsIgnoreCase("id")) {
+                        resultColumns.add(tableNames.get(t) + "." + col.getName());
+                    }
                 }
             }
 
-            // Add columns from table2 (excluding its original ID column)
-            for (Column col : table2.getColumns()) {
-                if (!col.getName().equalsIgnoreCase("id")) {
-                    resultColumns.add(table2Name + "." + col.getName());
-                }
+            // Longer chains and filtered joins are planned by cardinality; rows come out in nested-loop order
+            if (tables.size() > 2 || condition != null) {
+                QueryResult result = new QueryResult(resultColumns);
+                int[] joinId = {1};
+                MultiJoin.join(tableNames, tables, joinColumns, condition, dbManager.getScanParallelism(),
+                        match -> result.addRow(joinedRow(joinId[0]++, match)));
+                return result;
             }
 
+            // Join on the join columns; rows come out in nested-loop order, table1 first
+            Table table1 = tables.get(0);
+            Table table2 = tables.get(1);
+            int attr1Index = joinColumns.get(0)[1];
+            int attr2Index = joinColumns.get(0)[2];
+            List<Row> rows1 = table1.getRows();
+            List<Row> rows2 = table2.getRows();
+            File spillFolder = new File(dbManager.getDatabasePath(currentDb.getName()));
+            // Auto mode merges only when both inputs are already in key order, which the tables keep track of
+            boolean merge = STRATEGY.equals("merge");
+            boolean ordered1 = (merge || STRATEGY.equals("auto"))
+                    && table1.isOrdered(attr1Index, JoinKey::of, JoinKey::compare);
+            boolean ordered2 = (merge || ordered1) && table2.isOrdered(attr2Index, JoinKey::of, JoinKey::compare);
             QueryResult result = new QueryResult(resultColumns);
-
-            // Perform the join operation
-            int joinId = 1;
-            for (Row row1 : table1.getRows()) {
-                String value1 = row1.getValue(attr1Index);
-
-                for (Row row2 : table2.getRows()) {
-                    String value2 = row2.getValue(attr2Index);
-
-                    // If the join attributes match, create a new joined row
-                    if (value1 != null && value1.equals(value2)) {
-                        List<String> joinedRow = new ArrayList<>();
-                        joinedRow.add(String.valueOf(joinId++));
-
-                        // Add values from table1 (excluding the ID column)
-                        for (int i = 0; i < row1.getValues().size(); i++) {
-                            if (i != 0) { // Skip the ID column
-                                joinedRow.add(row1.getValue(i));
-                            }
-                        }
-
-                        // Add values from table2 (excluding the ID column)
-                        for (int i = 0; i < row2.getValues().size(); i++) {
-                            if (i != 0) { // Skip the ID column
-                                joinedRow.add(row2.getValue(i));
-                            }
-                        }
-
-                        result.addRow(joinedRow);
-                    }
-                }
+            int[] joinId = {1};
+            BiConsumer<Row, Row> output = (row1, row2) -> result.addRow(joinedRow(joinId[0]++, row1, row2));
+            if (merge || ordered1 && ordered2) {
+                SortMergeJoin.join(rows1, attr1Index, rows2, attr2Index, ordered1, ordered2, spillFolder, output);
+            } else if (STRATEGY.equals("partitioned")
+                    || STRATEGY.equals("auto") && (long) rows1.size() + rows2.size() >= PARTITIONED_MIN_ROWS) {
+                PartitionedHashJoin.join(rows1, attr1Index, rows2, attr2Index, spillFolder, output);
+            } else {
+                HashJoin.join(rows1, attr1Index, rows2, attr2Index, output);
             }
 
             return result;
@@ -131,4 +159,21 @@ public class JoinCommand extends Command {
             throw new RuntimeException("Error: " + e.getMessage());
         }
     }
+
+    /**
+     * Builds one row of the join result.
+     *
+     * @param joinId The ID of the joined row.
+     * @param rows   The matching row of each table, in the order the tables were written.
+     * @return The new ID followed by the values of the rows, without their original IDs.
+     */
+    private static List<String> joinedRow(int joinId, Row... rows) {
+        List<String> joinedRow = new ArrayList<>();
+        joinedRow.add(String.valueOf(joinId));
+        for (Row row : rows) {
+            List<String> values = row.getValues();
+            joinedRow.addAll(values.subList(Math.min(1, values.size()), values.size()));
+        }
+        return joinedRow;
+    }
 }
@@ -0,0 +1,111 @@
+package edu.uob.commands;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Normalizes the values of a join column so that numbers match by value: `7`, `07`, `+7` and
+ * `7.0` all become the same key. Any other value only matches identical text, and a missing
+ * value matches nothing.
+ */
+final class JoinKey {
+    // Longer numbers are left as text, since a double cannot tell all of them apart
+    private static final int MAX_NUMBER_DIGITS = 15;
+    // Tags of the spilled key formats: a number is written as a double, text as its length and UTF-8 bytes
+    private static final byte DOUBLE_KEY = 0;
+    private static final byte TEXT_KEY = 1;
+
+    private JoinKey() {
+    }
+
+    /**
+     * Gets the key a value joins on.
+     *
+     * @param value The cell value, or `null` if missing.
+     * @return A `Double` for a plain decimal number, the value itself for other text,
+     *         or `null` if the value is missing.
+     */
+    static Object of(String value) {
+        if (value == null) {
+            return null;
+        }
+        return isNumber(value) ? (Object) (Double.parseDouble(value) + 0.0) : value; // + 0.0 turns -0.0 into 0.0
+    }
+
+    /**
+     * Orders keys for merging: numbers by value, before all text, which is ordered as strings.
+     *
+     * @param a A key from {@link #of}, not `null`.
+     * @param b Another such key.
+     * @return A negative number, zero or a positive number as `a` sorts before, with or after `b`.
+     */
+    static int compare(Object a, Object b) {
+        if (a instanceof Double) {
+            return b instanceof Double ? Double.compare((Double) a, (Double) b) : -1;
+        }
+        return b instanceof Double ? 1 : ((String) a).compareTo((String) b);
+    }
+
+    /**
+     * Writes a key to a spill file, in the format {@link #read} reads back.
+     *
+     * @param output The spill file.
+     * @param key    A key from {@link #of}, not `null`.
+     * @throws IOException if writing fails.
+     */
+    static void write(DataOutput output, Object key) throws IOException {
+        if (key instanceof Double) {
+            output.writeByte(DOUBLE_KEY);
+            output.writeDouble((Double) key);
+        } else {
+            byte[] text = ((String) key).getBytes(StandardCharsets.UTF_8);
+            output.writeByte(TEXT_KEY);
+            output.writeInt(text.length);
+            output.write(text);
+        }
+    }
+
+    /**
+     * Reads a key written by {@link #write}.
+     *
+     * @param input The spill file.
+     * @return The key, or `null` if the file ends where the key would start.
+     * @throws IOException if reading fails or the file ends inside the key.
+     */
+    static Object read(DataInputStream input) throws IOException {
+        int tag = input.read();
+        if (tag < 0) {
+            return null;
+        }
+        if (tag == DOUBLE_KEY) {
+            return input.readDouble();
+        }
+        if (tag != TEXT_KEY) {
+            throw new IOException("Corrupt join spill file");
+        }
+        byte[] text = new byte[input.readInt()];
+        input.readFully(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    // [sign] digits [. digits], with at least one digit and not too many
+    private static boolean isNumber(String s) {
+        int length = s.length();
+        int i = length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return false;
+            }
+        }
+        return digits > 0 && digits <= MAX_NUMBER_DIGITS;
+    }
+}
@@ -0,0 +1,61 @@
+package edu.uob.commands;
+
+import edu.uob.models.Database;
+import edu.uob.models.QueryResult;
+import edu.uob.models.Table;
+import edu.uob.storage.BulkLoader;
+import edu.uob.storage.DBManager;
+
+import java.util.Arrays;
+
+/**
+ * Handles the `LOAD` command, which appends every row of a TSV or CSV file to a table in one step.
+ */
+public class LoadCommand extends Command {
+    private String filePath;  // Path of the file to read
+    private String tableName; // Name of the table receiving the rows
+
+    /**
+     * Constructs a `LOAD` command.
+     *
+     * @param filePath  The path of the TSV or CSV file to load, relative to the transfer folder.
+     * @param tableName The name of the target table.
+     */
+    public LoadCommand(String filePath, String tableName) {
+        this.filePath = filePath;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Executes the `LOAD` command.
+     * Rows whose field count does not match the table are skipped and counted.
+     *
+     * @param dbManager The database manager handling the operation.
+     * @return A `QueryResult` with the number of loaded and rejected rows and the load rate.
+     * @throws RuntimeException if no database is selected, the table does not exist,
+     *                          or the file cannot be read.
+     */
+    @Override
+    public QueryResult execute(DBManager dbManager) {
+        try {
+            Database currentDb = dbManager.getCurrentDatabase();
+            if (currentDb == null) {
+                throw new RuntimeException("No database selected");
+            }
+
+            Table table = currentDb.getTable(tableName);
+            if (table == null) {
+                throw new RuntimeException("Table does not exist: " + tableName);
+            }
+
+            BulkLoader.Result loaded = dbManager.bulkLoad(tableName, filePath);
+
+            QueryResult result = new QueryResult(Arrays.asList("loaded", "rejected", "seconds", "rows_per_second"));
+            result.addRow(Arrays.asList(String.valueOf(loaded.getLoaded()), String.valueOf(loaded.getRejected()),
+                    String.format("%.3f", loaded.getSeconds()), String.valueOf(loaded.getRowsPerSecond())));
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException("Error: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package edu.uob.commands;
+
+import edu.uob.conditions.BatchFilter;
+import edu.uob.models.RowBatch;
+import edu.uob.models.Table;
+import edu.uob.storage.DBManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the filtered scan of a resident table for `SELECT`, `UPDATE` and `DELETE`, in parallel
+ * when the table is large enough to be worth it.
+ * The table's row slots are split into morsels of {@link #MORSEL_ROWS}. Up to the session's degree
+ * of parallelism workers on a shared work-stealing pool each take the next unclaimed morsel until
+ * none are left, so a worker that hits cheap morsels simply takes more of them. Each morsel
+ * collects its matches into its own part, and the parts are returned in storage order, so the
+ * merged output is the same as that of a serial scan.
+ */
+final class MorselScan {
+    // Row slots per morsel (-Dedu.uob.scan.morselRows)
+    static final int MORSEL_ROWS = Math.max(1, Integer.getInteger("edu.uob.scan.morselRows", 16 * RowBatch.CAPACITY));
+    // Tables with fewer row slots than this are always scanned on the calling thread (-Dedu.uob.scan.parallelMinRows)
+    static final int PARALLEL_MIN_ROWS = Integer.getInteger("edu.uob.scan.parallelMinRows", 4 * MORSEL_ROWS);
+
+    // Work-stealing pool shared by the parallel parts of queries
+    static final ForkJoinPool POOL = new ForkJoinPool(DBManager.SCAN_PARALLELISM);
+
+    private MorselScan() {
+    }
+
+    /**
+     * Receives one matching row of a scan.
+     *
+     * @param <P> The type of the partial results.
+     */
+    @FunctionalInterface
+    interface Collector<P> {
+        /**
+         * Adds a matching row to the part of the result for its morsel.
+         *
+         * @param part  The morsel's part.
+         * @param batch The batch holding the row.
+         * @param index The row's index in the batch.
+         */
+        void collect(P part, RowBatch batch, int index);
+    }
+
+    /**
+     * Scans a table and collects the rows that pass a filter.
+     *
+     * @param table       The table to scan; its rows are loaded first if needed.
+     * @param filter      Selects the rows to collect, or `null` for all of them.
+     * @param parallelism The most threads the scan may use.
+     * @param newPart     Creates an empty partial result.
+     * @param collector   Adds a matching row to a partial result.
+     * @param <P>         The type of the partial results.
+     * @return The partial results in storage order: one for a serial scan, otherwise one per morsel.
+     */
+    static <P> List<P> scan(Table table, BatchFilter filter, int parallelism, Supplier<P> newPart,
+                            Collector<P> collector) {
+        int slots = table.getStorageSize();
+        if (parallelism <= 1 || slots < PARALLEL_MIN_ROWS) {
+            P part = newPart.get();
+            scanRange(table, 0, slots, filter, part, collector, RowBatch.newSelection());
+            return List.of(part);
+        }
+
+        int morsels = (slots + MORSEL_ROWS - 1) / MORSEL_ROWS;
+        List<P> parts = new ArrayList<>();
+        for (int m = 0; m < morsels; m++) {
+            parts.add(null);
+        }
+        AtomicInteger nextMorsel = new AtomicInteger();
+        List<RecursiveAction> workers = new ArrayList<>();
+        for (int w = 0; w < Math.min(parallelism, morsels); w++) {
+            workers.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    long[] selection = RowBatch.newSelection();
+                    for (int m = nextMorsel.getAndIncrement(); m < morsels; m = nextMorsel.getAndIncrement()) {
+                        P part = newPart.get();
+                        int from = m * MORSEL_ROWS;
+                        scanRange(table, from, Math.min(slots, from + MORSEL_ROWS), filter, part, collector, selection);
+                        parts.set(m, part);
+                    }
+                }
+            });
+        }
+        POOL.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ForkJoinTask.invokeAll(workers);
+            }
+        });
+        return parts;
+    }
+
+    private static <P> void scanRange(Table table, int from, int to, BatchFilter filter, P part,
+                                      Collector<P> collector, long[] selection) {
+        table.scanBatches(from, to, batch -> {
+            batch.selectAll(selection);
+            if (filter != null) {
+                filter.filter(batch, selection);
+            }
+            RowBatch.forEachSelected(selection, i -> collector.collect(part, batch, i));
+        });
+    }
+}
@@ -0,0 +1,351 @@
+package edu.uob.commands;
+
+import edu.uob.conditions.AndCondition;
+import edu.uob.conditions.ColumnBinding;
+import edu.uob.conditions.Condition;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Inner equi-join of a chain of tables, each joined on a column of the tables written before it,
+ * with an optional `WHERE` condition over the joined columns.
+ *
+ * The condition is split into its `AND`ed parts. A part that names the columns of one table only
+ * filters that table before anything is joined; any other part is tested as soon as the tables it
+ * names have been joined. The joins themselves are then run in the order that keeps intermediate
+ * results small: each step joins the table whose estimated result, the product of the two sizes
+ * divided by the larger number of distinct join keys, is the smallest, using the actual size of
+ * what has been joined so far. Intermediate results only hold row positions, and the joined rows
+ * come out in the order of a nested loop over the tables as written.
+ */
+final class MultiJoin {
+
+    private MultiJoin() {
+    }
+
+    /**
+     * Finds a column of some of the joined tables.
+     *
+     * @param tableNames The names the tables are joined under, as written.
+     * @param tables     The tables.
+     * @param first      The first table to search.
+     * @param end        The table after the last one to search.
+     * @param columnName `table.column`, or a column name that only one of the searched tables has.
+     * @return The table's index and the column index in that table, or `null` if there is no such column.
+     * @throws RuntimeException if more than one of the searched tables has the column.
+     */
+    static int[] findColumn(List<String> tableNames, List<Table> tables, int first, int end, String columnName) {
+        int dot = columnName.indexOf('.');
+        String tableName = dot >= 0 ? columnName.substring(0, dot) : null;
+        String column = dot >= 0 ? columnName.substring(dot + 1) : columnName;
+        int[] found = null;
+        for (int t = first; t < end; t++) {
+            int index = tables.get(t).getColumnIndex(column);
+            if (index != -1 && (tableName == null || tableName.equalsIgnoreCase(tableNames.get(t)))) {
+                if (found != null) {
+                    throw new RuntimeException("Ambiguous column: " + columnName);
+                }
+                found = new int[]{t, index};
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Joins the tables.
+     *
+     * @param tableNames   The names the tables are joined under, as written.
+     * @param tables       The tables, in the order written.
+     * @param joinColumns  For each table after the first: the index of an earlier table, its join
+     *                     column, and the table's own join column.
+     * @param condition    The condition the joined rows must meet, or `null`.
+     * @param parallelism  The most threads the filtering scans may use.
+     * @param output       Receives the rows of each match, one per table, in nested-loop order.
+     * @throws RuntimeException if the condition names a column that does not exist or is ambiguous.
+     */
+    static void join(List<String> tableNames, List<Table> tables, List<int[]> joinColumns, Condition condition,
+                     int parallelism, Consumer<Row[]> output) {
+        int count = tables.size();
+        JoinedColumns joined = new JoinedColumns(tableNames, tables);
+
+        // Sort the parts of the condition into filters of single tables and tests of joined rows
+        List<List<Condition>> filters = new ArrayList<>();
+        for (int t = 0; t < count; t++) {
+            filters.add(new ArrayList<>());
+        }
+        List<Condition> residuals = new ArrayList<>();
+        List<BitSet> residualTables = new ArrayList<>();
+        if (condition != null) {
+            for (Condition part : condition.conjuncts()) {
+                BitSet named = namedTables(tableNames, tables, part);
+                if (named.cardinality() == 1) {
+                    filters.get(named.nextSetBit(0)).add(part);
+                } else {
+                    residuals.add(part);
+                    residualTables.add(named);
+                }
+            }
+        }
+
+        List<List<Row>> rows = new ArrayList<>();
+        for (int t = 0; t < count; t++) {
+            rows.add(filteredRows(tableNames, tables, t, filters.get(t), parallelism));
+        }
+
+        // Start from the smaller table of the join with the smallest estimated result
+        int[] first = null;
+        double firstEstimate = Double.MAX_VALUE;
+        DistinctKeys distinct = new DistinctKeys(rows);
+        for (int step = 1; step < count; step++) {
+            int[] columns = joinColumns.get(step - 1);
+            double estimate = estimate(rows.get(columns[0]).size(), distinct.count(columns[0], columns[1]),
+                    rows.get(step).size(), distinct.count(step, columns[2]));
+            if (first == null || estimate < firstEstimate) {
+                first = new int[]{columns[0], step};
+                firstEstimate = estimate;
+            }
+        }
+        int start = rows.get(first[0]).size() <= rows.get(first[1]).size() ? first[0] : first[1];
+
+        List<int[]> tuples = new ArrayList<>();
+        for (int i = 0; i < rows.get(start).size(); i++) {
+            int[] tuple = new int[count];
+            Arrays.fill(tuple, -1);
+            tuple[start] = i;
+            tuples.add(tuple);
+        }
+        BitSet done = new BitSet();
+        done.set(start);
+        boolean[] tested = new boolean[residuals.size()];
+        tuples = testResiduals(tuples, done, residuals, residualTables, tested, joined, rows);
+
+        while (done.cardinality() < count) {
+            // Pick the join to a table not yet joined with the smallest estimated result
+            int[] next = null;
+            double nextEstimate = Double.MAX_VALUE;
+            for (int step = 1; step < count; step++) {
+                int[] columns = joinColumns.get(step - 1);
+                if (done.get(columns[0]) == done.get(step)) {
+                    continue;
+                }
+                int[] candidate = done.get(columns[0])
+                        ? new int[]{columns[0], columns[1], step, columns[2]}
+                        : new int[]{step, columns[2], columns[0], columns[1]};
+                double estimate = estimate(tuples.size(),
+                        Math.min(tuples.size(), distinct.count(candidate[0], candidate[1])),
+                        rows.get(candidate[2]).size(), distinct.count(candidate[2], candidate[3]));
+                if (next == null || estimate < nextEstimate) {
+                    next = candidate;
+                    nextEstimate = estimate;
+                }
+            }
+            tuples = joinStep(tuples, rows, next[0], next[1], next[2], next[3]);
+            done.set(next[2]);
+            tuples = testResiduals(tuples, done, residuals, residualTables, tested, joined, rows);
+        }
+
+        // Positions follow storage order, so sorting the tuples gives nested-loop order
+        tuples.sort(Arrays::compare);
+        Row[] match = new Row[count];
+        for (int[] tuple : tuples) {
+            for (int t = 0; t < count; t++) {
+                match[t] = rows.get(t).get(tuple[t]);
+            }
+            output.accept(match);
+        }
+    }
+
+    // The tables whose columns a part of the condition names
+    private static BitSet namedTables(List<String> tableNames, List<Table> tables, Condition part) {
+        BitSet named = new BitSet();
+        for (String attributeName : part.getAttributeNames()) {
+            int[] column = findColumn(tableNames, tables, 0, tables.size(), attributeName);
+            if (column == null) {
+                throw new RuntimeException("Column not found: " + attributeName);
+            }
+            named.set(column[0]);
+        }
+        return named;
+    }
+
+    // Rows of a table that pass the parts of the condition that only name its columns
+    private static List<Row> filteredRows(List<String> tableNames, List<Table> tables, int t, List<Condition> filters,
+                                          int parallelism) {
+        Table table = tables.get(t);
+        if (filters.isEmpty()) {
+            return new ArrayList<>(table.getRows());
+        }
+        Condition filter = filters.get(0);
+        for (int i = 1; i < filters.size(); i++) {
+            filter = new AndCondition(filter, filters.get(i));
+        }
+        // The filters name this table's columns only, found at their own indexes so its rows are tested directly
+        ColumnBinding columns = columnName -> {
+            int[] column = findColumn(tableNames, tables, 0, tables.size(), columnName);
+            return column == null || column[0] != t ? -1 : column[1];
+        };
+        List<List<Row>> parts = MorselScan.scan(table, filter.compileBatch(columns), parallelism, ArrayList::new,
+                (part, batch, i) -> part.add(batch.getRow(i)));
+        List<Row> rows = new ArrayList<>();
+        for (List<Row> part : parts) {
+            rows.addAll(part);
+        }
+        return rows;
+    }
+
+    // Estimated size of an equi-join, assuming the keys of the side with fewer distinct keys all match
+    private static double estimate(int leftSize, int leftDistinct, int rightSize, int rightDistinct) {
+        return (double) leftSize * rightSize / Math.max(1, Math.max(leftDistinct, rightDistinct));
+    }
+
+    // Extends each tuple with the rows of table `to` whose key matches that of its row of table `from`
+    private static List<int[]> joinStep(List<int[]> tuples, List<List<Row>> rows, int from, int fromColumn,
+                                        int to, int toColumn) {
+        List<Row> fromRows = rows.get(from);
+        List<Row> toRows = rows.get(to);
+        List<int[]> joined = new ArrayList<>();
+        if (toRows.size() <= tuples.size()) {
+            // Build on the new table's rows, probe with the tuples
+            Map<Object, Integer> head = new HashMap<>();
+            int[] next = new int[toRows.size()];
+            for (int i = toRows.size() - 1; i >= 0; i--) {
+                Object key = JoinKey.of(toRows.get(i).getValue(toColumn));
+                if (key != null) {
+                    Integer previous = head.put(key, i);
+                    next[i] = previous == null ? -1 : previous;
+                }
+            }
+            for (int[] tuple : tuples) {
+                Object key = JoinKey.of(fromRows.get(tuple[from]).getValue(fromColumn));
+                Integer match = key == null ? null : head.get(key);
+                for (int i = match == null ? -1 : match; i >= 0; i = next[i]) {
+                    int[] extended = tuple.clone();
+                    extended[to] = i;
+                    joined.add(extended);
+                }
+            }
+        } else {
+            // Build on the tuples, probe with the new table's rows
+            Map<Object, Integer> head = new HashMap<>();
+            int[] next = new int[tuples.size()];
+            for (int i = tuples.size() - 1; i >= 0; i--) {
+                Object key = JoinKey.of(fromRows.get(tuples.get(i)[from]).getValue(fromColumn));
+                if (key != null) {
+                    Integer previous = head.put(key, i);
+                    next[i] = previous == null ? -1 : previous;
+                }
+            }
+            for (int r = 0; r < toRows.size(); r++) {
+                Object key = JoinKey.of(toRows.get(r).getValue(toColumn));
+                Integer match = key == null ? null : head.get(key);
+                for (int i = match == null ? -1 : match; i >= 0; i = next[i]) {
+                    int[] extended = tuples.get(i).clone();
+                    extended[to] = r;
+                    joined.add(extended);
+                }
+            }
+        }
+        return joined;
+    }
+
+    // Drops the tuples that fail a part of the condition whose tables have all been joined by now
+    private static List<int[]> testResiduals(List<int[]> tuples, BitSet done, List<Condition> residuals,
+                                             List<BitSet> residualTables, boolean[] tested, JoinedColumns joined,
+                                             List<List<Row>> rows) {
+        Predicate<Row> test = null;
+        for (int i = 0; i < residuals.size(); i++) {
+            BitSet missing = (BitSet) residualTables.get(i).clone();
+            missing.andNot(done);
+            if (!tested[i] && missing.isEmpty()) {
+                Predicate<Row> part = residuals.get(i).compile(joined);
+                test = test == null ? part : test.and(part);
+                tested[i] = true;
+            }
+        }
+        if (test == null) {
+            return tuples;
+        }
+        List<int[]> kept = new ArrayList<>();
+        for (int[] tuple : tuples) {
+            if (test.test(joined.row(tuple, rows))) {
+                kept.add(tuple);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Counts the distinct join keys of the filtered rows of a table's column, once per column.
+     */
+    private static final class DistinctKeys {
+        private final List<List<Row>> rows;      // The filtered rows of each table
+        private final Map<Long, Integer> counts; // Counts by table and column
+
+        DistinctKeys(List<List<Row>> rows) {
+            this.rows = rows;
+            this.counts = new HashMap<>();
+        }
+
+        int count(int table, int column) {
+            return counts.computeIfAbsent(((long) table << 32) | column, k -> {
+                Set<Object> keys = new HashSet<>();
+                for (Row row : rows.get(table)) {
+                    Object key = JoinKey.of(row.getValue(column));
+                    if (key != null) {
+                        keys.add(key);
+                    }
+                }
+                return keys.size();
+            });
+        }
+    }
+
+    /**
+     * The columns of the joined tables side by side, as conditions bind them: each table's columns,
+     * `id` included, follow those of the tables before it, and are found with {@link #findColumn}.
+     */
+    private static final class JoinedColumns implements ColumnBinding {
+        private final List<String> tableNames; // The names the tables are joined under
+        private final List<Table> tables;      // The joined tables
+        private final int[] offsets;           // Index of each table's first column among all of them
+
+        JoinedColumns(List<String> tableNames, List<Table> tables) {
+            this.tableNames = tableNames;
+            this.tables = tables;
+            this.offsets = new int[tables.size()];
+            for (int t = 1; t < tables.size(); t++) {
+                offsets[t] = offsets[t - 1] + tables.get(t - 1).getColumns().size();
+            }
+        }
+
+        @Override
+        public int getColumnIndex(String columnName) {
+            int[] column = findColumn(tableNames, tables, 0, tables.size(), columnName);
+            return column == null ? -1 : offsets[column[0]] + column[1];
+        }
+
+        // The cells of a tuple's rows side by side, missing for tables not joined yet
+        Row row(int[] tuple, List<List<Row>> rows) {
+            List<String> values = new ArrayList<>();
+            for (int t = 0; t < tables.size(); t++) {
+                int width = tables.get(t).getColumns().size();
+                Row row = tuple[t] >= 0 ? rows.get(t).get(tuple[t]) : null;
+                for (int c = 0; c < width; c++) {
+                    values.add(row != null ? row.getValue(c) : null);
+                }
+            }
+            return new Row(0, values);
+        }
+    }
+}
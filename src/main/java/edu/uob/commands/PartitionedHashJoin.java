@@ -0,0 +1,489 @@
+package edu.uob.commands;
+
+import edu.uob.models.Row;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * Inner equi-join for inputs too large for one hash table: both inputs are split into
+ * 2^{@link #PARTITION_BITS} partitions by the hash of their {@link JoinKey}, so that matching rows
+ * always land in the same partition, and each partition is then joined on its own.
+ *
+ * Partitions are joined in parallel on the shared query pool. Only the join keys and row indexes
+ * are partitioned; while the partitions held in memory grow past the memory budget, the largest
+ * is written to a spill file in the database folder, and later entries for it go straight to the
+ * file. Once the others are done, each spilled partition is joined in turn: one that fits the
+ * budget is read back whole, and a larger one is split again on the next bits of the hash, which
+ * may spill in turn. A partition that splitting cannot make smaller, because its entries share one
+ * key or hash, is joined as a block nested loop instead: each pass over its spill file hashes the
+ * next block of left entries that fits the budget and streams every right entry past it.
+ *
+ * Each partition yields (left index, right index) pairs in nested-loop order. Every left row lies
+ * in exactly one partition, so the rows are handed out by walking the left rows in order and
+ * taking each one's pairs from its partition, in the same order as {@link HashJoin}.
+ *
+ * The budget bounds the partitioned keys only. Besides them the join holds one hash per left row,
+ * a list of row references for an input without fast positional access, and the joined pairs at
+ * 8 bytes each until they are handed out; the rows themselves stay wherever the inputs keep them.
+ */
+final class PartitionedHashJoin {
+    // log2 of the number of partitions (-Dedu.uob.join.partitionBits)
+    static final int PARTITION_BITS = Math.min(16, Math.max(1, Integer.getInteger("edu.uob.join.partitionBits", 6)));
+    // Estimated bytes of partitioned keys kept in memory before partitions spill (-Dedu.uob.join.memoryBytes)
+    static final long MEMORY_BUDGET = Long.getLong("edu.uob.join.memoryBytes", 64L * 1024 * 1024);
+
+    private static final int ENTRY_BYTES = 64;                 // Rough heap cost of one entry and its hash table slot, besides the key text
+    private static final int LEVELS = 32 / PARTITION_BITS;     // How many times the hash can be split into partitions
+
+    private PartitionedHashJoin() {
+    }
+
+    /**
+     * Joins two lists of rows on one column each, comparing {@link JoinKey} keys, within
+     * {@link #MEMORY_BUDGET}.
+     *
+     * @param left        The outer rows.
+     * @param leftColumn  The join column of the outer rows.
+     * @param right       The inner rows.
+     * @param rightColumn The join column of the inner rows.
+     * @param spillFolder The folder spill files are created in.
+     * @param output      Receives each matching pair, left row first, in nested-loop order.
+     * @throws IOException if a spill file cannot be written or read.
+     */
+    static void join(List<Row> left, int leftColumn, List<Row> right, int rightColumn, File spillFolder,
+                     BiConsumer<Row, Row> output) throws IOException {
+        join(left, leftColumn, right, rightColumn, MEMORY_BUDGET, spillFolder, output);
+    }
+
+    /**
+     * Joins two lists of rows on one column each, comparing {@link JoinKey} keys.
+     *
+     * @param left         The outer rows.
+     * @param leftColumn   The join column of the outer rows.
+     * @param right        The inner rows.
+     * @param rightColumn  The join column of the inner rows.
+     * @param memoryBudget Estimated bytes of partitioned keys kept in memory before partitions spill.
+     * @param spillFolder  The folder spill files are created in.
+     * @param output       Receives each matching pair, left row first, in nested-loop order.
+     * @throws IOException if a spill file cannot be written or read.
+     */
+    static void join(List<Row> left, int leftColumn, List<Row> right, int rightColumn, long memoryBudget,
+                     File spillFolder, BiConsumer<Row, Row> output) throws IOException {
+        List<Row> leftRows = left instanceof RandomAccess ? left : new ArrayList<>(left);
+        List<Row> rightRows = right instanceof RandomAccess ? right : new ArrayList<>(right);
+        Partitions partitions = new Partitions(0, memoryBudget, spillFolder);
+
+        try {
+            // Partition both inputs, keeping the hash of each left row to find its partition again
+            int[] leftHashes = new int[leftRows.size()];
+            for (int i = 0; i < leftRows.size(); i++) {
+                Object key = JoinKey.of(leftRows.get(i).getValue(leftColumn));
+                if (key != null) {
+                    leftHashes[i] = hash(key);
+                    partitions.add(0, i, key);
+                }
+            }
+            for (int i = 0; i < rightRows.size(); i++) {
+                Object key = JoinKey.of(rightRows.get(i).getValue(rightColumn));
+                if (key != null) {
+                    partitions.add(1, i, key);
+                }
+            }
+
+            partitions.join(Long.MAX_VALUE);
+
+            // A left row without a key has no pairs, so whichever partition its hash points to has none for it
+            for (int i = 0; i < leftRows.size(); i++) {
+                Partition partition = partitions.leaf(leftHashes[i]);
+                while (partition.next < partition.pairs.length && (int) (partition.pairs[partition.next] >>> 32) == i) {
+                    output.accept(leftRows.get(i), rightRows.get((int) partition.pairs[partition.next++]));
+                }
+            }
+        } finally {
+            partitions.deleteSpillFiles();
+        }
+    }
+
+    // Spreads the bits of the key's hash code; partitions take the top bits first
+    private static int hash(Object key) {
+        return key.hashCode() * 0x9E3779B9;
+    }
+
+    /**
+     * One split of entries into partitions, on {@link #PARTITION_BITS} bits of the hash.
+     */
+    private static final class Partitions {
+        private final Partition[] partitions = new Partition[1 << PARTITION_BITS]; // The partitions, by hash bits
+        private final int level;                                                   // How many splits came before this one
+        private final long memoryBudget;                                           // Bytes of entries kept in memory before spilling
+        private final File spillFolder;                                            // Where spill files are created
+        private long memory;                                                       // Estimated bytes of the entries in memory
+
+        Partitions(int level, long memoryBudget, File spillFolder) {
+            this.level = level;
+            this.memoryBudget = memoryBudget;
+            this.spillFolder = spillFolder;
+            for (int p = 0; p < partitions.length; p++) {
+                partitions[p] = new Partition();
+            }
+        }
+
+        Partition get(int hash) {
+            return partitions[hash << (level * PARTITION_BITS) >>> (32 - PARTITION_BITS)];
+        }
+
+        // Finds the partition that was finally joined for a hash
+        Partition leaf(int hash) {
+            Partition partition = get(hash);
+            return partition.split == null ? partition : partition.split.leaf(hash);
+        }
+
+        // Adds an entry, spilling the largest partition whenever memory runs over budget
+        void add(int side, int index, Object key) throws IOException {
+            memory += get(hash(key)).add(side, index, key);
+            if (memory > memoryBudget) {
+                Partition largest = null;
+                for (Partition candidate : partitions) {
+                    if (candidate.spillFile == null && (largest == null || candidate.bytes > largest.bytes)) {
+                        largest = candidate;
+                    }
+                }
+                if (largest != null && largest.bytes > 0) {
+                    memory -= largest.bytes;
+                    largest.spill(spillFolder);
+                }
+            }
+        }
+
+        /**
+         * Joins the partitions still in memory in parallel, then the spilled ones one at a time.
+         *
+         * @param splitBytes The estimated size of the partition these partitions were split from.
+         * @throws IOException if a spill file cannot be written or read.
+         */
+        void join(long splitBytes) throws IOException {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            for (Partition partition : partitions) {
+                if (partition.spillFile == null) {
+                    tasks.add(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            partition.pairs = partition.join();
+                            partition.clear();
+                        }
+                    });
+                }
+            }
+            MorselScan.POOL.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+            memory = 0;
+
+            for (Partition partition : partitions) {
+                if (partition.spillFile == null) {
+                    continue;
+                }
+                // Split again while the hash has bits left and the last split made the partition smaller
+                if (partition.spilledBytes > memoryBudget && level + 1 < LEVELS && partition.spilledBytes < splitBytes) {
+                    partition.split = new Partitions(level + 1, memoryBudget, spillFolder);
+                    partition.read(partition.split::add);
+                    partition.deleteSpillFile();
+                    partition.split.join(partition.spilledBytes);
+                } else if (partition.spilledBytes > memoryBudget) {
+                    partition.pairs = partition.joinInBlocks(memoryBudget);
+                    partition.deleteSpillFile();
+                } else {
+                    partition.read((side, index, key) -> partition.sides[side].add(index, key));
+                    partition.deleteSpillFile();
+                    partition.pairs = partition.join();
+                    partition.clear();
+                }
+            }
+        }
+
+        void deleteSpillFiles() throws IOException {
+            for (Partition partition : partitions) {
+                partition.deleteSpillFile();
+                if (partition.split != null) {
+                    partition.split.deleteSpillFiles();
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives the entries read back from a spill file.
+     */
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(int side, int index, Object key) throws IOException;
+    }
+
+    /**
+     * The entries of both inputs whose keys hash to one partition.
+     */
+    private static final class Partition {
+        private final Side[] sides = {new Side(), new Side()}; // Entries of the left and right input
+        private long bytes;                                    // Estimated heap use of the entries in memory
+        private long spilledBytes;                             // Estimated heap use of the entries in the spill file
+        private File spillFile;                                // Where the entries go once spilled, else null
+        private DataOutputStream spill;                        // Open while entries are still being added
+        private Partitions split;                              // The partitions a large spilled partition was split into, else null
+        private long[] pairs;                                  // The joined (left index, right index) pairs, once joined
+        private int next;                                      // The first pair not yet handed out
+
+        // Adds an entry and returns the heap it took
+        long add(int side, int index, Object key) throws IOException {
+            long size = entryBytes(key);
+            if (spill != null) {
+                writeEntry(spill, side, index, key);
+                spilledBytes += size;
+                return 0;
+            }
+            sides[side].add(index, key);
+            bytes += size;
+            return size;
+        }
+
+        void spill(File folder) throws IOException {
+            spillFile = File.createTempFile("join-", ".spill", folder);
+            spill = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+            for (int side = 0; side < sides.length; side++) {
+                for (int e = 0; e < sides[side].size; e++) {
+                    writeEntry(spill, side, sides[side].indexes[e], sides[side].keys[e]);
+                }
+            }
+            spilledBytes = bytes;
+            clear();
+        }
+
+        // Reads the spilled entries back in the order they were added: left entries, then right ones, by index
+        void read(EntryConsumer consumer) throws IOException {
+            if (spill != null) {
+                spill.close();
+                spill = null;
+            }
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)))) {
+                for (Object key = JoinKey.read(input); key != null; key = JoinKey.read(input)) {
+                    int side = input.readByte();
+                    consumer.accept(side, input.readInt(), key);
+                }
+            }
+        }
+
+        // Joins the entries in memory, building on the smaller side; pairs come out in nested-loop order
+        long[] join() {
+            Side left = sides[0];
+            Side right = sides[1];
+            boolean buildLeft = left.size < right.size;
+            Side build = buildLeft ? left : right;
+            Side probe = buildLeft ? right : left;
+
+            // Chain the build entries with equal keys; built backwards so each chain runs in entry order
+            Map<Object, Integer> heads = new HashMap<>();
+            int[] chain = new int[build.size];
+            for (int e = build.size - 1; e >= 0; e--) {
+                Integer head = heads.put(build.keys[e], e);
+                chain[e] = head == null ? -1 : head;
+            }
+
+            // Matches as (build entry, probe entry), in probe order
+            int[] builds = new int[16];
+            int[] probes = new int[16];
+            int count = 0;
+            for (int e = 0; e < probe.size; e++) {
+                Integer head = heads.get(probe.keys[e]);
+                for (int match = head == null ? -1 : head; match >= 0; match = chain[match]) {
+                    if (count == builds.length) {
+                        builds = Arrays.copyOf(builds, count * 2);
+                        probes = Arrays.copyOf(probes, count * 2);
+                    }
+                    builds[count] = match;
+                    probes[count] = e;
+                    count++;
+                }
+            }
+
+            long[] joined = new long[count];
+            if (!buildLeft) {
+                // The left entries were probed in order, so the matches are already in nested-loop order
+                for (int m = 0; m < count; m++) {
+                    joined[m] = (long) probe.indexes[probes[m]] << 32 | build.indexes[builds[m]];
+                }
+            } else {
+                // Group the matches by left entry with a counting sort, keeping the right entries in order
+                int[] starts = new int[build.size + 1];
+                for (int m = 0; m < count; m++) {
+                    starts[builds[m] + 1]++;
+                }
+                for (int e = 0; e < build.size; e++) {
+                    starts[e + 1] += starts[e];
+                }
+                for (int m = 0; m < count; m++) {
+                    joined[starts[builds[m]]++] = (long) build.indexes[builds[m]] << 32 | probe.indexes[probes[m]];
+                }
+            }
+            return joined;
+        }
+
+        // Joins the spilled entries a block of left entries at a time, reading the spill file once per block
+        long[] joinInBlocks(long memoryBudget) throws IOException {
+            long[] joined = new long[16];
+            int count = 0;
+            int first = 0;
+            BlockPass pass;
+            do {
+                pass = new BlockPass(first, memoryBudget);
+                read(pass);
+                long[] blockPairs = pass.finish();
+                if (count + blockPairs.length > joined.length) {
+                    joined = Arrays.copyOf(joined, Math.max(joined.length * 2, count + blockPairs.length));
+                }
+                System.arraycopy(blockPairs, 0, joined, count, blockPairs.length);
+                count += blockPairs.length;
+                first += pass.block.size;
+            } while (pass.full);
+            return Arrays.copyOf(joined, count);
+        }
+
+        void clear() {
+            sides[0] = new Side();
+            sides[1] = new Side();
+            bytes = 0;
+        }
+
+        void deleteSpillFile() throws IOException {
+            if (spill != null) {
+                spill.close();
+                spill = null;
+            }
+            if (spillFile != null) {
+                spillFile.delete();
+            }
+        }
+
+        private static void writeEntry(DataOutputStream output, int side, int index, Object key) throws IOException {
+            JoinKey.write(output, key);
+            output.writeByte(side);
+            output.writeInt(index);
+        }
+    }
+
+    // Rough heap cost of one entry while partitioned
+    private static long entryBytes(Object key) {
+        return ENTRY_BYTES + (key instanceof String ? 2L * ((String) key).length() : 0);
+    }
+
+    /**
+     * One pass of a block nested loop over a spill file: collects the block of left entries starting at
+     * a given one, as many as fit the budget, then matches each right entry against them as it is read.
+     * The left entries come first in the file, so the block is complete before the first right entry.
+     */
+    private static final class BlockPass implements EntryConsumer {
+        private final int first;                                    // Number of left entries joined by earlier passes
+        private final long memoryBudget;                            // Bytes of left entries the block may hold
+        private final Side block = new Side();                      // The block's left entries, in input order
+        private final Map<Object, Integer> heads = new HashMap<>(); // First block entry of each key, once hashed
+        private int[] chain;                                        // Next block entry with the same key, or -1
+        private long bytes;                                         // Estimated heap use of the block
+        private int leftSeen;                                       // Left entries read so far in this pass
+        private boolean full;                                       // Whether left entries were left for a later pass
+        private int[] builds = new int[16];                         // Block entry of each match, in right-entry order
+        private int[] rightIndexes = new int[16];                   // Right row index of each match
+        private int count;                                          // Number of matches
+
+        BlockPass(int first, long memoryBudget) {
+            this.first = first;
+            this.memoryBudget = memoryBudget;
+        }
+
+        @Override
+        public void accept(int side, int index, Object key) {
+            if (side == 0) {
+                long size = entryBytes(key);
+                if (leftSeen++ < first) {
+                    return;
+                }
+                if (full || block.size > 0 && bytes + size > memoryBudget) {
+                    full = true; // Every block takes at least one entry, so each pass makes progress
+                    return;
+                }
+                block.add(index, key);
+                bytes += size;
+                return;
+            }
+
+            if (chain == null) {
+                // Chain the entries with equal keys; built backwards so each chain runs in entry order
+                chain = new int[block.size];
+                for (int e = block.size - 1; e >= 0; e--) {
+                    Integer head = heads.put(block.keys[e], e);
+                    chain[e] = head == null ? -1 : head;
+                }
+            }
+            Integer head = heads.get(key);
+            for (int match = head == null ? -1 : head; match >= 0; match = chain[match]) {
+                if (count == builds.length) {
+                    builds = Arrays.copyOf(builds, count * 2);
+                    rightIndexes = Arrays.copyOf(rightIndexes, count * 2);
+                }
+                builds[count] = match;
+                rightIndexes[count] = index;
+                count++;
+            }
+        }
+
+        // The block's pairs in nested-loop order, grouped by left entry with a counting sort
+        long[] finish() {
+            int[] starts = new int[block.size + 1];
+            for (int m = 0; m < count; m++) {
+                starts[builds[m] + 1]++;
+            }
+            for (int e = 0; e < block.size; e++) {
+                starts[e + 1] += starts[e];
+            }
+            long[] joined = new long[count];
+            for (int m = 0; m < count; m++) {
+                joined[starts[builds[m]]++] = (long) block.indexes[builds[m]] << 32 | rightIndexes[m];
+            }
+            return joined;
+        }
+    }
+
+    /**
+     * The entries of one input in a partition, in input order.
+     */
+    private static final class Side {
+        private int[] indexes = new int[16];       // Row index of each entry in its input
+        private Object[] keys = new Object[16];    // Join key of each entry
+        private int size;                          // Number of entries
+
+        void add(int index, Object key) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            indexes[size] = index;
+            keys[size] = key;
+            size++;
+        }
+    }
+}
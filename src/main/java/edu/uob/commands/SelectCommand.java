@@ -1,5 +1,6 @@
 package edu.uob.commands;
 
+import edu.uob.conditions.BatchFilter;
 import edu.uob.conditions.Condition;
 import edu.uob.models.Column;
 import edu.uob.models.Database;
@@ -7,9 +8,11 @@ import edu.uob.models.QueryResult;
 import edu.uob.models.Row;
 import edu.uob.models.Table;
 import edu.uob.storage.DBManager;
+import edu.uob.storage.TableFileIO;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Handles the SQL `SELECT` command for retrieving data from a table.
@@ -86,14 +89,44 @@ public class SelectCommand extends Command {
             }
             QueryResult result = new QueryResult(columnNames);
 
-            // Iterate through rows and filter based on the condition
-            for (Row row : table.getRows()) {
-                if (condition == null || condition.evaluate(table, row)) {
-                    List<String> resultRow = new ArrayList<>();
-                    for (int colIndex : columnIndexes) {
-                        resultRow.add(row.getValue(colIndex));
+            if (table.canScanInPlace()) {
+                // Rows still on disk: scan the mapped file, decoding only the cells that are tested or returned
+                Predicate<Row> matches = condition == null ? row -> true : condition.compile(table);
+                TableFileIO.scanMapped(table, dbManager.getDatabasePath(currentDb.getName()), row -> {
+                    if (matches.test(row)) {
+                        List<String> resultRow = new ArrayList<>();
+                        for (int colIndex : columnIndexes) {
+                            resultRow.add(row.getValue(colIndex));
+                        }
+                        result.addRow(resultRow);
+                    }
+                });
+            } else {
+                // A columnar table whose rows are all on disk is read one column block at a time, just the columns named here
+                Table scanned = dbManager.readColumns(table, namedColumns(columnNames));
+                if (scanned != null) {
+                    columnIndexes.clear();
+                    for (String columnName : columnNames) {
+                        columnIndexes.add(scanned.getColumnIndex(columnName));
+                    }
+                } else {
+                    scanned = table;
+                }
+
+                // Resident rows: filter a batch at a time, in parallel morsels on large tables, and project the selected rows
+                BatchFilter filter = condition == null ? null : condition.compileBatch(scanned);
+                List<List<List<String>>> parts = MorselScan.scan(scanned, filter, dbManager.getScanParallelism(),
+                        ArrayList::new, (part, batch, i) -> {
+                            List<String> resultRow = new ArrayList<>(columnIndexes.size());
+                            for (int colIndex : columnIndexes) {
+                                resultRow.add(batch.getValue(i, colIndex));
+                            }
+                            part.add(resultRow);
+                        });
+                for (List<List<String>> part : parts) {
+                    for (List<String> resultRow : part) {
+                        result.addRow(resultRow);
                     }
-                    result.addRow(resultRow);
                 }
             }
 
@@ -102,4 +135,13 @@ public class SelectCommand extends Command {
             throw new RuntimeException("Error: " + e.getMessage());
         }
     }
+
+    // The columns the query returns or tests
+    private List<String> namedColumns(List<String> columnNames) {
+        List<String> named = new ArrayList<>(columnNames);
+        if (condition != null) {
+            named.addAll(condition.getAttributeNames());
+        }
+        return named;
+    }
 }
@@ -0,0 +1,41 @@
+package edu.uob.commands;
+
+import edu.uob.models.QueryResult;
+import edu.uob.storage.DBManager;
+
+/**
+ * Handles the `SET PARALLELISM` command, which sets how many threads one scan of a resident
+ * table may use in `SELECT`, `UPDATE`, `DELETE` and `JOIN`. A value of 1 makes every scan serial.
+ *
+ * Example: `SET PARALLELISM 4;`
+ */
+public class SetParallelismCommand extends Command {
+    private int parallelism; // The most threads one scan may use
+
+    /**
+     * Constructs a `SET PARALLELISM` command.
+     *
+     * @param parallelism The most threads one scan may use.
+     */
+    public SetParallelismCommand(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Executes the `SET PARALLELISM` command.
+     * The setting applies to every later statement of the same server, until it is set again; other servers keep their own.
+     *
+     * @param dbManager The database manager handling the operation.
+     * @return An empty QueryResult indicating success.
+     * @throws RuntimeException if the value is less than 1.
+     */
+    @Override
+    public QueryResult execute(DBManager dbManager) {
+        try {
+            dbManager.setScanParallelism(parallelism);
+            return new QueryResult();
+        } catch (Exception e) {
+            throw new RuntimeException("Error: " + e.getMessage());
+        }
+    }
+}
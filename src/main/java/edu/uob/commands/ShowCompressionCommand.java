@@ -0,0 +1,52 @@
+package edu.uob.commands;
+
+import edu.uob.models.Database;
+import edu.uob.models.QueryResult;
+import edu.uob.models.Table;
+import edu.uob.storage.DBManager;
+
+/**
+ * Handles the `SHOW COMPRESSION` command, which reports how much disk space a table's file
+ * takes compared with its plain text size.
+ *
+ * Example: `SHOW COMPRESSION marks;`
+ */
+public class ShowCompressionCommand extends Command {
+    private String tableName; // Name of the table to report on
+
+    /**
+     * Constructs a `SHOW COMPRESSION` command.
+     *
+     * @param tableName The name of the table to report on.
+     */
+    public ShowCompressionCommand(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * Executes the `SHOW COMPRESSION` command.
+     *
+     * @param dbManager The database manager handling the operation.
+     * @return A `QueryResult` with the table's format, raw and stored sizes in bytes and compression ratio.
+     * @throws RuntimeException if no database is selected, the table does not exist,
+     *                          or the table file cannot be read.
+     */
+    @Override
+    public QueryResult execute(DBManager dbManager) {
+        try {
+            Database currentDb = dbManager.getCurrentDatabase();
+            if (currentDb == null) {
+                throw new RuntimeException("No database selected");
+            }
+
+            Table table = currentDb.getTable(tableName);
+            if (table == null) {
+                throw new RuntimeException("Table does not exist: " + tableName);
+            }
+
+            return dbManager.getCompressionReport(tableName);
+        } catch (Exception e) {
+            throw new RuntimeException("Error: " + e.getMessage());
+        }
+    }
+}
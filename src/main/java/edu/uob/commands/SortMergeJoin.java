@@ -0,0 +1,421 @@
+package edu.uob.commands;
+
+import edu.uob.models.Row;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.function.BiConsumer;
+
+/**
+ * Inner equi-join of two inputs read in {@link JoinKey} order.
+ * An input whose join column is already in key order, as the `id` column always is, is read
+ * straight through; any other input is first put in key order by sorting its keys, each with the
+ * position of its row, in runs of {@link #RUN_ENTRIES} keys that are spilled to the database folder
+ * and merged back. Only the keys are spilled: the rows are looked up by position in the input, so an
+ * input without fast positional access is copied into a list of row references first. The join then
+ * merges the two inputs, buffering only the inner rows of one key at a time.
+ *
+ * Pairs come out in nested-loop order, left row first. When the left input is in key order that is
+ * the merge order, and pairs are handed out as they are found; otherwise their positions are sorted
+ * back into left-row order the same way before any is handed out.
+ */
+final class SortMergeJoin {
+    // Keys sorted in memory per run of the external sort (-Dedu.uob.join.sortRunEntries)
+    static final int RUN_ENTRIES = Math.max(2, Integer.getInteger("edu.uob.join.sortRunEntries", 1 << 18));
+
+    private static final Comparator<Entry> ENTRY_ORDER = (a, b) -> {
+        int order = JoinKey.compare(a.key, b.key);
+        return order != 0 ? order : Integer.compare(a.index, b.index);
+    };
+
+    private SortMergeJoin() {
+    }
+
+    /**
+     * Checks whether the join column of some rows is in key order, ignoring missing values.
+     * This reads every row; for a table's rows, {@link edu.uob.models.Table#isOrdered} remembers the answer.
+     *
+     * @param rows   The rows, in table order.
+     * @param column The join column.
+     * @return `true` if no key sorts before the one above it.
+     */
+    static boolean isOrdered(List<Row> rows, int column) {
+        Object previous = null;
+        for (Row row : rows) {
+            Object key = JoinKey.of(row.getValue(column));
+            if (key != null) {
+                if (previous != null && JoinKey.compare(previous, key) > 0) {
+                    return false;
+                }
+                previous = key;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Joins two lists of rows on one column each, comparing {@link JoinKey} keys.
+     *
+     * @param left        The outer rows.
+     * @param leftColumn  The join column of the outer rows.
+     * @param right       The inner rows.
+     * @param rightColumn The join column of the inner rows.
+     * @param leftOrdered  Whether the outer rows are already in key order, as {@link #isOrdered} reports.
+     * @param rightOrdered Whether the inner rows are already in key order, as {@link #isOrdered} reports.
+     * @param spillFolder The folder the runs of external sorts are written to.
+     * @param output      Receives each matching pair, left row first, in nested-loop order.
+     * @throws IOException if a run file cannot be written or read.
+     */
+    static void join(List<Row> left, int leftColumn, List<Row> right, int rightColumn, boolean leftOrdered,
+                     boolean rightOrdered, File spillFolder, BiConsumer<Row, Row> output) throws IOException {
+        List<File> spillFiles = new ArrayList<>();
+        try {
+            Cursor leftCursor = leftOrdered ? new RowCursor(left, leftColumn) : sorted(left, leftColumn, spillFolder, spillFiles);
+            Cursor rightCursor = rightOrdered
+                    ? new RowCursor(right, rightColumn)
+                    : sorted(right, rightColumn, spillFolder, spillFiles);
+
+            if (leftOrdered) {
+                merge(leftCursor, rightCursor, output, null);
+                return;
+            }
+
+            // Pairs come out in key order; sort them by left index, then right index, and look the rows up
+            List<Row> leftRows = leftCursor.rows();
+            List<Row> rightRows = rightCursor instanceof RowCursor ? byPosition(right) : rightCursor.rows();
+            Sorter pairs = new Sorter(spillFolder, spillFiles);
+            merge(leftCursor, rightCursor, null, (leftIndex, rightIndex) -> pairs.add((double) leftIndex, rightIndex));
+            Cursor ordered = pairs.finish(null);
+            while (ordered.next()) {
+                output.accept(leftRows.get(((Double) ordered.key()).intValue()), rightRows.get(ordered.index()));
+            }
+        } finally {
+            for (File file : spillFiles) {
+                file.delete();
+            }
+        }
+    }
+
+    // Merges two cursors in key order; pairs go to `indexes` if given, otherwise to `output` as rows
+    private static void merge(Cursor left, Cursor right, BiConsumer<Row, Row> output, PairSink indexes)
+            throws IOException {
+        boolean hasLeft = left.next();
+        boolean hasRight = right.next();
+        List<Row> groupRows = new ArrayList<>();
+        List<Integer> groupIndexes = new ArrayList<>();
+        while (hasLeft && hasRight) {
+            int order = JoinKey.compare(left.key(), right.key());
+            if (order < 0) {
+                hasLeft = left.next();
+            } else if (order > 0) {
+                hasRight = right.next();
+            } else {
+                // Buffer the right rows with this key, then pair each left row with them
+                Object key = right.key();
+                groupRows.clear();
+                groupIndexes.clear();
+                do {
+                    groupRows.add(right.row());
+                    groupIndexes.add(right.index());
+                    hasRight = right.next();
+                } while (hasRight && JoinKey.compare(right.key(), key) == 0);
+                do {
+                    for (int g = 0; g < groupIndexes.size(); g++) {
+                        if (indexes != null) {
+                            indexes.accept(left.index(), groupIndexes.get(g));
+                        } else {
+                            output.accept(left.row(), groupRows.get(g));
+                        }
+                    }
+                    hasLeft = left.next();
+                } while (hasLeft && JoinKey.compare(left.key(), key) == 0);
+            }
+        }
+    }
+
+    private static Cursor sorted(List<Row> rows, int column, File spillFolder, List<File> spillFiles)
+            throws IOException {
+        List<Row> byPosition = byPosition(rows);
+        Sorter sorter = new Sorter(spillFolder, spillFiles);
+        int index = 0;
+        for (Row row : rows) {
+            Object key = JoinKey.of(row.getValue(column));
+            if (key != null) {
+                sorter.add(key, index);
+            }
+            index++;
+        }
+        return sorter.finish(byPosition);
+    }
+
+    // The rows themselves if they have fast positional access, otherwise a list of references to them
+    private static List<Row> byPosition(List<Row> rows) {
+        return rows instanceof RandomAccess ? rows : new ArrayList<>(rows);
+    }
+
+    /**
+     * Receives the input indexes of a matching pair.
+     */
+    @FunctionalInterface
+    private interface PairSink {
+        void accept(int leftIndex, int rightIndex) throws IOException;
+    }
+
+    /**
+     * One input of the merge, positioned on one key at a time in key order.
+     */
+    private interface Cursor {
+        // Moves to the next key; false once there are none left
+        boolean next() throws IOException;
+
+        Object key();
+
+        // Position of the current row in its input
+        int index();
+
+        Row row();
+
+        // The input's rows by index, or null when reading rows directly
+        List<Row> rows();
+    }
+
+    /**
+     * Reads rows that are already in key order, skipping missing keys.
+     */
+    private static final class RowCursor implements Cursor {
+        private final Iterator<Row> rows; // The rows still to read
+        private final int column;         // The join column
+        private Row row;                  // The current row
+        private Object key;               // Its key
+        private int index = -1;           // Its position in the input
+
+        RowCursor(List<Row> rows, int column) {
+            this.rows = rows.iterator();
+            this.column = column;
+        }
+
+        @Override
+        public boolean next() {
+            while (rows.hasNext()) {
+                row = rows.next();
+                index++;
+                key = JoinKey.of(row.getValue(column));
+                if (key != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+
+        @Override
+        public int index() {
+            return index;
+        }
+
+        @Override
+        public Row row() {
+            return row;
+        }
+
+        @Override
+        public List<Row> rows() {
+            return null;
+        }
+    }
+
+    /**
+     * A key and the position of its row, as sorted by the external sort.
+     */
+    private static final class Entry {
+        private final Object key;
+        private final int index;
+
+        Entry(Object key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+
+    /**
+     * External merge sort of entries by key, then index: full runs are sorted and written to files,
+     * and the files are merged when read back.
+     */
+    private static final class Sorter {
+        private final File folder;           // Where runs are written
+        private final List<File> spillFiles; // Every file written, deleted by the join when done
+        private final List<File> runs;       // This sort's run files
+        private List<Entry> run;             // Entries not yet written
+
+        Sorter(File folder, List<File> spillFiles) {
+            this.folder = folder;
+            this.spillFiles = spillFiles;
+            this.runs = new ArrayList<>();
+            this.run = new ArrayList<>();
+        }
+
+        void add(Object key, int index) throws IOException {
+            run.add(new Entry(key, index));
+            if (run.size() >= RUN_ENTRIES) {
+                writeRun();
+            }
+        }
+
+        // Finishes the sort; `rows` are the input rows by index, or null if the entries stand for none
+        Cursor finish(List<Row> rows) throws IOException {
+            if (runs.isEmpty()) {
+                run.sort(ENTRY_ORDER);
+                return new EntryCursor(run.iterator(), rows);
+            }
+            if (!run.isEmpty()) {
+                writeRun();
+            }
+            return new RunMerger(runs, rows);
+        }
+
+        private void writeRun() throws IOException {
+            run.sort(ENTRY_ORDER);
+            File file = File.createTempFile("join-", ".run", folder);
+            spillFiles.add(file);
+            runs.add(file);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                for (Entry entry : run) {
+                    JoinKey.write(output, entry.key);
+                    output.writeInt(entry.index);
+                }
+            }
+            run = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reads sorted entries held in memory.
+     */
+    private static class EntryCursor implements Cursor {
+        private final Iterator<Entry> entries; // The entries still to read
+        private final List<Row> rows;          // The input rows by index, or null
+        private Entry entry;                   // The current entry
+
+        EntryCursor(Iterator<Entry> entries, List<Row> rows) {
+            this.entries = entries;
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (!entries.hasNext()) {
+                return false;
+            }
+            entry = entries.next();
+            return true;
+        }
+
+        @Override
+        public Object key() {
+            return entry.key;
+        }
+
+        @Override
+        public int index() {
+            return entry.index;
+        }
+
+        @Override
+        public Row row() {
+            return rows.get(entry.index);
+        }
+
+        @Override
+        public List<Row> rows() {
+            return rows;
+        }
+    }
+
+    /**
+     * Merges sorted run files, reading one entry of each at a time.
+     */
+    private static final class RunMerger extends EntryCursor {
+        RunMerger(List<File> runs, List<Row> rows) throws IOException {
+            super(mergedEntries(runs), rows);
+        }
+
+        private static Iterator<Entry> mergedEntries(List<File> runs) throws IOException {
+            PriorityQueue<RunReader> heads = new PriorityQueue<>((a, b) -> ENTRY_ORDER.compare(a.head, b.head));
+            for (File run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+            return new Iterator<Entry>() {
+                @Override
+                public boolean hasNext() {
+                    return !heads.isEmpty();
+                }
+
+                @Override
+                public Entry next() {
+                    RunReader reader = heads.poll();
+                    Entry entry = reader.head;
+                    try {
+                        if (reader.advance()) {
+                            heads.add(reader);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return entry;
+                }
+            };
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            try {
+                return super.next();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Reads the entries of one run file in order.
+     */
+    private static final class RunReader {
+        private final DataInputStream input; // The open run file
+        private Entry head;                  // The entry last read
+
+        RunReader(File file) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        }
+
+        // Reads the next entry; closes the file and returns false at its end
+        boolean advance() throws IOException {
+            Object key = JoinKey.read(input);
+            if (key == null) {
+                input.close();
+                return false;
+            }
+            head = new Entry(key, input.readInt());
+            return true;
+        }
+    }
+}
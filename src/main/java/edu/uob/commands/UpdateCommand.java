@@ -1,15 +1,17 @@
 package edu.uob.commands;
 
+import edu.uob.conditions.BatchFilter;
 import edu.uob.conditions.Condition;
 import edu.uob.models.Database;
 import edu.uob.models.QueryResult;
-import edu.uob.models.Row;
 import edu.uob.models.Table;
 import edu.uob.storage.DBManager;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Handles the SQL `UPDATE` command for modifying existing rows in a table.
@@ -68,17 +70,15 @@ public class UpdateCommand extends Command {
             }
 
             // Identify rows that match the condition
-            List<Integer> updatedRowIds = new ArrayList<>();
-            for (Row row : table.getRows()) {
-                if (condition == null || condition.evaluate(table, row)) {
-                    updatedRowIds.add(row.getId());
-                }
+            BatchFilter filter = condition == null ? null : condition.compileBatch(table);
+            Set<Integer> updatedRowIds = new HashSet<>();
+            for (List<Integer> part : MorselScan.scan(table, filter, dbManager.getScanParallelism(),
+                    ArrayList<Integer>::new, (ids, batch, i) -> ids.add(batch.getId(i)))) {
+                updatedRowIds.addAll(part);
             }
 
-            // Apply updates to the selected rows
-            for (int rowId : updatedRowIds) {
-                dbManager.updateRow(table, rowId, assignments);
-            }
+            // Apply updates to the selected rows in a single pass
+            dbManager.updateRows(table, updatedRowIds, assignments);
 
             return new QueryResult(); // Return an empty QueryResult to indicate success
         } catch (Exception e) {
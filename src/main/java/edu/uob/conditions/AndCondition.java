@@ -1,7 +1,10 @@
 package edu.uob.conditions;
 
 import edu.uob.models.Row;
-import edu.uob.models.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Represents a logical "AND" condition used in SQL queries.
@@ -25,15 +28,50 @@ public class AndCondition extends Condition {
     }
 
     /**
-     * Evaluates the `AND` condition on a given row.
+     * Compiles the `AND` condition for a table.
      * The condition is true only if both the left and right conditions evaluate to true.
      *
-     * @param table The table to which the row belongs.
-     * @param row   The row being evaluated.
-     * @return `true` if both conditions are met, otherwise `false`.
+     * @param columns The columns of the rows that will be tested.
+     * @return A predicate that is `true` if both conditions are met.
+     */
+    @Override
+    public Predicate<Row> compile(ColumnBinding columns) {
+        return left.compile(columns).and(right.compile(columns));
+    }
+
+    /**
+     * Compiles the `AND` condition for batch scans: the right condition only tests the rows
+     * the left one kept, and is skipped if it kept none.
+     *
+     * @param columns The columns of the rows that will be tested.
+     * @return A filter that narrows the selection of a batch of the table's rows.
+     */
+    @Override
+    public BatchFilter compileBatch(ColumnBinding columns) {
+        return left.compileBatch(columns).and(right.compileBatch(columns));
+    }
+
+    /**
+     * Splits the `AND` condition into the parts of both its operands.
+     *
+     * @return The parts of the left condition followed by those of the right one.
+     */
+    @Override
+    public List<Condition> conjuncts() {
+        List<Condition> conjuncts = new ArrayList<>(left.conjuncts());
+        conjuncts.addAll(right.conjuncts());
+        return conjuncts;
+    }
+
+    /**
+     * Lists the columns named in both subconditions.
+     *
+     * @return The column names, left condition first, as written in the conditions.
      */
     @Override
-    public boolean evaluate(Table table, Row row) {
-        return left.evaluate(table, row) && right.evaluate(table, row);
+    public List<String> getAttributeNames() {
+        List<String> names = new ArrayList<>(left.getAttributeNames());
+        names.addAll(right.getAttributeNames());
+        return names;
     }
 }
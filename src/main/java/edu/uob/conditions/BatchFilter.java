@@ -0,0 +1,126 @@
+package edu.uob.conditions;
+
+import edu.uob.models.Row;
+import edu.uob.models.RowBatch;
+
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A condition compiled to test a whole {@link RowBatch} at once.
+ * The rows to test arrive as a selection bitmap, one bit per row of the batch (bit `i % 64` of
+ * word `i / 64`), and the filter clears the bits of the rows that do not match. AND and OR combine
+ * their children with word-wise operations on these bitmaps, and a child is skipped for a batch
+ * once no row is left for it to decide.
+ */
+@FunctionalInterface
+public interface BatchFilter {
+
+    /**
+     * Narrows a selection to the rows that match.
+     *
+     * @param batch     The rows being scanned.
+     * @param selection The rows to test; on return, only those that match are still set.
+     */
+    void filter(RowBatch batch, long[] selection);
+
+    /**
+     * Combines this filter with another that only sees the rows this one kept.
+     *
+     * @param other The filter applied second.
+     * @return A filter keeping the rows both filters keep.
+     */
+    default BatchFilter and(BatchFilter other) {
+        return (batch, selection) -> {
+            filter(batch, selection);
+            if (!isEmpty(selection)) {
+                other.filter(batch, selection);
+            }
+        };
+    }
+
+    /**
+     * Combines this filter with another that only sees the rows this one dropped.
+     *
+     * @param other The filter applied second.
+     * @return A filter keeping the rows either filter keeps.
+     */
+    default BatchFilter or(BatchFilter other) {
+        return (batch, selection) -> {
+            long[] rest = selection.clone();
+            filter(batch, selection);
+            boolean remaining = false;
+            for (int w = 0; w < rest.length; w++) {
+                rest[w] &= ~selection[w];
+                remaining |= rest[w] != 0;
+            }
+            if (remaining) {
+                other.filter(batch, rest);
+                for (int w = 0; w < rest.length; w++) {
+                    selection[w] |= rest[w];
+                }
+            }
+        };
+    }
+
+    /**
+     * Inverts this filter.
+     *
+     * @return A filter keeping the rows this one drops.
+     */
+    default BatchFilter negate() {
+        return (batch, selection) -> {
+            long[] matched = selection.clone();
+            filter(batch, matched);
+            for (int w = 0; w < selection.length; w++) {
+                selection[w] &= ~matched[w];
+            }
+        };
+    }
+
+    /**
+     * Adapts a row predicate, which is then tested on each selected row in turn.
+     *
+     * @param predicate The compiled condition.
+     * @return A filter with the same result.
+     */
+    static BatchFilter of(Predicate<Row> predicate) {
+        return (batch, selection) -> retain(selection, i -> predicate.test(batch.getRow(i)));
+    }
+
+    /**
+     * Clears the selected rows that fail a test.
+     *
+     * @param selection The selection to narrow.
+     * @param keep      Tests a row by its index in the batch.
+     */
+    static void retain(long[] selection, IntPredicate keep) {
+        for (int w = 0; w < selection.length; w++) {
+            long word = selection[w];
+            long kept = word;
+            while (word != 0) {
+                long bit = word & -word;
+                word ^= bit;
+                if (!keep.test((w << 6) + Long.numberOfTrailingZeros(bit))) {
+                    kept ^= bit;
+                }
+            }
+            selection[w] = kept;
+        }
+    }
+
+    /**
+     * Checks whether a selection has no rows left.
+     *
+     * @param selection The selection.
+     * @return `true` if no bit is set.
+     */
+    static boolean isEmpty(long[] selection) {
+        for (long word : selection) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
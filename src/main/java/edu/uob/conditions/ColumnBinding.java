@@ -0,0 +1,17 @@
+package edu.uob.conditions;
+
+/**
+ * The columns a condition is compiled against: usually those of a table, but also, for example,
+ * the columns of several joined tables side by side.
+ */
+@FunctionalInterface
+public interface ColumnBinding {
+
+    /**
+     * Finds the index of a column in the rows that will be tested.
+     *
+     * @param columnName The column name, in any case.
+     * @return The column index, or -1 if there is no such column.
+     */
+    int getColumnIndex(String columnName);
+}
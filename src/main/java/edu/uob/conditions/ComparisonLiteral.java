@@ -0,0 +1,316 @@
+package edu.uob.conditions;
+
+/**
+ * The right-hand side of a comparison, parsed once when a condition is compiled.
+ * Cell values are compared with the same rules conditions have always used: `NULL` matches only
+ * missing cells, quoted strings compare as text, `TRUE`/`FALSE` compare as booleans, and anything
+ * else compares numerically (as floats if either side has a '.', otherwise as ints), falling back
+ * to text when either side is not a number. Whether a cell is a number is checked without
+ * throwing, so scans over text columns do not pay for exceptions.
+ *
+ * Cells stored in typed columns can be compared as primitives instead, with the same results:
+ * a typed cell's text is exactly what its type writes, so the rules above reduce to a primitive
+ * comparison whenever the literal is of a matching kind.
+ */
+final class ComparisonLiteral {
+    private static final long NOT_AN_INT = Long.MIN_VALUE; // parseInt result for text that is not an int
+
+    private enum Kind { NULL, STRING, BOOLEAN, UNQUOTED }
+
+    /**
+     * The comparisons a literal supports.
+     */
+    enum Op { EQUAL, GREATER, LESS }
+
+    private final Kind kind;        // How the literal compares
+    private final String text;      // The literal without quotes
+    private final boolean hasDot;   // Whether an unquoted literal forces float comparison
+    private final boolean isInt;    // Whether an unquoted literal parses as an int
+    private final int intValue;     // Its int value, if it has one
+    private final boolean isFloat;  // Whether an unquoted literal parses as a float
+    private final float floatValue; // Its float value, if it has one
+
+    private ComparisonLiteral(Kind kind, String text) {
+        this.kind = kind;
+        this.text = text;
+        this.hasDot = text.contains(".");
+        long parsedInt = kind == Kind.UNQUOTED ? parseInt(text) : NOT_AN_INT;
+        this.isInt = parsedInt != NOT_AN_INT;
+        this.intValue = (int) parsedInt;
+        this.isFloat = kind == Kind.UNQUOTED && isFloat(text);
+        this.floatValue = isFloat ? Float.parseFloat(text) : 0f;
+    }
+
+    /**
+     * Parses a literal as written in a condition.
+     *
+     * @param value The literal: `NULL`, a single-quoted string, `TRUE`, `FALSE`, or a number.
+     * @return The parsed literal.
+     */
+    static ComparisonLiteral parse(String value) {
+        if (value.equals("NULL")) {
+            return new ComparisonLiteral(Kind.NULL, value);
+        } else if (value.startsWith("'") && value.endsWith("'")) {
+            return new ComparisonLiteral(Kind.STRING, value.substring(1, value.length() - 1));
+        } else if (value.equals("TRUE") || value.equals("FALSE")) {
+            return new ComparisonLiteral(Kind.BOOLEAN, value);
+        }
+        return new ComparisonLiteral(Kind.UNQUOTED, value);
+    }
+
+    /**
+     * Compares a cell with the literal.
+     *
+     * @param op       The comparison.
+     * @param rowValue The cell value, or `null` if missing.
+     * @return `true` if the cell is equal to, greater than or less than the literal, as `op` asks.
+     */
+    boolean test(Op op, String rowValue) {
+        switch (op) {
+            case EQUAL:
+                return isEqual(rowValue);
+            case GREATER:
+                return isGreater(rowValue);
+            default:
+                return isLess(rowValue);
+        }
+    }
+
+    /**
+     * Checks whether int cells can be compared with {@link #testInt}.
+     *
+     * @return `true` if the literal is a number that int cells compare with numerically.
+     */
+    boolean comparesInts() {
+        return kind == Kind.UNQUOTED && (hasDot ? isFloat : isInt);
+    }
+
+    /**
+     * Compares an int cell with the literal, as a float if the literal has a '.'.
+     *
+     * @param op   The comparison.
+     * @param cell The cell value.
+     * @return The result {@link #test} gives for the cell's text.
+     */
+    boolean testInt(Op op, int cell) {
+        if (hasDot) {
+            return testFloat(op, cell);
+        }
+        switch (op) {
+            case EQUAL:
+                return cell == intValue;
+            case GREATER:
+                return cell > intValue;
+            default:
+                return cell < intValue;
+        }
+    }
+
+    /**
+     * Checks whether float cells can be compared with {@link #testFloat}.
+     *
+     * @return `true` if the literal is a number.
+     */
+    boolean comparesFloats() {
+        return kind == Kind.UNQUOTED && isFloat;
+    }
+
+    /**
+     * Compares a float cell with the literal.
+     *
+     * @param op   The comparison.
+     * @param cell The cell value.
+     * @return The result {@link #test} gives for the cell's text.
+     */
+    boolean testFloat(Op op, float cell) {
+        switch (op) {
+            case EQUAL:
+                return cell == floatValue;
+            case GREATER:
+                return cell > floatValue;
+            default:
+                return cell < floatValue;
+        }
+    }
+
+    /**
+     * Checks whether boolean cells can be compared with {@link #testBoolean}.
+     *
+     * @return `true` if the literal is `TRUE` or `FALSE`.
+     */
+    boolean comparesBooleans() {
+        return kind == Kind.BOOLEAN;
+    }
+
+    /**
+     * Compares a boolean cell with the literal, TRUE being greater than FALSE.
+     *
+     * @param op   The comparison.
+     * @param cell The cell value.
+     * @return The result {@link #test} gives for the cell's text.
+     */
+    boolean testBoolean(Op op, boolean cell) {
+        boolean literalTrue = text.equals("TRUE");
+        switch (op) {
+            case EQUAL:
+                return cell == literalTrue;
+            case GREATER:
+                return cell && !literalTrue;
+            default:
+                return !cell && literalTrue;
+        }
+    }
+
+    /**
+     * Checks whether a cell equals the literal.
+     *
+     * @param rowValue The cell value, or `null` if missing.
+     * @return `true` if they are equal.
+     */
+    boolean isEqual(String rowValue) {
+        if (rowValue == null) {
+            return kind == Kind.NULL;
+        }
+        switch (kind) {
+            case NULL:
+                return false;
+            case STRING:
+                return rowValue.equals(text);
+            case BOOLEAN:
+                return rowValue.equalsIgnoreCase(text);
+            default:
+                if (hasDot || rowValue.indexOf('.') >= 0) {
+                    return isFloat && isFloat(rowValue) ? Float.parseFloat(rowValue) == floatValue : rowValue.equals(text);
+                }
+                long rowInt = isInt ? parseInt(rowValue) : NOT_AN_INT;
+                return rowInt != NOT_AN_INT ? rowInt == intValue : rowValue.equals(text);
+        }
+    }
+
+    /**
+     * Checks whether a cell is greater than the literal.
+     *
+     * @param rowValue The cell value, or `null` if missing.
+     * @return `true` if the cell is greater; never for `NULL` on either side.
+     */
+    boolean isGreater(String rowValue) {
+        if (rowValue == null) {
+            return false;
+        }
+        switch (kind) {
+            case NULL:
+                return false;
+            case STRING:
+                return rowValue.compareTo(text) > 0;
+            case BOOLEAN:
+                // TRUE is greater than FALSE
+                return text.equals("FALSE") && rowValue.equalsIgnoreCase("TRUE");
+            default:
+                if (hasDot || rowValue.indexOf('.') >= 0) {
+                    return isFloat && isFloat(rowValue) ? Float.parseFloat(rowValue) > floatValue : rowValue.compareTo(text) > 0;
+                }
+                long rowInt = isInt ? parseInt(rowValue) : NOT_AN_INT;
+                return rowInt != NOT_AN_INT ? rowInt > intValue : rowValue.compareTo(text) > 0;
+        }
+    }
+
+    /**
+     * Checks whether a cell is less than the literal.
+     *
+     * @param rowValue The cell value, or `null` if missing.
+     * @return `true` if the cell is less; never for `NULL` on either side.
+     */
+    boolean isLess(String rowValue) {
+        if (rowValue == null) {
+            return false;
+        }
+        switch (kind) {
+            case NULL:
+                return false;
+            case STRING:
+                return rowValue.compareTo(text) < 0;
+            case BOOLEAN:
+                // FALSE is less than TRUE
+                return text.equals("TRUE") && rowValue.equalsIgnoreCase("FALSE");
+            default:
+                if (hasDot || rowValue.indexOf('.') >= 0) {
+                    return isFloat && isFloat(rowValue) ? Float.parseFloat(rowValue) < floatValue : rowValue.compareTo(text) < 0;
+                }
+                long rowInt = isInt ? parseInt(rowValue) : NOT_AN_INT;
+                return rowInt != NOT_AN_INT ? rowInt < intValue : rowValue.compareTo(text) < 0;
+        }
+    }
+
+    // The value Integer.parseInt would return, or NOT_AN_INT where it would throw
+    private static long parseInt(String s) {
+        int length = s.length();
+        if (length == 0) {
+            return NOT_AN_INT;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i = 1;
+            if (length == 1) {
+                return NOT_AN_INT;
+            }
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0) {
+                return NOT_AN_INT;
+            }
+            value = value * 10 + digit;
+            if (value > -(long) Integer.MIN_VALUE) {
+                return NOT_AN_INT;
+            }
+        }
+        if (!negative && value > Integer.MAX_VALUE) {
+            return NOT_AN_INT;
+        }
+        return negative ? -value : value;
+    }
+
+    // Whether Float.parseFloat accepts the text; only unusual spellings are left to it to decide
+    private static boolean isFloat(String s) {
+        int length = s.length();
+        int i = length > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        boolean digits = false;
+        boolean dot = false;
+        boolean simple = true;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                simple = false;
+            }
+        }
+        if (simple) {
+            return digits; // [sign] digits [. digits], with at least one digit
+        }
+        // Float.parseFloat trims blanks, then needs a number, NaN or Infinity after an optional sign
+        String trimmed = s.trim();
+        if (trimmed.isEmpty()) {
+            return false;
+        }
+        int start = trimmed.charAt(0) == '-' || trimmed.charAt(0) == '+' ? 1 : 0;
+        char first = start < trimmed.length() ? trimmed.charAt(start) : ' ';
+        char last = trimmed.charAt(trimmed.length() - 1);
+        if (!(first >= '0' && first <= '9' || first == '.' || first == 'N' || first == 'I')
+                || !(last >= '0' && last <= '9' || last == '.' || "fFdDNy".indexOf(last) >= 0)) {
+            return false; // Ordinary text
+        }
+        try {
+            Float.parseFloat(s); // Exponents, suffixes, hex and padded forms
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
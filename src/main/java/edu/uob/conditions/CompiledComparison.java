@@ -0,0 +1,133 @@
+package edu.uob.conditions;
+
+import edu.uob.models.BooleanColumn;
+import edu.uob.models.ColumnVector;
+import edu.uob.models.DictionaryColumn;
+import edu.uob.models.EncodedRow;
+import edu.uob.models.FloatColumn;
+import edu.uob.models.IntColumn;
+import edu.uob.models.Row;
+import edu.uob.models.RowBatch;
+import edu.uob.models.TypedColumn;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A comparison bound to one column, with its literal parsed.
+ * Rows of encoded tables are tested without decoding where possible: typed cells are compared
+ * as primitives, and on dictionary-encoded columns each distinct value is compared once and
+ * rows are then matched by their dictionary code. As a {@link BatchFilter}, it reads the
+ * column's vector once per batch and runs one tight loop over the selected positions.
+ */
+final class CompiledComparison implements Predicate<Row> {
+    private final int columnIndex;            // The column compared
+    private final ComparisonLiteral.Op op;    // The comparison made
+    private final ComparisonLiteral literal;  // The value compared against
+    private volatile CodeMatches codeMatches; // Result per dictionary code for the column last evaluated
+
+    /**
+     * Constructs a `CompiledComparison`.
+     *
+     * @param columnIndex The index of the column compared.
+     * @param op          The comparison made.
+     * @param literal     The value compared against.
+     */
+    CompiledComparison(int columnIndex, ComparisonLiteral.Op op, ComparisonLiteral literal) {
+        this.columnIndex = columnIndex;
+        this.op = op;
+        this.literal = literal;
+    }
+
+    @Override
+    public boolean test(Row row) {
+        if (row instanceof EncodedRow) {
+            EncodedRow encodedRow = (EncodedRow) row;
+            int position = encodedRow.getPosition();
+            TypedColumn typed = encodedRow.getTypedColumn(columnIndex);
+            if (typed != null) {
+                return testTyped(typed, position);
+            }
+            DictionaryColumn column = encodedRow.getDictionaryColumn(columnIndex);
+            if (column != null) {
+                return matchesCode(column, column.getCode(position));
+            }
+        }
+        return literal.test(op, row.getValue(columnIndex));
+    }
+
+    /**
+     * Narrows the selection of a batch to the rows that match, as a {@link BatchFilter}.
+     *
+     * @param batch     The rows being scanned.
+     * @param selection The rows to test; on return, only those that match are still set.
+     */
+    void filter(RowBatch batch, long[] selection) {
+        ColumnVector column = batch.getColumn(columnIndex);
+        if (column instanceof IntColumn && literal.comparesInts()) {
+            IntColumn ints = (IntColumn) column;
+            BatchFilter.retain(selection, i -> {
+                int position = batch.getPosition(i);
+                return ints.hasValue(position) ? literal.testInt(op, ints.getInt(position)) : literal.test(op, ints.get(position));
+            });
+        } else if (column instanceof FloatColumn && literal.comparesFloats()) {
+            FloatColumn floats = (FloatColumn) column;
+            BatchFilter.retain(selection, i -> {
+                int position = batch.getPosition(i);
+                return floats.hasValue(position) ? literal.testFloat(op, floats.getFloat(position)) : literal.test(op, floats.get(position));
+            });
+        } else if (column instanceof TypedColumn) {
+            TypedColumn typed = (TypedColumn) column;
+            BatchFilter.retain(selection, i -> testTyped(typed, batch.getPosition(i)));
+        } else if (column instanceof DictionaryColumn) {
+            DictionaryColumn dictionary = (DictionaryColumn) column;
+            BatchFilter.retain(selection, i -> matchesCode(dictionary, dictionary.getCode(batch.getPosition(i))));
+        } else if (column != null) {
+            BatchFilter.retain(selection, i -> literal.test(op, column.get(batch.getPosition(i))));
+        } else {
+            BatchFilter.retain(selection, i -> literal.test(op, batch.getValue(i, columnIndex)));
+        }
+    }
+
+    private boolean testTyped(TypedColumn column, int position) {
+        if (column.hasValue(position)) {
+            if (column instanceof IntColumn && literal.comparesInts()) {
+                return literal.testInt(op, ((IntColumn) column).getInt(position));
+            } else if (column instanceof FloatColumn && literal.comparesFloats()) {
+                return literal.testFloat(op, ((FloatColumn) column).getFloat(position));
+            } else if (column instanceof BooleanColumn && literal.comparesBooleans()) {
+                return literal.testBoolean(op, ((BooleanColumn) column).getBoolean(position));
+            }
+        }
+        return literal.test(op, column.get(position));
+    }
+
+    private boolean matchesCode(DictionaryColumn column, int code) {
+        CodeMatches cached = codeMatches;
+        if (cached == null || cached.column != column || code >= cached.matches.length) {
+            // The dictionary only grows, so the results for the codes seen so far stay valid
+            List<String> dictionary = column.getDictionary();
+            boolean[] matches = new boolean[dictionary.size()];
+            int known = cached != null && cached.column == column ? cached.matches.length : 0;
+            for (int c = 0; c < matches.length; c++) {
+                matches[c] = c < known ? cached.matches[c] : literal.test(op, dictionary.get(c));
+            }
+            cached = new CodeMatches(column, matches);
+            codeMatches = cached;
+        }
+        return cached.matches[code];
+    }
+
+    /**
+     * The result of the comparison for each code of one dictionary.
+     */
+    private static final class CodeMatches {
+        private final DictionaryColumn column;
+        private final boolean[] matches;
+
+        CodeMatches(DictionaryColumn column, boolean[] matches) {
+            this.column = column;
+            this.matches = matches;
+        }
+    }
+}
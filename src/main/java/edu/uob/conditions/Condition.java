@@ -3,18 +3,107 @@ package edu.uob.conditions;
 import edu.uob.models.Row;
 import edu.uob.models.Table;
 
+import java.util.List;
+import java.util.function.Predicate;
+
 /**
  * Abstract base class for representing conditions in SQL-like queries.
- * Subclasses must implement the `evaluate` method to define their specific condition logic.
+ * Subclasses implement `compile`, which binds the condition to a table once: column names are
+ * resolved to indexes and literals are parsed, so testing each row does no lookups or parsing.
+ * Conditions bind to a {@link ColumnBinding}, so rows that are not a table's, such as joined
+ * rows, can be tested too.
+ * Conditions can also be compiled to a {@link BatchFilter} that tests a batch of rows at once.
  */
 public abstract class Condition {
 
+    /**
+     * Binds the condition to a set of columns.
+     * The result must be compiled again after the columns change.
+     *
+     * @param columns The columns of the rows that will be tested.
+     * @return A predicate that tests one row.
+     * @throws RuntimeException if a column named in the condition does not exist.
+     */
+    public abstract Predicate<Row> compile(ColumnBinding columns);
+
+    /**
+     * Binds the condition to a table's current columns.
+     * The result must be compiled again after the table's columns change.
+     *
+     * @param table The table whose rows will be tested.
+     * @return A predicate that tests one row of the table.
+     * @throws RuntimeException if a column named in the condition does not exist.
+     */
+    public Predicate<Row> compile(Table table) {
+        return compile((ColumnBinding) table::getColumnIndex);
+    }
+
+    /**
+     * Binds the condition to a set of columns for batch-at-a-time scans.
+     * By default the row predicate is tested on each selected row; comparisons and the logical
+     * operators override this to work on whole batches.
+     *
+     * @param columns The columns of the rows that will be tested.
+     * @return A filter that narrows the selection of a batch of rows.
+     * @throws RuntimeException if a column named in the condition does not exist.
+     */
+    public BatchFilter compileBatch(ColumnBinding columns) {
+        return BatchFilter.of(compile(columns));
+    }
+
+    /**
+     * Binds the condition to a table's current columns for batch-at-a-time scans.
+     *
+     * @param table The table whose rows will be tested.
+     * @return A filter that narrows the selection of a batch of the table's rows.
+     * @throws RuntimeException if a column named in the condition does not exist.
+     */
+    public BatchFilter compileBatch(Table table) {
+        return compileBatch((ColumnBinding) table::getColumnIndex);
+    }
+
+    /**
+     * Splits the condition into parts that must all hold, so that each part can be tested as early
+     * as the columns it names allow, e.g. on one table of a join before the tables are joined.
+     *
+     * @return The operands of the condition's top-level `AND`s, or just the condition itself.
+     */
+    public List<Condition> conjuncts() {
+        return List.of(this);
+    }
+
+    /**
+     * Lists the columns the condition names, so a scan can read just those columns.
+     *
+     * @return The column names as written in the condition, possibly with repeats.
+     */
+    public abstract List<String> getAttributeNames();
+
     /**
      * Evaluates the condition on a given row of data.
+     * This compiles the condition on every call; scans should compile once and test each row.
      *
      * @param table The table to which the row belongs.
      * @param row   The row being evaluated.
      * @return `true` if the condition is met, otherwise `false`.
      */
-    public abstract boolean evaluate(Table table, Row row);
+    public boolean evaluate(Table table, Row row) {
+        return compile(table).test(row);
+    }
+
+    /**
+     * Resolves a column name against a set of columns.
+     *
+     * @param columns       The columns.
+     * @param attributeName The column name, in any case.
+     * @return The column index.
+     * @throws RuntimeException if the column does not exist.
+     */
+    protected static int bindColumn(ColumnBinding columns, String attributeName) {
+        int columnIndex = columns.getColumnIndex(attributeName);
+        if (columnIndex == -1) {
+            throw new RuntimeException("Column not found: " + attributeName);
+        }
+        return columnIndex;
+    }
 }
@@ -1,11 +1,14 @@
 package edu.uob.conditions;
 
 import edu.uob.models.Row;
-import edu.uob.models.Table;
+
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Represents an equality condition (`=`) in SQL-like queries.
  * Compares a specified column's value in a row to a given target value.
+ * On encoded tables, rows are matched by dictionary code or typed value without being decoded.
  */
 public class EqualsCondition extends Condition {
     private String attributeName; // The column name to evaluate
@@ -23,54 +26,39 @@ public class EqualsCondition extends Condition {
     }
 
     /**
-     * Evaluates the condition on a given row.
+     * Compiles the condition for a table.
      * Determines if the value in the specified column equals the provided value.
      *
-     * @param table The table containing the row.
-     * @param row   The row being evaluated.
-     * @return `true` if the column value matches the expected value, otherwise `false`.
+     * @param columns The columns of the rows that will be tested.
+     * @return A predicate that is `true` if the column value matches the expected value.
      * @throws RuntimeException if the specified column does not exist.
      */
     @Override
-    public boolean evaluate(Table table, Row row) {
-        int columnIndex = table.getColumnIndex(attributeName);
-        if (columnIndex == -1) {
-            throw new RuntimeException("Column not found: " + attributeName);
-        }
+    public Predicate<Row> compile(ColumnBinding columns) {
+        return new CompiledComparison(bindColumn(columns, attributeName), ComparisonLiteral.Op.EQUAL,
+                ComparisonLiteral.parse(value));
+    }
 
-        String rowValue = row.getValue(columnIndex);
-        if (rowValue == null) {
-            return value.equals("NULL");
-        }
+    /**
+     * Compiles the condition for batch scans, reading the column's vector directly.
+     *
+     * @param columns The columns of the rows that will be tested.
+     * @return A filter that narrows the selection of a batch of the table's rows.
+     * @throws RuntimeException if the specified column does not exist.
+     */
+    @Override
+    public BatchFilter compileBatch(ColumnBinding columns) {
+        return new CompiledComparison(bindColumn(columns, attributeName), ComparisonLiteral.Op.EQUAL,
+                ComparisonLiteral.parse(value))::filter;
+    }
 
-        // Handle different value types
-        if (value.equals("NULL")) {
-            return rowValue == null;
-        } else if (value.startsWith("'") && value.endsWith("'")) {
-            // String comparison (removes surrounding single quotes)
-            String stringValue = value.substring(1, value.length() - 1);
-            return rowValue.equals(stringValue);
-        } else if (value.equals("TRUE") || value.equals("FALSE")) {
-            // Boolean comparison
-            return rowValue.equalsIgnoreCase(value);
-        } else {
-            // Numeric comparison (handles both integers and floats)
-            try {
-                if (rowValue.contains(".") || value.contains(".")) {
-                    // Float comparison
-                    float rowFloat = Float.parseFloat(rowValue);
-                    float valueFloat = Float.parseFloat(value);
-                    return rowFloat == valueFloat;
-                } else {
-                    // Integer comparison
-                    int rowInt = Integer.parseInt(rowValue);
-                    int valueInt = Integer.parseInt(value);
-                    return rowInt == valueInt;
-                }
-            } catch (NumberFormatException e) {
-                // If not numeric, fallback to string comparison
-                return rowValue.equals(value);
-            }
-        }
+    /**
+     * Lists the column named in the condition.
+     *
+     * @return The column name, as written in the condition.
+     */
+    @Override
+    public List<String> getAttributeNames() {
+        return List.of(attributeName);
     }
 }
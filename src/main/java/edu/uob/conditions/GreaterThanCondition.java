@@ -1,7 +1,9 @@
 package edu.uob.conditions;
 
 import edu.uob.models.Row;
-import edu.uob.models.Table;
+
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Represents a `>` (greater than) condition in SQL-like queries.
@@ -23,53 +25,39 @@ public class GreaterThanCondition extends Condition {
     }
 
     /**
-     * Evaluates the condition on a given row.
+     * Compiles the condition for a table.
      * Determines if the value in the specified column is greater than the provided value.
      *
-     * @param table The table containing the row.
-     * @param row   The row being evaluated.
-     * @return `true` if the column value is greater, otherwise `false`.
+     * @param columns The columns of the rows that will be tested.
+     * @return A predicate that is `true` if the column value is greater.
      * @throws RuntimeException if the specified column does not exist.
      */
     @Override
-    public boolean evaluate(Table table, Row row) {
-        int columnIndex = table.getColumnIndex(attributeName);
-        if (columnIndex == -1) {
-            throw new RuntimeException("Column not found: " + attributeName);
-        }
+    public Predicate<Row> compile(ColumnBinding columns) {
+        return new CompiledComparison(bindColumn(columns, attributeName), ComparisonLiteral.Op.GREATER,
+                ComparisonLiteral.parse(value));
+    }
 
-        String rowValue = row.getValue(columnIndex);
-        if (rowValue == null) {
-            return false; // NULL is not greater than anything
-        }
+    /**
+     * Compiles the condition for batch scans, reading the column's vector directly.
+     *
+     * @param columns The columns of the rows that will be tested.
+     * @return A filter that narrows the selection of a batch of the table's rows.
+     * @throws RuntimeException if the specified column does not exist.
+     */
+    @Override
+    public BatchFilter compileBatch(ColumnBinding columns) {
+        return new CompiledComparison(bindColumn(columns, attributeName), ComparisonLiteral.Op.GREATER,
+                ComparisonLiteral.parse(value))::filter;
+    }
 
-        if (value.equals("NULL")) {
-            return false; // Nothing is greater than NULL
-        } else if (value.startsWith("'") && value.endsWith("'")) {
-            // String comparison (removes surrounding single quotes)
-            String stringValue = value.substring(1, value.length() - 1);
-            return rowValue.compareTo(stringValue) > 0;
-        } else if (value.equals("TRUE") || value.equals("FALSE")) {
-            // Boolean comparison - TRUE is greater than FALSE
-            return rowValue.equalsIgnoreCase("TRUE") && value.equals("FALSE");
-        } else {
-            // Numeric comparison (handles both integers and floats)
-            try {
-                if (rowValue.contains(".") || value.contains(".")) {
-                    // Float comparison
-                    float rowFloat = Float.parseFloat(rowValue);
-                    float valueFloat = Float.parseFloat(value);
-                    return rowFloat > valueFloat;
-                } else {
-                    // Integer comparison
-                    int rowInt = Integer.parseInt(rowValue);
-                    int valueInt = Integer.parseInt(value);
-                    return rowInt > valueInt;
-                }
-            } catch (NumberFormatException e) {
-                // If not numeric, fallback to string comparison
-                return rowValue.compareTo(value) > 0;
-            }
-        }
+    /**
+     * Lists the column named in the condition.
+     *
+     * @return The column name, as written in the condition.
+     */
+    @Override
+    public List<String> getAttributeNames() {
+        return List.of(attributeName);
     }
 }
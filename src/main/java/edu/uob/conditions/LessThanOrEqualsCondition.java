@@ -1,7 +1,9 @@
 package edu.uob.conditions;
 
 import edu.uob.models.Row;
-import edu.uob.models.Table;
+
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Represents a `<=` (less than or equal to) condition in SQL-like queries.
@@ -23,15 +25,35 @@ public class LessThanOrEqualsCondition extends Condition {
     }
 
     /**
-     * Evaluates the condition on a given row.
+     * Compiles the condition for a table.
      * Determines if the value in the specified column is less than or equal to the provided value.
      *
-     * @param table The table containing the row.
-     * @param row   The row being evaluated.
-     * @return `true` if the column value is less than or equal to the target value, otherwise `false`.
+     * @param columns The columns of the rows that will be tested.
+     * @return A predicate that is `true` if the column value is less than or equal to the target value.
+     */
+    @Override
+    public Predicate<Row> compile(ColumnBinding columns) {
+        return lessThanCondition.compile(columns).or(equalsCondition.compile(columns));
+    }
+
+    /**
+     * Compiles the condition for batch scans, testing equality only on the rows that are not less.
+     *
+     * @param columns The columns of the rows that will be tested.
+     * @return A filter that narrows the selection of a batch of the table's rows.
+     */
+    @Override
+    public BatchFilter compileBatch(ColumnBinding columns) {
+        return lessThanCondition.compileBatch(columns).or(equalsCondition.compileBatch(columns));
+    }
+
+    /**
+     * Lists the column named in the condition.
+     *
+     * @return The column name, as written in the condition.
      */
     @Override
-    public boolean evaluate(Table table, Row row) {
-        return lessThanCondition.evaluate(table, row) || equalsCondition.evaluate(table, row);
+    public List<String> getAttributeNames() {
+        return lessThanCondition.getAttributeNames();
     }
 }
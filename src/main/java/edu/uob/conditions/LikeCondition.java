@@ -1,7 +1,9 @@
 package edu.uob.conditions;
 
 import edu.uob.models.Row;
-import edu.uob.models.Table;
+
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Represents a `LIKE` condition in SQL-like queries.
@@ -29,27 +31,34 @@ public class LikeCondition extends Condition {
     }
 
     /**
-     * Evaluates the condition on a given row.
+     * Compiles the condition for a table.
      * Determines if the value in the specified column contains the given pattern.
      *
-     * @param table The table containing the row.
-     * @param row   The row being evaluated.
-     * @return `true` if the column value contains the pattern, otherwise `false`.
+     * @param columns The columns of the rows that will be tested.
+     * @return A predicate that is `true` if the column value contains the pattern.
      * @throws RuntimeException if the specified column does not exist.
      */
     @Override
-    public boolean evaluate(Table table, Row row) {
-        int columnIndex = table.getColumnIndex(attributeName);
-        if (columnIndex == -1) {
-            throw new RuntimeException("Column not found: " + attributeName);
-        }
+    public Predicate<Row> compile(ColumnBinding columns) {
+        int columnIndex = bindColumn(columns, attributeName);
+        return row -> {
+            String rowValue = row.getValue(columnIndex);
+            if (rowValue == null) {
+                return false; // NULL doesn't match any pattern
+            }
 
-        String rowValue = row.getValue(columnIndex);
-        if (rowValue == null) {
-            return false; // NULL doesn't match any pattern
-        }
+            // Simple substring matching (not full SQL LIKE with % wildcards)
+            return rowValue.contains(pattern);
+        };
+    }
 
-        // Simple substring matching (not full SQL LIKE with % wildcards)
-        return rowValue.contains(pattern);
+    /**
+     * Lists the column named in the condition.
+     *
+     * @return The column name, as written in the condition.
+     */
+    @Override
+    public List<String> getAttributeNames() {
+        return List.of(attributeName);
     }
 }
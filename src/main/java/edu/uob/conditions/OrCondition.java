@@ -1,7 +1,10 @@
 package edu.uob.conditions;
 
 import edu.uob.models.Row;
-import edu.uob.models.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Represents a logical "OR" condition in SQL-like queries.
@@ -25,15 +28,38 @@ public class OrCondition extends Condition {
     }
 
     /**
-     * Evaluates the `OR` condition on a given row.
+     * Compiles the `OR` condition for a table.
      * The condition is `true` if at least one of the subconditions evaluates to `true`.
      *
-     * @param table The table to which the row belongs.
-     * @param row   The row being evaluated.
-     * @return `true` if at least one condition is met, otherwise `false`.
+     * @param columns The columns of the rows that will be tested.
+     * @return A predicate that is `true` if at least one condition is met.
+     */
+    @Override
+    public Predicate<Row> compile(ColumnBinding columns) {
+        return left.compile(columns).or(right.compile(columns));
+    }
+
+    /**
+     * Compiles the `OR` condition for batch scans: the right condition only tests the rows
+     * the left one dropped, and is skipped if it dropped none.
+     *
+     * @param columns The columns of the rows that will be tested.
+     * @return A filter that narrows the selection of a batch of the table's rows.
+     */
+    @Override
+    public BatchFilter compileBatch(ColumnBinding columns) {
+        return left.compileBatch(columns).or(right.compileBatch(columns));
+    }
+
+    /**
+     * Lists the columns named in both subconditions.
+     *
+     * @return The column names, left condition first, as written in the conditions.
      */
     @Override
-    public boolean evaluate(Table table, Row row) {
-        return left.evaluate(table, row) || right.evaluate(table, row);
+    public List<String> getAttributeNames() {
+        List<String> names = new ArrayList<>(left.getAttributeNames());
+        names.addAll(right.getAttributeNames());
+        return names;
     }
 }
@@ -0,0 +1,53 @@
+package edu.uob.models;
+
+import java.util.BitSet;
+
+/**
+ * A column of booleans, stored as one bit per row.
+ * Only the texts `TRUE` and `FALSE`, in upper case as INSERT writes them, are stored typed.
+ */
+public class BooleanColumn extends TypedColumn {
+    private BitSet values; // Set for TRUE; unused for missing and NULL cells
+
+    /**
+     * Constructs an empty `BooleanColumn`.
+     */
+    public BooleanColumn() {
+        this.values = new BitSet();
+    }
+
+    /**
+     * Gets one value without converting it to text.
+     *
+     * @param position The row position, which must hold a typed value.
+     * @return The value.
+     */
+    public boolean getBoolean(int position) {
+        return values.get(position);
+    }
+
+    @Override
+    protected boolean fits(String value) {
+        return value.equals("TRUE") || value.equals("FALSE");
+    }
+
+    @Override
+    protected void store(int position, String value) {
+        values.set(position, value.equals("TRUE"));
+    }
+
+    @Override
+    protected String format(int position) {
+        return values.get(position) ? "TRUE" : "FALSE";
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        // BitSet grows by itself
+    }
+
+    @Override
+    public String getEncoding() {
+        return "boolean";
+    }
+}
@@ -0,0 +1,163 @@
+package edu.uob.models;
+
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * The values of one column of an {@link EncodedRows} store, in row order.
+ * Each subclass is one encoding. A vector whose encoding cannot hold a new value converts itself,
+ * so {@link #set} and {@link #append} return the vector that should be used from then on.
+ */
+public abstract class ColumnVector {
+    // Dictionaries with more distinct values than this fall back to plain storage (-Dedu.uob.storage.dictionaryMaxEntries)
+    public static final int MAX_DICTIONARY_ENTRIES = Integer.getInteger("edu.uob.storage.dictionaryMaxEntries", 1 << 16);
+
+    /**
+     * Gets the number of values in the vector.
+     *
+     * @return The value count.
+     */
+    public abstract int size();
+
+    /**
+     * Decodes one value.
+     *
+     * @param position The row position.
+     * @return The value, which may be `null`.
+     */
+    public abstract String get(int position);
+
+    /**
+     * Replaces one value.
+     *
+     * @param position The row position.
+     * @param value    The new value, which may be `null`.
+     * @return This vector, or the re-encoded vector that now holds the values.
+     */
+    public abstract ColumnVector set(int position, String value);
+
+    /**
+     * Adds a value after the last one.
+     *
+     * @param value The new value, which may be `null`.
+     * @return This vector, or the re-encoded vector that now holds the values.
+     */
+    public abstract ColumnVector append(String value);
+
+    /**
+     * Gets the name of the encoding, for diagnostics.
+     *
+     * @return The encoding name.
+     */
+    public abstract String getEncoding();
+
+    /**
+     * Views the vector as a read-only list of decoded values.
+     *
+     * @return The values.
+     */
+    public List<String> values() {
+        return new ValueList(this);
+    }
+
+    /**
+     * Creates an empty vector for a column that is about to be filled by appends.
+     *
+     * @param idColumn Whether the column holds row IDs.
+     * @return The new vector.
+     */
+    public static ColumnVector empty(boolean idColumn) {
+        return idColumn ? new DeltaColumn() : new DictionaryColumn();
+    }
+
+    /**
+     * Encodes a list of values with the encoding that stores them most compactly:
+     * delta encoding for increasing row IDs, run-length encoding when values repeat in long runs,
+     * primitive storage when every value is an int, a float or a boolean, a dictionary when there
+     * are few distinct values, and plain references otherwise.
+     *
+     * @param values   The values in row order.
+     * @param idColumn Whether the column holds row IDs.
+     * @return The encoded vector.
+     */
+    public static ColumnVector encode(List<String> values, boolean idColumn) {
+        int size = values.size();
+        if (idColumn && DeltaColumn.canEncode(values)) {
+            return fill(new DeltaColumn(), values);
+        }
+
+        int runs = 0;
+        String previous = null;
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            String value = values.get(i);
+            if (i == 0 || !Objects.equals(value, previous)) {
+                runs++;
+                previous = value;
+            }
+            if (distinct.size() <= MAX_DICTIONARY_ENTRIES) {
+                distinct.add(value);
+            }
+        }
+
+        // A run costs about two dictionary codes, and a dictionary entry about a dozen plain references
+        if (runs * 2L <= size) {
+            return fill(new RunLengthColumn(), values);
+        }
+        for (TypedColumn typed : new TypedColumn[] {new IntColumn(), new FloatColumn(), new BooleanColumn()}) {
+            if (TypedColumn.canEncode(values, typed)) {
+                return fill(typed, values);
+            }
+        }
+        if (distinct.size() <= MAX_DICTIONARY_ENTRIES && distinct.size() * 12L <= size) {
+            return fill(new DictionaryColumn(), values);
+        }
+        return fill(new PlainColumn(size), values);
+    }
+
+    private static ColumnVector fill(ColumnVector vector, List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            vector = vector.append(values.get(i));
+        }
+        return vector;
+    }
+
+    /**
+     * Copies the values of a vector into plain storage, e.g. when its encoding cannot hold a new value.
+     *
+     * @param source The vector to copy.
+     * @return The plain copy.
+     */
+    static PlainColumn toPlain(ColumnVector source) {
+        PlainColumn plain = new PlainColumn(source.size());
+        for (int i = 0; i < source.size(); i++) {
+            plain.append(source.get(i));
+        }
+        return plain;
+    }
+
+    /**
+     * Read-only list view of a vector.
+     */
+    private static final class ValueList extends AbstractList<String> implements RandomAccess {
+        private final ColumnVector vector;
+
+        ValueList(ColumnVector vector) {
+            this.vector = vector;
+        }
+
+        @Override
+        public String get(int index) {
+            return vector.get(index);
+        }
+
+        @Override
+        public int size() {
+            return vector.size();
+        }
+    }
+}
@@ -1,16 +1,21 @@
 package edu.uob.models;
 
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a database that contains multiple tables.
  * Provides methods for managing tables, including creation, retrieval, and deletion.
+ * Tables found on disk can be registered without reading them; each one is loaded on first access.
  */
 public class Database {
     private String name; // The name of the database (stored in lowercase for case insensitivity)
     private Map<String, Table> tables; // A mapping of table names to their corresponding Table objects
+    private Map<String, Callable<Table>> unloaded; // Registered tables not read yet, with the loader for each
 
     /**
      * Constructs a new `Database` with a given name.
@@ -20,7 +25,8 @@ public class Database {
      */
     public Database(String name) {
         this.name = name.toLowerCase();
-        this.tables = new HashMap<>();
+        this.tables = new ConcurrentHashMap<>();
+        this.unloaded = new ConcurrentHashMap<>();
     }
 
     /**
@@ -33,7 +39,8 @@ public class Database {
     }
 
     /**
-     * Retrieves all tables in the database.
+     * Retrieves the tables that are currently loaded.
+     * Registered tables that have not been accessed yet are not included.
      *
      * @return A map of table names to their corresponding `Table` objects.
      */
@@ -41,6 +48,17 @@ public class Database {
         return tables;
     }
 
+    /**
+     * Lists every table in the database, including registered tables that have not been loaded yet.
+     *
+     * @return The table names.
+     */
+    public Set<String> getTableNames() {
+        Set<String> names = new HashSet<>(tables.keySet());
+        names.addAll(unloaded.keySet());
+        return names;
+    }
+
     /**
      * Adds a new table to the database.
      *
@@ -51,13 +69,50 @@ public class Database {
     }
 
     /**
-     * Retrieves a table by name.
+     * Registers a table that exists on disk without reading it.
+     * The loader runs once, on the first {@link #getTable(String)} call for the table.
+     *
+     * @param tableName The name of the table.
+     * @param loader    Reads the table from disk.
+     */
+    public void registerTable(String tableName, Callable<Table> loader) {
+        unloaded.put(tableName.toLowerCase(), loader);
+    }
+
+    /**
+     * Retrieves a table by name, loading it first if it has only been registered.
+     * Concurrent first accesses share a single load.
      *
      * @param tableName The name of the table to retrieve.
      * @return The `Table` object if found, otherwise `null`.
+     * @throws RuntimeException if the table has to be loaded and loading fails.
      */
     public Table getTable(String tableName) {
-        return tables.get(tableName.toLowerCase());
+        String key = tableName.toLowerCase();
+        Table table = tables.get(key);
+        if (table != null) {
+            return table;
+        }
+
+        Callable<Table> loader = unloaded.get(key);
+        if (loader == null) {
+            return null;
+        }
+
+        // The loader itself is the lock, so loads of different tables do not wait for each other
+        synchronized (loader) {
+            if (unloaded.get(key) != loader) {
+                return tables.get(key); // Loaded (or dropped) while this thread was waiting
+            }
+            try {
+                table = loader.call();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to load table " + key + ": " + e.getMessage());
+            }
+            tables.put(key, table);
+            unloaded.remove(key);
+            return table;
+        }
     }
 
     /**
@@ -67,16 +122,18 @@ public class Database {
      */
     public void dropTable(String tableName) {
         tables.remove(tableName.toLowerCase());
+        unloaded.remove(tableName.toLowerCase());
     }
 
     /**
-     * Checks if a table exists in the database.
+     * Checks if a table exists in the database, whether or not it has been loaded.
      *
      * @param tableName The name of the table to check.
      * @return `true` if the table exists, otherwise `false`.
      */
     public boolean hasTable(String tableName) {
-        return tables.containsKey(tableName.toLowerCase());
+        String key = tableName.toLowerCase();
+        return tables.containsKey(key) || unloaded.containsKey(key);
     }
 
     /**
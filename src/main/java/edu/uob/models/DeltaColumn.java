@@ -0,0 +1,128 @@
+package edu.uob.models;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A column of increasing integers, such as row IDs, stored as one byte per row: the gap to the
+ * previous value. Every {@link #BLOCK_SIZE} rows a full value is kept as an anchor, so a lookup
+ * adds up at most one block of gaps. A value that is not a canonical integer, goes down or
+ * jumps by more than 255 turns the column into plain storage.
+ */
+public class DeltaColumn extends ColumnVector {
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT; // Rows per anchor
+
+    private int[] anchors; // Full value of the first row of each block
+    private byte[] gaps;   // Unsigned gap of each row to the previous row (unused for anchor rows)
+    private int size;      // Number of values
+
+    /**
+     * Constructs an empty `DeltaColumn`.
+     */
+    public DeltaColumn() {
+        this.anchors = new int[4];
+        this.gaps = new byte[BLOCK_SIZE];
+    }
+
+    /**
+     * Checks whether a list of values can be delta-encoded.
+     *
+     * @param values The values in row order.
+     * @return `true` if every value is a canonical integer and no gap is negative or above 255.
+     */
+    static boolean canEncode(List<String> values) {
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < values.size(); i++) {
+            Integer value = parse(values.get(i));
+            if (value == null || (i % BLOCK_SIZE != 0 && (value < previous || value - previous > 255))) {
+                return false;
+            }
+            previous = value;
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int position) {
+        return String.valueOf(getInt(position));
+    }
+
+    /**
+     * Decodes one value without converting it to a string.
+     *
+     * @param position The row position.
+     * @return The value.
+     */
+    public int getInt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        }
+        int blockStart = position & ~(BLOCK_SIZE - 1);
+        int value = anchors[position >>> BLOCK_SHIFT];
+        for (int i = blockStart + 1; i <= position; i++) {
+            value += gaps[i] & 0xFF;
+        }
+        return value;
+    }
+
+    @Override
+    public ColumnVector set(int position, String value) {
+        if (Objects.equals(get(position), value)) {
+            return this;
+        }
+        return toPlain(this).set(position, value);
+    }
+
+    @Override
+    public ColumnVector append(String value) {
+        Integer parsed = parse(value);
+        if (parsed == null) {
+            return toPlain(this).append(value);
+        }
+
+        if (size % BLOCK_SIZE == 0) {
+            // Anchors hold full values, so only the gaps inside a block are limited
+            int block = size >>> BLOCK_SHIFT;
+            if (block == anchors.length) {
+                anchors = Arrays.copyOf(anchors, anchors.length * 2);
+            }
+            anchors[block] = parsed;
+        } else {
+            long gap = (long) parsed - getInt(size - 1);
+            if (gap < 0 || gap > 255) {
+                return toPlain(this).append(value);
+            }
+            gaps[size] = (byte) gap;
+        }
+        size++;
+        if (size == gaps.length) {
+            gaps = Arrays.copyOf(gaps, gaps.length * 2);
+        }
+        return this;
+    }
+
+    // The value as an int, or null unless it is written exactly as Integer.toString would write it
+    private static Integer parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            return String.valueOf(parsed).equals(value) ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String getEncoding() {
+        return "delta";
+    }
+}
@@ -0,0 +1,103 @@
+package edu.uob.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A column stored as an integer code per row plus a dictionary of its distinct values.
+ * Each distinct value is held once, however many rows share it, and a comparison against a
+ * constant only has to be evaluated once per dictionary entry instead of once per row.
+ *
+ * The dictionary only grows: codes stay valid for the lifetime of the vector, so callers may
+ * cache per-code results and only extend them when {@link #getDictionary()} gets longer.
+ */
+public class DictionaryColumn extends ColumnVector {
+    private List<String> dictionary;    // Distinct values, indexed by code (may contain null)
+    private Map<String, Integer> codes; // Code of each distinct value
+    private int[] rowCodes;             // Code of each row's value; only the first `size` are in use
+    private int size;                   // Number of values
+
+    /**
+     * Constructs an empty `DictionaryColumn`.
+     */
+    public DictionaryColumn() {
+        this.dictionary = new ArrayList<>();
+        this.codes = new HashMap<>();
+        this.rowCodes = new int[16];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int position) {
+        return dictionary.get(rowCodes[position]);
+    }
+
+    /**
+     * Gets the dictionary code of one row's value.
+     *
+     * @param position The row position.
+     * @return The code, an index into {@link #getDictionary()}.
+     */
+    public int getCode(int position) {
+        return rowCodes[position];
+    }
+
+    /**
+     * Gets the distinct values, indexed by code.
+     *
+     * @return A read-only view of the dictionary.
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    @Override
+    public ColumnVector set(int position, String value) {
+        int code = codeOf(value);
+        if (code < 0) {
+            return toPlain(this).set(position, value);
+        }
+        rowCodes[position] = code;
+        return this;
+    }
+
+    @Override
+    public ColumnVector append(String value) {
+        int code = codeOf(value);
+        if (code < 0) {
+            return toPlain(this).append(value);
+        }
+        if (size == rowCodes.length) {
+            rowCodes = Arrays.copyOf(rowCodes, rowCodes.length * 2);
+        }
+        rowCodes[size++] = code;
+        return this;
+    }
+
+    // Code of a value, adding it to the dictionary if needed; -1 once the dictionary is full
+    private int codeOf(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (dictionary.size() >= MAX_DICTIONARY_ENTRIES) {
+            return -1;
+        }
+        dictionary.add(value);
+        codes.put(value, dictionary.size() - 1);
+        return dictionary.size() - 1;
+    }
+
+    @Override
+    public String getEncoding() {
+        return "dictionary(" + dictionary.size() + ")";
+    }
+}
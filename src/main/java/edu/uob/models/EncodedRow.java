@@ -0,0 +1,125 @@
+package edu.uob.models;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+/**
+ * A view of one row of an {@link EncodedRows} store.
+ * Cells are decoded only when read, and conditions can test dictionary codes and typed values
+ * without decoding at all. The first call to {@link #getValues()} copies the row into an ordinary
+ * modifiable list; changes made to that list reach the table once the row is written back with `set`.
+ *
+ * A view is only valid until rows are removed from the table or its columns change.
+ */
+public class EncodedRow extends Row {
+    private final EncodedRows store; // The rows this view reads from
+    private final int position;      // The row's position in the store
+    private final int generation;    // The store's generation when the view was created
+    private boolean materialized;    // Whether the values have been copied into the row's own list
+
+    EncodedRow(EncodedRows store, int position, int generation) {
+        super(store.getId(position));
+        this.store = store;
+        this.position = position;
+        this.generation = generation;
+    }
+
+    /**
+     * Retrieves a value from the row, decoding only that cell.
+     *
+     * @param index The index of the value to retrieve.
+     * @return The value at the specified index, or `null` if the index is out of bounds.
+     */
+    @Override
+    public String getValue(int index) {
+        if (materialized) {
+            return super.getValue(index);
+        }
+        checkCurrent();
+        if (index < 0 || index >= store.getWidth(position)) {
+            return null;
+        }
+        return store.getColumn(index).get(position);
+    }
+
+    @Override
+    public List<String> getValues() {
+        materialize();
+        return super.getValues();
+    }
+
+    @Override
+    public void addValue(String value) {
+        materialize();
+        super.addValue(value);
+    }
+
+    /**
+     * Gets the dictionary that encodes one of the row's cells, if that cell is dictionary-encoded.
+     *
+     * @param index The column index.
+     * @return The column's dictionary vector, or `null` if the cell is stored some other way,
+     *         is missing from this row, or the row has been copied out for modification.
+     */
+    public DictionaryColumn getDictionaryColumn(int index) {
+        if (materialized) {
+            return null;
+        }
+        checkCurrent();
+        if (index < 0 || index >= store.getWidth(position)) {
+            return null;
+        }
+        ColumnVector column = store.getColumn(index);
+        return column instanceof DictionaryColumn ? (DictionaryColumn) column : null;
+    }
+
+    /**
+     * Gets the primitive vector that stores one of the row's cells, if that cell is stored typed.
+     *
+     * @param index The column index.
+     * @return The column's typed vector, or `null` if the cell is stored some other way,
+     *         is missing from this row, or the row has been copied out for modification.
+     */
+    public TypedColumn getTypedColumn(int index) {
+        if (materialized) {
+            return null;
+        }
+        checkCurrent();
+        if (index < 0 || index >= store.getWidth(position)) {
+            return null;
+        }
+        ColumnVector column = store.getColumn(index);
+        return column instanceof TypedColumn ? (TypedColumn) column : null;
+    }
+
+    /**
+     * Gets the row's position in its column vectors, e.g. to read a dictionary code.
+     *
+     * @return The row position.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    boolean isUnchangedView(EncodedRows store, int position) {
+        return !materialized && this.store == store && this.position == position && generation == store.getGeneration();
+    }
+
+    private void materialize() {
+        if (materialized) {
+            return;
+        }
+        checkCurrent();
+        List<String> values = super.getValues();
+        for (int c = 0; c < store.getWidth(position); c++) {
+            values.add(store.getColumn(c).get(position));
+        }
+        materialized = true;
+    }
+
+    private void checkCurrent() {
+        if (generation != store.getGeneration()) {
+            throw new ConcurrentModificationException("Row " + getId() + " was read before the table changed");
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package edu.uob.models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * A table's rows held in memory column by column, each column in a compact {@link ColumnVector}
+ * encoding, instead of as one list of separately allocated strings per row.
+ * It plugs into {@link Table#setRows(List)} like the paged storage does: reads return
+ * {@link EncodedRow} views that decode cells on demand, and changes are written back through
+ * {@link #set(int, Row)}.
+ *
+ * Rows may have fewer values than the table has columns (a `.tab` line loses its trailing empty
+ * fields); those rows are remembered separately so they read back with their original length.
+ */
+public class EncodedRows extends AbstractList<Row> implements RandomAccess {
+    // Whether in-memory tables use encoded columns (-Dedu.uob.storage.columnEncoding)
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("edu.uob.storage.columnEncoding", "true"));
+
+    private List<ColumnVector> columns;     // One vector per column; the first holds the row IDs
+    private int size;                       // Number of rows
+    private Map<Integer, Integer> narrowRows; // Value count of each row shorter than the column count, by position
+    private int generation;                 // Changes whenever row positions or columns change
+
+    /**
+     * Constructs an empty `EncodedRows` store.
+     */
+    public EncodedRows() {
+        this.columns = new ArrayList<>();
+        this.narrowRows = new HashMap<>();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Row get(int index) {
+        checkIndex(index);
+        return new EncodedRow(this, index, generation);
+    }
+
+    @Override
+    public Row set(int index, Row row) {
+        checkIndex(index);
+        if (row instanceof EncodedRow && ((EncodedRow) row).isUnchangedView(this, index)) {
+            return row; // A view nobody modified: nothing to write back
+        }
+        Row previous = copy(index);
+        List<String> values = row.getValues();
+        widen(values.size());
+        for (int c = 0; c < columns.size(); c++) {
+            columns.set(c, columns.get(c).set(index, c < values.size() ? values.get(c) : null));
+        }
+        setWidth(index, values.size());
+        return previous;
+    }
+
+    @Override
+    public void add(int index, Row row) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Rows can only be appended");
+        }
+        List<String> values = row.getValues();
+        widen(values.size());
+        for (int c = 0; c < columns.size(); c++) {
+            columns.set(c, columns.get(c).append(c < values.size() ? values.get(c) : null));
+        }
+        setWidth(size, values.size());
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Row remove(int index) {
+        checkIndex(index);
+        Row removed = copy(index);
+        BitSet positions = new BitSet();
+        positions.set(index);
+        removePositions(positions);
+        return removed;
+    }
+
+    /**
+     * Removes every matching row in a single pass, re-encoding each column once.
+     *
+     * @param filter Selects the rows to remove.
+     * @return `true` if any row was removed.
+     */
+    @Override
+    public boolean removeIf(Predicate<? super Row> filter) {
+        BitSet positions = new BitSet();
+        for (int i = 0; i < size; i++) {
+            if (filter.test(new EncodedRow(this, i, generation))) {
+                positions.set(i);
+            }
+        }
+        if (positions.isEmpty()) {
+            return false;
+        }
+        removePositions(positions);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        columns.clear();
+        narrowRows.clear();
+        size = 0;
+        generation++;
+        modCount++;
+    }
+
+    /**
+     * Adds a column holding `null` for every existing row.
+     */
+    public void addColumn() {
+        ColumnVector column = new RunLengthColumn();
+        for (int i = 0; i < size; i++) {
+            column = column.append(null);
+        }
+        columns.add(column);
+        generation++;
+    }
+
+    /**
+     * Removes a column and its values from every row.
+     *
+     * @param columnIndex The index of the column to remove.
+     */
+    public void dropColumn(int columnIndex) {
+        columns.remove(columnIndex);
+        Map<Integer, Integer> narrowed = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : narrowRows.entrySet()) {
+            int width = entry.getValue() > columnIndex ? entry.getValue() - 1 : entry.getValue();
+            if (width < columns.size()) {
+                narrowed.put(entry.getKey(), width);
+            }
+        }
+        narrowRows = narrowed;
+        generation++;
+    }
+
+    /**
+     * Re-chooses the encoding of every column for the values it now holds, e.g. once a table
+     * has been loaded through appends.
+     */
+    public void reencode() {
+        for (int c = 0; c < columns.size(); c++) {
+            columns.set(c, ColumnVector.encode(columns.get(c).values(), c == 0));
+        }
+        generation++;
+    }
+
+    /**
+     * Describes how each column is currently encoded, for diagnostics.
+     *
+     * @return The encoding of each column, in column order.
+     */
+    public List<String> getEncodings() {
+        List<String> encodings = new ArrayList<>();
+        for (ColumnVector column : columns) {
+            encodings.add(column.getEncoding());
+        }
+        return encodings;
+    }
+
+    ColumnVector getColumn(int columnIndex) {
+        return columns.get(columnIndex);
+    }
+
+    int getColumnCount() {
+        return columns.size();
+    }
+
+    int getWidth(int position) {
+        Integer width = narrowRows.isEmpty() ? null : narrowRows.get(position);
+        return width != null ? width : columns.size();
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    int getId(int position) {
+        ColumnVector ids = columns.get(0);
+        return ids instanceof DeltaColumn ? ((DeltaColumn) ids).getInt(position) : Integer.parseInt(ids.get(position));
+    }
+
+    private Row copy(int position) {
+        Row row = new Row(getId(position));
+        for (int c = 0; c < getWidth(position); c++) {
+            row.addValue(columns.get(c).get(position));
+        }
+        return row;
+    }
+
+    private void removePositions(BitSet removed) {
+        int[] kept = new int[size - removed.cardinality()];
+        Map<Integer, Integer> narrowed = new HashMap<>();
+        for (int i = 0, k = 0; i < size; i++) {
+            if (!removed.get(i)) {
+                Integer width = narrowRows.get(i);
+                if (width != null) {
+                    narrowed.put(k, width);
+                }
+                kept[k++] = i;
+            }
+        }
+
+        for (int c = 0; c < columns.size(); c++) {
+            ColumnVector source = columns.get(c);
+            columns.set(c, ColumnVector.encode(new AbstractList<String>() {
+                @Override
+                public String get(int index) {
+                    return source.get(kept[index]);
+                }
+
+                @Override
+                public int size() {
+                    return kept.length;
+                }
+            }, c == 0));
+        }
+        narrowRows = narrowed;
+        size = kept.length;
+        generation++;
+        modCount++;
+    }
+
+    // Adds columns until there are at least `width`; existing rows keep their value count
+    private void widen(int width) {
+        while (columns.size() < width) {
+            for (int i = 0; i < size; i++) {
+                narrowRows.putIfAbsent(i, columns.size());
+            }
+            ColumnVector column = ColumnVector.empty(columns.isEmpty());
+            for (int i = 0; i < size; i++) {
+                column = column.append(null);
+            }
+            columns.add(column);
+        }
+    }
+
+    private void setWidth(int position, int width) {
+        if (width < columns.size()) {
+            narrowRows.put(position, width);
+        } else if (!narrowRows.isEmpty()) {
+            narrowRows.remove(position);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package edu.uob.models;
+
+import java.util.Arrays;
+
+/**
+ * A column of decimal numbers, stored as a `float` per row.
+ * Only finite values written exactly as {@link Float#toString(float)} writes them are stored
+ * typed, so a stored value compares exactly as its text does under float comparison.
+ */
+public class FloatColumn extends TypedColumn {
+    private float[] values; // The value of each row; unused for missing and NULL cells
+
+    /**
+     * Constructs an empty `FloatColumn`.
+     */
+    public FloatColumn() {
+        this.values = new float[16];
+    }
+
+    /**
+     * Gets one value without converting it to text.
+     *
+     * @param position The row position, which must hold a typed value.
+     * @return The value.
+     */
+    public float getFloat(int position) {
+        return values[position];
+    }
+
+    @Override
+    protected boolean fits(String value) {
+        // Float.toString always writes a '.', and only digits, '-', '.' and 'E'
+        if (value.indexOf('.') < 0 || value.length() > 16) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && c != '.' && c != '-' && c != 'E') {
+                return false;
+            }
+        }
+        try {
+            float parsed = Float.parseFloat(value);
+            return Float.isFinite(parsed) && Float.toString(parsed).equals(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected void store(int position, String value) {
+        values[position] = Float.parseFloat(value);
+    }
+
+    @Override
+    protected String format(int position) {
+        return Float.toString(values[position]);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+        }
+    }
+
+    @Override
+    public String getEncoding() {
+        return "float";
+    }
+}
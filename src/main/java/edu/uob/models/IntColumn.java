@@ -0,0 +1,72 @@
+package edu.uob.models;
+
+import java.util.Arrays;
+
+/**
+ * A column of integers, stored as an `int` per row.
+ * Only values written exactly as {@link Integer#toString(int)} writes them are stored typed.
+ */
+public class IntColumn extends TypedColumn {
+    private int[] values; // The value of each row; unused for missing and NULL cells
+
+    /**
+     * Constructs an empty `IntColumn`.
+     */
+    public IntColumn() {
+        this.values = new int[16];
+    }
+
+    /**
+     * Gets one value without converting it to text.
+     *
+     * @param position The row position, which must hold a typed value.
+     * @return The value.
+     */
+    public int getInt(int position) {
+        return values[position];
+    }
+
+    @Override
+    protected boolean fits(String value) {
+        int length = value.length();
+        if (length == 0 || length > 11) {
+            return false;
+        }
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == length || (value.charAt(start) == '0' && length > start + 1) || value.equals("-0")) {
+            return false; // No digits, a leading zero, or negative zero
+        }
+        long parsed = 0;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            parsed = parsed * 10 + (c - '0');
+        }
+        parsed = start == 1 ? -parsed : parsed;
+        return parsed >= Integer.MIN_VALUE && parsed <= Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void store(int position, String value) {
+        values[position] = Integer.parseInt(value);
+    }
+
+    @Override
+    protected String format(int position) {
+        return Integer.toString(values[position]);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+        }
+    }
+
+    @Override
+    public String getEncoding() {
+        return "int";
+    }
+}
@@ -0,0 +1,50 @@
+package edu.uob.models;
+
+import java.util.Arrays;
+
+/**
+ * A column stored as one string reference per row, for values too varied to encode.
+ */
+public class PlainColumn extends ColumnVector {
+    private String[] values; // The values in row order; only the first `size` are in use
+    private int size;        // Number of values
+
+    /**
+     * Constructs an empty `PlainColumn`.
+     *
+     * @param capacity The number of values to make room for.
+     */
+    public PlainColumn(int capacity) {
+        this.values = new String[Math.max(8, capacity)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int position) {
+        return values[position];
+    }
+
+    @Override
+    public ColumnVector set(int position, String value) {
+        values[position] = value;
+        return this;
+    }
+
+    @Override
+    public ColumnVector append(String value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+        return this;
+    }
+
+    @Override
+    public String getEncoding() {
+        return "plain";
+    }
+}
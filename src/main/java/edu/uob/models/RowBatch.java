@@ -0,0 +1,143 @@
+package edu.uob.models;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * A batch of up to {@link #CAPACITY} live rows of a table, in storage order, as handed out by
+ * {@link Table#scanBatches}. On column-encoded storage the batch reads cells straight from the
+ * column vectors, so a scan only touches the columns it tests or returns and creates no row views
+ * for cells it merely projects. On row storage it reads the rows themselves.
+ *
+ * A batch is reused for the next rows once its visitor returns, and is only valid while nothing
+ * modifies the table.
+ */
+public final class RowBatch {
+    // Number of rows scanned together (-Dedu.uob.scan.batchSize)
+    public static final int CAPACITY = Math.max(1, Integer.getInteger("edu.uob.scan.batchSize", 1024));
+
+    private final List<Row> rows;      // The table's row storage
+    private final EncodedRows encoded; // The same storage if it is column-encoded, otherwise null
+    private final int[] positions;     // Storage positions of the rows in the batch
+    private int size;                  // Number of rows in the batch
+
+    RowBatch(List<Row> rows) {
+        this.rows = rows;
+        this.encoded = rows instanceof EncodedRows ? (EncodedRows) rows : null;
+        this.positions = new int[CAPACITY];
+    }
+
+    /**
+     * Gets the number of rows in the batch.
+     *
+     * @return The row count, at most {@link #CAPACITY}.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the storage position of a row, e.g. to read it from a column vector.
+     *
+     * @param index The row's index in the batch.
+     * @return The row's position in the table's storage.
+     */
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * Gets a row of the batch.
+     *
+     * @param index The row's index in the batch.
+     * @return The row, a view that decodes cells on demand if the storage is column-encoded.
+     */
+    public Row getRow(int index) {
+        return rows.get(positions[index]);
+    }
+
+    /**
+     * Gets the ID of a row without reading its other cells.
+     *
+     * @param index The row's index in the batch.
+     * @return The row ID.
+     */
+    public int getId(int index) {
+        return encoded != null ? encoded.getId(positions[index]) : rows.get(positions[index]).getId();
+    }
+
+    /**
+     * Reads one cell of a row.
+     *
+     * @param index       The row's index in the batch.
+     * @param columnIndex The column index.
+     * @return The value, or `null` if the row has no value in that column.
+     */
+    public String getValue(int index, int columnIndex) {
+        if (encoded == null) {
+            return rows.get(positions[index]).getValue(columnIndex);
+        }
+        ColumnVector column = getColumn(columnIndex);
+        return column != null ? column.get(positions[index]) : null;
+    }
+
+    /**
+     * Gets the vector holding one column of the batch's rows, indexed by {@link #getPosition}.
+     *
+     * @param columnIndex The column index.
+     * @return The column's vector, or `null` if the storage is not column-encoded or has no such column.
+     */
+    public ColumnVector getColumn(int columnIndex) {
+        if (encoded == null || columnIndex < 0 || columnIndex >= encoded.getColumnCount()) {
+            return null;
+        }
+        return encoded.getColumn(columnIndex);
+    }
+
+    /**
+     * Creates a selection bitmap with one bit for each row a batch can hold.
+     *
+     * @return The cleared bitmap.
+     */
+    public static long[] newSelection() {
+        return new long[(CAPACITY + 63) >>> 6];
+    }
+
+    /**
+     * Selects every row of the batch.
+     *
+     * @param selection A bitmap from {@link #newSelection()}; bits past the last row are cleared.
+     */
+    public void selectAll(long[] selection) {
+        int full = size >>> 6;
+        for (int w = 0; w < selection.length; w++) {
+            selection[w] = w < full ? -1L : w == full && (size & 63) != 0 ? (1L << (size & 63)) - 1 : 0L;
+        }
+    }
+
+    /**
+     * Visits the selected rows of a batch in order.
+     *
+     * @param selection The selection bitmap.
+     * @param action    Called with the batch index of each selected row.
+     */
+    public static void forEachSelected(long[] selection, IntConsumer action) {
+        for (int w = 0; w < selection.length; w++) {
+            for (long word = selection[w]; word != 0; word &= word - 1) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(word));
+            }
+        }
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isFull() {
+        return size == positions.length;
+    }
+
+    void add(int position) {
+        positions[size++] = position;
+    }
+}
@@ -0,0 +1,81 @@
+package edu.uob.models;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A column stored as runs of equal consecutive values, for sorted or run-heavy data.
+ * A lookup is a binary search over the run ends. Appends extend the last run; changing a value
+ * in the middle would split runs, so such a column is re-encoded with a dictionary instead.
+ */
+public class RunLengthColumn extends ColumnVector {
+    private String[] runValues; // The value of each run
+    private int[] runEnds;      // Position just past the last row of each run
+    private int runCount;       // Number of runs in use
+
+    /**
+     * Constructs an empty `RunLengthColumn`.
+     */
+    public RunLengthColumn() {
+        this.runValues = new String[8];
+        this.runEnds = new int[8];
+    }
+
+    @Override
+    public int size() {
+        return runCount == 0 ? 0 : runEnds[runCount - 1];
+    }
+
+    @Override
+    public String get(int position) {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size());
+        }
+        int run = Arrays.binarySearch(runEnds, 0, runCount, position);
+        // An exact hit is the end of that run, so the position belongs to the next one
+        run = run >= 0 ? run + 1 : -run - 1;
+        return runValues[run];
+    }
+
+    @Override
+    public ColumnVector set(int position, String value) {
+        if (Objects.equals(get(position), value)) {
+            return this;
+        }
+        ColumnVector recoded = fillDictionary();
+        return recoded.set(position, value);
+    }
+
+    @Override
+    public ColumnVector append(String value) {
+        if (runCount > 0 && Objects.equals(runValues[runCount - 1], value)) {
+            runEnds[runCount - 1]++;
+            return this;
+        }
+        if (runCount == runValues.length) {
+            runValues = Arrays.copyOf(runValues, runCount * 2);
+            runEnds = Arrays.copyOf(runEnds, runCount * 2);
+        }
+        runValues[runCount] = value;
+        runEnds[runCount] = size() + 1;
+        runCount++;
+        return this;
+    }
+
+    private ColumnVector fillDictionary() {
+        ColumnVector recoded = new DictionaryColumn();
+        int start = 0;
+        for (int run = 0; run < runCount; run++) {
+            for (int i = start; i < runEnds[run]; i++) {
+                recoded = recoded.append(runValues[run]);
+            }
+            start = runEnds[run];
+        }
+        return recoded;
+    }
+
+    @Override
+    public String getEncoding() {
+        return "rle(" + runCount + ")";
+    }
+}
@@ -1,19 +1,48 @@
 package edu.uob.models;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Represents a database table, storing column definitions and row data.
  * Each table has a unique name, a list of columns, and a list of rows.
+ * Deleting a row only marks it with a tombstone; {@link #getRows()} skips such rows,
+ * and {@link #compact()} later removes them for good.
  */
 public class Table {
     private String name;          // The name of the table (stored in lowercase for case insensitivity)
     private List<Column> columns; // List of column definitions
     private List<Row> rows;       // List of rows containing table data
     private int nextId;           // Counter for generating unique row IDs
+    private volatile Callable<Table> loader; // Loads the rows while they are still only on disk (null once resident)
+    private long version;            // Incremented on every change to the table's rows or columns
+    private Set<Integer> dirtyRows;  // IDs of rows inserted or updated since the table was last persisted
+    private Set<Integer> deletedRows; // IDs of rows deleted since the table was last persisted
+    private boolean schemaChanged;   // True if columns were added or dropped since the table was last persisted
+    private BitSet dead;             // Positions in `rows` of deleted rows that have not been compacted away
+    private int deadCount;           // Number of set bits in `dead`
+    private List<Row> liveRows;      // View of `rows` that skips deleted rows
+    private boolean nextIdKnown;     // Whether `nextId` is valid; false while a loader still has to supply it
+    private boolean scannable;       // Whether the table file alone holds every row, so it can be scanned in place
+    private int storedRowCount;      // Number of rows on disk while they are not loaded, or -1 if unknown
+    private List<Row> pendingRows;   // Rows appended while the other rows were still on disk
+    private Map<Integer, KeyOrder> keyOrders; // What is known about the key order of columns, by column index
 
     /**
      * Constructs a `Table` with a given name and initializes an ID column.
@@ -24,8 +53,16 @@ public class Table {
         this.name = name.toLowerCase();
         this.columns = new ArrayList<>();
         this.columns.add(new Column("id", 0)); // Add ID column as the first column
-        this.rows = new ArrayList<>();
+        this.rows = EncodedRows.ENABLED ? new EncodedRows() : new ArrayList<>();
         this.nextId = 1;
+        this.dirtyRows = new LinkedHashSet<>();
+        this.deletedRows = new HashSet<>();
+        this.dead = new BitSet();
+        this.liveRows = new LiveRows();
+        this.nextIdKnown = true;
+        this.storedRowCount = -1;
+        this.pendingRows = new ArrayList<>();
+        this.keyOrders = new HashMap<>();
     }
 
     /**
@@ -47,12 +84,220 @@ public class Table {
     }
 
     /**
-     * Retrieves all rows in the table.
+     * Retrieves all rows in the table, loading them first if they are still on disk.
+     * Deleted rows are skipped; removing a row through the returned list deletes it.
      *
      * @return A list of `Row` objects.
      */
     public List<Row> getRows() {
-        return rows;
+        ensureLoaded();
+        return liveRows;
+    }
+
+    /**
+     * Gets the number of row slots in the table's storage, including deleted rows that have not
+     * been compacted away yet. Scans can be split into ranges of slots with {@link #forEachRow}.
+     *
+     * @return The number of stored rows, loading them first if they are still on disk.
+     */
+    public int getStorageSize() {
+        ensureLoaded();
+        return rows.size();
+    }
+
+    /**
+     * Visits the rows stored in a range of slots, skipping deleted ones. Ranges can be scanned
+     * from several threads at once, as long as nothing modifies the table meanwhile.
+     *
+     * @param from    The first slot to visit.
+     * @param to      The slot just past the last one to visit.
+     * @param visitor Called once per live row, in storage order.
+     */
+    public void forEachRow(int from, int to, Consumer<Row> visitor) {
+        ensureLoaded();
+        for (int i = dead.nextClearBit(from); i < to; i = dead.nextClearBit(i + 1)) {
+            visitor.accept(rows.get(i));
+        }
+    }
+
+    /**
+     * Visits the table's rows a batch at a time, skipping deleted ones.
+     *
+     * @param visitor Called once per batch of live rows, in storage order; the batch is reused afterwards.
+     */
+    public void scanBatches(Consumer<RowBatch> visitor) {
+        scanBatches(0, getStorageSize(), visitor);
+    }
+
+    /**
+     * Visits the rows stored in a range of slots a batch at a time, skipping deleted ones.
+     * Like {@link #forEachRow}, ranges can be scanned from several threads at once.
+     *
+     * @param from    The first slot to visit.
+     * @param to      The slot just past the last one to visit.
+     * @param visitor Called once per batch of live rows, in storage order; the batch is reused afterwards.
+     */
+    public void scanBatches(int from, int to, Consumer<RowBatch> visitor) {
+        ensureLoaded();
+        RowBatch batch = new RowBatch(rows);
+        for (int i = dead.nextClearBit(from); i < to; i = dead.nextClearBit(i + 1)) {
+            batch.add(i);
+            if (batch.isFull()) {
+                visitor.accept(batch);
+                batch.clear();
+            }
+        }
+        if (batch.size() > 0) {
+            visitor.accept(batch);
+        }
+    }
+
+    /**
+     * Replaces the list that holds the table's rows, e.g. with one backed by on-disk pages.
+     * Such a list may hand out copies, so changes to a row are always written back with {@code set}.
+     *
+     * @param rows The new row storage, already containing the table's rows.
+     */
+    public void setRows(List<Row> rows) {
+        this.rows = rows;
+        this.dead = new BitSet();
+        this.deadCount = 0;
+        keyOrders.clear();
+    }
+
+    /**
+     * Leaves the table's rows on disk until they are first needed.
+     * The columns must already be set; the loader supplies the rows and next ID.
+     *
+     * @param loader Produces the fully loaded table when called.
+     */
+    public void setLoader(Callable<Table> loader) {
+        this.loader = loader;
+        this.nextIdKnown = false;
+        this.scannable = true;
+    }
+
+    /**
+     * Leaves the table's rows on disk until they are first needed, with the next ID and row count
+     * already known (e.g. from the database catalog). Rows can then be appended without loading
+     * the table; they are kept aside and merged in once the other rows are loaded.
+     *
+     * @param loader     Produces the fully loaded table when called.
+     * @param nextId     The next available row ID.
+     * @param rowCount   The number of rows on disk, or -1 if unknown.
+     * @param scannable  Whether the table file alone holds every row, so SELECT can scan it in place.
+     */
+    public void setLoader(Callable<Table> loader, int nextId, int rowCount, boolean scannable) {
+        this.loader = loader;
+        this.nextId = nextId;
+        this.nextIdKnown = true;
+        this.storedRowCount = rowCount;
+        this.scannable = scannable;
+    }
+
+    /**
+     * Checks whether the table's rows are resident in memory.
+     *
+     * @return `true` if the rows are loaded, otherwise `false`.
+     */
+    public boolean isLoaded() {
+        return loader == null;
+    }
+
+    /**
+     * Checks whether every row of the table is still only on disk: none are loaded,
+     * and none were appended since.
+     *
+     * @return `true` if the table's files hold all of its rows, otherwise `false`.
+     */
+    public synchronized boolean isOnDisk() {
+        return loader != null && pendingRows.isEmpty();
+    }
+
+    /**
+     * Checks whether a SELECT can scan the table straight from its file instead of loading it:
+     * the rows are not loaded, and the file holds all of them.
+     *
+     * @return `true` if the table should be scanned in place, otherwise `false`.
+     */
+    public synchronized boolean canScanInPlace() {
+        return isOnDisk() && scannable;
+    }
+
+    /**
+     * Checks whether the next row ID is known without loading the table.
+     *
+     * @return `true` if {@link #getNextId()} will not load the rows.
+     */
+    public boolean isNextIdKnown() {
+        return nextIdKnown;
+    }
+
+    /**
+     * Counts the table's rows, without loading them if the count is already known.
+     *
+     * @return The number of rows that have not been deleted.
+     */
+    public int getRowCount() {
+        synchronized (this) {
+            if (loader != null && storedRowCount >= 0) {
+                return storedRowCount + pendingRows.size();
+            }
+        }
+        return getRows().size();
+    }
+
+    /**
+     * Gets the rows inserted or updated since the table was last persisted.
+     * A table that is not loaded can only have changed through appended rows, so those are
+     * returned without loading it.
+     *
+     * @return The dirty rows, in table order.
+     */
+    public synchronized List<Row> getDirtyRows() {
+        if (loader != null) {
+            return new ArrayList<>(pendingRows);
+        }
+        List<Row> dirty = new ArrayList<>();
+        if (!dirtyRows.isEmpty()) {
+            for (Row row : liveRows) {
+                if (dirtyRows.contains(row.getId())) {
+                    dirty.add(row);
+                }
+            }
+        }
+        return dirty;
+    }
+
+    private void ensureLoaded() {
+        if (loader == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loader != null) {
+                loadRows();
+            }
+        }
+    }
+
+    private void loadRows() {
+        try {
+            Table loaded = loader.call();
+            this.rows = loaded.rows;
+            this.dead = loaded.dead;
+            this.deadCount = loaded.deadCount;
+            keyOrders.clear();
+            this.nextId = nextIdKnown ? Math.max(nextId, loaded.nextId) : loaded.nextId;
+
+            // Rows appended while the table was on disk, and not persisted since, come after the loaded ones
+            rows.addAll(pendingRows);
+            pendingRows.clear();
+            this.nextIdKnown = true;
+            this.loader = null;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load table " + name + ": " + e.getMessage());
+        }
     }
 
     /**
@@ -62,6 +307,7 @@ public class Table {
      * @throws IllegalArgumentException if the column already exists.
      */
     public void addColumn(String columnName) {
+        ensureLoaded();
         for (Column col : columns) {
             if (col.getName().equalsIgnoreCase(columnName)) {
                 throw new IllegalArgumentException("Column " + columnName + " already exists");
@@ -69,10 +315,19 @@ public class Table {
         }
 
         columns.add(new Column(columnName, columns.size()));
+        schemaChanged = true;
+        version++;
+        keyOrders.clear();
 
         // Append null values for the new column in existing rows
-        for (Row row : rows) {
+        if (rows instanceof EncodedRows) {
+            ((EncodedRows) rows).addColumn();
+            return;
+        }
+        for (ListIterator<Row> it = rows.listIterator(); it.hasNext(); ) {
+            Row row = it.next();
             row.addValue(null);
+            it.set(row);
         }
     }
 
@@ -80,23 +335,102 @@ public class Table {
      * Inserts a new row into the table.
      *
      * @param values The values for the new row (excluding the ID).
+     * @return The newly created row.
      * @throws IllegalArgumentException if the number of values doesn't match the column count.
      */
-    public void addRow(List<String> values) {
-        if (values.size() != columns.size() - 1) { // Exclude ID column
-            throw new IllegalArgumentException("Value count doesn't match column count");
+    public Row addRow(List<String> values) {
+        return addRows(Collections.singletonList(values)).get(0);
+    }
+
+    /**
+     * Inserts several new rows in one go: all of them are validated first, their IDs are
+     * reserved as one range, and they are appended together.
+     *
+     * @param valueLists The values for each new row (excluding the ID).
+     * @return The newly created rows, in order.
+     * @throws IllegalArgumentException if any row's value count doesn't match the column count;
+     *                                  no row is inserted then.
+     */
+    public List<Row> addRows(List<List<String>> valueLists) {
+        for (List<String> values : valueLists) {
+            if (values.size() != columns.size() - 1) { // Exclude ID column
+                throw new IllegalArgumentException("Value count doesn't match column count");
+            }
         }
 
-        Row row = new Row(nextId);
-        row.addValue(String.valueOf(nextId)); // Assign ID value
+        int id = reserveIds(valueLists.size());
+        List<Row> added = new ArrayList<>(valueLists.size());
+        for (List<String> values : valueLists) {
+            Row row = new Row(id++);
+            row.addValue(String.valueOf(row.getId())); // Assign ID value
 
-        // Add other column values
-        for (String value : values) {
-            row.addValue(value);
+            // Add other column values
+            for (String value : values) {
+                row.addValue(value);
+            }
+            added.add(row);
         }
 
-        rows.add(row);
-        nextId++;
+        append(added);
+        for (Row row : added) {
+            markDirty(row.getId());
+        }
+        return added;
+    }
+
+    /**
+     * Adds a row that already has its ID, e.g. when a logged insert is replayed.
+     * The next ID is moved past the row's ID if needed.
+     *
+     * @param row The row to add, including its ID value.
+     */
+    public void restoreRow(Row row) {
+        int next = Math.max(getNextId(), row.getId() + 1);
+        append(Collections.singletonList(row));
+        nextId = next;
+        markDirty(row.getId());
+    }
+
+    /**
+     * Reserves a range of consecutive row IDs in one step, e.g. for a bulk load.
+     *
+     * @param count The number of IDs to reserve.
+     * @return The first reserved ID.
+     */
+    public int reserveIds(int count) {
+        int first = getNextId();
+        nextId = first + count;
+        return first;
+    }
+
+    /**
+     * Adds rows that the caller persists itself instead of through the tracked changes, so they
+     * are not marked dirty. If the table is not loaded, the rows must already be in its file;
+     * its loader reads them back and only the row count changes now.
+     *
+     * @param added The rows to add, including their ID values.
+     */
+    public synchronized void appendPersistedRows(List<Row> added) {
+        if (loader != null) {
+            if (storedRowCount >= 0) {
+                storedRowCount += added.size();
+            }
+        } else {
+            rows.addAll(added);
+        }
+        version++;
+    }
+
+    // Adds rows at the end, keeping them aside if the other rows are still on disk
+    private void append(List<Row> added) {
+        synchronized (this) {
+            if (loader != null && nextIdKnown) {
+                pendingRows.addAll(added);
+                return;
+            }
+        }
+        ensureLoaded();
+        rows.addAll(added);
     }
 
     /**
@@ -105,7 +439,69 @@ public class Table {
      * @param id The ID of the row to delete.
      */
     public void deleteRow(int id) {
-        rows.removeIf(row -> row.getId() == id);
+        deleteRows(Collections.singleton(id));
+    }
+
+    /**
+     * Deletes several rows in a single pass over the table by marking them with tombstones.
+     *
+     * @param ids The IDs of the rows to delete.
+     */
+    public void deleteRows(Set<Integer> ids) {
+        ensureLoaded();
+        int found = 0;
+        int position = 0;
+        for (Iterator<Row> it = rows.iterator(); it.hasNext() && found < ids.size(); position++) {
+            Row row = it.next();
+            if (!dead.get(position) && ids.contains(row.getId())) {
+                tombstone(position, row.getId());
+                found++;
+            }
+        }
+    }
+
+    private void tombstone(int position, int rowId) {
+        dead.set(position);
+        deadCount++;
+        dirtyRows.remove(rowId);
+        deletedRows.add(rowId);
+        version++;
+    }
+
+    /**
+     * Gets the number of deleted rows that still occupy space until the next {@link #compact()}.
+     *
+     * @return The number of tombstones.
+     */
+    public int getDeadRowCount() {
+        return deadCount;
+    }
+
+    /**
+     * Removes the rows marked as deleted from the row storage in a single pass.
+     */
+    public void compact() {
+        ensureLoaded();
+        if (deadCount == 0) {
+            return;
+        }
+        int[] position = {0};
+        BitSet removed = dead;
+        rows.removeIf(row -> removed.get(position[0]++));
+        dead = new BitSet();
+        deadCount = 0;
+        keyOrders.clear(); // Rows moved to other slots
+    }
+
+    /**
+     * Re-chooses the encoding of each column for the values it now holds, if the rows are
+     * stored in {@link EncodedRows}; other row storage is left as it is.
+     */
+    public void optimizeStorage() {
+        ensureLoaded();
+        if (rows instanceof EncodedRows) {
+            ((EncodedRows) rows).reencode();
+        }
     }
 
     /**
@@ -140,6 +536,7 @@ public class Table {
      * @throws IllegalArgumentException if trying to drop the ID column or if the column doesn't exist.
      */
     public void dropColumn(String columnName) {
+        ensureLoaded();
         if (columnName.equalsIgnoreCase("id")) {
             throw new IllegalArgumentException("Cannot drop ID column");
         }
@@ -151,6 +548,9 @@ public class Table {
 
         // Remove column from column list
         columns.remove(columnIndex);
+        schemaChanged = true;
+        version++;
+        keyOrders.clear();
 
         // Reassign column indexes
         for (int i = columnIndex; i < columns.size(); i++) {
@@ -158,8 +558,14 @@ public class Table {
         }
 
         // Remove values from all rows
-        for (Row row : rows) {
+        if (rows instanceof EncodedRows) {
+            ((EncodedRows) rows).dropColumn(columnIndex);
+            return;
+        }
+        for (ListIterator<Row> it = rows.listIterator(); it.hasNext(); ) {
+            Row row = it.next();
             row.getValues().remove(columnIndex);
+            it.set(row);
         }
     }
 
@@ -170,7 +576,8 @@ public class Table {
      * @return The corresponding `Row` object, or `null` if not found.
      */
     public Row getRowById(int id) {
-        for (Row row : rows) {
+        ensureLoaded();
+        for (Row row : liveRows) {
             if (row.getId() == id) {
                 return row;
             }
@@ -186,27 +593,168 @@ public class Table {
      * @throws IllegalArgumentException if the row doesn't exist or if any column is invalid.
      */
     public void updateRow(int rowId, Map<String, String> assignments) {
-        Row row = getRowById(rowId);
-        if (row == null) {
+        if (updateRows(Collections.singleton(rowId), assignments).isEmpty()) {
             throw new IllegalArgumentException("Row with ID " + rowId + " not found");
         }
+    }
 
-        // Update values
+    /**
+     * Applies the same assignments to several rows in a single pass over the table.
+     *
+     * @param rowIds      The IDs of the rows to update.
+     * @param assignments A map of column names to new values; quoted strings are unquoted.
+     * @return The updated rows, in table order.
+     * @throws IllegalArgumentException if any column is invalid.
+     */
+    public List<Row> updateRows(Set<Integer> rowIds, Map<String, String> assignments) {
+        Map<String, String> values = new LinkedHashMap<>();
         for (Map.Entry<String, String> entry : assignments.entrySet()) {
-            String columnName = entry.getKey();
             String value = entry.getValue();
 
-            int columnIndex = getColumnIndex(columnName);
-            if (columnIndex == -1) {
-                throw new IllegalArgumentException("Column " + columnName + " not found");
-            }
-
             // Remove surrounding single quotes if value is a string
             if (value.startsWith("'") && value.endsWith("'")) {
                 value = value.substring(1, value.length() - 1);
             }
 
-            row.getValues().set(columnIndex, value);
+            values.put(entry.getKey(), value);
+        }
+        return setRowValues(rowIds, values);
+    }
+
+    /**
+     * Stores values in a row exactly as given (no quote stripping) and writes the row back.
+     *
+     * @param rowId  The ID of the row to update.
+     * @param values A map of column names to the values to store.
+     * @return `true` if the row was found, otherwise `false`.
+     * @throws IllegalArgumentException if any column is invalid.
+     */
+    public boolean setRowValues(int rowId, Map<String, String> values) {
+        return !setRowValues(Collections.singleton(rowId), values).isEmpty();
+    }
+
+    private List<Row> setRowValues(Set<Integer> rowIds, Map<String, String> values) {
+        ensureLoaded();
+        int[] columnIndexes = new int[values.size()];
+        List<String> newValues = new ArrayList<>(values.values());
+        int i = 0;
+        for (String columnName : values.keySet()) {
+            columnIndexes[i] = getColumnIndex(columnName);
+            if (columnIndexes[i] == -1) {
+                throw new IllegalArgumentException("Column " + columnName + " not found");
+            }
+            i++;
+        }
+
+        List<Row> updated = new ArrayList<>();
+        for (ListIterator<Row> it = liveRows.listIterator(); it.hasNext() && updated.size() < rowIds.size(); ) {
+            Row row = it.next();
+            if (!rowIds.contains(row.getId())) {
+                continue;
+            }
+
+            for (int c = 0; c < columnIndexes.length; c++) {
+                row.getValues().set(columnIndexes[c], newValues.get(c));
+            }
+            it.set(row);
+            markDirty(row.getId());
+            updated.add(row);
+        }
+        if (!updated.isEmpty()) {
+            keyOrders.clear(); // Values changed in place
+        }
+        return updated;
+    }
+
+    private void markDirty(int rowId) {
+        dirtyRows.add(rowId);
+        version++;
+    }
+
+    /**
+     * Checks whether a column's values are in key order, skipping values without a key.
+     * The answer is kept with the table version it was found for, so asking again is free until the
+     * table changes; after rows are only appended or deleted, just the appended slots are checked.
+     * Updates, compaction and schema changes can reorder the values, so the column is checked again.
+     * Callers must always pass the same key function and order for a column.
+     *
+     * @param column The column index.
+     * @param key    Maps a value to its key, or to `null` if the value has none and is skipped.
+     * @param order  The key order.
+     * @return `true` if no key sorts before the one above it.
+     */
+    public synchronized boolean isOrdered(int column, Function<String, Object> key, Comparator<Object> order) {
+        ensureLoaded();
+        KeyOrder known = keyOrders.computeIfAbsent(column, c -> new KeyOrder());
+        if (known.version == version && known.checkedSlots == rows.size()) {
+            return known.ordered;
+        }
+        int end = rows.size();
+        for (int i = dead.nextClearBit(known.checkedSlots); known.ordered && i < end; i = dead.nextClearBit(i + 1)) {
+            Row row = rows.get(i);
+            Object value = key.apply(row.getValue(column));
+            if (value != null) {
+                known.ordered = known.lastKey == null || order.compare(known.lastKey, value) <= 0;
+                known.lastKey = value;
+            }
+        }
+        known.checkedSlots = end;
+        known.version = version;
+        return known.ordered;
+    }
+
+    /**
+     * Gets the table version, which changes whenever its rows or columns change.
+     *
+     * @return The current version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the IDs of rows inserted or updated since the table was last persisted.
+     *
+     * @return The dirty row IDs, in the order they were first changed.
+     */
+    public Set<Integer> getDirtyRowIds() {
+        return dirtyRows;
+    }
+
+    /**
+     * Gets the IDs of rows deleted since the table was last persisted.
+     *
+     * @return The deleted row IDs.
+     */
+    public Set<Integer> getDeletedRowIds() {
+        return deletedRows;
+    }
+
+    /**
+     * Checks whether columns were added or dropped since the table was last persisted,
+     * in which case only a full rewrite can persist it.
+     *
+     * @return `true` if the schema changed, otherwise `false`.
+     */
+    public boolean hasSchemaChanged() {
+        return schemaChanged;
+    }
+
+    /**
+     * Forgets the tracked changes once they have been persisted.
+     */
+    public synchronized void clearChanges() {
+        dirtyRows.clear();
+        deletedRows.clear();
+        schemaChanged = false;
+
+        // Appended rows that were persisted while the table is on disk are now read back by its loader
+        if (loader != null && !pendingRows.isEmpty()) {
+            if (storedRowCount >= 0) {
+                storedRowCount += pendingRows.size();
+            }
+            pendingRows.clear();
+            scannable = false; // They are in the delta file, which in-place scans do not read
         }
     }
 
@@ -216,6 +764,9 @@ public class Table {
      * @return The next available row ID.
      */
     public int getNextId() {
+        if (!nextIdKnown) {
+            ensureLoaded();
+        }
         return nextId;
     }
 
@@ -225,6 +776,174 @@ public class Table {
      * @param nextId The next available row ID.
      */
     public void setNextId(int nextId) {
+        ensureLoaded();
         this.nextId = nextId;
     }
+
+    /**
+     * What is known about the key order of one column: the slots checked so far and the last key among them.
+     * Deleting rows cannot break the order, and appended rows only need comparing with `lastKey`.
+     */
+    private static final class KeyOrder {
+        private long version = -1;      // Table version the answer was found for
+        private int checkedSlots;       // Number of row slots checked, from the first
+        private boolean ordered = true; // Whether the keys in the checked slots are in order
+        private Object lastKey;         // The last key in the checked slots, or null if none
+    }
+
+    /**
+     * The rows that have not been deleted, as a list backed by the table's row storage.
+     * Iteration is a single pass over the storage; positional access walks past the tombstones.
+     */
+    private class LiveRows extends AbstractList<Row> {
+        @Override
+        public int size() {
+            return rows.size() - deadCount;
+        }
+
+        @Override
+        public Row get(int index) {
+            return rows.get(physicalIndex(index));
+        }
+
+        @Override
+        public Row set(int index, Row row) {
+            return rows.set(physicalIndex(index), row);
+        }
+
+        @Override
+        public void add(int index, Row row) {
+            if (index != size()) {
+                throw new UnsupportedOperationException("Rows can only be appended");
+            }
+            rows.add(row);
+        }
+
+        @Override
+        public Row remove(int index) {
+            int position = physicalIndex(index);
+            Row row = rows.get(position);
+            tombstone(position, row.getId());
+            return row;
+        }
+
+        @Override
+        public Iterator<Row> iterator() {
+            return new LiveIterator(rows.iterator());
+        }
+
+        @Override
+        public ListIterator<Row> listIterator() {
+            return new LiveIterator(rows.listIterator());
+        }
+
+        @Override
+        public ListIterator<Row> listIterator(int index) {
+            ListIterator<Row> it = listIterator();
+            for (int i = 0; i < index; i++) {
+                it.next();
+            }
+            return it;
+        }
+
+        private int physicalIndex(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            if (deadCount == 0) {
+                return index;
+            }
+            int position = dead.nextClearBit(0);
+            for (int i = 0; i < index; i++) {
+                position = dead.nextClearBit(position + 1);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Forward iterator over the live rows that turns {@code remove} into a tombstone.
+     * Writes with {@code set} go straight to the underlying storage.
+     */
+    private class LiveIterator implements ListIterator<Row> {
+        private final Iterator<Row> storage; // Iterator over every stored row, deleted or not
+        private Row pending;                 // Next live row, already read from storage
+        private int pendingPosition = -1;    // Storage position of `pending`
+        private int position = -1;           // Storage position of the row last read from storage
+        private int lastPosition = -1;       // Storage position of the row last returned
+        private Row lastRow;                 // The row last returned
+        private int index;                   // Number of live rows returned so far
+
+        LiveIterator(Iterator<Row> storage) {
+            this.storage = storage;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending == null && storage.hasNext()) {
+                Row row = storage.next();
+                position++;
+                if (!dead.get(position)) {
+                    pending = row;
+                    pendingPosition = position;
+                }
+            }
+            return pending != null;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastRow = pending;
+            lastPosition = pendingPosition;
+            pending = null;
+            index++;
+            return lastRow;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRow == null) {
+                throw new IllegalStateException();
+            }
+            tombstone(lastPosition, lastRow.getId());
+            lastRow = null;
+        }
+
+        @Override
+        public void set(Row row) {
+            if (lastRow == null || pending != null || !(storage instanceof ListIterator)) {
+                // The storage iterator must still be positioned on the row last returned
+                throw new IllegalStateException();
+            }
+            ((ListIterator<Row>) storage).set(row);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return false;
+        }
+
+        @Override
+        public Row previous() {
+            throw new UnsupportedOperationException("Rows can only be iterated forwards");
+        }
+
+        @Override
+        public int nextIndex() {
+            return index;
+        }
+
+        @Override
+        public int previousIndex() {
+            return index - 1;
+        }
+
+        @Override
+        public void add(Row row) {
+            throw new UnsupportedOperationException("Rows can only be appended");
+        }
+    }
 }
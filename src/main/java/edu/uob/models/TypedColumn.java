@@ -0,0 +1,160 @@
+package edu.uob.models;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A column whose values are all of one primitive type, stored in a primitive array instead of
+ * as strings. Missing values and the text `NULL` are kept in two bitmaps rather than in the array.
+ *
+ * A value is only stored typed if it reads back as exactly the same text, e.g. "7" but not "07"
+ * or "7.50"; any other value turns the column into plain storage. Conditions can therefore compare
+ * the primitive values directly and get the same result as comparing the text.
+ */
+public abstract class TypedColumn extends ColumnVector {
+    private static final String NULL_TEXT = "NULL";
+
+    private BitSet nulls;        // Positions without a value
+    private BitSet nullLiterals; // Positions holding the text NULL
+    protected int size;          // Number of values
+
+    /**
+     * Constructs an empty `TypedColumn`.
+     */
+    protected TypedColumn() {
+        this.nulls = new BitSet();
+        this.nullLiterals = new BitSet();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        }
+        if (nulls.get(position)) {
+            return null;
+        }
+        if (nullLiterals.get(position)) {
+            return NULL_TEXT;
+        }
+        return format(position);
+    }
+
+    /**
+     * Checks whether a position has no value at all.
+     *
+     * @param position The row position.
+     * @return `true` if the cell is missing.
+     */
+    public boolean isNull(int position) {
+        return nulls.get(position);
+    }
+
+    /**
+     * Checks whether a position holds the text `NULL` rather than a typed value.
+     *
+     * @param position The row position.
+     * @return `true` if the cell is the text `NULL`.
+     */
+    public boolean isNullLiteral(int position) {
+        return nullLiterals.get(position);
+    }
+
+    /**
+     * Checks whether a position holds a typed value, readable with the subclass's getter.
+     *
+     * @param position The row position.
+     * @return `true` unless the cell is missing or the text `NULL`.
+     */
+    public boolean hasValue(int position) {
+        return !nulls.get(position) && !nullLiterals.get(position);
+    }
+
+    @Override
+    public ColumnVector set(int position, String value) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        }
+        if (value != null && !value.equals(NULL_TEXT) && !fits(value)) {
+            return toPlain(this).set(position, value);
+        }
+        put(position, value);
+        return this;
+    }
+
+    @Override
+    public ColumnVector append(String value) {
+        if (value != null && !value.equals(NULL_TEXT) && !fits(value)) {
+            return toPlain(this).append(value);
+        }
+        ensureCapacity(size + 1);
+        size++;
+        put(size - 1, value);
+        return this;
+    }
+
+    private void put(int position, String value) {
+        nulls.set(position, value == null);
+        nullLiterals.set(position, NULL_TEXT.equals(value));
+        if (value != null && !value.equals(NULL_TEXT)) {
+            store(position, value);
+        }
+    }
+
+    /**
+     * Checks whether a list of values can all be stored by a column type.
+     *
+     * @param values The values in row order.
+     * @param type   An empty column of the type.
+     * @return `true` if every value is missing, the text `NULL`, or fits the type, and at least one fits.
+     */
+    static boolean canEncode(List<String> values, TypedColumn type) {
+        boolean any = false;
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (value != null && !value.equals(NULL_TEXT)) {
+                if (!type.fits(value)) {
+                    return false;
+                }
+                any = true;
+            }
+        }
+        return any;
+    }
+
+    /**
+     * Checks whether a value can be stored typed and read back as the same text.
+     *
+     * @param value The value, neither `null` nor `NULL`.
+     * @return `true` if it fits.
+     */
+    protected abstract boolean fits(String value);
+
+    /**
+     * Stores a value that fits.
+     *
+     * @param position The row position, below the capacity.
+     * @param value    The value.
+     */
+    protected abstract void store(int position, String value);
+
+    /**
+     * Formats a stored value as text.
+     *
+     * @param position The row position of a typed value.
+     * @return The value's text.
+     */
+    protected abstract String format(int position);
+
+    /**
+     * Grows the primitive storage if needed.
+     *
+     * @param capacity The number of values it must be able to hold.
+     */
+    protected abstract void ensureCapacity(int capacity);
+}
@@ -60,6 +60,13 @@ public class SQLParser {
                 while (pos < input.length() && (Character.isLetterOrDigit(input.charAt(pos)) || input.charAt(pos) == '_')) {
                     pos++;
                 }
+                // A qualified name such as `people.name` stays one identifier
+                if (pos + 1 < input.length() && input.charAt(pos) == '.' && Character.isLetter(input.charAt(pos + 1))) {
+                    pos++;
+                    while (pos < input.length() && (Character.isLetterOrDigit(input.charAt(pos)) || input.charAt(pos) == '_')) {
+                        pos++;
+                    }
+                }
                 String word = input.substring(start, pos);
 
                 // Check if it's a keyword
@@ -218,6 +225,15 @@ public class SQLParser {
         return false;
     }
 
+    // Words such as STORAGE only mean something in one place, so they are matched there rather than reserved
+    private boolean matchWord(String word) {
+        if (check(TokenType.IDENTIFIER) && peek().getValue().equalsIgnoreCase(word)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
     private boolean isAtEnd() {
         return peek().getType() == TokenType.EOF;
     }
@@ -261,6 +277,14 @@ public class SQLParser {
             return parseDeleteCommand();
         } else if (matchKeyword("JOIN")) {
             return parseJoinCommand();
+        } else if (matchWord("LOAD")) {
+            return parseLoadCommand();
+        } else if (matchWord("EXPORT")) {
+            return parseExportCommand();
+        } else if (matchWord("SHOW")) {
+            return parseShowCommand();
+        } else if (matchKeyword("SET")) {
+            return parseSetCommand();
         } else {
             throw new RuntimeException("Unknown command: " + peek().getValue());
         }
@@ -309,23 +333,46 @@ public class SQLParser {
         return new DropCommand(nameToken.getValue(), isDatabase);
     }
 
-    private AlterCommand parseAlterCommand() {
+    private Command parseAlterCommand() {
         consumeKeyword("TABLE", "Expected 'TABLE' after 'ALTER'");
         Token tableToken = consume(TokenType.IDENTIFIER, "Expected table name");
 
+        if (matchKeyword("SET")) {
+            return parseAlterStorageCommand(tableToken.getValue());
+        }
+
         boolean isAdd = false;
         if (matchKeyword("ADD")) {
             isAdd = true;
         } else if (matchKeyword("DROP")) {
             isAdd = false;
         } else {
-            throw new RuntimeException("Expected 'ADD' or 'DROP' after table name");
+            throw new RuntimeException("Expected 'ADD', 'DROP' or 'SET' after table name");
         }
 
         Token columnToken = consume(TokenType.IDENTIFIER, "Expected column name");
         return new AlterCommand(tableToken.getValue(), columnToken.getValue(), isAdd);
     }
 
+    private AlterStorageCommand parseAlterStorageCommand(String tableName) {
+        if (matchWord("STORAGE")) {
+            if (matchWord("COLUMNAR")) {
+                return new AlterStorageCommand(tableName, AlterStorageCommand.Setting.STORAGE, true);
+            } else if (matchWord("ROW")) {
+                return new AlterStorageCommand(tableName, AlterStorageCommand.Setting.STORAGE, false);
+            }
+            throw new RuntimeException("Expected 'COLUMNAR' or 'ROW' after 'STORAGE'");
+        } else if (matchWord("COMPRESSION")) {
+            if (matchKeyword("ON")) {
+                return new AlterStorageCommand(tableName, AlterStorageCommand.Setting.COMPRESSION, true);
+            } else if (matchWord("OFF")) {
+                return new AlterStorageCommand(tableName, AlterStorageCommand.Setting.COMPRESSION, false);
+            }
+            throw new RuntimeException("Expected 'ON' or 'OFF' after 'COMPRESSION'");
+        }
+        throw new RuntimeException("Expected 'STORAGE' or 'COMPRESSION' after 'SET'");
+    }
+
     private InsertCommand parseInsertCommand() {
         consumeKeyword("INTO", "Expected 'INTO' after 'INSERT'");
         Token tableToken = consume(TokenType.IDENTIFIER, "Expected table name");
@@ -333,6 +380,17 @@ public class SQLParser {
         consumeKeyword("VALUES", "Expected 'VALUES' after table name");
         consume(TokenType.LEFT_PAREN, "Expected '(' after 'VALUES'");
 
+        // One or more parenthesised tuples, separated by commas
+        List<List<String>> rows = new ArrayList<>();
+        rows.add(parseValueList());
+        while (match(TokenType.COMMA)) {
+            consume(TokenType.LEFT_PAREN, "Expected '(' before values");
+            rows.add(parseValueList());
+        }
+        return new InsertCommand(tableToken.getValue(), rows);
+    }
+
+    private List<String> parseValueList() {
         List<String> values = new ArrayList<>();
         do {
             if (match(TokenType.STRING_LITERAL)) {
@@ -349,7 +407,7 @@ public class SQLParser {
         } while (match(TokenType.COMMA));
 
         consume(TokenType.RIGHT_PAREN, "Expected ')' after values");
-        return new InsertCommand(tableToken.getValue(), values);
+        return values;
     }
 
     private SelectCommand parseSelectCommand() {
@@ -422,43 +480,125 @@ public class SQLParser {
         return new DeleteCommand(tableToken.getValue(), condition);
     }
 
+    private LoadCommand parseLoadCommand() {
+        Token fileToken = consume(TokenType.STRING_LITERAL, "Expected file path after 'LOAD'");
+        consumeKeyword("INTO", "Expected 'INTO' after file path");
+        Token tableToken = consume(TokenType.IDENTIFIER, "Expected table name");
+
+        return new LoadCommand(fileToken.getValue(), tableToken.getValue());
+    }
+
+    private ExportCommand parseExportCommand() {
+        Token tableToken = consume(TokenType.IDENTIFIER, "Expected table name");
+
+        // Parse the optional WHERE clause
+        Condition condition = null;
+        if (matchKeyword("WHERE")) {
+            condition = parseCondition();
+        }
+
+        consumeKeyword("INTO", "Expected 'INTO' after table name or condition");
+        Token fileToken = consume(TokenType.STRING_LITERAL, "Expected file path after 'INTO'");
+
+        int partitions = 1;
+        if (matchWord("PARTITIONS")) {
+            Token countToken = consume(TokenType.NUMBER, "Expected partition count");
+            try {
+                partitions = Integer.parseInt(countToken.getValue());
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid partition count: " + countToken.getValue());
+            }
+        }
+
+        return new ExportCommand(tableToken.getValue(), condition, fileToken.getValue(), partitions);
+    }
+
+    private ShowCompressionCommand parseShowCommand() {
+        if (!matchWord("COMPRESSION")) {
+            throw new RuntimeException("Expected 'COMPRESSION' after 'SHOW'");
+        }
+        Token tableToken = consume(TokenType.IDENTIFIER, "Expected table name");
+        return new ShowCompressionCommand(tableToken.getValue());
+    }
+
+    private SetParallelismCommand parseSetCommand() {
+        if (!matchWord("PARALLELISM")) {
+            throw new RuntimeException("Expected 'PARALLELISM' after 'SET'");
+        }
+        Token countToken = consume(TokenType.NUMBER, "Expected thread count");
+        try {
+            return new SetParallelismCommand(Integer.parseInt(countToken.getValue()));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid thread count: " + countToken.getValue());
+        }
+    }
+
     private JoinCommand parseJoinCommand() {
-        Token table1Token = consume(TokenType.IDENTIFIER, "Expected first table name");
+        List<String> tableNames = new ArrayList<>();
+        List<String> leftAttributes = new ArrayList<>();
+        List<String> rightAttributes = new ArrayList<>();
+        tableNames.add(consume(TokenType.IDENTIFIER, "Expected first table name").getValue());
 
         consumeKeyword("AND", "Expected 'AND' after first table name");
-        Token table2Token = consume(TokenType.IDENTIFIER, "Expected second table name");
+        do {
+            // Each further table is joined on a column of the tables before it and one of its own
+            tableNames.add(consume(TokenType.IDENTIFIER, "Expected table name").getValue());
+
+            consumeKeyword("ON", "Expected 'ON' after table name");
+            leftAttributes.add(consume(TokenType.IDENTIFIER, "Expected first attribute name").getValue());
 
-        consumeKeyword("ON", "Expected 'ON' after second table name");
-        Token attribute1Token = consume(TokenType.IDENTIFIER, "Expected first attribute name");
+            consumeKeyword("AND", "Expected 'AND' after first attribute name");
+            rightAttributes.add(consume(TokenType.IDENTIFIER, "Expected second attribute name").getValue());
+        } while (checkKeyword("AND") && tokens.get(position + 1).getType() == TokenType.IDENTIFIER
+                && matchKeyword("AND"));
 
-        consumeKeyword("AND", "Expected 'AND' after first attribute name");
-        Token attribute2Token = consume(TokenType.IDENTIFIER, "Expected second attribute name");
+        // Parse the WHERE clause if present
+        Condition condition = null;
+        if (matchKeyword("WHERE")) {
+            condition = parseCondition();
+        }
 
-        return new JoinCommand(table1Token.getValue(), table2Token.getValue(),
-                attribute1Token.getValue(), attribute2Token.getValue());
+        return new JoinCommand(tableNames, leftAttributes, rightAttributes, condition);
     }
 
+    // Unparenthesized chains use standard precedence: AND binds tighter than OR, and both group to the left
     private Condition parseCondition() {
+        return parseOrCondition();
+    }
+
+    private Condition parseOrCondition() {
+        Condition condition = parseAndCondition();
+        while (matchKeyword("OR")) {
+            condition = new OrCondition(condition, parseAndCondition());
+        }
+        return condition;
+    }
+
+    private Condition parseAndCondition() {
+        Condition condition = parseComparison();
+        while (matchKeyword("AND")) {
+            condition = new AndCondition(condition, parseComparison());
+        }
+        return condition;
+    }
+
+    private Condition parseComparison() {
         // Handle parenthesized conditions
         if (match(TokenType.LEFT_PAREN)) {
             Condition condition = parseCondition();
             consume(TokenType.RIGHT_PAREN, "Expected ')' after condition");
-
-            // Check if there's a boolean operator after this condition
-            if (matchKeyword("AND")) {
-                Condition rightCondition = parseCondition();
-                return new AndCondition(condition, rightCondition);
-            } else if (matchKeyword("OR")) {
-                Condition rightCondition = parseCondition();
-                return new OrCondition(condition, rightCondition);
-            }
-
             return condition;
         }
 
         // Simple comparison condition
         Token attributeToken = consume(TokenType.IDENTIFIER, "Expected attribute name");
-        String operator = consume(TokenType.OPERATOR, "Expected operator").getValue();
+        // LIKE is tokenized as a keyword rather than an operator
+        String operator;
+        if (matchKeyword("LIKE")) {
+            operator = "LIKE";
+        } else {
+            operator = consume(TokenType.OPERATOR, "Expected operator").getValue();
+        }
 
         String value;
         if (match(TokenType.STRING_LITERAL)) {
@@ -0,0 +1,193 @@
+package edu.uob.storage;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded cache of {@link Page}s shared by all page files.
+ * The number of frames is fixed by the memory budget; when every frame is in use the clock
+ * algorithm picks an unpinned page whose reference bit is clear, writing it back first if dirty.
+ * Callers pin a page while they read or modify it and unpin it as soon as they are done.
+ */
+public class BufferPool {
+    // Memory reserved for cached pages (override with -Dedu.uob.storage.bufferPoolBytes)
+    public static final long DEFAULT_BUDGET_BYTES = Long.getLong("edu.uob.storage.bufferPoolBytes", 64L * 1024 * 1024);
+
+    private Page[] frames;               // The cached pages; frames are allocated lazily
+    private Map<PageKey, Page> resident; // Which page each occupied frame holds
+    private int clockHand;               // Next frame the clock considers for eviction
+    private long hits;                   // Pins served from memory
+    private long misses;                 // Pins that had to read from disk
+    private long evictions;              // Pages evicted to make room
+
+    /**
+     * Creates a buffer pool using the configured memory budget.
+     */
+    public BufferPool() {
+        this(DEFAULT_BUDGET_BYTES);
+    }
+
+    /**
+     * Creates a buffer pool holding at most {@code budgetBytes / Page.SIZE} pages (minimum 2).
+     *
+     * @param budgetBytes The memory budget for cached pages.
+     */
+    public BufferPool(long budgetBytes) {
+        int frameCount = (int) Math.max(2, Math.min(Integer.MAX_VALUE - 8, budgetBytes / Page.SIZE));
+        this.frames = new Page[frameCount];
+        this.resident = new HashMap<>();
+    }
+
+    /**
+     * Pins a page, reading it from disk if it is not cached.
+     *
+     * @param file   The file containing the page.
+     * @param pageId The page number.
+     * @return The pinned page.
+     * @throws IOException if the page has to be read and the read fails.
+     */
+    public synchronized Page pin(PageFile file, int pageId) throws IOException {
+        PageKey key = new PageKey(file, pageId);
+        Page page = resident.get(key);
+        if (page != null) {
+            hits++;
+        } else {
+            misses++;
+            page = claimFrame();
+            page.assign(file, pageId);
+            file.readPage(pageId, page.getData());
+            resident.put(key, page);
+        }
+        page.pin();
+        return page;
+    }
+
+    /**
+     * Allocates a new, empty page at the end of a file and pins it.
+     *
+     * @param file The file to extend.
+     * @return The pinned new page.
+     * @throws IOException if a dirty page had to be evicted and writing it failed.
+     */
+    public synchronized Page pinNew(PageFile file) throws IOException {
+        Page page = claimFrame();
+        int pageId = file.allocatePage();
+        page.assign(file, pageId);
+        page.getData().clear();
+        Arrays.fill(page.getData().array(), (byte) 0);
+        resident.put(new PageKey(file, pageId), page);
+        page.pin();
+        return page;
+    }
+
+    /**
+     * Releases a page pinned with {@link #pin} or {@link #pinNew}.
+     *
+     * @param page     The page to release.
+     * @param modified True if the caller changed the page contents.
+     */
+    public synchronized void unpin(Page page, boolean modified) {
+        if (page.getPinCount() <= 0) {
+            throw new IllegalStateException("Page " + page.getPageId() + " is not pinned");
+        }
+        page.unpin(modified);
+    }
+
+    /**
+     * Drops every cached page of a file without writing it back, e.g. before the file is deleted.
+     *
+     * @param file The file whose pages should be forgotten.
+     */
+    public synchronized void discard(PageFile file) {
+        resident.values().removeIf(page -> {
+            if (page.getFile() == file) {
+                page.assign(null, -1);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private Page claimFrame() throws IOException {
+        // Use an empty frame while the pool is still filling up
+        for (int scanned = 0; scanned < frames.length * 2; scanned++) {
+            int index = clockHand;
+            clockHand = (clockHand + 1) % frames.length;
+
+            Page page = frames[index];
+            if (page == null) {
+                page = new Page();
+                frames[index] = page;
+                return page;
+            }
+            if (page.getFile() == null) {
+                return page;
+            }
+            if (page.getPinCount() > 0) {
+                continue;
+            }
+            if (page.isReferenced()) {
+                page.clearReferenced(); // Second chance
+                continue;
+            }
+
+            // Evict this page
+            if (page.isDirty()) {
+                page.getFile().writePage(page.getPageId(), page.getData());
+                page.markClean();
+            }
+            resident.remove(new PageKey(page.getFile(), page.getPageId()));
+            evictions++;
+            return page;
+        }
+        throw new IllegalStateException("Buffer pool exhausted: all " + frames.length + " pages are pinned");
+    }
+
+    /**
+     * Gets the number of frames, i.e. the most pages that can be cached at once.
+     *
+     * @return The pool capacity in pages.
+     */
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    /**
+     * Summarizes cache behaviour for diagnostics.
+     *
+     * @return Hit, miss and eviction counts.
+     */
+    public synchronized String getStatistics() {
+        return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                + " resident=" + resident.size() + "/" + frames.length;
+    }
+
+    /**
+     * Identifies a page across all files.
+     */
+    private static final class PageKey {
+        private final PageFile file;
+        private final int pageId;
+
+        PageKey(PageFile file, int pageId) {
+            this.file = file;
+            this.pageId = pageId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof PageKey)) return false;
+            PageKey other = (PageKey) obj;
+            return file == other.file && pageId == other.pageId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(file), pageId);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package edu.uob.storage;
+
+import edu.uob.models.Column;
+import edu.uob.models.Table;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * A small per-database file describing every table without its data: the schema, the next row ID,
+ * the row count, and the generation and size of the table file and the size of the delta the
+ * description was taken from.
+ * With it the server can register tables, answer whether one exists and allocate row IDs at
+ * startup without reading any table file.
+ *
+ * The file is rewritten as a whole (temporary file, fsync, atomic rename) with an increasing
+ * version number and a trailing checksum. An entry whose recorded generation or file sizes no longer
+ * match the files on disk is ignored, and that table is then read the slow way.
+ */
+public class Catalog {
+    public static final String FILE_NAME = "catalog";
+    private static final String MAGIC = "catalog2"; // Entries before generations are not trusted
+
+    private String dbPath;             // The folder of the database
+    private long version;              // Incremented on every save
+    private Map<String, Entry> entries; // Table descriptions, by table name
+
+    private Catalog(String dbPath) {
+        this.dbPath = dbPath;
+        this.entries = new TreeMap<>();
+    }
+
+    /**
+     * Reads a database's catalog. A missing, torn or corrupt file gives an empty catalog.
+     *
+     * @param dbPath The folder of the database.
+     * @return The catalog.
+     */
+    public static Catalog load(String dbPath) {
+        Catalog catalog = new Catalog(dbPath);
+        File file = new File(dbPath, FILE_NAME);
+        if (!file.exists()) {
+            return catalog;
+        }
+
+        try {
+            String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            int checksumStart = text.lastIndexOf("end\t");
+            if (checksumStart < 0 || !text.endsWith("\n")) {
+                return catalog;
+            }
+            String body = text.substring(0, checksumStart);
+            String checksum = text.substring(checksumStart + 4, text.length() - 1);
+            if (!checksum.equals(crc(body))) {
+                return catalog;
+            }
+
+            String[] lines = body.split("\n");
+            String[] header = lines[0].split("\t");
+            if (!header[0].equals(MAGIC) || header.length != 2) {
+                return catalog;
+            }
+            catalog.version = Long.parseLong(header[1]);
+            for (int i = 1; i < lines.length; i++) {
+                Entry entry = Entry.decode(lines[i]);
+                catalog.entries.put(entry.tableName, entry);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable catalog in " + dbPath + ": " + e.getMessage());
+            catalog.entries.clear();
+        }
+        return catalog;
+    }
+
+    /**
+     * Gets the description of a table if it still matches the files on disk.
+     *
+     * @param tableName The name of the table.
+     * @return The entry, or `null` if there is none or it is out of date.
+     */
+    public Entry getValidEntry(String tableName) {
+        Entry entry = entries.get(tableName.toLowerCase());
+        return entry != null && entry.matchesFiles(dbPath) ? entry : null;
+    }
+
+    /**
+     * Records a table's current description. Tables whose next ID is not known without loading
+     * them are left out, since reading their rows just for the catalog would defeat its purpose.
+     *
+     * @param table The table, whose changes must already be persisted.
+     */
+    public void update(Table table) {
+        if (!table.isNextIdKnown()) {
+            entries.remove(table.getName());
+            return;
+        }
+        List<String> columnNames = new ArrayList<>();
+        for (Column column : table.getColumns()) {
+            columnNames.add(column.getName());
+        }
+        File tableFile = TableFileIO.tableFile(table.getName(), dbPath);
+        File deltaFile = DeltaSegment.file(table.getName(), dbPath);
+        long generation;
+        try {
+            generation = TableFileIO.generation(table.getName(), dbPath);
+        } catch (IOException e) {
+            entries.remove(table.getName());
+            return;
+        }
+        entries.put(table.getName(), new Entry(table.getName(), columnNames, table.getNextId(), table.getRowCount(),
+                tableFile.getName(), tableFile.length(), generation, deltaFile.length()));
+    }
+
+    /**
+     * Forgets the entries of tables that no longer exist.
+     *
+     * @param tableNames The tables that still exist.
+     */
+    public void retainAll(Set<String> tableNames) {
+        entries.keySet().retainAll(tableNames);
+    }
+
+    /**
+     * Atomically replaces the catalog file with the current entries.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void save() throws IOException {
+        version++;
+        StringBuilder body = new StringBuilder();
+        body.append(MAGIC).append('\t').append(version).append('\n');
+        for (Entry entry : entries.values()) {
+            body.append(entry.encode()).append('\n');
+        }
+        String text = body + "end\t" + crc(body.toString()) + "\n";
+
+        File file = new File(dbPath, FILE_NAME);
+        File tempFile = new File(dbPath, FILE_NAME + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            output.write(text.getBytes(StandardCharsets.UTF_8));
+            output.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        TableFileIO.syncFolder(new File(dbPath));
+    }
+
+    /**
+     * Gets the number of times the catalog has been saved.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    private static String crc(String text) {
+        CRC32 crc = new CRC32();
+        crc.update(text.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * The description of one table, as of its last persisted state.
+     */
+    public static final class Entry {
+        private final String tableName;        // The name of the table
+        private final List<String> columnNames; // Column names in order, starting with "id"
+        private final int nextId;              // Next row ID to allocate
+        private final int rowCount;            // Number of rows, or -1 if unknown
+        private final String baseFileName;     // Name of the .tab or .tabz file
+        private final long baseBytes;          // Size of the base file, which grows when rows are bulk loaded into it
+        private final long baseGeneration;     // Generation of the base file
+        private final long deltaBytes;         // Size of the delta file, i.e. where its next batch starts (0 if none)
+
+        Entry(String tableName, List<String> columnNames, int nextId, int rowCount,
+              String baseFileName, long baseBytes, long baseGeneration, long deltaBytes) {
+            this.tableName = tableName;
+            this.columnNames = columnNames;
+            this.nextId = nextId;
+            this.rowCount = rowCount;
+            this.baseFileName = baseFileName;
+            this.baseBytes = baseBytes;
+            this.baseGeneration = baseGeneration;
+            this.deltaBytes = deltaBytes;
+        }
+
+        /**
+         * Gets the table's column names, starting with "id".
+         *
+         * @return The column names in order.
+         */
+        public List<String> getColumnNames() {
+            return columnNames;
+        }
+
+        /**
+         * Gets the next row ID to allocate.
+         *
+         * @return The next row ID.
+         */
+        public int getNextId() {
+            return nextId;
+        }
+
+        /**
+         * Gets the number of rows in the table.
+         *
+         * @return The row count, or -1 if unknown.
+         */
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        boolean matchesFiles(String dbPath) {
+            File tableFile = TableFileIO.tableFile(tableName, dbPath);
+            try {
+                return tableFile.getName().equals(baseFileName) && tableFile.length() == baseBytes
+                        && TableFileIO.generation(tableName, dbPath) == baseGeneration
+                        && DeltaSegment.file(tableName, dbPath).length() == deltaBytes;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        String encode() {
+            StringBuilder line = new StringBuilder();
+            line.append(tableName).append('\t').append(nextId).append('\t').append(rowCount)
+                    .append('\t').append(baseFileName).append('\t').append(baseBytes)
+                    .append('\t').append(baseGeneration).append('\t').append(deltaBytes);
+            for (String columnName : columnNames) {
+                line.append('\t').append(columnName);
+            }
+            return line.toString();
+        }
+
+        static Entry decode(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length < 8) {
+                throw new IllegalArgumentException("Malformed catalog entry: " + line);
+            }
+            return new Entry(fields[0], new ArrayList<>(Arrays.asList(fields).subList(7, fields.length)),
+                    Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), fields[3],
+                    Long.parseLong(fields[4]), Long.parseLong(fields[5]), Long.parseLong(fields[6]));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package edu.uob.storage;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background worker that periodically folds each database's {@link WriteAheadLog}
+ * into its `.tab` files, and on demand when a log grows past {@link #LOG_SIZE_THRESHOLD}.
+ */
+public class Checkpointer implements Closeable {
+    // How often dirty databases are checkpointed (override with -Dedu.uob.wal.checkpointIntervalMillis)
+    public static final long INTERVAL_MILLIS = Long.getLong("edu.uob.wal.checkpointIntervalMillis", 2000L);
+    // Log size that triggers an immediate checkpoint (override with -Dedu.uob.wal.checkpointBytes)
+    public static final long LOG_SIZE_THRESHOLD = Long.getLong("edu.uob.wal.checkpointBytes", 4L * 1024 * 1024);
+
+    private DBManager dbManager;               // The manager whose databases are checkpointed
+    private ScheduledExecutorService executor; // Single daemon thread running the checkpoints
+
+    /**
+     * Creates and starts a checkpointer for the given manager.
+     *
+     * @param dbManager The database manager to checkpoint.
+     */
+    public Checkpointer(DBManager dbManager) {
+        this.dbManager = dbManager;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkpointAll, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules an immediate checkpoint of one database.
+     *
+     * @param dbName The database whose log should be folded.
+     */
+    public void requestCheckpoint(String dbName) {
+        if (!executor.isShutdown()) {
+            executor.execute(() -> {
+                try {
+                    dbManager.checkpoint(dbName);
+                } catch (RuntimeException e) {
+                    System.err.println("Checkpoint of " + dbName + " failed: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    private void checkpointAll() {
+        try {
+            dbManager.checkpointAll();
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the log still holds every change
+            System.err.println("Periodic checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the background thread. Pending checkpoints are abandoned; the log keeps their changes.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
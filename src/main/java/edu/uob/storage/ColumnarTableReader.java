@@ -0,0 +1,212 @@
+package edu.uob.storage;
+
+import edu.uob.models.Column;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads tables written by {@link ColumnarTableWriter}.
+ * Only the header is read when the file is opened; each column block is mapped and decoded
+ * on request, so projecting a few columns never touches the bytes of the others.
+ */
+public class ColumnarTableReader implements Closeable {
+    private FileChannel channel;      // Open channel on the columnar file
+    private int rowCount;             // Number of rows stored
+    private int nextId;               // The table's next row ID at the time it was written
+    private List<String> columnNames; // Column names in table order
+    private byte[] encodings;         // Encoding of each column block
+    private long[] offsets;           // File offset of each column block
+    private long[] lengths;           // Byte length of each column block
+
+    /**
+     * Opens a columnar file and reads its header.
+     *
+     * @param file The file to read.
+     * @throws IOException if the file cannot be read or is not in a supported format.
+     */
+    public ColumnarTableReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            readHeader();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        ByteBuffer fixed = readBytes(0, 4 + 2 + 4 + 4 + 4);
+        if (fixed.getInt() != ColumnarTableWriter.MAGIC) {
+            throw new IOException("Not a columnar table file");
+        }
+        short version = fixed.getShort();
+        if (version != ColumnarTableWriter.VERSION) {
+            throw new IOException("Unsupported columnar table version: " + version);
+        }
+        rowCount = fixed.getInt();
+        nextId = fixed.getInt();
+        int columnCount = fixed.getInt();
+
+        columnNames = new ArrayList<>();
+        encodings = new byte[columnCount];
+        offsets = new long[columnCount];
+        lengths = new long[columnCount];
+
+        long position = fixed.capacity();
+        for (int col = 0; col < columnCount; col++) {
+            int nameLength = readBytes(position, 2).getShort() & 0xFFFF;
+            ByteBuffer entry = readBytes(position + 2, nameLength + 1 + 8 + 8);
+            byte[] name = new byte[nameLength];
+            entry.get(name);
+            columnNames.add(new String(name, StandardCharsets.UTF_8));
+            encodings[col] = entry.get();
+            offsets[col] = entry.getLong();
+            lengths[col] = entry.getLong();
+            position += 2 + entry.capacity();
+        }
+    }
+
+    private ByteBuffer readBytes(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated columnar table file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Gets the column names stored in the file, in table order.
+     *
+     * @return The column names.
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Gets the number of rows stored in the file.
+     *
+     * @return The row count.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Decodes a single column block.
+     *
+     * @param columnIndex The position of the column in the table.
+     * @return The column values in row order.
+     * @throws IOException if the block cannot be read.
+     */
+    public String[] readColumn(int columnIndex) throws IOException {
+        String[] values = new String[rowCount];
+        if (lengths[columnIndex] == 0) {
+            return values;
+        }
+
+        MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, offsets[columnIndex], lengths[columnIndex]);
+        if (encodings[columnIndex] == ColumnarTableWriter.ENCODING_INT32) {
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = Integer.toString(block.getInt());
+            }
+        } else {
+            for (int i = 0; i < rowCount; i++) {
+                int length = block.getInt();
+                if (length >= 0) {
+                    byte[] bytes = new byte[length];
+                    block.get(bytes);
+                    values[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Loads the whole table.
+     *
+     * @param tableName The name to give the table.
+     * @return The loaded table.
+     * @throws IOException if a column block cannot be read.
+     */
+    public Table readTable(String tableName) throws IOException {
+        return readTable(tableName, columnNames);
+    }
+
+    /**
+     * Loads a projection of the table: the ID column plus the requested columns.
+     * Blocks of columns that are not requested are never read.
+     *
+     * @param tableName        The name to give the table.
+     * @param projectedColumns The columns to load (case-insensitive); the ID column is always included.
+     * @return A table containing only the projected columns.
+     * @throws IOException if a column block cannot be read.
+     * @throws IllegalArgumentException if a requested column does not exist.
+     */
+    public Table readTable(String tableName, List<String> projectedColumns) throws IOException {
+        List<Integer> indexes = new ArrayList<>();
+        indexes.add(0);
+        for (String name : projectedColumns) {
+            int index = indexOf(name);
+            if (index == -1) {
+                throw new IllegalArgumentException("Column not found: " + name);
+            }
+            if (!indexes.contains(index)) {
+                indexes.add(index);
+            }
+        }
+
+        Table table = new Table(tableName);
+        table.getColumns().clear();
+        List<String[]> blocks = new ArrayList<>();
+        for (int i = 0; i < indexes.size(); i++) {
+            table.getColumns().add(new Column(columnNames.get(indexes.get(i)), i));
+            blocks.add(readColumn(indexes.get(i)));
+        }
+
+        String[] ids = blocks.get(0);
+        for (int r = 0; r < rowCount; r++) {
+            Row row = new Row(Integer.parseInt(ids[r]));
+            for (String[] block : blocks) {
+                row.addValue(block[r]);
+            }
+            table.getRows().add(row);
+        }
+        table.setNextId(nextId);
+        return table;
+    }
+
+    private int indexOf(String columnName) {
+        for (int i = 0; i < columnNames.size(); i++) {
+            if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Closes the underlying file channel.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,123 @@
+package edu.uob.storage;
+
+import edu.uob.models.Column;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes tables in the versioned binary columnar format read by {@link ColumnarTableReader}.
+ *
+ * Layout (all numbers big-endian):
+ * <pre>
+ * header:  magic:int  version:short  rowCount:int  nextId:int  columnCount:int
+ *          per column: nameLength:short  name:utf8  encoding:byte  offset:long  length:long
+ * blocks:  one contiguous block per column, at the offset recorded in the header
+ * </pre>
+ * A column whose values are all plain integers is stored as fixed-width int32s ({@link #ENCODING_INT32});
+ * anything else is stored as length-prefixed UTF-8 with a length of -1 for null ({@link #ENCODING_UTF8}).
+ */
+public class ColumnarTableWriter {
+    public static final String FILE_EXTENSION = ".col";
+    public static final int MAGIC = 0x55434F4C; // "UCOL"
+    public static final short VERSION = 1;
+    public static final byte ENCODING_INT32 = 1;
+    public static final byte ENCODING_UTF8 = 2;
+
+    /**
+     * Writes a table to the given file, replacing it atomically.
+     *
+     * @param table The table to write.
+     * @param file  The destination file.
+     * @throws IOException if writing fails.
+     */
+    public static void write(Table table, Path file) throws IOException {
+        List<Column> columns = table.getColumns();
+        List<Row> rows = table.getRows();
+
+        // The header has a fixed size once the column names are known, so blocks can follow it directly
+        byte[][] names = new byte[columns.size()][];
+        int headerSize = 4 + 2 + 4 + 4 + 4;
+        for (int i = 0; i < columns.size(); i++) {
+            names[i] = columns.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            headerSize += 2 + names[i].length + 1 + 8 + 8;
+        }
+
+        byte[] encodings = new byte[columns.size()];
+        long[] offsets = new long[columns.size()];
+        long[] lengths = new long[columns.size()];
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(headerSize);
+            // Not closed on purpose: closing the stream would close the channel
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+
+            for (int col = 0; col < columns.size(); col++) {
+                offsets[col] = channel.position();
+                encodings[col] = chooseEncoding(rows, col);
+                for (Row row : rows) {
+                    String value = row.getValue(col);
+                    if (encodings[col] == ENCODING_INT32) {
+                        out.writeInt(Integer.parseInt(value));
+                    } else if (value == null) {
+                        out.writeInt(-1);
+                    } else {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                }
+                out.flush();
+                lengths[col] = channel.position() - offsets[col];
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            header.putInt(MAGIC).putShort(VERSION).putInt(rows.size()).putInt(table.getNextId()).putInt(columns.size());
+            for (int col = 0; col < columns.size(); col++) {
+                header.putShort((short) names[col].length).put(names[col]);
+                header.put(encodings[col]).putLong(offsets[col]).putLong(lengths[col]);
+            }
+            header.flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte chooseEncoding(List<Row> rows, int col) {
+        for (Row row : rows) {
+            String value = row.getValue(col);
+            if (value == null || !isCanonicalInt(value)) {
+                return ENCODING_UTF8;
+            }
+        }
+        return ENCODING_INT32;
+    }
+
+    // True if the text survives an int round trip unchanged (so "007" or "+5" stay as text)
+    private static boolean isCanonicalInt(String value) {
+        try {
+            return Integer.toString(Integer.parseInt(value)).equals(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package edu.uob.storage;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background worker that reclaims the space held by deleted rows.
+ * Tables whose share of tombstones passes {@link #DEAD_FRACTION} are compacted in memory,
+ * and tables whose delta file outgrew {@link DeltaSegment#COMPACT_RATIO} get their `.tab` file
+ * rewritten at no more than {@link #BYTES_PER_SECOND}.
+ */
+public class Compactor implements Closeable {
+    // How often tables are checked for reclaimable space (override with -Dedu.uob.storage.compactIntervalMillis)
+    public static final long INTERVAL_MILLIS = Long.getLong("edu.uob.storage.compactIntervalMillis", 5000L);
+    // Share of deleted rows that triggers an in-memory compaction (override with -Dedu.uob.storage.compactDeadFraction)
+    public static final double DEAD_FRACTION = Double.parseDouble(System.getProperty("edu.uob.storage.compactDeadFraction", "0.2"));
+    // Write rate of background file rewrites (override with -Dedu.uob.storage.compactBytesPerSecond)
+    public static final long BYTES_PER_SECOND = Long.getLong("edu.uob.storage.compactBytesPerSecond", 32L * 1024 * 1024);
+
+    private ScheduledExecutorService executor; // Single daemon thread running the compactions
+
+    /**
+     * Creates and starts a compactor for the given manager.
+     *
+     * @param dbManager The database manager whose tables are compacted.
+     */
+    public Compactor(DBManager dbManager) {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                dbManager.compactAll();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; compaction never changes what the tables contain
+                System.err.println("Compaction failed: " + e.getMessage());
+            }
+        }, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread; an unfinished file rewrite is abandoned and its temporary file left unused.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
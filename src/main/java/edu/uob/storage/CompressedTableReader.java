@@ -0,0 +1,142 @@
+package edu.uob.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a block-compressed table file written by {@link CompressedTableWriter}.
+ * Opening the file reads only the header and the small per-block headers; each block is then
+ * inflated independently, so several threads can decompress different blocks at the same time.
+ */
+public class CompressedTableReader implements Closeable {
+    private final FileChannel channel;     // The open table file; read with positional reads only
+    private final byte[] header;           // The column header line, without its line break
+    private final List<long[]> blocks;     // Offset, raw length and compressed length of each block
+    private final long rawBytes;           // Size of the table as a plain .tab file
+
+    /**
+     * Constructs a `CompressedTableReader` and indexes the blocks of the file.
+     *
+     * @param file The compressed table file.
+     * @throws IOException if the file cannot be read or is not a compressed table file.
+     */
+    public CompressedTableReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer prefix = read(0, CompressedTableWriter.PREFIX_BYTES);
+            if (prefix.getInt() != CompressedTableWriter.MAGIC || prefix.getShort() != CompressedTableWriter.VERSION) {
+                throw new IOException("Not a compressed table file: " + file);
+            }
+            if (prefix.get() != CompressedTableWriter.CODEC_DEFLATE) {
+                throw new IOException("Unsupported compression codec in " + file);
+            }
+            this.header = read(CompressedTableWriter.PREFIX_BYTES, prefix.getInt()).array();
+
+            this.blocks = new ArrayList<>();
+            long raw = header.length + 1;
+            long position = CompressedTableWriter.PREFIX_BYTES + header.length;
+            long size = channel.size();
+            while (position < size) {
+                ByteBuffer blockHeader = read(position, CompressedTableWriter.BLOCK_HEADER_BYTES);
+                int rawLength = blockHeader.getInt();
+                int compressedLength = blockHeader.getInt();
+                position += CompressedTableWriter.BLOCK_HEADER_BYTES;
+                if (rawLength < 0 || compressedLength < 0 || position + compressedLength > size) {
+                    throw new IOException("Corrupt compressed table file: " + file);
+                }
+                blocks.add(new long[]{position, rawLength, compressedLength});
+                raw += rawLength;
+                position += compressedLength;
+            }
+            this.rawBytes = raw;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the column header line.
+     *
+     * @return The header bytes, without the line break.
+     */
+    public byte[] getHeader() {
+        return header;
+    }
+
+    /**
+     * Gets the number of compressed blocks.
+     *
+     * @return The block count.
+     */
+    public int getBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Gets the size the table would have as a plain `.tab` file.
+     *
+     * @return The uncompressed size in bytes.
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * Reads and inflates one block. Safe to call from several threads at once.
+     *
+     * @param index The block number.
+     * @return The block's lines, each ending in a line break.
+     * @throws IOException if the block cannot be read or does not inflate to its recorded size.
+     */
+    public byte[] readBlock(int index) throws IOException {
+        long[] block = blocks.get(index);
+        byte[] compressed = read(block[0], (int) block[2]).array();
+        byte[] raw = new byte[(int) block[1]];
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != raw.length) {
+                throw new IOException("Compressed block " + index + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Compressed block " + index + " is corrupt: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        return raw;
+    }
+
+    private ByteBuffer read(long start, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Compressed table file is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
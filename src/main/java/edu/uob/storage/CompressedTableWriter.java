@@ -0,0 +1,183 @@
+package edu.uob.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses the text of a `.tab` file into independently deflated blocks of whole lines.
+ *
+ * The file starts with a fixed prefix (magic number, format version, codec and header length)
+ * followed by the column header line, stored uncompressed so the schema can be read cheaply.
+ * Each block that follows is its raw length, its compressed length and the deflated lines.
+ * Blocks never split a line, so a loader can inflate and parse them in parallel.
+ */
+public class CompressedTableWriter extends OutputStream {
+    public static final String FILE_EXTENSION = ".tabz";
+    // Uncompressed bytes per block (-Dedu.uob.storage.compressionBlockBytes)
+    public static final int BLOCK_BYTES = Integer.getInteger("edu.uob.storage.compressionBlockBytes", 256 * 1024);
+    // Deflate level, 1 (fastest) to 9 (smallest) (-Dedu.uob.storage.compressionLevel)
+    public static final int LEVEL = Integer.getInteger("edu.uob.storage.compressionLevel", Deflater.DEFAULT_COMPRESSION);
+
+    static final int MAGIC = 0x5554425A; // "UTBZ"
+    static final short VERSION = 1;
+    static final byte CODEC_DEFLATE = 1;
+    static final int PREFIX_BYTES = 11;      // Magic, version, codec and header length
+    static final int BLOCK_HEADER_BYTES = 8; // Raw length and compressed length
+
+    private final DataOutputStream output;   // Where the compressed file is written
+    private final Deflater deflater;         // Reused for every block
+    private final int blockBytes;            // Target uncompressed size of a block
+    private ByteArrayOutputStream pending;   // Text not written out yet
+    private boolean headerWritten;           // Whether the first line has been written
+    private long rawBytes;                   // Uncompressed bytes received so far
+    private long storedBytes;                // Bytes written to the output so far
+
+    /**
+     * Constructs a `CompressedTableWriter` with the configured block size.
+     *
+     * @param output The stream that receives the compressed file.
+     */
+    public CompressedTableWriter(OutputStream output) {
+        this(output, BLOCK_BYTES);
+    }
+
+    /**
+     * Constructs a `CompressedTableWriter`.
+     *
+     * @param output     The stream that receives the compressed file.
+     * @param blockBytes The target uncompressed size of a block; a block grows past it only to finish a line.
+     */
+    public CompressedTableWriter(OutputStream output, int blockBytes) {
+        this.output = new DataOutputStream(output);
+        this.deflater = new Deflater(LEVEL);
+        this.blockBytes = Math.max(1, blockBytes);
+        this.pending = new ByteArrayOutputStream(this.blockBytes + 1024);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        pending.write(bytes, offset, length);
+        rawBytes += length;
+        if (!headerWritten || pending.size() >= blockBytes) {
+            drain(false);
+        }
+    }
+
+    /**
+     * Writes out the remaining text as a final block.
+     * The underlying stream is flushed but not closed.
+     *
+     * @throws IOException if writing fails.
+     */
+    public void finish() throws IOException {
+        drain(true);
+        output.flush();
+    }
+
+    /**
+     * Gets the number of uncompressed bytes written to this stream.
+     *
+     * @return The size of the table as a plain `.tab` file.
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * Gets the number of bytes written to the underlying stream, including headers.
+     *
+     * @return The size of the compressed file so far.
+     */
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    // Writes the header once its line is complete, then every full block (or everything, at the end)
+    private void drain(boolean all) throws IOException {
+        byte[] text = pending.toByteArray();
+        int start = 0;
+        if (!headerWritten) {
+            int lineEnd = indexOf(text, 0, '\n');
+            if (lineEnd < 0 && !all) {
+                return;
+            }
+            int headerLength = lineEnd < 0 ? text.length : lineEnd;
+            int headerEnd = headerLength > 0 && text[headerLength - 1] == '\r' ? headerLength - 1 : headerLength;
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeByte(CODEC_DEFLATE);
+            output.writeInt(headerEnd);
+            output.write(text, 0, headerEnd);
+            storedBytes += PREFIX_BYTES + headerEnd;
+            headerWritten = true;
+            start = lineEnd < 0 ? text.length : lineEnd + 1;
+        }
+
+        while (text.length - start >= blockBytes || (all && start < text.length)) {
+            int end = text.length;
+            if (!all || text.length - start > blockBytes) {
+                int lineEnd = indexOf(text, start + blockBytes - 1, '\n');
+                if (lineEnd < 0) {
+                    if (!all) {
+                        break; // Wait for the rest of the line
+                    }
+                } else {
+                    end = lineEnd + 1;
+                }
+            }
+            writeBlock(text, start, end - start);
+            start = end;
+        }
+
+        pending = new ByteArrayOutputStream(blockBytes + 1024);
+        pending.write(text, start, text.length - start);
+    }
+
+    private void writeBlock(byte[] text, int offset, int length) throws IOException {
+        deflater.reset();
+        deflater.setInput(text, offset, length);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 4));
+        byte[] buffer = new byte[64 * 1024];
+        while (!deflater.finished()) {
+            int count = deflater.deflate(buffer);
+            compressed.write(buffer, 0, count);
+        }
+        output.writeInt(length);
+        output.writeInt(compressed.size());
+        compressed.writeTo(output);
+        storedBytes += BLOCK_HEADER_BYTES + compressed.size();
+    }
+
+    private static int indexOf(byte[] bytes, int from, char target) {
+        for (int i = Math.max(0, from); i < bytes.length; i++) {
+            if (bytes[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes out the remaining text and releases the compressor.
+     * The underlying stream is left open so the caller can force it to disk.
+     *
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -1,24 +1,78 @@
 package edu.uob.storage;
 
+import edu.uob.commands.Command;
+import edu.uob.models.Column;
 import edu.uob.models.Database;
+import edu.uob.models.QueryResult;
+import edu.uob.models.Row;
 import edu.uob.models.Table;
 import edu.uob.parser.SQLKeywords;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 public class DBManager {
+    // File in the storage folder that the serving manager holds locked
+    public static final String LOCK_FILE_NAME = ".lock";
+    // Folder in the storage folder that LOAD reads from and EXPORT writes to; never a database
+    public static final String TRANSFER_FOLDER_NAME = "transfer";
+    // .tab files larger than this are left on disk and scanned via mmap (-Dedu.uob.storage.mappedScanBytes)
+    private static final long MAPPED_SCAN_THRESHOLD = Long.getLong("edu.uob.storage.mappedScanBytes", 64L * 1024 * 1024);
+    // Set -Dedu.uob.storage.preload=true to load every table in the background right after startup
+    private static final boolean PRELOAD_TABLES = Boolean.getBoolean("edu.uob.storage.preload");
+    // Set -Dedu.uob.storage.paged=true to keep rows in page files behind a bounded buffer pool instead of the heap
+    private static final boolean PAGED_STORAGE = Boolean.getBoolean("edu.uob.storage.paged");
+    // Threads one SELECT, UPDATE or DELETE scan may use unless the session sets otherwise (-Dedu.uob.scan.parallelism)
+    public static final int SCAN_PARALLELISM = Math.max(1, Integer.getInteger("edu.uob.scan.parallelism",
+            Runtime.getRuntime().availableProcessors()));
+
     private Map<String, Database> databases;
-    private String currentDatabase;
+    private Session defaultSession;          // Session of callers that do not bring their own
+    private Session session;                 // Session of the statement currently executing
     private String storageFolderPath;
+    private Map<String, WriteAheadLog> logs; // Open write-ahead logs, keyed by database name
+    private Checkpointer checkpointer;       // Folds the logs into the table files in the background
+    private Compactor compactor;             // Reclaims the space of deleted rows in the background
+    private boolean closed;                  // Set once the manager has been shut down
+    private FileChannel lockChannel;         // Open channel of the lock file
+    private FileLock folderLock;             // Exclusive lock on the storage folder, held until closed
+    private AtomicInteger inFlight;          // Statements queued or running; lets group commit size its batches
+    private WriteAheadLog statementLog;      // Log written by the statement currently executing, if any
+    private Map<String, Long> statementTables; // Tables of the current database the executing statement changes, with their version before
+    private BufferPool bufferPool;           // Page cache shared by all paged tables (null unless paged storage is on)
+    private Map<String, PagedRowList> pagedRows; // Row storage of paged tables, keyed by page file path
+    private Map<String, Catalog> catalogs;   // Table descriptions of each database, keyed by database name
 
     public DBManager(String storageFolderPath) {
         this.databases = new HashMap<>();
+        this.logs = new HashMap<>();
+        this.inFlight = new AtomicInteger();
+        this.statementTables = new HashMap<>();
         this.storageFolderPath = storageFolderPath;
+        this.pagedRows = new HashMap<>();
+        this.catalogs = new HashMap<>();
+        this.defaultSession = new Session();
+        this.session = defaultSession;
+        this.bufferPool = PAGED_STORAGE ? new BufferPool() : null;
 
         // Create storage folder
         File storageFolder = new File(storageFolderPath);
@@ -26,41 +80,527 @@ public class DBManager {
             storageFolder.mkdirs();
         }
 
+        // Only one manager may serve a folder, or their checkpoints would race
+        lockFolder(storageFolder);
+        new File(storageFolder, TRANSFER_FOLDER_NAME).mkdirs();
+
         // Load existing databases
         loadDatabases();
+
+        this.checkpointer = new Checkpointer(this);
+        this.compactor = new Compactor(this);
+    }
+
+    private void lockFolder(File storageFolder) {
+        try {
+            lockChannel = FileChannel.open(new File(storageFolder, LOCK_FILE_NAME).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                folderLock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                folderLock = null; // Held by another manager in this process
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot lock storage folder " + storageFolder + ": " + e.getMessage());
+        }
+        if (folderLock == null) {
+            try {
+                lockChannel.close();
+            } catch (IOException e) {
+                // The folder is unusable either way
+            }
+            throw new IllegalStateException("Storage folder is in use by another database manager: " + storageFolder);
+        }
+    }
+
+    /**
+     * Executes a command while holding the manager lock, so the background checkpointer
+     * never observes a table in the middle of a change.
+     * If the command logged any changes, a commit record is appended and the caller waits,
+     * outside the lock, until the {@link GroupCommitter} has made it durable.
+     * If the command fails, the changes it made are undone and its log records are aborted,
+     * so a failed statement has no effect.
+     *
+     * @param command The parsed command to run.
+     * @return The command's result.
+     */
+    public QueryResult execute(Command command) {
+        return execute(defaultSession, command);
+    }
+
+    /**
+     * Executes a command in a client's session, so that USE and other session settings
+     * only apply to that client's later statements.
+     *
+     * @param session The session to run the command in.
+     * @param command The parsed command to run.
+     * @return The command's result.
+     */
+    public QueryResult execute(Session session, Command command) {
+        WriteAheadLog commitLog = null;
+        long commitLsn = 0;
+        QueryResult result;
+
+        inFlight.incrementAndGet();
+        try {
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Database manager has been shut down");
+                }
+                statementLog = null;
+                statementTables.clear();
+                this.session = session;
+                try {
+                    result = command.execute(this);
+                    if (statementLog != null) {
+                        commitLog = statementLog;
+                        commitLsn = appendCommit(commitLog);
+                    }
+                } catch (RuntimeException e) {
+                    abortStatement();
+                    throw e;
+                } finally {
+                    statementLog = null;
+                    statementTables.clear();
+                    this.session = defaultSession;
+                }
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        if (commitLog != null) {
+            try {
+                commitLog.getGroupCommitter().awaitDurable(commitLsn);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to flush log: " + e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private long appendCommit(WriteAheadLog log) {
+        try {
+            return log.append(LogRecord.commit());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Undoes the changes of a statement that failed part way. Its log records are closed by an abort
+     * record, so replay skips them, and every table it changed is set up again from its files and
+     * the committed log records, exactly as recovery would after a crash.
+     */
+    private void abortStatement() {
+        String dbName = currentDatabase();
+        if (dbName == null) {
+            return;
+        }
+
+        boolean aborted = statementLog == null;
+        if (statementLog != null) {
+            try {
+                statementLog.append(LogRecord.abort());
+                aborted = true;
+            } catch (IOException e) {
+                System.err.println("Error aborting statement: " + e.getMessage());
+            }
+        }
+
+        try {
+            Database db = databases.get(dbName);
+            String dbPath = getDatabasePath(dbName);
+            WriteAheadLog log = logs.get(dbName);
+            List<LogRecord> committed = log != null ? committedChanges(log.readAll()) : List.of();
+            for (Map.Entry<String, Long> entry : statementTables.entrySet()) {
+                String tableName = entry.getKey();
+                Table changed = db.getTables().get(tableName);
+                if (changed == null || changed.getVersion() == entry.getValue()) {
+                    continue; // The statement failed before changing it
+                }
+                db.dropTable(tableName);
+                openTable(db, tableName, dbPath);
+                Table table = db.getTable(tableName);
+                for (LogRecord change : committed) {
+                    if (table != null && change.getTableName().equals(tableName)) {
+                        change.applyTo(table);
+                    }
+                }
+            }
+            if (!aborted) {
+                // The log still holds the undone records with nothing to mark them; fold it now so they go
+                checkpoint(dbName);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error rolling back statement: " + e.getMessage());
+        }
+    }
+
+    // Registers a table stored in a database folder; nothing is read from its files yet
+    private void openTable(Database db, String tableName, String dbPath) {
+        Catalog.Entry entry = catalogs.computeIfAbsent(db.getName(), name -> Catalog.load(dbPath)).getValidEntry(tableName);
+        if (entry != null) {
+            db.addTable(describedTable(tableName, dbPath, entry));
+        } else if (TableFileIO.tableFile(tableName, dbPath).exists()) {
+            db.registerTable(tableName, () -> readTable(tableName, dbPath));
+        }
+    }
+
+    // The changes of the statements that reached their commit record, in log order
+    private static List<LogRecord> committedChanges(List<LogRecord> records) {
+        List<LogRecord> committed = new ArrayList<>();
+        List<LogRecord> statement = new ArrayList<>();
+        for (LogRecord record : records) {
+            if (record.isChange()) {
+                statement.add(record);
+                continue;
+            }
+            if (record.getType() == LogRecord.Type.COMMIT) {
+                committed.addAll(statement);
+            }
+            statement.clear(); // Changes followed by an abort record are dropped
+        }
+        return committed;
     }
 
     private void loadDatabases() {
         File storageFolder = new File(storageFolderPath);
-        File[] dbFolders = storageFolder.listFiles(File::isDirectory);
+        File[] dbFolders = storageFolder.listFiles(file ->
+                file.isDirectory() && !file.getName().equals(TRANSFER_FOLDER_NAME));
 
         if (dbFolders != null) {
             for (File dbFolder : dbFolders) {
                 String dbName = dbFolder.getName().toLowerCase();
                 Database db = new Database(dbName);
 
-                // Load tables
-                File[] tableFiles = dbFolder.listFiles((dir, name) -> name.endsWith(".tab"));
+                // Tables described by the catalog are set up from it alone; the others are
+                // registered by file name only. Either way each one is read on first access
+                String dbPath = dbFolder.getPath();
+                BulkLoader.recover(dbPath);
+                catalogs.put(dbName, Catalog.load(dbPath));
+                File[] tableFiles = dbFolder.listFiles((dir, name) ->
+                        name.endsWith(".tab") || name.endsWith(CompressedTableWriter.FILE_EXTENSION));
 
                 if (tableFiles != null) {
                     for (File tableFile : tableFiles) {
                         String tableName = tableFile.getName();
-                        // Remove .tab extension
-                        tableName = tableName.substring(0, tableName.length() - 4);
-
-                        try {
-                            Table table = TableFileIO.loadTable(tableName, dbFolder.getPath());
-                            db.addTable(table);
-                        } catch (IOException e) {
-                            // Just print error and continue loading other tables
-                            System.err.println("Error loading table " + tableName + ": " + e.getMessage());
+                        // Remove .tab or .tabz extension
+                        String name = tableName.substring(0, tableName.lastIndexOf('.'));
+                        if (!db.hasTable(name)) {
+                            openTable(db, name, dbPath);
                         }
                     }
                 }
 
                 databases.put(dbName, db);
+                recoverDatabase(db);
             }
         }
+
+        if (PRELOAD_TABLES) {
+            preloadTables();
+        }
+    }
+
+    private void preloadTables() {
+        // Tables and databases load concurrently while commands are already served;
+        // a command that needs a table first simply joins its load.
+        // These threads may block on a table's load, so they are kept apart from the chunk-parsing pool
+        ExecutorService preloader = Executors.newFixedThreadPool(ParallelTableLoader.PARALLELISM, runnable -> {
+            Thread thread = new Thread(runnable, "db-preloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Database db : databases.values()) {
+            for (String tableName : db.getTableNames()) {
+                preloader.execute(() -> {
+                    try {
+                        db.getTable(tableName);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error loading table " + tableName + ": " + e.getMessage());
+                    }
+                });
+            }
+        }
+        preloader.shutdown(); // Queued loads still run; the threads exit once they are done
+    }
+
+    private Table readTable(String tableName, String dbPath) throws IOException {
+        // Large tables stay on disk; SELECT scans them in place until something modifies them
+        if (leaveOnDisk(tableName, dbPath)) {
+            Table table = TableFileIO.loadTableHeader(tableName, dbPath);
+            table.setLoader(() -> loadTable(tableName, dbPath));
+            return table;
+        }
+        return loadTable(tableName, dbPath);
+    }
+
+    // A table known from the catalog: nothing is read until its rows are needed, and rows can be appended before that
+    private Table describedTable(String tableName, String dbPath, Catalog.Entry entry) {
+        Table table = new Table(tableName);
+        table.getColumns().clear();
+        for (String columnName : entry.getColumnNames()) {
+            table.getColumns().add(new Column(columnName, table.getColumns().size()));
+        }
+        table.setLoader(() -> loadTable(tableName, dbPath), entry.getNextId(), entry.getRowCount(),
+                leaveOnDisk(tableName, dbPath));
+        return table;
+    }
+
+    private Table loadTable(String tableName, String dbPath) throws IOException {
+        return PAGED_STORAGE
+                ? TableFileIO.loadTable(tableName, dbPath, openPagedRows(dbPath, tableName))
+                : TableFileIO.loadTable(tableName, dbPath);
+    }
+
+    // Whether SELECT should scan the table file in place rather than load it (only plain .tab files can be)
+    private static boolean leaveOnDisk(String tableName, String dbPath) {
+        File tableFile = TableFileIO.tableFile(tableName, dbPath);
+        return tableFile.length() > MAPPED_SCAN_THRESHOLD
+                && !TableFileIO.isCompressed(tableName, dbPath)
+                && !TableFileIO.columnarFile(tableName, dbPath).exists()
+                && !DeltaSegment.file(tableName, dbPath).exists();
+    }
+
+    private void recoverDatabase(Database db) {
+        File logFile = new File(getDatabasePath(db.getName()), WriteAheadLog.FILE_NAME);
+        if (!logFile.exists() || logFile.length() == 0) {
+            return;
+        }
+
+        try {
+            // Replay changes that had not been checkpointed, then fold them in right away
+            // Only statements that reached their commit record are applied
+            WriteAheadLog log = logFor(db.getName());
+            for (LogRecord change : committedChanges(log.readAll())) {
+                Table table = db.getTable(change.getTableName());
+                if (table != null) {
+                    change.applyTo(table);
+                }
+            }
+            checkpoint(db.getName());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error replaying log of database " + db.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private WriteAheadLog logFor(String dbName) throws IOException {
+        WriteAheadLog log = logs.get(dbName);
+        if (log == null) {
+            log = new WriteAheadLog(getDatabasePath(dbName), inFlight::get);
+            logs.put(dbName, log);
+        }
+        return log;
+    }
+
+    private void appendToLog(LogRecord record) {
+        appendToLog(List.of(record));
+    }
+
+    private void appendToLog(List<LogRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            WriteAheadLog log = logFor(currentDatabase());
+            log.append(records);
+            statementLog = log;
+            if (log.size() > Checkpointer.LOG_SIZE_THRESHOLD && checkpointer != null) {
+                checkpointer.requestCheckpoint(currentDatabase());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Folds a database's write-ahead log into its table files and truncates the log.
+     *
+     * @param dbName The database to checkpoint.
+     */
+    public synchronized void checkpoint(String dbName) {
+        WriteAheadLog log = logs.get(dbName);
+        Database db = databases.get(dbName);
+        if (log == null || db == null) {
+            return;
+        }
+
+        try {
+            if (log.size() == 0) {
+                return;
+            }
+            String dbPath = getDatabasePath(dbName);
+            for (String tableName : log.getDirtyTables()) {
+                Table table = db.getTable(tableName);
+                if (table != null) {
+                    TableFileIO.persistChanges(table, dbPath);
+                }
+            }
+            saveCatalog(dbName);
+            log.truncate();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to checkpoint database " + dbName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the persisted state of a database's tables in its catalog.
+     * Tables with changes that are only in the log keep their previous entry, because log replay
+     * skips inserts below the recorded next ID. A failed save only costs a slower next startup.
+     *
+     * @param dbName The database whose catalog should be saved.
+     */
+    private void saveCatalog(String dbName) {
+        Database db = databases.get(dbName);
+        if (db == null) {
+            return;
+        }
+        Catalog catalog = catalogs.computeIfAbsent(dbName, name -> Catalog.load(getDatabasePath(name)));
+        for (Table table : db.getTables().values()) {
+            if (table.getDirtyRowIds().isEmpty() && table.getDeletedRowIds().isEmpty() && !table.hasSchemaChanged()) {
+                catalog.update(table);
+            }
+        }
+        catalog.retainAll(db.getTableNames());
+        try {
+            catalog.save();
+        } catch (IOException e) {
+            System.err.println("Error saving catalog of database " + dbName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checkpoints every database that has an open write-ahead log.
+     */
+    public synchronized void checkpointAll() {
+        for (String dbName : new ArrayList<>(logs.keySet())) {
+            checkpoint(dbName);
+        }
+    }
+
+    /**
+     * Reclaims the space of deleted rows in every loaded table: tables with many tombstones are
+     * compacted in memory, and tables with an oversized delta get their `.tab` file rewritten.
+     * The rewrite is throttled and runs outside the manager lock, so commands keep being served;
+     * if the table changes meanwhile, the rewrite is discarded and retried on a later run.
+     */
+    public void compactAll() {
+        List<String> dbNames;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            dbNames = new ArrayList<>(databases.keySet());
+        }
+
+        for (String dbName : dbNames) {
+            List<Table> tables;
+            synchronized (this) {
+                Database db = databases.get(dbName);
+                if (closed || db == null) {
+                    continue;
+                }
+                tables = new ArrayList<>(db.getTables().values());
+            }
+
+            for (Table table : tables) {
+                synchronized (this) {
+                    if (closed || !table.isLoaded()) {
+                        continue;
+                    }
+                    int dead = table.getDeadRowCount();
+                    if (dead > 0 && dead >= (table.getRows().size() + dead) * Compactor.DEAD_FRACTION) {
+                        table.compact();
+                    }
+                }
+                if (DeltaSegment.isOversized(table.getName(), getDatabasePath(dbName))) {
+                    rewriteTableFile(dbName, table);
+                }
+            }
+        }
+    }
+
+    private void rewriteTableFile(String dbName, Table table) {
+        String dbPath = getDatabasePath(dbName);
+        File tempFile = new File(dbPath, table.getName() + ".tab.compact");
+        long version;
+        long generation;
+        boolean compressed;
+        List<Column> columns;
+        List<Row> rows;
+        synchronized (this) {
+            if (closed || !isCurrent(dbName, table)) {
+                return;
+            }
+            version = table.getVersion();
+            try {
+                generation = TableFileIO.nextGeneration(table.getName(), dbPath);
+            } catch (IOException e) {
+                System.err.println("Compaction of table " + table.getName() + " abandoned: " + e.getMessage());
+                return;
+            }
+            compressed = TableFileIO.isCompressed(table.getName(), dbPath); // Keep the table's storage format
+            columns = new ArrayList<>(table.getColumns());
+            rows = new ArrayList<>(table.getRows());
+        }
+
+        try {
+            TableFileIO.writeTabFile(columns, rows, tempFile, Compactor.BYTES_PER_SECOND, compressed, generation);
+            synchronized (this) {
+                // Another rewrite meanwhile would have taken this generation
+                if (!closed && isCurrent(dbName, table) && table.getVersion() == version
+                        && TableFileIO.nextGeneration(table.getName(), dbPath) == generation
+                        && TableFileIO.isCompressed(table.getName(), dbPath) == compressed) {
+                    TableFileIO.installTabFile(table, dbPath, tempFile, compressed);
+                    saveCatalog(dbName);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // The table changed under the writer or the write failed; the old files are untouched
+            System.err.println("Compaction of table " + table.getName() + " abandoned: " + e.getMessage());
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    private boolean isCurrent(String dbName, Table table) {
+        Database db = databases.get(dbName);
+        return db != null && db.getTables().get(table.getName()) == table;
+    }
+
+    /**
+     * Checkpoints all databases, stops the background checkpointer, rejects further commands and
+     * releases the storage folder for another manager.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        checkpointAll();
+        checkpointer.close();
+        compactor.close();
+        synchronized (pagedRows) {
+            for (PagedRowList rows : pagedRows.values()) {
+                closePagedRows(rows);
+            }
+            pagedRows.clear();
+        }
+        for (WriteAheadLog log : logs.values()) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Error closing log: " + e.getMessage());
+            }
+        }
+        logs.clear();
+        try {
+            folderLock.release();
+            lockChannel.close();
+        } catch (IOException e) {
+            System.err.println("Error releasing storage folder lock: " + e.getMessage());
+        }
     }
 
     public void createDatabase(String dbName) {
@@ -68,6 +608,9 @@ public class DBManager {
         if (databases.containsKey(dbName)) {
             throw new IllegalArgumentException("Database already exists: " + dbName);
         }
+        if (dbName.equals(TRANSFER_FOLDER_NAME)) {
+            throw new IllegalArgumentException("Database name is reserved: " + dbName);
+        }
 
         // Create database folder
         File dbFolder = new File(storageFolderPath + File.separator + dbName);
@@ -85,16 +628,37 @@ public class DBManager {
             throw new IllegalArgumentException("Database does not exist: " + dbName);
         }
 
-        // Delete database folder
+        // Close the log before its folder disappears
+        WriteAheadLog log = logs.remove(dbName);
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Error closing log: " + e.getMessage());
+            }
+        }
+
+        // Release the page files of its tables, then delete database folder
         File dbFolder = new File(storageFolderPath + File.separator + dbName);
+        String pagePrefix = dbFolder.toPath().toAbsolutePath().normalize() + File.separator;
+        synchronized (pagedRows) {
+            pagedRows.entrySet().removeIf(entry -> {
+                if (entry.getKey().startsWith(pagePrefix)) {
+                    closePagedRows(entry.getValue());
+                    return true;
+                }
+                return false;
+            });
+        }
         deleteFolder(dbFolder);
 
         // Remove from memory
         databases.remove(dbName);
+        catalogs.remove(dbName);
 
-        // Reset current database if it was deleted
-        if (dbName.equals(currentDatabase)) {
-            currentDatabase = null;
+        // Reset current database if it was deleted; other sessions find it gone on their next statement
+        if (dbName.equals(session.getDatabaseName())) {
+            session.setDatabaseName(null);
         }
     }
 
@@ -118,16 +682,16 @@ public class DBManager {
             throw new IllegalArgumentException("Database does not exist: " + dbName);
         }
 
-        currentDatabase = dbName;
+        session.setDatabaseName(dbName);
     }
 
     public void createTable(String tableName, List<String> columnNames) {
-        if (currentDatabase == null) {
+        if (currentDatabase() == null) {
             throw new IllegalStateException("No database selected");
         }
 
         tableName = tableName.toLowerCase();
-        Database db = databases.get(currentDatabase);
+        Database db = databases.get(currentDatabase());
 
         if (db.hasTable(tableName)) {
             throw new IllegalArgumentException("Table already exists: " + tableName);
@@ -147,7 +711,10 @@ public class DBManager {
         }
 
         // Save table
-        String dbPath = storageFolderPath + File.separator + currentDatabase;
+        String dbPath = storageFolderPath + File.separator + currentDatabase();
+        if (PAGED_STORAGE) {
+            table.setRows(openPagedRows(dbPath, tableName));
+        }
         try {
             TableFileIO.saveTable(table, dbPath);
         } catch (IOException e) {
@@ -156,18 +723,60 @@ public class DBManager {
 
         // Add to memory
         db.addTable(table);
+        saveCatalog(currentDatabase());
     }
 
     public void dropTable(Table table, String dbPath) {
-        // Delete table file
-        File tableFile = new File(dbPath + File.separator + table.getName() + ".tab");
-        if (tableFile.exists()) {
-            tableFile.delete();
+        // Fold pending log records first so none of them outlive the table
+        checkpoint(currentDatabase());
+
+        // Delete table file in either format (and its columnar copy and delta, if any)
+        new File(dbPath + File.separator + table.getName() + ".tab").delete();
+        new File(dbPath + File.separator + table.getName() + CompressedTableWriter.FILE_EXTENSION).delete();
+        TableFileIO.columnarFile(table.getName(), dbPath).delete();
+        DeltaSegment.file(table.getName(), dbPath).delete();
+        synchronized (pagedRows) {
+            PagedRowList rows = pagedRows.remove(pageFilePath(dbPath, table.getName()));
+            if (rows != null) {
+                closePagedRows(rows);
+            }
         }
 
         // Remove from memory
-        Database currentDb = databases.get(currentDatabase);
+        Database currentDb = databases.get(currentDatabase());
         currentDb.dropTable(table.getName());
+        saveCatalog(currentDatabase());
+    }
+
+    private PagedRowList openPagedRows(String dbPath, String tableName) {
+        // Locks only the page file registry: this runs inside table loads, which may be waited on under the manager lock
+        String path = pageFilePath(dbPath, tableName);
+        synchronized (pagedRows) {
+            PagedRowList previous = pagedRows.remove(path);
+            if (previous != null) {
+                closePagedRows(previous);
+            }
+
+            try {
+                PagedRowList rows = new PagedRowList(Paths.get(path), bufferPool);
+                pagedRows.put(path, rows);
+                return rows;
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to create page file for table " + tableName + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void closePagedRows(PagedRowList rows) {
+        try {
+            rows.close();
+        } catch (IOException e) {
+            System.err.println("Error closing page file: " + e.getMessage());
+        }
+    }
+
+    private static String pageFilePath(String dbPath, String tableName) {
+        return new File(dbPath, tableName + PagedRowList.FILE_EXTENSION).toPath().toAbsolutePath().normalize().toString();
     }
 
     public void saveTable(Table table, String dbPath) {
@@ -176,25 +785,232 @@ public class DBManager {
         } catch (IOException e) {
             throw new RuntimeException("Failed to save table: " + e.getMessage());
         }
+
+        // A full save (e.g. after ALTER) changes the schema the logged records refer to,
+        // so fold the rest of the log now rather than replaying it against the new layout
+        checkpoint(currentDatabase());
+        saveCatalog(currentDatabase());
+    }
+
+    /**
+     * Adds or removes the binary columnar copy of a table in the current database.
+     * While it exists, queries on the table read only the columns they name, if nothing newer is in memory or a delta.
+     *
+     * @param tableName The table to convert.
+     * @param enabled   Whether the table should have a columnar copy.
+     */
+    public synchronized void setColumnarStorage(String tableName, boolean enabled) {
+        Table table = getTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table does not exist: " + tableName);
+        }
+
+        // Fold pending changes first; adding the copy then rewrites the base file and its delta
+        checkpoint(currentDatabase());
+        try {
+            TableFileIO.setColumnar(table, getDatabasePath(currentDatabase()), enabled);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to convert table: " + e.getMessage());
+        }
+        saveCatalog(currentDatabase());
+    }
+
+    /**
+     * Reads some columns of a table in the current database from its columnar copy, leaving the
+     * table itself unloaded. Blocks of the other columns are never read.
+     * Only possible while the copy holds every row on its own: the table has a columnar copy and no
+     * delta, and none of its rows are in memory.
+     *
+     * @param table       The table to read.
+     * @param columnNames The columns needed, in any case; the ID column is always included.
+     * @return A detached table holding just those columns, or `null` if the columnar copy cannot be used.
+     * @throws RuntimeException if the columnar copy cannot be read or a column does not exist.
+     */
+    public synchronized Table readColumns(Table table, List<String> columnNames) {
+        String dbPath = getDatabasePath(currentDatabase());
+        File columnarFile = TableFileIO.columnarFile(table.getName(), dbPath);
+        if (!table.isOnDisk() || !columnarFile.exists() || DeltaSegment.file(table.getName(), dbPath).exists()) {
+            return null;
+        }
+        try (ColumnarTableReader reader = new ColumnarTableReader(columnarFile.toPath())) {
+            return reader.readTable(table.getName(), columnNames);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read columnar table: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Switches a table in the current database between plain and block-compressed storage.
+     * The table is rewritten in the chosen format right away; later saves and compactions keep it.
+     *
+     * @param tableName The table to rewrite.
+     * @param enabled   Whether the table should be stored block-compressed.
+     */
+    public synchronized void setCompression(String tableName, boolean enabled) {
+        Table table = getTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table does not exist: " + tableName);
+        }
+
+        // Fold pending changes first; the rewrite then replaces the base file and its delta
+        checkpoint(currentDatabase());
+        try {
+            TableFileIO.setCompressed(table, getDatabasePath(currentDatabase()), enabled);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to rewrite table: " + e.getMessage());
+        }
+        saveCatalog(currentDatabase());
+    }
+
+    /**
+     * Appends the rows of a TSV or CSV file to a table in the current database.
+     * The rows are written straight to the table's file rather than to the write-ahead log,
+     * so they are durable once this returns.
+     *
+     * @param tableName The table to load into.
+     * @param filePath  The file to read, relative to the transfer folder.
+     * @return The number of loaded and rejected rows and the time taken.
+     */
+    public synchronized BulkLoader.Result bulkLoad(String tableName, String filePath) {
+        Table table = getTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table does not exist: " + tableName);
+        }
+
+        // Fold logged changes first, so the table file is complete before rows are added to it
+        checkpoint(currentDatabase());
+        BulkLoader.Result result;
+        try {
+            result = BulkLoader.load(table, getDatabasePath(currentDatabase()), resolveTransferFile(filePath));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load file: " + e.getMessage());
+        }
+        saveCatalog(currentDatabase());
+        return result;
+    }
+
+    /**
+     * Resolves a file named by LOAD or EXPORT inside the transfer folder, so a statement can
+     * neither read nor overwrite files elsewhere, including the databases' own files.
+     *
+     * @param filePath The path as written in the statement, relative to the transfer folder.
+     * @return The file in the transfer folder.
+     * @throws IllegalArgumentException if the path is absolute or leads out of the transfer folder.
+     */
+    public File resolveTransferFile(String filePath) {
+        Path base = Paths.get(storageFolderPath, TRANSFER_FOLDER_NAME).toAbsolutePath().normalize();
+        Path relative;
+        try {
+            relative = Paths.get(filePath);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid file path: " + filePath);
+        }
+        if (filePath.isEmpty() || relative.isAbsolute() || relative.getRoot() != null) {
+            throw new IllegalArgumentException("File path must be relative to the transfer folder: " + filePath);
+        }
+        for (Path part : relative) {
+            if (part.toString().equals("..")) {
+                throw new IllegalArgumentException("File path must not leave the transfer folder: " + filePath);
+            }
+        }
+        Path resolved = base.resolve(relative).normalize();
+        if (!resolved.startsWith(base) || resolved.equals(base)) {
+            throw new IllegalArgumentException("File path must not leave the transfer folder: " + filePath);
+        }
+        return resolved.toFile();
+    }
+
+    /**
+     * Streams the rows of a table in the current database that pass a filter into files.
+     *
+     * @param tableName  The table to export.
+     * @param filter     Selects the rows to write.
+     * @param filePath   The file to write, or the name of the partition files, relative to the transfer folder.
+     * @param partitions The number of files to write in parallel.
+     * @return The number of rows written.
+     */
+    public synchronized long exportTable(String tableName, Predicate<Row> filter, String filePath, int partitions) {
+        Table table = getTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table does not exist: " + tableName);
+        }
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partition count must be at least 1");
+        }
+
+        try {
+            return TableExporter.export(table, getDatabasePath(currentDatabase()), filter, resolveTransferFile(filePath),
+                    partitions);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to export table: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reports how well a table in the current database compresses on disk.
+     *
+     * @param tableName The table to report on.
+     * @return One row with the table's storage format, raw and stored sizes in bytes and compression ratio.
+     */
+    public synchronized QueryResult getCompressionReport(String tableName) {
+        Table table = getTable(tableName);
+        if (table == null) {
+            throw new IllegalArgumentException("Table does not exist: " + tableName);
+        }
+        // Report on the file as it will be once the logged changes are in it
+        checkpoint(currentDatabase());
+        try {
+            QueryResult report = new QueryResult(Arrays.asList("table", "format", "raw_bytes", "stored_bytes", "ratio"));
+            report.addRow(TableFileIO.compressionReport(table.getName(), getDatabasePath(currentDatabase())));
+            return report;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read table file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the number of threads a scan of a resident table may use in the executing session's statements.
+     *
+     * @return The degree of parallelism; 1 means scans run on the calling thread.
+     */
+    public int getScanParallelism() {
+        return session.getScanParallelism();
+    }
+
+    /**
+     * Sets the number of threads a scan of a resident table may use in the executing session's later
+     * statements, overriding the server-wide default. Other sessions keep their own setting.
+     *
+     * @param parallelism The degree of parallelism; 1 runs every scan on the calling thread.
+     * @throws IllegalArgumentException if the value is less than 1.
+     */
+    public void setScanParallelism(int parallelism) {
+        session.setScanParallelism(parallelism);
+    }
+
+    // The database selected in the executing session, unless it has been dropped since
+    private String currentDatabase() {
+        String dbName = session.getDatabaseName();
+        return dbName != null && databases.containsKey(dbName) ? dbName : null;
     }
 
     public Database getCurrentDatabase() {
-        if (currentDatabase == null) {
+        if (currentDatabase() == null) {
             return null;
         }
-        return databases.get(currentDatabase);
+        return databases.get(currentDatabase());
     }
 
     public String getCurrentDatabaseName() {
-        return currentDatabase;
+        return currentDatabase();
     }
 
     public Table getTable(String tableName) {
-        if (currentDatabase == null) {
+        if (currentDatabase() == null) {
             throw new IllegalStateException("No database selected");
         }
 
-        Database db = databases.get(currentDatabase);
+        Database db = databases.get(currentDatabase());
         return db.getTable(tableName.toLowerCase());
     }
 
@@ -207,45 +1023,60 @@ public class DBManager {
     }
 
     public void insertRow(String tableName, List<String> values) {
-        if (currentDatabase == null) {
+        insertRows(tableName, Collections.singletonList(values));
+    }
+
+    /**
+     * Inserts several rows into a table and logs them with a single write.
+     * Every row is validated before any is added, so a bad row leaves the table unchanged.
+     *
+     * @param tableName  The table to insert into.
+     * @param valueLists The values of each row, excluding the ID.
+     */
+    public void insertRows(String tableName, List<List<String>> valueLists) {
+        if (currentDatabase() == null) {
             throw new IllegalStateException("No database selected");
         }
 
-        Database db = databases.get(currentDatabase);
+        Database db = databases.get(currentDatabase());
         Table table = db.getTable(tableName.toLowerCase());
 
         if (table == null) {
             throw new IllegalArgumentException("Table does not exist: " + tableName);
         }
 
-        // Check if the number of values matches columns
-        if (values.size() != table.getColumns().size() - 1) { // -1 for ID
-            throw new IllegalArgumentException("Value count doesn't match column count");
+        // Add the rows to the table and log the change instead of rewriting the table file
+        statementTables.putIfAbsent(table.getName(), table.getVersion());
+        List<LogRecord> records = new ArrayList<>();
+        for (Row row : table.addRows(valueLists)) {
+            records.add(LogRecord.insert(table.getName(), row));
         }
-
-        // Add row to table
-        table.addRow(values);
-
-        // Save table
-        String dbPath = getDatabasePath(currentDatabase);
-        saveTable(table, dbPath);
+        appendToLog(records);
     }
 
-    public void updateRow(Table table, int rowId, Map<String, String> assignments) {
-        table.updateRow(rowId, assignments);
-
-        // Save table
-        String dbPath = getDatabasePath(currentDatabase);
-        saveTable(table, dbPath);
+    /**
+     * Applies the same assignments to several rows in one pass and logs them with a single write.
+     *
+     * @param table       The table containing the rows.
+     * @param rowIds      The IDs of the rows to update.
+     * @param assignments A map of column names to new values.
+     */
+    public void updateRows(Table table, Set<Integer> rowIds, Map<String, String> assignments) {
+        statementTables.putIfAbsent(table.getName(), table.getVersion());
+        List<LogRecord> records = new ArrayList<>();
+        for (Row row : table.updateRows(rowIds, assignments)) {
+            records.add(LogRecord.update(table.getName(), row, assignments.keySet(), table));
+        }
+        appendToLog(records);
     }
 
     public void deleteRows(Table table, List<Integer> rowIds) {
+        statementTables.putIfAbsent(table.getName(), table.getVersion());
+        table.deleteRows(new HashSet<>(rowIds));
+        List<LogRecord> records = new ArrayList<>();
         for (int id : rowIds) {
-            table.deleteRow(id);
+            records.add(LogRecord.delete(table.getName(), id));
         }
-
-        // Save table
-        String dbPath = getDatabasePath(currentDatabase);
-        saveTable(table, dbPath);
+        appendToLog(records);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+package edu.uob.storage;
+
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An append-only file of row changes that sits next to a table's `.tab` file.
+ * A checkpoint appends the rows a table changed since it was last persisted, instead of rewriting
+ * the whole `.tab`, so its cost follows the size of the change rather than the size of the table.
+ *
+ * Each checkpoint appends one batch of {@link LogRecord}s in the write-ahead log's line format:
+ * an INSERT holding the full image of every inserted or updated row, a DELETE for every deleted row,
+ * and a COMMIT carrying the next row ID and the generation of the `.tab` file the batch applies to.
+ * Batches for a different `.tab` (left behind by a crash during a full rewrite) and a torn final
+ * batch are ignored when the table is loaded.
+ */
+public class DeltaSegment {
+    public static final String FILE_EXTENSION = ".delta";
+    // A delta larger than this fraction of the .tab file is folded into it by the compactor (-Dedu.uob.storage.deltaCompactRatio)
+    public static final double COMPACT_RATIO = Double.parseDouble(System.getProperty("edu.uob.storage.deltaCompactRatio", "0.5"));
+
+    /**
+     * Gets the location of a table's delta file (which may not exist).
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return The delta file.
+     */
+    public static File file(String tableName, String dbPath) {
+        return new File(dbPath + File.separator + tableName + FILE_EXTENSION);
+    }
+
+    /**
+     * Checks whether a table's changes can only be persisted by rewriting its `.tab` file,
+     * because the schema changed or there is no `.tab` to patch yet.
+     * A delta that merely grew large is folded in later by the {@link Compactor}.
+     *
+     * @param table  The table to persist.
+     * @param dbPath The folder of the database containing the table.
+     * @return `true` if a full rewrite is needed.
+     */
+    public static boolean needsRewrite(Table table, String dbPath) {
+        File tableFile = TableFileIO.tableFile(table.getName(), dbPath);
+        return table.hasSchemaChanged() || !tableFile.exists();
+    }
+
+    /**
+     * Checks whether a table's delta has grown past {@link #COMPACT_RATIO} of its `.tab` file.
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return `true` if the table file should be compacted.
+     */
+    public static boolean isOversized(String tableName, String dbPath) {
+        File tableFile = TableFileIO.tableFile(tableName, dbPath);
+        File deltaFile = file(tableName, dbPath);
+        return deltaFile.exists() && deltaFile.length() > tableFile.length() * COMPACT_RATIO;
+    }
+
+    /**
+     * Appends the table's tracked changes as one batch and forces it to disk.
+     *
+     * @param table  The table whose changes should be persisted.
+     * @param dbPath The folder of the database containing the table.
+     * @throws IOException if the delta file cannot be written.
+     */
+    public static void append(Table table, String dbPath) throws IOException {
+        // Holding the table keeps a concurrent first load from reading this batch and the same rows still held in memory
+        synchronized (table) {
+            appendBatch(table, dbPath);
+        }
+    }
+
+    private static void appendBatch(Table table, String dbPath) throws IOException {
+        StringBuilder batch = new StringBuilder();
+        for (Row row : table.getDirtyRows()) {
+            // Nulls are stored the way the .tab file stores them, so a later full rewrite reads back the same
+            List<String> values = new ArrayList<>();
+            for (String value : row.getValues().subList(1, row.getValues().size())) {
+                values.add(value != null ? value : "NULL");
+            }
+            batch.append(WriteAheadLog.frame(new LogRecord(LogRecord.Type.INSERT, table.getName(), row.getId(), values)));
+        }
+        for (int id : table.getDeletedRowIds()) {
+            batch.append(WriteAheadLog.frame(LogRecord.delete(table.getName(), id)));
+        }
+        List<String> stamp = List.of(baseStamp(table.getName(), dbPath));
+        batch.append(WriteAheadLog.frame(new LogRecord(LogRecord.Type.COMMIT, table.getName(), table.getNextId(), stamp)));
+
+        try (FileOutputStream output = new FileOutputStream(file(table.getName(), dbPath), true)) {
+            output.write(batch.toString().getBytes(StandardCharsets.UTF_8));
+            output.getFD().sync();
+        }
+        table.clearChanges();
+    }
+
+    /**
+     * Applies the committed batches of a table's delta file to the freshly loaded table.
+     * Every batch is one pass over the changed rows, and the whole file one pass over the table.
+     *
+     * @param table  The table as loaded from its `.tab` (or columnar) file.
+     * @param dbPath The folder of the database containing the table.
+     * @throws IOException if the delta file cannot be read.
+     */
+    public static void applyTo(Table table, String dbPath) throws IOException {
+        File deltaFile = file(table.getName(), dbPath);
+        if (!deltaFile.exists()) {
+            return;
+        }
+
+        String stamp = baseStamp(table.getName(), dbPath);
+        Map<Integer, Row> changes = new HashMap<>(); // Final image of each changed row; null if deleted
+        Map<Integer, Row> batch = new HashMap<>();
+        int nextId = table.getNextId();
+        for (LogRecord record : WriteAheadLog.parse(new String(Files.readAllBytes(deltaFile.toPath()), StandardCharsets.UTF_8))) {
+            switch (record.getType()) {
+                case INSERT:
+                    Row row = new Row(record.getRowId());
+                    row.addValue(String.valueOf(record.getRowId()));
+                    for (String value : record.getFields()) {
+                        row.addValue(value);
+                    }
+                    batch.put(record.getRowId(), row);
+                    break;
+                case DELETE:
+                    batch.put(record.getRowId(), null);
+                    break;
+                case COMMIT:
+                    if (record.getFields().size() == 1 && record.getFields().get(0).equals(stamp)) {
+                        changes.putAll(batch);
+                        nextId = Math.max(nextId, record.getRowId());
+                    }
+                    batch.clear();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Patch existing rows in place, then append the new ones in ID order
+        for (ListIterator<Row> it = table.getRows().listIterator(); it.hasNext(); ) {
+            int id = it.next().getId();
+            if (changes.containsKey(id)) {
+                Row image = changes.remove(id);
+                if (image == null) {
+                    it.remove();
+                } else {
+                    it.set(image);
+                }
+            }
+        }
+        for (Row row : new TreeMap<>(changes).values()) {
+            if (row != null) {
+                table.getRows().add(row);
+            }
+        }
+        table.setNextId(nextId);
+
+        // Loading is not a change: drop the tombstones and the tracking the patching produced
+        table.compact();
+        table.clearChanges();
+    }
+
+    /**
+     * Deletes a table's delta file, once its changes are part of a rewritten `.tab` file.
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @throws IOException if the file exists but cannot be deleted.
+     */
+    public static void delete(String tableName, String dbPath) throws IOException {
+        Files.deleteIfExists(file(tableName, dbPath).toPath());
+    }
+
+    // Identifies the .tab file a batch was written against; a full rewrite always moves to a new generation
+    private static String baseStamp(String tableName, String dbPath) throws IOException {
+        return String.valueOf(TableFileIO.generation(tableName, dbPath));
+    }
+}
@@ -0,0 +1,167 @@
+package edu.uob.storage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Makes committed log records durable in batches.
+ * Sessions that finish a statement call {@link #awaitDurable(long)} with the log position of their
+ * commit record. The first waiter becomes the leader: it waits up to the batching window for other
+ * sessions to join, issues a single {@code FileChannel.force} for everyone, then wakes the whole batch.
+ * Sessions arriving while a flush is in progress form the next batch.
+ */
+public class GroupCommitter {
+    // Longest time a leader waits for more commits to join its batch (-Dedu.uob.wal.groupCommitWindowMicros)
+    public static final long WINDOW_MICROS = Long.getLong("edu.uob.wal.groupCommitWindowMicros", 2000L);
+    // Number of waiting commits that triggers a flush without waiting out the window (-Dedu.uob.wal.groupCommitMaxBatch)
+    public static final int MAX_BATCH = Integer.getInteger("edu.uob.wal.groupCommitMaxBatch", 64);
+    // Set -Dedu.uob.wal.syncCommits=false to acknowledge commits before they reach the disk
+    public static final boolean SYNC_COMMITS = Boolean.parseBoolean(System.getProperty("edu.uob.wal.syncCommits", "true"));
+
+    private WriteAheadLog log;     // The log whose records are being made durable
+    private long windowNanos;      // Batching window
+    private int maxBatch;          // Batch size that triggers an early flush
+    private IntSupplier incoming;  // Number of statements still executing that may join a batch
+
+    private ReentrantLock lock;
+    private Condition batchChanged; // Signalled when a commit joins or a flush completes
+    private long durableLsn;        // Every log position up to here is on disk
+    private boolean flushing;       // True while a leader is gathering or flushing a batch
+    private int waiting;            // Sessions currently inside awaitDurable
+    private long flushCount;        // Number of force calls issued
+    private long commitCount;       // Number of commits acknowledged
+
+    /**
+     * Creates a group committer using the configured window and batch size.
+     *
+     * @param log      The log to flush.
+     * @param incoming Reports how many statements are still running and may commit soon.
+     */
+    public GroupCommitter(WriteAheadLog log, IntSupplier incoming) {
+        this(log, incoming, WINDOW_MICROS, MAX_BATCH);
+    }
+
+    /**
+     * Creates a group committer with an explicit window and batch size.
+     *
+     * @param log          The log to flush.
+     * @param incoming     Reports how many statements are still running and may commit soon.
+     * @param windowMicros Longest time to wait for a batch to fill up.
+     * @param maxBatch     Number of waiting commits that triggers an immediate flush.
+     */
+    public GroupCommitter(WriteAheadLog log, IntSupplier incoming, long windowMicros, int maxBatch) {
+        this.log = log;
+        this.incoming = incoming;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lock = new ReentrantLock();
+        this.batchChanged = lock.newCondition();
+    }
+
+    /**
+     * Blocks until the log is durable up to the given position.
+     *
+     * @param lsn The log position returned when the commit record was appended.
+     * @throws IOException if the flush fails.
+     */
+    public void awaitDurable(long lsn) throws IOException {
+        if (!SYNC_COMMITS) {
+            return;
+        }
+
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            waiting++;
+            commitCount++;
+            batchChanged.signalAll(); // A gathering leader may now have a full batch
+
+            while (durableLsn < lsn) {
+                if (flushing) {
+                    batchChanged.awaitUninterruptibly();
+                    continue;
+                }
+
+                // Become the leader of the next batch
+                flushing = true;
+                long deadline = System.nanoTime() + windowNanos;
+                long remaining;
+                while (waiting < maxBatch && incoming.getAsInt() > 0
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        batchChanged.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                        break;
+                    }
+                }
+
+                long flushedLsn = durableLsn;
+                lock.unlock();
+                try {
+                    flushedLsn = log.force();
+                } finally {
+                    lock.lock();
+                    flushing = false;
+                    flushCount++;
+                    durableLsn = Math.max(durableLsn, flushedLsn);
+                    batchChanged.signalAll();
+                }
+            }
+        } finally {
+            waiting--;
+            lock.unlock();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Records that the log is durable up to a position without a flush,
+     * e.g. after a checkpoint forced the table files and truncated the log.
+     *
+     * @param lsn The durable log position.
+     */
+    public void markDurable(long lsn) {
+        lock.lock();
+        try {
+            durableLsn = Math.max(durableLsn, lsn);
+            batchChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of force calls issued so far.
+     *
+     * @return The flush count.
+     */
+    public long getFlushCount() {
+        lock.lock();
+        try {
+            return flushCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of commits acknowledged so far.
+     * Divided by {@link #getFlushCount()} this gives the average batch size.
+     *
+     * @return The commit count.
+     */
+    public long getCommitCount() {
+        lock.lock();
+        try {
+            return commitCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package edu.uob.storage;
+
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single logical change stored in the {@link WriteAheadLog}.
+ * Records describe what happened to one row (insert, update or delete) rather than the
+ * resulting table image, so appending one costs the same regardless of table size.
+ * Each statement's records are closed by a COMMIT record, or by an ABORT record if the statement failed.
+ */
+public class LogRecord {
+
+    /**
+     * The kind of row change a record describes.
+     */
+    public enum Type { INSERT, UPDATE, DELETE, COMMIT, ABORT }
+
+    private static final String NULL_MARKER = "\\N"; // Distinguishes a null cell from the text "NULL"
+
+    private Type type;           // The kind of change
+    private String tableName;    // The table the change applies to
+    private int rowId;           // The ID of the affected row
+    private List<String> fields; // INSERT: values excluding ID; UPDATE: alternating column/value pairs
+
+    /**
+     * Constructs a log record.
+     *
+     * @param type      The kind of change.
+     * @param tableName The table the change applies to.
+     * @param rowId     The ID of the affected row.
+     * @param fields    The payload of the record (see {@link #getFields()}).
+     */
+    public LogRecord(Type type, String tableName, int rowId, List<String> fields) {
+        this.type = type;
+        this.tableName = tableName.toLowerCase();
+        this.rowId = rowId;
+        this.fields = fields;
+    }
+
+    /**
+     * Creates a record for a freshly inserted row.
+     *
+     * @param tableName The table the row was inserted into.
+     * @param row       The inserted row, including its ID value.
+     * @return The INSERT record.
+     */
+    public static LogRecord insert(String tableName, Row row) {
+        List<String> values = new ArrayList<>(row.getValues().subList(1, row.getValues().size()));
+        return new LogRecord(Type.INSERT, tableName, row.getId(), values);
+    }
+
+    /**
+     * Creates a record for an updated row, capturing the values as they are now stored.
+     *
+     * @param tableName   The table containing the row.
+     * @param row         The row after the update was applied.
+     * @param columnNames The names of the columns that were assigned.
+     * @param table       The table, used to resolve column positions.
+     * @return The UPDATE record.
+     */
+    public static LogRecord update(String tableName, Row row, Iterable<String> columnNames, Table table) {
+        List<String> pairs = new ArrayList<>();
+        for (String columnName : columnNames) {
+            pairs.add(columnName);
+            pairs.add(row.getValue(table.getColumnIndex(columnName)));
+        }
+        return new LogRecord(Type.UPDATE, tableName, row.getId(), pairs);
+    }
+
+    /**
+     * Creates a record for a deleted row.
+     *
+     * @param tableName The table the row was removed from.
+     * @param rowId     The ID of the removed row.
+     * @return The DELETE record.
+     */
+    public static LogRecord delete(String tableName, int rowId) {
+        return new LogRecord(Type.DELETE, tableName, rowId, new ArrayList<>());
+    }
+
+    /**
+     * Creates a record marking the end of a statement. On recovery only changes followed
+     * by a commit record are replayed, so a statement interrupted by a crash leaves no trace.
+     *
+     * @return The COMMIT record.
+     */
+    public static LogRecord commit() {
+        return new LogRecord(Type.COMMIT, "", 0, new ArrayList<>());
+    }
+
+    /**
+     * Creates a record marking the end of a statement that failed. On recovery the changes
+     * before it are dropped, just as the failed statement's changes were undone in memory.
+     *
+     * @return The ABORT record.
+     */
+    public static LogRecord abort() {
+        return new LogRecord(Type.ABORT, "", 0, new ArrayList<>());
+    }
+
+    /**
+     * Checks whether this record describes a row change rather than the end of a statement.
+     *
+     * @return `true` for INSERT, UPDATE and DELETE records.
+     */
+    public boolean isChange() {
+        return type != Type.COMMIT && type != Type.ABORT;
+    }
+
+    /**
+     * Gets the kind of change this record describes.
+     *
+     * @return The record type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the name of the table the change applies to.
+     *
+     * @return The table name (lowercase).
+     */
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the ID of the affected row.
+     *
+     * @return The row ID.
+     */
+    public int getRowId() {
+        return rowId;
+    }
+
+    /**
+     * Gets the record payload: the row values (without ID) for INSERT,
+     * alternating column names and values for UPDATE, and nothing for DELETE.
+     *
+     * @return The record fields.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Re-applies this change to a table during recovery.
+     * Replay is idempotent, so a record whose effect already reached the table file
+     * (because a checkpoint finished but the log was not yet truncated) is harmless.
+     *
+     * @param table The table to apply the change to.
+     */
+    public void applyTo(Table table) {
+        switch (type) {
+            case INSERT:
+                // IDs are allocated in increasing order, so anything below nextId is already present
+                if (rowId < table.getNextId()) {
+                    return;
+                }
+                Row row = new Row(rowId);
+                row.addValue(String.valueOf(rowId));
+                for (String value : fields) {
+                    row.addValue(value);
+                }
+                table.restoreRow(row);
+                break;
+            case UPDATE:
+                Map<String, String> values = new LinkedHashMap<>();
+                for (int i = 0; i + 1 < fields.size(); i += 2) {
+                    if (table.hasColumn(fields.get(i))) {
+                        values.put(fields.get(i), fields.get(i + 1));
+                    }
+                }
+                table.setRowValues(rowId, values); // A row deleted later on is simply not found
+                break;
+            case DELETE:
+                table.deleteRow(rowId);
+                break;
+            case COMMIT:
+            case ABORT:
+                break;
+        }
+    }
+
+    /**
+     * Serializes the record as one tab-separated line (without the trailing newline).
+     *
+     * @return The encoded record.
+     */
+    public String encode() {
+        StringBuilder line = new StringBuilder();
+        line.append(type.name()).append('\t').append(escape(tableName)).append('\t').append(rowId);
+        for (String field : fields) {
+            line.append('\t').append(escape(field));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Parses a line produced by {@link #encode()}.
+     *
+     * @param line The encoded record.
+     * @return The decoded record.
+     * @throws IllegalArgumentException if the line is not a valid record.
+     */
+    public static LogRecord decode(String line) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Malformed log record: " + line);
+        }
+
+        List<String> fields = new ArrayList<>();
+        for (int i = 3; i < parts.length; i++) {
+            fields.add(unescape(parts[i]));
+        }
+        return new LogRecord(Type.valueOf(parts[0]), unescape(parts[1]), Integer.parseInt(parts[2]), fields);
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return NULL_MARKER;
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': escaped.append("\\\\"); break;
+                case '\t': escaped.append("\\t"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                default: escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String value) {
+        if (value.equals(NULL_MARKER)) {
+            return null;
+        }
+        StringBuilder plain = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't': plain.append('\t'); break;
+                    case 'n': plain.append('\n'); break;
+                    case 'r': plain.append('\r'); break;
+                    default: plain.append(next);
+                }
+            } else {
+                plain.append(c);
+            }
+        }
+        return plain.toString();
+    }
+}
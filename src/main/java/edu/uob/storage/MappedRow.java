@@ -0,0 +1,140 @@
+package edu.uob.storage;
+
+import edu.uob.models.Row;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A reusable view of one line of a memory-mapped `.tab` file.
+ * Field boundaries are located in place when the row is positioned on a line, but a cell is only
+ * decoded into a {@code String} when it is read, so rows rejected by a filter cost no allocations
+ * beyond the cells the filter looked at.
+ *
+ * The same instance is repositioned for every line of a scan; callers must copy any values they keep.
+ */
+class MappedRow extends Row {
+    private ByteBuffer buffer;    // The mapped window containing the current line
+    private int[] fieldStarts;    // Start offset of each field within the buffer
+    private int[] fieldEnds;      // End offset (exclusive) of each field within the buffer
+    private int fieldCount;       // Number of fields on the current line
+    private String[] decoded;     // Cells decoded so far for the current line
+    private byte[] scratch;       // Reused copy buffer for decoding
+
+    MappedRow() {
+        super(0);
+        this.fieldStarts = new int[16];
+        this.fieldEnds = new int[16];
+        this.decoded = new String[16];
+        this.scratch = new byte[256];
+    }
+
+    /**
+     * Positions the row on a new line and finds its field boundaries.
+     *
+     * @param buffer The mapped window.
+     * @param start  Offset of the first byte of the line.
+     * @param end    Offset just past the last byte of the line (excluding the newline).
+     */
+    void reset(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == '\t') {
+                if (fieldCount == fieldStarts.length) {
+                    grow();
+                }
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount] = i;
+                decoded[fieldCount] = null;
+                fieldCount++;
+                fieldStart = i + 1;
+            }
+        }
+
+        // Match String.split("\t"), which drops trailing empty fields
+        while (fieldCount > 1 && fieldStarts[fieldCount - 1] == fieldEnds[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    private void grow() {
+        int size = fieldStarts.length * 2;
+        fieldStarts = Arrays.copyOf(fieldStarts, size);
+        fieldEnds = Arrays.copyOf(fieldEnds, size);
+        decoded = Arrays.copyOf(decoded, size);
+    }
+
+    /**
+     * Parses the ID straight from the bytes of the first field.
+     *
+     * @return The row's unique identifier.
+     */
+    @Override
+    public int getId() {
+        int value = 0;
+        boolean negative = false;
+        for (int i = fieldStarts[0]; i < fieldEnds[0]; i++) {
+            byte b = buffer.get(i);
+            if (b == '-' && i == fieldStarts[0]) {
+                negative = true;
+            } else if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+            } else {
+                return Integer.parseInt(getValue(0)); // Let the usual parser report the bad value
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes (once) and returns the cell at the given index.
+     *
+     * @param index The index of the value to retrieve.
+     * @return The cell value, or `null` if the line has no such field.
+     */
+    @Override
+    public String getValue(int index) {
+        if (index >= fieldCount) {
+            return null;
+        }
+        if (decoded[index] == null) {
+            int length = fieldEnds[index] - fieldStarts[index];
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(fieldStarts[index], scratch, 0, length);
+            decoded[index] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        return decoded[index];
+    }
+
+    /**
+     * Decodes every cell of the current line into a new list.
+     *
+     * @return A copy of the row's values.
+     */
+    @Override
+    public List<String> getValues() {
+        List<String> values = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            values.add(getValue(i));
+        }
+        return values;
+    }
+
+    /**
+     * Mapped rows are read-only views of the file.
+     *
+     * @param value Ignored.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void addValue(String value) {
+        throw new UnsupportedOperationException("Mapped rows are read-only");
+    }
+}
@@ -0,0 +1,95 @@
+package edu.uob.storage;
+
+import edu.uob.models.Row;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Scans a `.tab` file through {@link MappedByteBuffer}s instead of reading it onto the heap.
+ * The file is mapped in windows (a single mapping is limited to 2GB), every data line is exposed
+ * as a {@link MappedRow}, and the page cache rather than the Java heap holds the data.
+ */
+public class MappedTableScanner {
+    // Size of each mapped window (override with -Dedu.uob.storage.mappedWindowBytes)
+    private static final long WINDOW_BYTES = Long.getLong("edu.uob.storage.mappedWindowBytes", 256L * 1024 * 1024);
+
+    /**
+     * Visits every data row of a table file (the header line is skipped).
+     * The row passed to the visitor is reused for the next line, so the visitor must copy
+     * any value it wants to keep.
+     *
+     * @param tableFile The `.tab` file to scan.
+     * @param visitor   Called once per row.
+     * @throws IOException if the file cannot be mapped or a line does not fit in one window.
+     */
+    public static void scan(File tableFile, Consumer<Row> visitor) throws IOException {
+        scan(tableFile, 0, tableFile.length(), visitor);
+    }
+
+    /**
+     * Visits the rows in a byte range of a table file, e.g. one part of a scan split across threads.
+     * The range must start at the beginning of a line; a range starting at 0 skips the header line.
+     *
+     * @param tableFile The `.tab` file to scan.
+     * @param start     Offset of the first line to visit.
+     * @param end       Offset just past the last line to visit.
+     * @param visitor   Called once per row, with a row object that is reused between calls.
+     * @throws IOException if the file cannot be mapped or a line does not fit in one window.
+     */
+    public static void scan(File tableFile, long start, long end, Consumer<Row> visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(tableFile.toPath(), StandardOpenOption.READ)) {
+            long size = Math.min(end, channel.size());
+            long position = start;
+            boolean headerSkipped = start > 0;
+            MappedRow row = new MappedRow();
+
+            while (position < size) {
+                int length = (int) Math.min(WINDOW_BYTES, size - position);
+                boolean lastWindow = position + length >= size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int lineStart = 0;
+                while (lineStart < length) {
+                    int lineEnd = indexOfNewline(window, lineStart, length);
+                    if (lineEnd == -1) {
+                        if (!lastWindow) {
+                            break; // Incomplete line - the next window starts with it
+                        }
+                        lineEnd = length;
+                    }
+
+                    int contentEnd = lineEnd;
+                    if (contentEnd > lineStart && window.get(contentEnd - 1) == '\r') {
+                        contentEnd--;
+                    }
+                    if (!headerSkipped) {
+                        headerSkipped = true;
+                    } else if (contentEnd > lineStart) {
+                        row.reset(window, lineStart, contentEnd);
+                        visitor.accept(row);
+                    }
+                    lineStart = lineEnd + 1;
+                }
+
+                if (lineStart == 0) {
+                    throw new IOException("Line longer than the mapped window in " + tableFile.getName());
+                }
+                position += Math.min(lineStart, length);
+            }
+        }
+    }
+
+    private static int indexOfNewline(MappedByteBuffer buffer, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
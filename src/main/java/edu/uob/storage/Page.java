@@ -0,0 +1,158 @@
+package edu.uob.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed-size page held in a {@link BufferPool} frame.
+ * A page is only valid between {@link BufferPool#pin} and {@link BufferPool#unpin};
+ * once unpinned its frame may be reused for a different page.
+ *
+ * Pages used by {@link PagedRowList} have the layout
+ * {@code recordCount:int  freeOffset:int  records...}, where each record is
+ * {@code length:int  bytes}, and a negative length marks a deleted record of {@code -length - 1} bytes.
+ */
+public class Page {
+    // Size of every page on disk and in memory (override with -Dedu.uob.storage.pageBytes)
+    public static final int SIZE = Integer.getInteger("edu.uob.storage.pageBytes", 8192);
+    public static final int HEADER_SIZE = 8;
+
+    private ByteBuffer data;    // The page contents
+    private PageFile file;      // The file this frame currently holds a page of (null if empty)
+    private int pageId;         // The page number within the file
+    private int pinCount;       // Number of users currently holding the page
+    private boolean dirty;      // True if the contents differ from disk
+    private boolean referenced; // Clock "second chance" bit
+
+    Page() {
+        this.data = ByteBuffer.allocate(SIZE);
+    }
+
+    /**
+     * Gets the page contents. Positions and limits are not meaningful; use absolute access.
+     *
+     * @return The page buffer.
+     */
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    /**
+     * Gets the page number within its file.
+     *
+     * @return The page ID.
+     */
+    public int getPageId() {
+        return pageId;
+    }
+
+    PageFile getFile() {
+        return file;
+    }
+
+    void assign(PageFile file, int pageId) {
+        this.file = file;
+        this.pageId = pageId;
+        this.pinCount = 0;
+        this.dirty = false;
+        this.referenced = false;
+    }
+
+    int getPinCount() {
+        return pinCount;
+    }
+
+    void pin() {
+        pinCount++;
+        referenced = true;
+    }
+
+    void unpin(boolean modified) {
+        pinCount--;
+        dirty |= modified;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void markClean() {
+        dirty = false;
+    }
+
+    boolean isReferenced() {
+        return referenced;
+    }
+
+    void clearReferenced() {
+        referenced = false;
+    }
+
+    /**
+     * Gets the number of records (live or deleted) stored in the page.
+     *
+     * @return The record count.
+     */
+    public int getRecordCount() {
+        return data.getInt(0);
+    }
+
+    /**
+     * Gets the offset where the next record would be written.
+     *
+     * @return The free space offset.
+     */
+    public int getFreeOffset() {
+        int offset = data.getInt(4);
+        return offset == 0 ? HEADER_SIZE : offset;
+    }
+
+    /**
+     * Checks whether a record of the given size still fits in the page.
+     *
+     * @param recordLength The length of the record's bytes.
+     * @return `true` if there is room.
+     */
+    public boolean hasRoomFor(int recordLength) {
+        return getFreeOffset() + 4 + recordLength <= SIZE;
+    }
+
+    /**
+     * Appends a record to the page. The caller must have checked {@link #hasRoomFor(int)}.
+     *
+     * @param record The record bytes.
+     * @return The offset of the record within the page.
+     */
+    public int appendRecord(byte[] record) {
+        int offset = getFreeOffset();
+        data.putInt(offset, record.length);
+        data.put(offset + 4, record);
+        data.putInt(0, getRecordCount() + 1);
+        data.putInt(4, offset + 4 + record.length);
+        return offset;
+    }
+
+    /**
+     * Reads the record stored at an offset.
+     *
+     * @param offset The record offset returned by {@link #appendRecord(byte[])}.
+     * @return A copy of the record bytes.
+     */
+    public byte[] readRecord(int offset) {
+        int length = data.getInt(offset);
+        byte[] record = new byte[length < 0 ? -length - 1 : length];
+        data.get(offset + 4, record);
+        return record;
+    }
+
+    /**
+     * Marks the record at an offset as deleted; its space is not reused.
+     *
+     * @param offset The record offset.
+     */
+    public void deleteRecord(int offset) {
+        int length = data.getInt(offset);
+        if (length >= 0) {
+            data.putInt(offset, -length - 1);
+        }
+    }
+}
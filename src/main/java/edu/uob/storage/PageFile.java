@@ -0,0 +1,86 @@
+package edu.uob.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file made of fixed-size pages, accessed through a {@link BufferPool}.
+ */
+public class PageFile implements Closeable {
+    private Path path;           // Location of the file
+    private FileChannel channel; // Channel used for page reads and writes
+    private int pageCount;       // Number of pages allocated so far
+
+    /**
+     * Creates an empty page file, replacing any existing file at the path.
+     *
+     * @param path The file location.
+     * @throws IOException if the file cannot be created.
+     */
+    public PageFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.pageCount = 0;
+    }
+
+    /**
+     * Gets the location of the file.
+     *
+     * @return The file path.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Gets the number of pages in the file.
+     *
+     * @return The page count.
+     */
+    public synchronized int getPageCount() {
+        return pageCount;
+    }
+
+    synchronized int allocatePage() {
+        return pageCount++;
+    }
+
+    void readPage(int pageId, ByteBuffer target) throws IOException {
+        target.clear();
+        long position = (long) pageId * Page.SIZE;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                // Allocated but never written: the rest of the page is empty
+                while (target.hasRemaining()) {
+                    target.put((byte) 0);
+                }
+            }
+        }
+        target.clear();
+    }
+
+    void writePage(int pageId, ByteBuffer source) throws IOException {
+        ByteBuffer view = source.duplicate();
+        view.clear();
+        long position = (long) pageId * Page.SIZE;
+        while (view.hasRemaining()) {
+            channel.write(view, position + view.position());
+        }
+    }
+
+    /**
+     * Closes the underlying channel.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
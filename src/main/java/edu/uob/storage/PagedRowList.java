@@ -0,0 +1,293 @@
+package edu.uob.storage;
+
+import edu.uob.models.Row;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A table's rows stored in a {@link PageFile} and cached through a shared {@link BufferPool},
+ * so the heap only holds one 8-byte record ID per row instead of the row itself.
+ * It plugs into {@link edu.uob.models.Table#setRows(List)}: reads return freshly decoded copies,
+ * and changes are written back through {@link #set(int, Row)}.
+ *
+ * Scans pin one page at a time, decode its rows and unpin it before handing them out,
+ * so an abandoned iteration never leaves a page pinned.
+ */
+public class PagedRowList extends AbstractList<Row> implements Closeable {
+    public static final String FILE_EXTENSION = ".pages";
+
+    private BufferPool pool; // Cache shared by all paged tables
+    private PageFile file;   // The pages holding this table's rows
+    private long[] rids;     // Record IDs in row order: page number in the high half, offset in the low half
+    private int size;        // Number of live rows
+    private int lastPageId;  // Page that receives appended rows (-1 before the first append)
+
+    /**
+     * Creates an empty paged row list backed by a new page file.
+     *
+     * A file left at the path, e.g. by a process that crashed before closing it, is deleted first.
+     *
+     * @param path The page file to create.
+     * @param pool The buffer pool caching the pages.
+     * @throws IOException if the old file cannot be deleted or the new one cannot be created.
+     */
+    public PagedRowList(Path path, BufferPool pool) throws IOException {
+        Files.deleteIfExists(path);
+        this.pool = pool;
+        this.file = new PageFile(path);
+        this.rids = new long[64];
+        this.size = 0;
+        this.lastPageId = -1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Row get(int index) {
+        checkIndex(index);
+        try {
+            Page page = pool.pin(file, pageOf(rids[index]));
+            try {
+                return decode(page.readRecord(offsetOf(rids[index])));
+            } finally {
+                pool.unpin(page, false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Row set(int index, Row row) {
+        checkIndex(index);
+        Row previous = get(index);
+        deleteRecord(rids[index]);
+        rids[index] = append(row);
+        return previous;
+    }
+
+    @Override
+    public boolean add(Row row) {
+        if (size == rids.length) {
+            rids = Arrays.copyOf(rids, rids.length * 2);
+        }
+        rids[size++] = append(row);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Row remove(int index) {
+        checkIndex(index);
+        Row removed = get(index);
+        deleteRecord(rids[index]);
+        System.arraycopy(rids, index + 1, rids, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            deleteRecord(rids[i]);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Scans the rows page by page: each page is pinned once, all of its rows are decoded,
+     * and it is unpinned before the rows are returned.
+     *
+     * @return An iterator over decoded copies of the rows.
+     */
+    @Override
+    public Iterator<Row> iterator() {
+        return new Iterator<Row>() {
+            private int next = 0;                     // Index of the next row to return
+            private List<Row> batch = new ArrayList<>(); // Decoded rows of the current page
+            private int batchStart = 0;               // Index of the first row in the batch
+            private int lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (next - batchStart >= batch.size()) {
+                    loadBatch();
+                }
+                lastReturned = next;
+                return batch.get(next++ - batchStart);
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                deleteRecord(rids[lastReturned]);
+                System.arraycopy(rids, lastReturned + 1, rids, lastReturned, size - lastReturned - 1);
+                size--;
+                modCount++;
+                batch.remove(lastReturned - batchStart);
+                next = lastReturned;
+                lastReturned = -1;
+            }
+
+            private void loadBatch() {
+                batch = new ArrayList<>();
+                batchStart = next;
+                int pageId = pageOf(rids[next]);
+                try {
+                    Page page = pool.pin(file, pageId);
+                    try {
+                        for (int i = next; i < size && pageOf(rids[i]) == pageId; i++) {
+                            batch.add(decode(page.readRecord(offsetOf(rids[i]))));
+                        }
+                    } finally {
+                        pool.unpin(page, false);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    private long append(Row row) {
+        byte[] record = encode(row);
+        if (record.length + 4 > Page.SIZE - Page.HEADER_SIZE) {
+            throw new IllegalArgumentException("Row " + row.getId() + " is too large for a " + Page.SIZE + "-byte page");
+        }
+
+        try {
+            Page page = lastPageId >= 0 ? pool.pin(file, lastPageId) : null;
+            if (page == null || !page.hasRoomFor(record.length)) {
+                if (page != null) {
+                    pool.unpin(page, false);
+                }
+                page = pool.pinNew(file);
+                lastPageId = page.getPageId();
+            }
+            try {
+                int offset = page.appendRecord(record);
+                return ((long) page.getPageId() << 32) | offset;
+            } finally {
+                pool.unpin(page, true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteRecord(long rid) {
+        try {
+            Page page = pool.pin(file, pageOf(rid));
+            try {
+                page.deleteRecord(offsetOf(rid));
+            } finally {
+                pool.unpin(page, true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(Row row) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            List<String> values = row.getValues();
+            out.writeInt(row.getId());
+            out.writeInt(values.size());
+            for (String value : values) {
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Row decode(byte[] record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            Row row = new Row(in.readInt());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length < 0) {
+                    row.addValue(null);
+                } else {
+                    byte[] value = new byte[length];
+                    in.readFully(value);
+                    row.addValue(new String(value, StandardCharsets.UTF_8));
+                }
+            }
+            return row;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int pageOf(long rid) {
+        return (int) (rid >>> 32);
+    }
+
+    private static int offsetOf(long rid) {
+        return (int) rid;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Forgets the cached pages, closes the page file and deletes it.
+     * The page file is only a cache of the `.tab` file, so nothing is lost.
+     *
+     * @throws IOException if the file cannot be closed or deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        pool.discard(file);
+        try {
+            file.close();
+        } finally {
+            Files.deleteIfExists(file.getPath());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package edu.uob.storage;
+
+import edu.uob.models.Column;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads large `.tab` files on several cores.
+ * The file is cut into byte ranges that each start right after a newline, the ranges are parsed
+ * on a shared {@link ForkJoinPool}, and the parsed rows are appended to the table in file order.
+ * Block-compressed tables are loaded the same way, one independently inflated block per chunk.
+ * Each range also reports the largest row ID it saw, so the table's next ID needs no second pass.
+ */
+public class ParallelTableLoader {
+    // Files at least this large are parsed in parallel (-Dedu.uob.storage.parallelLoadBytes)
+    public static final long PARALLEL_THRESHOLD = Long.getLong("edu.uob.storage.parallelLoadBytes", 8L * 1024 * 1024);
+    // Number of threads that load tables (-Dedu.uob.storage.loadParallelism)
+    public static final int PARALLELISM = Integer.getInteger("edu.uob.storage.loadParallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    private static final long MIN_CHUNK_BYTES = 1L << 20;  // Smaller chunks cost more in scheduling than they save
+    private static final long MAX_CHUNK_BYTES = 64L << 20; // Keeps each chunk's buffer well below the array limit
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Math.max(1, PARALLELISM));
+
+    /**
+     * Loads a `.tab` file by parsing newline-aligned chunks in parallel.
+     *
+     * @param tableName  The name of the table.
+     * @param tableFile  The `.tab` file to read.
+     * @param rowStorage An empty list that receives the rows and becomes the table's row storage.
+     * @return The loaded table.
+     * @throws IOException if the file cannot be read or is empty.
+     */
+    public static Table load(String tableName, File tableFile, List<Row> rowStorage) throws IOException {
+        Charset charset = Charset.defaultCharset(); // Same charset the table was written with
+        Table table = new Table(tableName);
+        table.setRows(rowStorage);
+
+        try (FileChannel channel = FileChannel.open(tableFile.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = nextLineStart(channel, 0, size);
+            if (headerEnd == 0) {
+                throw new IOException("Empty table file: " + tableName);
+            }
+
+            // Read column names
+            setColumns(table, stripLineEnd(new String(read(channel, 0, (int) headerEnd), charset)));
+
+            // Cut the rows into ranges; each range starts at the beginning of a line
+            List<Callable<Chunk>> tasks = new ArrayList<>();
+            for (long[] range : lineRanges(channel, headerEnd, size)) {
+                tasks.add(() -> parseChunk(read(channel, range[0], (int) (range[1] - range[0])), charset));
+            }
+            addChunks(table, invokeAll(tasks));
+        }
+
+        return table;
+    }
+
+    /**
+     * Loads a block-compressed table file, inflating and parsing its blocks in parallel.
+     *
+     * @param tableName  The name of the table.
+     * @param tableFile  The compressed table file to read.
+     * @param rowStorage An empty list that receives the rows and becomes the table's row storage.
+     * @return The loaded table.
+     * @throws IOException if the file cannot be read or is corrupt.
+     */
+    public static Table loadCompressed(String tableName, File tableFile, List<Row> rowStorage) throws IOException {
+        Charset charset = Charset.defaultCharset(); // Same charset the table was written with
+        Table table = new Table(tableName);
+        table.setRows(rowStorage);
+
+        try (CompressedTableReader reader = new CompressedTableReader(tableFile.toPath())) {
+            setColumns(table, new String(reader.getHeader(), charset));
+            List<Callable<Chunk>> tasks = new ArrayList<>();
+            for (int i = 0; i < reader.getBlockCount(); i++) {
+                int block = i;
+                tasks.add(() -> parseChunk(reader.readBlock(block), charset));
+            }
+            addChunks(table, invokeAll(tasks));
+        }
+
+        return table;
+    }
+
+    private static void setColumns(Table table, String headerLine) {
+        String[] columnNames = TableFileIO.columnNames(headerLine);
+        table.getColumns().clear();
+        for (int i = 0; i < columnNames.length; i++) {
+            table.getColumns().add(new Column(columnNames[i], i));
+        }
+    }
+
+    /**
+     * Cuts part of a file into ranges of whole lines, sized so every loader thread gets several.
+     *
+     * @param channel The open file.
+     * @param start   Offset of the first line to include.
+     * @param size    Offset just past the last byte to include.
+     * @return The ranges as {start, end} offset pairs, in file order.
+     * @throws IOException if the file cannot be read.
+     */
+    static List<long[]> lineRanges(FileChannel channel, long start, long size) throws IOException {
+        long chunkSize = Math.min(MAX_CHUNK_BYTES,
+                Math.max(MIN_CHUNK_BYTES, (size - start) / (POOL.getParallelism() * 4L)));
+        List<long[]> ranges = new ArrayList<>();
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * Runs tasks on the loader threads and waits for all of them.
+     * The tasks must not wait for locks, since the caller may be holding some.
+     *
+     * @param tasks The tasks to run.
+     * @return Their results, in task order.
+     * @throws IOException if a task failed with one.
+     */
+    static <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+        List<ForkJoinTask<T>> forks = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            forks.add(ForkJoinTask.adapt(task));
+        }
+        try {
+            return POOL.invoke(new RecursiveTask<List<T>>() {
+                @Override
+                protected List<T> compute() {
+                    List<T> results = new ArrayList<>();
+                    for (ForkJoinTask<T> fork : ForkJoinTask.invokeAll(forks)) {
+                        results.add(fork.join());
+                    }
+                    return results;
+                }
+            });
+        } catch (RuntimeException e) {
+            // Callables' checked exceptions arrive wrapped, possibly more than once
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void addChunks(Table table, List<Chunk> chunks) {
+        // Stitch the chunks back together in file order
+        int maxId = 0;
+        for (Chunk chunk : chunks) {
+            table.getRows().addAll(chunk.rows);
+            maxId = Math.max(maxId, chunk.maxId);
+        }
+        table.setNextId(maxId + 1);
+    }
+
+    // Position just after the first newline at or after `from`, or the end of the file if there is none
+    static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    static byte[] read(FileChannel channel, long start, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Table file changed while loading");
+            }
+        }
+        return buffer.array();
+    }
+
+    static String stripLineEnd(String line) {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    /**
+     * The rows parsed from one byte range, plus the largest ID among them.
+     */
+    private static final class Chunk {
+        private final List<Row> rows;
+        private final int maxId;
+
+        Chunk(List<Row> rows, int maxId) {
+            this.rows = rows;
+            this.maxId = maxId;
+        }
+    }
+
+    // Parses the lines of one newline-aligned chunk: a byte range of a `.tab` file or a compressed block
+    private static Chunk parseChunk(byte[] bytes, Charset charset) {
+        String text = new String(bytes, charset);
+        List<Row> rows = new ArrayList<>();
+        int maxId = 0;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd == -1) {
+                lineEnd = text.length();
+            }
+            String line = stripLineEnd(text.substring(lineStart, lineEnd));
+            lineStart = lineEnd + 1;
+
+            String[] values = line.split("\t");
+            int id = Integer.parseInt(values[0]);
+            if (id > maxId) {
+                maxId = id;
+            }
+
+            Row row = new Row(id);
+            for (String value : values) {
+                row.addValue(value);
+            }
+            rows.add(row);
+        }
+        return new Chunk(rows, maxId);
+    }
+}
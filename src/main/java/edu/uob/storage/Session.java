@@ -0,0 +1,59 @@
+package edu.uob.storage;
+
+/**
+ * The state of one client connection that {@link DBManager#execute(Session, edu.uob.commands.Command)}
+ * runs its statements in: the database selected by USE and the degree of parallelism set by SET PARALLELISM.
+ * Several sessions can share one manager without seeing each other's settings.
+ */
+public class Session {
+    private String databaseName; // Database selected by USE, or null before the first USE
+    private int scanParallelism; // Threads one scan of a resident table may use
+
+    /**
+     * Constructs a `Session` with no database selected and the server-wide default parallelism.
+     */
+    public Session() {
+        this.scanParallelism = DBManager.SCAN_PARALLELISM;
+    }
+
+    /**
+     * Gets the name of the database this session's statements run against.
+     *
+     * @return The database name (lowercase), or `null` if none has been selected.
+     */
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * Selects the database this session's statements run against.
+     *
+     * @param databaseName The database name (lowercase), or `null` to clear the selection.
+     */
+    public void setDatabaseName(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * Gets the number of threads a scan of a resident table may use in this session's statements.
+     *
+     * @return The degree of parallelism; 1 means scans run on the calling thread.
+     */
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    /**
+     * Sets the number of threads a scan of a resident table may use in this session's statements,
+     * overriding the server-wide default.
+     *
+     * @param scanParallelism The degree of parallelism; 1 runs every scan on the calling thread.
+     * @throws IllegalArgumentException if the value is less than 1.
+     */
+    public void setScanParallelism(int scanParallelism) {
+        if (scanParallelism < 1) {
+            throw new IllegalArgumentException("Scan parallelism must be at least 1");
+        }
+        this.scanParallelism = scanParallelism;
+    }
+}
@@ -0,0 +1,158 @@
+package edu.uob.storage;
+
+import edu.uob.models.Column;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Streams the rows of a table, optionally filtered, straight from a scan into files.
+ * Nothing is collected on the heap: each row is formatted and written as the scan reaches it,
+ * through a buffered writer. The output is the `.tab` text format, or the block-compressed
+ * `.tabz` format when the target file has that extension; either can be read back by LOAD
+ * or placed in a database folder as a table.
+ *
+ * Output can be split into several files, each written by its own thread from its own part of
+ * the scan: a range of row slots for a loaded table, or a line-aligned byte range of the mapped
+ * file for one that is scanned in place.
+ */
+public class TableExporter {
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    /**
+     * Writes the matching rows of a table to one or more files, each starting with the header line.
+     * With several partitions, file `name.ext` becomes `name-0.ext`, `name-1.ext`, and so on.
+     *
+     * @param table      The table to export.
+     * @param dbPath     The folder of the database containing the table.
+     * @param filter     Selects the rows to write.
+     * @param target     The file to write, or the name the partition files are derived from.
+     * @param partitions The number of files to write in parallel.
+     * @return The number of rows written.
+     * @throws IOException if the table cannot be scanned or a file cannot be written.
+     */
+    public static long export(Table table, String dbPath, Predicate<Row> filter, File target, int partitions)
+            throws IOException {
+        boolean compressed = target.getName().endsWith(CompressedTableWriter.FILE_EXTENSION);
+        List<Column> columns = table.getColumns();
+
+        List<Callable<Long>> tasks = new ArrayList<>();
+        if (table.canScanInPlace()) {
+            // Rows still on disk: each part maps its own line-aligned range of the file
+            File tableFile = TableFileIO.tableFile(table.getName(), dbPath);
+            long[] bounds = new long[partitions + 1];
+            try (FileChannel channel = FileChannel.open(tableFile.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                for (int i = 1; i < partitions; i++) {
+                    bounds[i] = Math.max(bounds[i - 1], ParallelTableLoader.nextLineStart(channel, size * i / partitions, size));
+                }
+                bounds[partitions] = size;
+            }
+            for (int i = 0; i < partitions; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                File file = partitionFile(target, i, partitions);
+                tasks.add(() -> writePart(columns, file, compressed, filter,
+                        visitor -> MappedTableScanner.scan(tableFile, start, end, visitor)));
+            }
+        } else {
+            int slots = table.getStorageSize();
+            for (int i = 0; i < partitions; i++) {
+                int from = (int) ((long) slots * i / partitions);
+                int to = (int) ((long) slots * (i + 1) / partitions);
+                File file = partitionFile(target, i, partitions);
+                tasks.add(() -> writePart(columns, file, compressed, filter,
+                        visitor -> table.forEachRow(from, to, visitor)));
+            }
+        }
+
+        List<Long> counts;
+        if (tasks.size() == 1) {
+            try {
+                counts = List.of(tasks.get(0).call());
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        } else {
+            counts = ParallelTableLoader.invokeAll(tasks);
+        }
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the file one part of an export is written to.
+     *
+     * @param target     The file named in the export.
+     * @param index      The part number.
+     * @param partitions The number of parts.
+     * @return The target itself for a single part, otherwise the target with the part number before its extension.
+     */
+    public static File partitionFile(File target, int index, int partitions) {
+        if (partitions == 1) {
+            return target;
+        }
+        String name = target.getName();
+        int dot = name.lastIndexOf('.');
+        String partName = dot > 0
+                ? name.substring(0, dot) + "-" + index + name.substring(dot)
+                : name + "-" + index;
+        return new File(target.getParentFile(), partName);
+    }
+
+    private static long writePart(List<Column> columns, File file, boolean compressed, Predicate<Row> filter,
+                                  RowSource source) throws IOException {
+        long[] written = new long[1];
+        OutputStream sink;
+        try (FileOutputStream output = new FileOutputStream(file);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                     sink = compressed ? new CompressedTableWriter(output) : output), BUFFER_CHARS)) {
+            TableFileIO.writeHeader(writer, columns);
+            try {
+                source.scan(row -> {
+                    if (filter.test(row)) {
+                        try {
+                            TableFileIO.writeRow(writer, row);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        written[0]++;
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+            if (sink instanceof CompressedTableWriter) {
+                ((CompressedTableWriter) sink).finish();
+            }
+        }
+        return written[0];
+    }
+
+    /**
+     * One part of a table scan.
+     */
+    private interface RowSource {
+        void scan(Consumer<Row> visitor) throws IOException;
+    }
+}
@@ -2,6 +2,7 @@
 package edu.uob.storage;
 
 import edu.uob.models.Column;
+import edu.uob.models.EncodedRows;
 import edu.uob.models.Row;
 import edu.uob.models.Table;
 
@@ -9,50 +10,471 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class TableFileIO {
+    // Starts the last field of a base file's header line, which holds the file's generation instead of a column name
+    static final String GENERATION_MARKER = "#generation=";
 
     public static void saveTable(Table table, String dbPath) throws IOException {
-        File tableFile = new File(dbPath + File.separator + table.getName() + ".tab");
+        // Write to a temporary file first so a crash never leaves a half-written table behind
+        File tempFile = new File(dbPath + File.separator + table.getName() + ".tab.tmp");
+        boolean compressed = isCompressed(table.getName(), dbPath);
+        writeTabFile(table.getColumns(), table.getRows(), tempFile, 0, compressed, nextGeneration(table.getName(), dbPath));
+        installTabFile(table, dbPath, tempFile, compressed);
+        table.clearChanges();
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tableFile))) {
-            // 写入列名
-            List<Column> columns = table.getColumns();
-            for (int i = 0; i < columns.size(); i++) {
-                writer.write(columns.get(i).getName());
-                if (i < columns.size() - 1) {
-                    writer.write("\t");
-                }
+    /**
+     * Gets the base file a table is stored in: its block-compressed `.tabz` file if it has one,
+     * otherwise its plain `.tab` file (which may not exist yet).
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return The table file.
+     */
+    public static File tableFile(String tableName, String dbPath) {
+        File plainFile = new File(dbPath + File.separator + tableName + ".tab");
+        File compressedFile = new File(dbPath + File.separator + tableName + CompressedTableWriter.FILE_EXTENSION);
+        if (!compressedFile.exists()) {
+            return plainFile;
+        }
+        // Both exist only after a crash while switching formats; the file written last has the higher generation
+        if (plainFile.exists() && readableGeneration(plainFile) > readableGeneration(compressedFile)) {
+            return plainFile;
+        }
+        return compressedFile;
+    }
+
+    /**
+     * Gets the generation of a table's base file. Every full rewrite of a table writes a higher
+     * generation into the header of the new file, so a delta or catalog entry can tell which file
+     * it was written against without relying on file times.
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return The generation, 0 for a file written before generations existed, or -1 if there is no file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static long generation(String tableName, String dbPath) throws IOException {
+        return generation(tableFile(tableName, dbPath));
+    }
+
+    /**
+     * Gets the generation the next full rewrite of a table's base file should carry:
+     * one more than that of either format's file.
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return The next generation.
+     * @throws IOException if a file cannot be read.
+     */
+    static long nextGeneration(String tableName, String dbPath) throws IOException {
+        File plainFile = new File(dbPath + File.separator + tableName + ".tab");
+        File compressedFile = new File(dbPath + File.separator + tableName + CompressedTableWriter.FILE_EXTENSION);
+        return Math.max(0, Math.max(generation(plainFile), generation(compressedFile))) + 1;
+    }
+
+    private static long generation(File tableFile) throws IOException {
+        if (!tableFile.exists()) {
+            return -1;
+        }
+        if (tableFile.getName().endsWith(CompressedTableWriter.FILE_EXTENSION)) {
+            try (CompressedTableReader reader = new CompressedTableReader(tableFile.toPath())) {
+                return headerGeneration(new String(reader.getHeader()));
             }
-            writer.newLine();
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(tableFile))) {
+            String headerLine = reader.readLine();
+            return headerLine == null ? 0 : headerGeneration(headerLine);
+        }
+    }
+
+    // An unreadable file loses against a readable one
+    private static long readableGeneration(File tableFile) {
+        try {
+            return generation(tableFile);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long headerGeneration(String headerLine) {
+        int marker = headerLine.lastIndexOf('\t' + GENERATION_MARKER);
+        if (marker < 0) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(headerLine.substring(marker + 1 + GENERATION_MARKER.length()).trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the column names from the header line of a base file, leaving out its generation.
+     *
+     * @param headerLine The first line of the file.
+     * @return The column names in order, starting with "id".
+     */
+    static String[] columnNames(String headerLine) {
+        String[] fields = headerLine.split("\t");
+        if (fields.length > 1 && fields[fields.length - 1].startsWith(GENERATION_MARKER)) {
+            return Arrays.copyOf(fields, fields.length - 1);
+        }
+        return fields;
+    }
+
+    /**
+     * Checks whether a table is stored block-compressed.
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return `true` if the table's base file is a `.tabz` file.
+     */
+    public static boolean isCompressed(String tableName, String dbPath) {
+        return tableFile(tableName, dbPath).getName().endsWith(CompressedTableWriter.FILE_EXTENSION);
+    }
+
+    /**
+     * Writes columns and rows in the `.tab` format, optionally block-compressed, and forces the file to disk.
+     *
+     * @param columns        The table's columns.
+     * @param rows           The rows to write.
+     * @param file           The file to (over)write.
+     * @param bytesPerSecond Upper bound on the write rate, or 0 for no limit.
+     * @param compressed     Whether to write the `.tabz` block-compressed format.
+     * @param generation     The generation to record in the header, from {@link #nextGeneration}.
+     * @throws IOException if writing fails.
+     */
+    static void writeTabFile(List<Column> columns, Iterable<Row> rows, File file, long bytesPerSecond,
+                             boolean compressed, long generation) throws IOException {
+        OutputStream sink;
+        try (FileOutputStream output = new FileOutputStream(file);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                     sink = wrap(output, bytesPerSecond, compressed)))) {
+            // 写入列名
+            writeHeader(writer, columns, generation);
 
             // 写入数据行
-            for (Row row : table.getRows()) {
-                List<String> values = row.getValues();
-                for (int i = 0; i < values.size(); i++) {
-                    String value = values.get(i);
-                    writer.write(value != null ? value : "NULL");
-                    if (i < values.size() - 1) {
-                        writer.write("\t");
-                    }
-                }
-                writer.newLine();
+            for (Row row : rows) {
+                writeRow(writer, row);
+            }
+
+            // The log is truncated once this returns, so the data must really be on disk
+            writer.flush();
+            if (sink instanceof CompressedTableWriter) {
+                ((CompressedTableWriter) sink).finish();
+            }
+            output.getFD().sync();
+        }
+    }
+
+    /**
+     * Writes the header line of the `.tab` format: the column names.
+     *
+     * @param writer  The writer to append the line to.
+     * @param columns The table's columns.
+     * @throws IOException if writing fails.
+     */
+    static void writeHeader(BufferedWriter writer, List<Column> columns) throws IOException {
+        writeHeader(writer, columns, 0);
+    }
+
+    /**
+     * Writes the header line of a base file: the column names followed by the file's generation.
+     *
+     * @param writer     The writer to append the line to.
+     * @param columns    The table's columns.
+     * @param generation The generation of the file, or 0 to leave it out.
+     * @throws IOException if writing fails.
+     */
+    static void writeHeader(BufferedWriter writer, List<Column> columns, long generation) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            writer.write(columns.get(i).getName());
+            if (i < columns.size() - 1) {
+                writer.write("\t");
             }
         }
+        if (generation > 0) {
+            writer.write("\t" + GENERATION_MARKER + generation);
+        }
+        writer.newLine();
+    }
+
+    /**
+     * Writes one row as a `.tab` line.
+     *
+     * @param writer The writer to append the line to.
+     * @param row    The row, including its ID value.
+     * @throws IOException if writing fails.
+     */
+    static void writeRow(BufferedWriter writer, Row row) throws IOException {
+        List<String> values = row.getValues();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            writer.write(value != null ? value : "NULL");
+            if (i < values.size() - 1) {
+                writer.write("\t");
+            }
+        }
+        writer.newLine();
+    }
+
+    private static OutputStream wrap(FileOutputStream output, long bytesPerSecond, boolean compressed) {
+        // Throttling applies to the bytes that reach the disk, i.e. after compression
+        OutputStream sink = bytesPerSecond > 0 ? new ThrottledOutputStream(output, bytesPerSecond) : output;
+        return compressed ? new CompressedTableWriter(sink) : sink;
+    }
+
+    /**
+     * Rewrites a table in the plain or the block-compressed format and removes the other one.
+     * The delta is folded into the rewritten file.
+     *
+     * @param table      The fully loaded table.
+     * @param dbPath     The folder of the database containing the table.
+     * @param compressed Whether the table should be stored block-compressed.
+     * @throws IOException if writing fails.
+     */
+    public static void setCompressed(Table table, String dbPath, boolean compressed) throws IOException {
+        File tempFile = new File(dbPath + File.separator + table.getName() + ".tab.tmp");
+        writeTabFile(table.getColumns(), table.getRows(), tempFile, 0, compressed, nextGeneration(table.getName(), dbPath));
+        installTabFile(table, dbPath, tempFile, compressed);
+        table.clearChanges();
+    }
+
+    /**
+     * Describes how much space a table's base file takes compared with its plain text size.
+     * A delta is stored uncompressed, so its size is added to both.
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return The table name, its format, raw and stored sizes in bytes and the compression ratio.
+     * @throws IOException if the table file cannot be read.
+     */
+    public static List<String> compressionReport(String tableName, String dbPath) throws IOException {
+        File tableFile = tableFile(tableName, dbPath);
+        if (!tableFile.exists()) {
+            throw new IOException("Table file not found: " + tableName);
+        }
+        boolean compressed = isCompressed(tableName, dbPath);
+        long stored = tableFile.length();
+        long raw = stored;
+        if (compressed) {
+            try (CompressedTableReader reader = new CompressedTableReader(tableFile.toPath())) {
+                raw = reader.getRawBytes();
+            }
+        }
+        long delta = DeltaSegment.file(tableName, dbPath).length();
+        raw += delta;
+        stored += delta;
+        double ratio = stored == 0 ? 1.0 : (double) raw / stored;
+        return Arrays.asList(tableName, compressed ? "compressed" : "plain", String.valueOf(raw),
+                String.valueOf(stored), String.format("%.2f", ratio));
+    }
+
+    /**
+     * Moves a fully written `.tab` or `.tabz` file into place as the table's new base file.
+     * The columnar copy is rewritten from the table and the delta, now folded in, is deleted,
+     * as is the base file in the other format, if any.
+     *
+     * @param table      The table the file was written from.
+     * @param dbPath     The folder of the database containing the table.
+     * @param tempFile   The new file contents.
+     * @param compressed Whether the new contents are block-compressed.
+     * @throws IOException if the file cannot be moved or the columnar copy cannot be written.
+     */
+    static void installTabFile(Table table, String dbPath, File tempFile, boolean compressed) throws IOException {
+        File plainFile = new File(dbPath + File.separator + table.getName() + ".tab");
+        File compressedFile = new File(dbPath + File.separator + table.getName() + CompressedTableWriter.FILE_EXTENSION);
+        File tableFile = compressed ? compressedFile : plainFile;
+        // A columnar copy is removed before the .tab changes and rewritten after it,
+        // so a crash in between can never leave a stale columnar file to be loaded
+        File columnarFile = columnarFile(table.getName(), dbPath);
+        boolean keepColumnar = columnarFile.exists();
+        Files.deleteIfExists(columnarFile.toPath());
+
+        Files.move(tempFile.toPath(), tableFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists((compressed ? plainFile : compressedFile).toPath());
+        syncFolder(new File(dbPath));
+
+        if (keepColumnar) {
+            ColumnarTableWriter.write(table, columnarFile.toPath());
+        }
+
+        // The rewritten file already contains every change the delta held
+        DeltaSegment.delete(table.getName(), dbPath);
+    }
+
+    /**
+     * Forces a folder's entries to disk, so a rename or delete in it survives a crash.
+     * Some platforms cannot open folders for this; there the rename is as durable as the platform makes it.
+     *
+     * @param folder The folder whose entries changed.
+     */
+    static void syncFolder(File folder) {
+        try (FileChannel channel = FileChannel.open(folder.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported here (e.g. on Windows)
+        }
+    }
+
+    /**
+     * Persists a table's changes since it was last persisted: normally by appending just the
+     * changed rows to its delta file, or by a full rewrite when the schema changed or the delta grew too large.
+     *
+     * @param table  The table to persist.
+     * @param dbPath The folder of the database containing the table.
+     * @throws IOException if writing fails.
+     */
+    public static void persistChanges(Table table, String dbPath) throws IOException {
+        if (DeltaSegment.needsRewrite(table, dbPath)) {
+            saveTable(table, dbPath);
+        } else {
+            DeltaSegment.append(table, dbPath);
+        }
+    }
+
+    /**
+     * Adds or removes a table's binary columnar copy. While it exists, the table is loaded from it,
+     * it is kept in sync on every full save, and SELECT can read just the columns it needs from it.
+     * Adding the copy first rewrites the base file in its current format, folding the delta in,
+     * so the copy holds every row on its own.
+     *
+     * @param table    The fully loaded table.
+     * @param dbPath   The folder of the database containing the table.
+     * @param columnar Whether the table should have a columnar copy.
+     * @throws IOException if a file cannot be written or deleted.
+     */
+    public static void setColumnar(Table table, String dbPath, boolean columnar) throws IOException {
+        File columnarFile = columnarFile(table.getName(), dbPath);
+        if (!columnar) {
+            Files.deleteIfExists(columnarFile.toPath());
+            return;
+        }
+        // A crash between the two writes leaves a plain table, never a columnar copy missing the delta
+        Files.deleteIfExists(columnarFile.toPath());
+        setCompressed(table, dbPath, isCompressed(table.getName(), dbPath));
+        ColumnarTableWriter.write(table, columnarFile.toPath());
+    }
+
+    /**
+     * Gets the location of a table's binary columnar file (which may not exist).
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return The columnar file.
+     */
+    public static File columnarFile(String tableName, String dbPath) {
+        return new File(dbPath + File.separator + tableName + ColumnarTableWriter.FILE_EXTENSION);
+    }
+
+    /**
+     * Reads only the header of a table file and returns a table whose rows stay on disk
+     * until first needed. Until then, SELECT scans the file through {@link #scanMapped}.
+     *
+     * @param tableName The name of the table.
+     * @param dbPath    The folder of the database containing the table.
+     * @return A table with its columns set but its rows not yet loaded.
+     * @throws IOException if the file cannot be read or is empty.
+     */
+    public static Table loadTableHeader(String tableName, String dbPath) throws IOException {
+        File tableFile = tableFile(tableName, dbPath);
+        Table table = new Table(tableName);
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(tableFile))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new IOException("Empty table file: " + tableName);
+            }
+
+            String[] columnNames = columnNames(headerLine);
+            table.getColumns().clear();
+            for (int i = 0; i < columnNames.length; i++) {
+                table.getColumns().add(new Column(columnNames[i], i));
+            }
+        }
+
+        table.setLoader(() -> loadTable(tableName, dbPath));
+        return table;
+    }
+
+    /**
+     * Streams the rows of a table that is not resident straight from its memory-mapped file.
+     *
+     * @param table   The (not loaded) table to scan.
+     * @param dbPath  The folder of the database containing the table.
+     * @param visitor Called once per row; the row object is reused between calls.
+     * @throws IOException if the file cannot be scanned.
+     */
+    public static void scanMapped(Table table, String dbPath, Consumer<Row> visitor) throws IOException {
+        MappedTableScanner.scan(new File(dbPath + File.separator + table.getName() + ".tab"), visitor);
     }
 
     public static Table loadTable(String tableName, String dbPath) throws IOException {
-        File tableFile = new File(dbPath + File.separator + tableName + ".tab");
+        return loadTable(tableName, dbPath, EncodedRows.ENABLED ? new EncodedRows() : new ArrayList<>());
+    }
+
+    /**
+     * Loads a table, streaming its rows into the given list instead of a new in-memory one.
+     *
+     * @param tableName  The name of the table.
+     * @param dbPath     The folder of the database containing the table.
+     * @param rowStorage An empty list that receives the rows and becomes the table's row storage.
+     * @return The loaded table.
+     * @throws IOException if the file cannot be read.
+     */
+    public static Table loadTable(String tableName, String dbPath, List<Row> rowStorage) throws IOException {
+        Table table = loadBase(tableName, dbPath, rowStorage);
+        // Changes checkpointed since the last full rewrite
+        DeltaSegment.applyTo(table, dbPath);
+        // Rows arrive one at a time; pick each column's encoding now that all values are known
+        table.optimizeStorage();
+        return table;
+    }
+
+    private static Table loadBase(String tableName, String dbPath, List<Row> rowStorage) throws IOException {
+        File tableFile = tableFile(tableName, dbPath);
         if (!tableFile.exists()) {
             throw new IOException("Table file not found: " + tableName);
         }
 
+        // Prefer the binary columnar copy when there is one
+        File columnarFile = columnarFile(tableName, dbPath);
+        if (columnarFile.exists()) {
+            try (ColumnarTableReader reader = new ColumnarTableReader(columnarFile.toPath())) {
+                Table table = reader.readTable(tableName);
+                rowStorage.addAll(table.getRows());
+                table.setRows(rowStorage);
+                return table;
+            }
+        }
+
+        // Compressed blocks are independent, so they are always inflated and parsed in parallel
+        if (isCompressed(tableName, dbPath)) {
+            return ParallelTableLoader.loadCompressed(tableName, tableFile, rowStorage);
+        }
+
+        // Big files are split into chunks and parsed on several cores
+        if (tableFile.length() >= ParallelTableLoader.PARALLEL_THRESHOLD) {
+            return ParallelTableLoader.load(tableName, tableFile, rowStorage);
+        }
+
         Table table = new Table(tableName);
+        table.setRows(rowStorage);
 
         try (BufferedReader reader = new BufferedReader(new FileReader(tableFile))) {
             // Read column names
@@ -61,7 +483,7 @@ public class TableFileIO {
                 throw new IOException("Empty table file: " + tableName);
             }
 
-            String[] columnNames = headerLine.split("\t");
+            String[] columnNames = columnNames(headerLine);
 
             // Clear the default columns created by the table constructor
             table.getColumns().clear();
@@ -0,0 +1,53 @@
+package edu.uob.storage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * Limits how fast background work such as compaction writes, so it leaves disk bandwidth
+ * to the statements being served. The writer sleeps whenever it gets ahead of the allowed rate.
+ */
+public class ThrottledOutputStream extends FilterOutputStream {
+    private long bytesPerSecond; // The allowed write rate
+    private long startNanos;     // When writing started
+    private long written;        // Bytes written so far
+
+    /**
+     * Wraps a stream with a write rate limit.
+     *
+     * @param out            The stream to write to.
+     * @param bytesPerSecond The allowed write rate.
+     */
+    public ThrottledOutputStream(OutputStream out, long bytesPerSecond) {
+        super(out);
+        this.bytesPerSecond = bytesPerSecond;
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        account(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        account(len);
+    }
+
+    private void account(int length) throws IOException {
+        written += length;
+        long aheadNanos = written * 1_000_000_000L / bytesPerSecond - (System.nanoTime() - startNanos);
+        if (aheadNanos > 1_000_000L) {
+            try {
+                Thread.sleep(aheadNanos / 1_000_000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Throttled write interrupted");
+            }
+        }
+    }
+}
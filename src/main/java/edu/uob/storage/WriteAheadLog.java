@@ -0,0 +1,214 @@
+package edu.uob.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log for a single database.
+ * Row changes are appended here as {@link LogRecord}s instead of rewriting the table file;
+ * a checkpoint later folds the log into the `.tab` files and truncates it.
+ *
+ * Each record occupies one line of the form {@code <crc32-hex>\t<encoded record>\n}.
+ * A torn or corrupted tail (e.g. after a crash mid-append) is ignored on replay.
+ */
+public class WriteAheadLog implements Closeable {
+    public static final String FILE_NAME = "wal.log";
+
+    private Path path;                // Location of the log file inside the database folder
+    private FileChannel channel;      // Channel opened in append mode
+    private Set<String> dirtyTables;  // Tables with changes not yet folded into their .tab file
+    private long appendedLsn;         // Total bytes ever appended; unlike the file size it never shrinks
+    private GroupCommitter committer; // Batches the fsyncs of concurrent commits
+
+    /**
+     * Opens (or creates) the log of the database stored at the given path.
+     *
+     * @param dbPath   The folder of the database.
+     * @param incoming Reports how many statements are still running and may commit soon.
+     * @throws IOException if the log file cannot be opened.
+     */
+    public WriteAheadLog(String dbPath, IntSupplier incoming) throws IOException {
+        this.path = Paths.get(dbPath, FILE_NAME);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.dirtyTables = new HashSet<>();
+        this.appendedLsn = channel.size();
+        this.committer = new GroupCommitter(this, incoming);
+        committer.markDurable(appendedLsn); // Whatever survived a restart is already on disk
+    }
+
+    /**
+     * Appends a record to the end of the log.
+     * The record is handed to the operating system but not forced to disk;
+     * use {@link GroupCommitter#awaitDurable(long)} with the returned position for that.
+     *
+     * @param record The change to log.
+     * @return The log position just past the record.
+     * @throws IOException if the write fails.
+     */
+    public synchronized long append(LogRecord record) throws IOException {
+        return append(List.of(record));
+    }
+
+    /**
+     * Appends several records with a single write, e.g. all row changes of one statement.
+     *
+     * @param records The changes to log, in order.
+     * @return The log position just past the last record.
+     * @throws IOException if the write fails.
+     */
+    public synchronized long append(List<LogRecord> records) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (LogRecord record : records) {
+            lines.append(frame(record));
+            if (record.isChange()) {
+                dirtyTables.add(record.getTableName());
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            appendedLsn += channel.write(buffer);
+        }
+        return appendedLsn;
+    }
+
+    /**
+     * Formats a record as one checksummed line, including the trailing newline.
+     *
+     * @param record The record to format.
+     * @return The log line.
+     */
+    static String frame(LogRecord record) {
+        String payload = record.encode();
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue()) + "\t" + payload + "\n";
+    }
+
+    /**
+     * Parses lines written by {@link #frame(LogRecord)}, stopping at the first incomplete or corrupted line.
+     *
+     * @param content The file content.
+     * @return The intact records, in order.
+     */
+    static List<LogRecord> parse(String content) {
+        List<LogRecord> records = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = content.indexOf('\n', start)) != -1) {
+            String line = content.substring(start, end);
+            start = end + 1;
+
+            int separator = line.indexOf('\t');
+            if (separator == -1) {
+                break;
+            }
+            String payload = line.substring(separator + 1);
+            CRC32 crc = new CRC32();
+            crc.update(payload.getBytes(StandardCharsets.UTF_8));
+            if (!Long.toHexString(crc.getValue()).equals(line.substring(0, separator))) {
+                break; // Corrupted record - nothing after it can be trusted
+            }
+            records.add(LogRecord.decode(payload));
+        }
+        return records;
+    }
+
+    /**
+     * Forces every record appended so far to disk.
+     * The log monitor is not held during the fsync, so other sessions can keep appending.
+     *
+     * @return The log position that is now durable.
+     * @throws IOException if the flush fails.
+     */
+    public long force() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appendedLsn;
+        }
+        channel.force(false);
+        return target;
+    }
+
+    /**
+     * Gets the group committer that acknowledges durable commits for this log.
+     *
+     * @return The group committer.
+     */
+    public GroupCommitter getGroupCommitter() {
+        return committer;
+    }
+
+    /**
+     * Reads every intact record currently in the log, in append order.
+     * Reading stops at the first incomplete or corrupted line.
+     *
+     * @return The logged records.
+     * @throws IOException if the log cannot be read.
+     */
+    public synchronized List<LogRecord> readAll() throws IOException {
+        List<LogRecord> records = parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        for (LogRecord record : records) {
+            if (record.isChange()) {
+                dirtyTables.add(record.getTableName());
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Gets the tables that have logged changes since the last truncation.
+     *
+     * @return A copy of the dirty table names.
+     */
+    public synchronized Set<String> getDirtyTables() {
+        return new HashSet<>(dirtyTables);
+    }
+
+    /**
+     * Gets the current size of the log in bytes.
+     *
+     * @return The log size.
+     * @throws IOException if the size cannot be determined.
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Discards all records, typically after they have been checkpointed into the table files.
+     *
+     * @throws IOException if the log cannot be truncated.
+     */
+    public synchronized void truncate() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+        dirtyTables.clear();
+        // The checkpoint that preceded this made every logged change durable in the table files
+        committer.markDurable(appendedLsn);
+    }
+
+    /**
+     * Closes the underlying file channel.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
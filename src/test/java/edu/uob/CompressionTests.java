@@ -0,0 +1,112 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class CompressionTests {
+
+    @TempDir
+    Path storageFolder;
+
+    private DBServer server;
+
+    @BeforeEach
+    public void setup() {
+        server = new DBServer(storageFolder.toString());
+        sendCommandToServer("CREATE DATABASE shop;");
+        sendCommandToServer("USE shop;");
+        sendCommandToServer("CREATE TABLE items (name, colour);");
+        StringBuilder insert = new StringBuilder("INSERT INTO items VALUES ");
+        for (int i = 0; i < 200; i++) {
+            insert.append(i == 0 ? "" : ", ").append("('item").append(i % 10).append("', 'blue')");
+        }
+        sendCommandToServer(insert.append(";").toString());
+    }
+
+    @AfterEach
+    public void closeServer() {
+        server.close();
+    }
+
+    private String sendCommandToServer(String command) {
+        return assertTimeoutPreemptively(Duration.ofMillis(5000), () -> { return server.handleCommand(command);},
+        "Server took too long to respond (probably stuck in an infinite loop)");
+    }
+
+    private void restart() {
+        server.close();
+        server = new DBServer(storageFolder.toString());
+        sendCommandToServer("USE shop;");
+    }
+
+    // The fields of the single report row: table, format, raw bytes, stored bytes, ratio
+    private String[] report() {
+        String[] lines = sendCommandToServer("SHOW COMPRESSION items;").split("\n");
+        assertEquals("[OK]", lines[0]);
+        assertEquals("table\tformat\traw_bytes\tstored_bytes\tratio", lines[1]);
+        assertEquals(3, lines.length);
+        return lines[2].split("\t");
+    }
+
+    // A plain table reports the same raw and stored size, counting rows that are still in the delta
+    @Test
+    public void testReportOnPlainTable() {
+        String[] report = report();
+        assertEquals("items", report[0]);
+        assertEquals("plain", report[1]);
+        assertEquals(report[2], report[3]);
+        assertEquals("1.00", report[4]);
+    }
+
+    // Compression rewrites the table as .tabz, which the report shows, and the rows read back unchanged
+    @Test
+    public void testCompressionOnAndOff() {
+        String before = sendCommandToServer("SELECT * FROM items;");
+
+        assertEquals("[OK]", sendCommandToServer("ALTER TABLE items SET COMPRESSION ON;"));
+        Path folder = storageFolder.resolve("shop");
+        assertTrue(Files.exists(folder.resolve("items.tabz")));
+        assertFalse(Files.exists(folder.resolve("items.tab")));
+        String[] report = report();
+        assertEquals("compressed", report[1]);
+        String compressedRaw = report[2];
+        assertTrue(Long.parseLong(report[3]) < Long.parseLong(report[2]), "Repetitive rows should compress");
+
+        restart();
+        assertEquals(before, sendCommandToServer("SELECT * FROM items;"));
+        sendCommandToServer("INSERT INTO items VALUES ('extra', 'red');");
+        restart();
+        assertEquals("compressed", report()[1], "Later saves should keep the table compressed");
+        assertEquals("[OK]\nname\nextra", sendCommandToServer("SELECT name FROM items WHERE colour == 'red';"));
+
+        assertEquals("[OK]", sendCommandToServer("ALTER TABLE items SET COMPRESSION OFF;"));
+        assertTrue(Files.exists(folder.resolve("items.tab")));
+        assertFalse(Files.exists(folder.resolve("items.tabz")));
+        String[] plainReport = report();
+        assertEquals("plain", plainReport[1]);
+        assertEquals(plainReport[2], plainReport[3]);
+        assertEquals(Long.parseLong(compressedRaw) + "extra\tred\n".length() + "201\t".length(),
+                Long.parseLong(plainReport[2]), "The raw size of the compressed file should be its plain text size");
+        restart();
+        assertEquals(201, sendCommandToServer("SELECT id FROM items;").split("\n").length - 2);
+    }
+
+    // Bad settings and unknown tables are reported as errors
+    @Test
+    public void testInvalidStatements() {
+        assertTrue(sendCommandToServer("ALTER TABLE items SET COMPRESSION MAYBE;").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("ALTER TABLE missing SET COMPRESSION ON;").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("SHOW COMPRESSION missing;").startsWith("[ERROR]"));
+    }
+}
@@ -0,0 +1,585 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.commands.Command;
+import edu.uob.models.QueryResult;
+import edu.uob.models.Table;
+import edu.uob.parser.SQLParser;
+import edu.uob.storage.Catalog;
+import edu.uob.storage.Compactor;
+import edu.uob.storage.DBManager;
+import edu.uob.storage.DeltaSegment;
+import edu.uob.storage.Session;
+import edu.uob.storage.TableFileIO;
+import edu.uob.storage.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class PersistenceTests {
+
+    @TempDir
+    Path storageFolder;
+
+    private List<DBServer> servers = new ArrayList<>();
+
+    @AfterEach
+    public void closeServers() {
+        for (DBServer server : servers) {
+            server.close();
+        }
+    }
+
+    private DBServer startServer() {
+        DBServer server = new DBServer(storageFolder.toString());
+        servers.add(server);
+        return server;
+    }
+
+    private String sendCommandToServer(DBServer server, String command) {
+        return assertTimeoutPreemptively(Duration.ofMillis(1000), () -> { return server.handleCommand(command);},
+        "Server took too long to respond (probably stuck in an infinite loop)");
+    }
+
+    // Only one manager may serve a storage folder; a second one fails instead of taking over
+    @Test
+    public void testSecondManagerOnServedFolderFailsFast() {
+        DBServer server = startServer();
+        sendCommandToServer(server, "CREATE DATABASE shop;");
+        assertThrows(IllegalStateException.class, () -> new DBManager(storageFolder.toString()));
+        assertTrue(sendCommandToServer(server, "USE shop;").startsWith("[OK]"),
+                "The serving manager stopped working after another manager tried to open its folder");
+    }
+
+    // Servers created on the same folder in one process share its manager rather than shutting each other down
+    @Test
+    public void testServersOnSameFolderShareManager() {
+        DBServer first = startServer();
+        sendCommandToServer(first, "CREATE DATABASE shop;");
+        sendCommandToServer(first, "USE shop;");
+        sendCommandToServer(first, "CREATE TABLE items (name);");
+        DBServer second = startServer();
+        sendCommandToServer(second, "USE shop;");
+        sendCommandToServer(second, "INSERT INTO items VALUES ('pen');");
+        assertEquals("[OK]\nid\tname\n1\tpen", sendCommandToServer(first, "SELECT * FROM items;"));
+    }
+
+    // Each server keeps its own USE, and the shared manager keeps serving until the last server closes
+    @Test
+    public void testServersKeepTheirOwnSession() {
+        DBServer first = startServer();
+        sendCommandToServer(first, "CREATE DATABASE shop;");
+        sendCommandToServer(first, "CREATE DATABASE zoo;");
+        sendCommandToServer(first, "USE shop;");
+        sendCommandToServer(first, "CREATE TABLE items (name);");
+        DBServer second = startServer();
+        assertEquals("[ERROR] No database selected", sendCommandToServer(second, "SELECT * FROM items;"));
+        sendCommandToServer(second, "USE zoo;");
+        assertEquals("[OK]\nid\tname", sendCommandToServer(first, "SELECT * FROM items;"));
+
+        first.close();
+        first.close();
+        assertEquals("[ERROR] Server has been shut down", sendCommandToServer(first, "USE zoo;"));
+        assertEquals("[OK]", sendCommandToServer(second, "CREATE TABLE animals (name);"));
+        second.close();
+        new DBManager(storageFolder.toString()).close(); // The folder has been released
+    }
+
+    // Closing a server releases its folder, so a new manager can open it and read back the data
+    @Test
+    public void testClosedFolderCanBeReopened() {
+        DBServer server = startServer();
+        sendCommandToServer(server, "CREATE DATABASE shop;");
+        sendCommandToServer(server, "USE shop;");
+        sendCommandToServer(server, "CREATE TABLE items (name);");
+        sendCommandToServer(server, "INSERT INTO items VALUES ('pen');");
+        server.close();
+        servers.clear();
+
+        DBServer restarted = startServer();
+        sendCommandToServer(restarted, "USE shop;");
+        assertEquals("[OK]\nid\tname\n1\tpen", sendCommandToServer(restarted, "SELECT * FROM items;"));
+    }
+
+    // The delta and catalog stay valid when file times change, e.g. after the folder is copied or restored
+    @Test
+    public void testDeltaAndCatalogIgnoreFileTimes() {
+        DBServer server = startServer();
+        sendCommandToServer(server, "CREATE DATABASE shop;");
+        sendCommandToServer(server, "USE shop;");
+        sendCommandToServer(server, "CREATE TABLE items (name);");
+        sendCommandToServer(server, "INSERT INTO items VALUES ('pen'), ('ink');");
+        server.close();
+        servers.clear();
+
+        File dbFolder = storageFolder.resolve("shop").toFile();
+        assertTrue(DeltaSegment.file("items", dbFolder.getPath()).exists(), "The insert should be in the delta");
+        for (File file : Objects.requireNonNull(dbFolder.listFiles())) {
+            assertTrue(file.setLastModified(86400000L));
+        }
+        assertNotNull(Catalog.load(dbFolder.getPath()).getValidEntry("items"));
+
+        DBServer restarted = startServer();
+        sendCommandToServer(restarted, "USE shop;");
+        assertEquals("[OK]\nid\tname\n1\tpen\n2\tink", sendCommandToServer(restarted, "SELECT * FROM items;"));
+    }
+
+    // Runs statements in a separate JVM that then halts without shutting down, like a crash, so
+    // nothing is checkpointed except where asked and the folder is left as the crash left it
+    private void crashAfter(String... statements) throws Exception {
+        List<String> command = new ArrayList<>(Arrays.asList(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "-Dedu.uob.wal.checkpointIntervalMillis=3600000",
+                "-Dedu.uob.storage.compactIntervalMillis=3600000",
+                CrashingWriter.class.getName(), storageFolder.toString()));
+        command.addAll(Arrays.asList(statements));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS), "The writer process did not finish");
+        assertEquals(0, process.exitValue(), "The writer process failed:\n" + output);
+    }
+
+    /**
+     * Executes statements against a storage folder and halts the JVM without closing the manager.
+     * Besides SQL, `!checkpoint <database>` checkpoints a database, `!insert-then-fail <table> <value>`
+     * runs a statement that inserts a row and then fails, and `!concurrent-inserts <database> <table> <writers>
+     * <rows>` has several sessions insert rows named `<writer>-<row>` at once, halting once all are acknowledged.
+     */
+    public static class CrashingWriter {
+        public static void main(String[] args) throws Exception {
+            DBManager dbManager = new DBManager(args[0]);
+            for (String statement : Arrays.asList(args).subList(1, args.length)) {
+                String[] words = statement.split(" ");
+                if (words[0].equals("!checkpoint")) {
+                    dbManager.checkpoint(words[1]);
+                } else if (words[0].equals("!insert-then-fail")) {
+                    try {
+                        dbManager.execute(new Command() {
+                            @Override
+                            public QueryResult execute(DBManager manager) {
+                                manager.insertRow(words[1], List.of(words[2]));
+                                throw new RuntimeException("Failed after inserting");
+                            }
+                        });
+                        Runtime.getRuntime().halt(2);
+                    } catch (RuntimeException expected) {
+                        // The inserted row is taken back and its log record aborted
+                    }
+                } else if (words[0].equals("!concurrent-inserts")) {
+                    List<Thread> writers = new ArrayList<>();
+                    for (int w = 0; w < Integer.parseInt(words[3]); w++) {
+                        int writer = w;
+                        writers.add(new Thread(() -> {
+                            Session session = new Session();
+                            dbManager.execute(session, new SQLParser("USE " + words[1] + ";").parse());
+                            for (int r = 0; r < Integer.parseInt(words[4]); r++) {
+                                dbManager.execute(session, new SQLParser(
+                                        "INSERT INTO " + words[2] + " VALUES ('" + writer + "-" + r + "');").parse());
+                            }
+                        }));
+                    }
+                    writers.forEach(Thread::start);
+                    for (Thread writer : writers) {
+                        writer.join();
+                    }
+                } else {
+                    dbManager.execute(new SQLParser(statement).parse());
+                }
+            }
+            Runtime.getRuntime().halt(0);
+        }
+    }
+
+    private Path logFile(String dbName) {
+        return storageFolder.resolve(dbName).resolve(WriteAheadLog.FILE_NAME);
+    }
+
+    // Inserts, updates and deletes that only reached the log are replayed after a crash
+    @Test
+    public void testLoggedChangesReplayAfterCrash() throws Exception {
+        crashAfter("CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name, price);",
+                "INSERT INTO items VALUES ('pen', 2), ('ink', 5), ('pad', 3);",
+                "UPDATE items SET price = 4 WHERE name == 'ink';",
+                "DELETE FROM items WHERE name == 'pad';");
+        assertTrue(Files.size(logFile("shop")) > 0, "The changes should only be in the log before the restart");
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\tprice\n1\tpen\t2\n2\tink\t4",
+                sendCommandToServer(server, "SELECT * FROM items;"));
+        sendCommandToServer(server, "INSERT INTO items VALUES ('cap', 1);");
+        assertEquals("[OK]\nid\n4", sendCommandToServer(server, "SELECT id FROM items WHERE name == 'cap';"),
+                "IDs of replayed rows must not be handed out again");
+    }
+
+    // Records folded in by a checkpoint are not applied twice; only the later ones are replayed
+    @Test
+    public void testReplayAfterCheckpoint() throws Exception {
+        crashAfter("CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name, price);",
+                "INSERT INTO items VALUES ('pen', 2), ('ink', 5);",
+                "!checkpoint shop",
+                "INSERT INTO items VALUES ('pad', 3);",
+                "UPDATE items SET price = 1 WHERE name == 'pen';",
+                "DELETE FROM items WHERE name == 'ink';");
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\tprice\n1\tpen\t1\n3\tpad\t3",
+                sendCommandToServer(server, "SELECT * FROM items;"));
+    }
+
+    // A statement whose commit record was cut off by the crash is dropped, and earlier ones are kept
+    @Test
+    public void testTruncatedLogDropsUncommittedStatement() throws Exception {
+        crashAfter("CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);",
+                "INSERT INTO items VALUES ('pen');",
+                "INSERT INTO items VALUES ('ink');");
+
+        // Cut the log in the middle of its last line, the commit record of the second insert
+        byte[] log = Files.readAllBytes(logFile("shop"));
+        int lastLineStart = new String(log, StandardCharsets.UTF_8).lastIndexOf('\n', log.length - 2) + 1;
+        Files.write(logFile("shop"), Arrays.copyOf(log, lastLineStart + (log.length - lastLineStart) / 2));
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\n1\tpen", sendCommandToServer(server, "SELECT * FROM items;"));
+    }
+
+    // A record that fails its checksum ends the log: it and everything after it are ignored
+    @Test
+    public void testCorruptedRecordEndsReplay() throws Exception {
+        crashAfter("CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);",
+                "INSERT INTO items VALUES ('pen');",
+                "INSERT INTO items VALUES ('ink');",
+                "INSERT INTO items VALUES ('pad');");
+
+        String log = new String(Files.readAllBytes(logFile("shop")), StandardCharsets.UTF_8);
+        Files.write(logFile("shop"), log.replace("ink", "inc").getBytes(StandardCharsets.UTF_8));
+        // A torn append after the corruption must not confuse the reader either
+        Files.write(logFile("shop"), "0\tINS".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\n1\tpen", sendCommandToServer(server, "SELECT * FROM items;"));
+    }
+
+    // A statement that failed after changing rows leaves no trace, even though a later statement committed
+    @Test
+    public void testFailedStatementIsNotReplayed() throws Exception {
+        crashAfter("CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);",
+                "INSERT INTO items VALUES ('pen');",
+                "!insert-then-fail items cap",
+                "INSERT INTO items VALUES ('ink');");
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\n1\tpen\n2\tink", sendCommandToServer(server, "SELECT * FROM items;"));
+    }
+
+    // A statement that fails part way is undone in memory, including changes to a table read back from its file
+    @Test
+    public void testFailedStatementIsRolledBack() {
+        DBManager dbManager = new DBManager(storageFolder.toString());
+        try {
+            for (String statement : new String[] {"CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);",
+                    "INSERT INTO items VALUES ('pen'), ('ink');"}) {
+                dbManager.execute(new SQLParser(statement).parse());
+            }
+            dbManager.checkpoint("shop");
+            dbManager.execute(new SQLParser("UPDATE items SET name = 'pad' WHERE id == 2;").parse());
+
+            assertThrows(RuntimeException.class, () -> dbManager.execute(new Command() {
+                @Override
+                public QueryResult execute(DBManager manager) {
+                    Table table = manager.getTable("items");
+                    manager.deleteRows(table, List.of(1));
+                    manager.insertRow("items", List.of("cap"));
+                    manager.updateRows(table, Set.of(2), Map.of("name", "'box'"));
+                    throw new RuntimeException("Failed after changing rows");
+                }
+            }));
+            assertEquals("[id, name][1, pen][2, pad]", selectAll(dbManager));
+            dbManager.execute(new SQLParser("INSERT INTO items VALUES ('cap');").parse());
+            assertEquals("[id, name][1, pen][2, pad][3, cap]", selectAll(dbManager));
+        } finally {
+            dbManager.close();
+        }
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\n1\tpen\n2\tpad\n3\tcap", sendCommandToServer(server, "SELECT * FROM items;"));
+    }
+
+    // Statements that several sessions committed at once, sharing fsyncs, all survive a crash
+    @Test
+    public void testConcurrentCommitsSurviveCrash() throws Exception {
+        crashAfter("CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);",
+                "!concurrent-inserts shop items 6 20");
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        List<String> lines = Arrays.asList(sendCommandToServer(server, "SELECT name FROM items;").split("\n"));
+        Set<String> expected = new HashSet<>();
+        for (int w = 0; w < 6; w++) {
+            for (int r = 0; r < 20; r++) {
+                expected.add(w + "-" + r);
+            }
+        }
+        assertEquals(expected.size(), lines.size() - 2);
+        assertEquals(expected, new HashSet<>(lines.subList(2, lines.size())));
+    }
+
+    // Checkpointing an update appends just the changed row to the delta; the .tab file is left as it was
+    @Test
+    public void testUpdateCheckpointsOnlyDelta() throws Exception {
+        DBManager dbManager = new DBManager(storageFolder.toString());
+        String dbPath = storageFolder.resolve("shop").toString();
+        File tableFile;
+        byte[] tableBytes;
+        long deltaLength;
+        try {
+            for (String statement : new String[] {"CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);"}) {
+                dbManager.execute(new SQLParser(statement).parse());
+            }
+            for (int i = 1; i <= 50; i++) {
+                dbManager.execute(new SQLParser("INSERT INTO items VALUES ('item" + i + "');").parse());
+            }
+            dbManager.checkpoint("shop");
+            dbManager.compactAll();
+            tableFile = TableFileIO.tableFile("items", dbPath);
+            tableBytes = Files.readAllBytes(tableFile.toPath());
+            File delta = DeltaSegment.file("items", dbPath);
+            deltaLength = delta.exists() ? delta.length() : 0;
+
+            dbManager.execute(new SQLParser("UPDATE items SET name = 'pad' WHERE id == 20;").parse());
+            dbManager.checkpoint("shop");
+
+            assertEquals(tableFile, TableFileIO.tableFile("items", dbPath));
+            assertArrayEquals(tableBytes, Files.readAllBytes(tableFile.toPath()), "The .tab file should not be rewritten");
+            byte[] deltaBytes = Files.readAllBytes(delta.toPath());
+            String appended = new String(deltaBytes, (int) deltaLength, (int) (deltaBytes.length - deltaLength),
+                    StandardCharsets.UTF_8);
+            String[] records = appended.split("\n");
+            assertEquals(2, records.length, "Only the updated row and a commit should be appended:\n" + appended);
+            assertTrue(records[0].endsWith("\tINSERT\titems\t20\tpad"), appended);
+        } finally {
+            dbManager.close();
+        }
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\n19\titem19\n20\tpad\n21\titem21",
+                sendCommandToServer(server, "SELECT * FROM items WHERE id >= 19 AND id <= 21;"));
+        assertEquals(51, sendCommandToServer(server, "SELECT id FROM items;").split("\n").length - 1);
+    }
+
+    // Compaction drops tombstones and folds the delta into a new .tab file without changing what is read
+    @Test
+    public void testCompactionKeepsRowsAndIds() throws Exception {
+        DBManager dbManager = new DBManager(storageFolder.toString());
+        String dbPath = storageFolder.resolve("shop").toString();
+        String before;
+        byte[] tableBytes;
+        try {
+            for (String statement : new String[] {"CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);"}) {
+                dbManager.execute(new SQLParser(statement).parse());
+            }
+            for (int i = 1; i <= 20; i++) {
+                dbManager.execute(new SQLParser("INSERT INTO items VALUES ('item" + i + "');").parse());
+            }
+            dbManager.checkpoint("shop");
+            dbManager.execute(new SQLParser("DELETE FROM items WHERE id <= 10;").parse());
+            dbManager.checkpoint("shop");
+            Table table = dbManager.getTable("items");
+            assertTrue(table.getDeadRowCount() >= 20 * Compactor.DEAD_FRACTION);
+            assertTrue(DeltaSegment.isOversized("items", dbPath), "The deletes should have outgrown the .tab file");
+            long generation = TableFileIO.generation("items", dbPath);
+            before = selectAll(dbManager);
+
+            dbManager.compactAll();
+            assertEquals(0, table.getDeadRowCount());
+            assertTrue(TableFileIO.generation("items", dbPath) > generation, "The .tab file should be rewritten");
+            assertFalse(DeltaSegment.file("items", dbPath).exists(), "The delta should be folded in");
+            assertEquals(before, selectAll(dbManager));
+            tableBytes = Files.readAllBytes(TableFileIO.tableFile("items", dbPath).toPath());
+        } finally {
+            dbManager.close();
+        }
+        assertTrue(before.startsWith("[id, name][11, item11]") && before.endsWith("[20, item20]"), before);
+
+        DBServer server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        StringBuilder expected = new StringBuilder("[OK]\nid\tname");
+        for (int i = 11; i <= 20; i++) {
+            expected.append('\n').append(i).append("\titem").append(i);
+        }
+        assertEquals(expected.toString(), sendCommandToServer(server, "SELECT * FROM items;"));
+        assertArrayEquals(tableBytes, Files.readAllBytes(TableFileIO.tableFile("items", dbPath).toPath()));
+        sendCommandToServer(server, "INSERT INTO items VALUES ('pad');");
+        assertEquals("[OK]\nid\n21", sendCommandToServer(server, "SELECT id FROM items WHERE name == 'pad';"));
+    }
+
+    // After a restart no table is read until a statement needs its rows; counting and appending rows do not
+    @Test
+    public void testTablesLoadOnFirstUse() {
+        DBManager dbManager = new DBManager(storageFolder.toString());
+        try {
+            for (String statement : new String[] {"CREATE DATABASE shop;", "USE shop;", "CREATE TABLE items (name);",
+                    "CREATE TABLE orders (item);", "INSERT INTO items VALUES ('pen'), ('ink'), ('pad');",
+                    "INSERT INTO orders VALUES (1);"}) {
+                dbManager.execute(new SQLParser(statement).parse());
+            }
+        } finally {
+            dbManager.close();
+        }
+
+        DBManager restarted = new DBManager(storageFolder.toString());
+        try {
+            restarted.execute(new SQLParser("USE shop;").parse());
+            Table items = restarted.getTable("items");
+            Table orders = restarted.getTable("orders");
+            assertFalse(items.isLoaded());
+            assertEquals(3, items.getRowCount());
+            assertFalse(items.isLoaded(), "Counting the rows should not load them");
+
+            restarted.execute(new SQLParser("INSERT INTO items VALUES ('cap');").parse());
+            assertFalse(items.isLoaded(), "Appending a row should not load the others");
+            assertFalse(items.isOnDisk());
+            assertEquals(4, items.getRowCount());
+
+            assertEquals("[id, name][1, pen][2, ink][3, pad][4, cap]", selectAll(restarted));
+            assertTrue(items.isLoaded());
+            assertFalse(orders.isLoaded(), "Only the table that was queried should be loaded");
+        } finally {
+            restarted.close();
+        }
+    }
+
+    // The catalog describes each table on close; an out-of-date or corrupt catalog is ignored and the table files are read instead
+    @Test
+    public void testCatalogRecovery() throws Exception {
+        DBServer server = startServer();
+        sendCommandToServer(server, "CREATE DATABASE shop;");
+        sendCommandToServer(server, "USE shop;");
+        sendCommandToServer(server, "CREATE TABLE items (name, price);");
+        sendCommandToServer(server, "INSERT INTO items VALUES ('pen', 2), ('ink', 5), ('pad', 3);");
+        sendCommandToServer(server, "DELETE FROM items WHERE name == 'ink';");
+        server.close();
+        servers.clear();
+
+        String dbPath = storageFolder.resolve("shop").toString();
+        Path catalogFile = Paths.get(dbPath, Catalog.FILE_NAME);
+        Catalog.Entry entry = Catalog.load(dbPath).getValidEntry("items");
+        assertNotNull(entry);
+        assertEquals(List.of("id", "name", "price"), entry.getColumnNames());
+        assertEquals(4, entry.getNextId());
+        assertEquals(2, entry.getRowCount());
+        byte[] staleCatalog = Files.readAllBytes(catalogFile);
+
+        // A catalog older than the table files no longer matches them
+        server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        sendCommandToServer(server, "INSERT INTO items VALUES ('cap', 1);");
+        server.close();
+        servers.clear();
+        Files.write(catalogFile, staleCatalog);
+        assertNull(Catalog.load(dbPath).getValidEntry("items"));
+
+        server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\tprice\n1\tpen\t2\n3\tpad\t3\n4\tcap\t1",
+                sendCommandToServer(server, "SELECT * FROM items;"));
+        sendCommandToServer(server, "INSERT INTO items VALUES ('box', 9);");
+        server.close();
+        servers.clear();
+
+        // A corrupt catalog reads as empty, and so does a missing one
+        byte[] catalog = Files.readAllBytes(catalogFile);
+        catalog[catalog.length / 2] ^= 1;
+        Files.write(catalogFile, catalog);
+        assertNull(Catalog.load(dbPath).getValidEntry("items"));
+        server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        assertEquals("[OK]\nid\tname\n5\tbox", sendCommandToServer(server, "SELECT id, name FROM items WHERE id > 4;"));
+        server.close();
+        servers.clear();
+
+        Files.delete(catalogFile);
+        server = startServer();
+        sendCommandToServer(server, "USE shop;");
+        sendCommandToServer(server, "INSERT INTO items VALUES ('tag', 4);");
+        assertEquals("[OK]\nid\tname\n1\tpen\n3\tpad\n4\tcap\n5\tbox\n6\ttag",
+                sendCommandToServer(server, "SELECT id, name FROM items;"));
+    }
+
+    // A multi-row INSERT with a bad tuple writes nothing to the log, the delta or the table file
+    @Test
+    public void testRejectedInsertWritesNothing() throws Exception {
+        DBServer server = startServer();
+        sendCommandToServer(server, "CREATE DATABASE shop;");
+        sendCommandToServer(server, "USE shop;");
+        sendCommandToServer(server, "CREATE TABLE items (name, price);");
+        sendCommandToServer(server, "INSERT INTO items VALUES ('pen', 2), ('ink', 5);");
+
+        String dbPath = storageFolder.resolve("shop").toString();
+        File delta = DeltaSegment.file("items", dbPath);
+        long logLength = Files.size(logFile("shop"));
+        long deltaLength = delta.exists() ? delta.length() : 0;
+        byte[] tableBytes = Files.readAllBytes(TableFileIO.tableFile("items", dbPath).toPath());
+
+        assertTrue(sendCommandToServer(server, "INSERT INTO items VALUES ('pad', 3), ('cap'), ('box', 9);")
+                .startsWith("[ERROR]"));
+        assertEquals(logLength, Files.size(logFile("shop")), "The rejected statement should not be logged");
+        assertEquals(deltaLength, delta.exists() ? delta.length() : 0);
+        assertArrayEquals(tableBytes, Files.readAllBytes(TableFileIO.tableFile("items", dbPath).toPath()));
+        server.close();
+        servers.clear();
+
+        DBServer restarted = startServer();
+        sendCommandToServer(restarted, "USE shop;");
+        assertEquals("[OK]\nid\tname\tprice\n1\tpen\t2\n2\tink\t5", sendCommandToServer(restarted, "SELECT * FROM items;"));
+        sendCommandToServer(restarted, "INSERT INTO items VALUES ('pad', 3), ('box', 9);");
+        assertEquals("[OK]\nid\tname\n3\tpad\n4\tbox",
+                sendCommandToServer(restarted, "SELECT id, name FROM items WHERE id > 2;"));
+    }
+
+    private static String selectAll(DBManager dbManager) {
+        QueryResult result = dbManager.execute(new SQLParser("SELECT * FROM items;").parse());
+        StringBuilder rows = new StringBuilder(result.getColumnNames().toString());
+        result.getRows().forEach(rows::append);
+        return rows.toString();
+    }
+
+    // The folder lock dies with the process that held it
+    @Test
+    public void testCrashedProcessReleasesFolder() throws Exception {
+        crashAfter("CREATE DATABASE shop;");
+        assertTrue(new File(storageFolder.toFile(), DBManager.LOCK_FILE_NAME).exists());
+        startServer();
+    }
+}
@@ -0,0 +1,78 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class QueryTests {
+
+    @TempDir
+    Path storageFolder;
+
+    private DBServer server;
+
+    @BeforeEach
+    public void setup() {
+        server = new DBServer(storageFolder.toString());
+    }
+
+    @AfterEach
+    public void closeServer() {
+        server.close();
+    }
+
+    private String sendCommandToServer(String command) {
+        return assertTimeoutPreemptively(Duration.ofMillis(1000), () -> { return server.handleCommand(command);},
+        "Server took too long to respond (probably stuck in an infinite loop)");
+    }
+
+    private void createMarks() {
+        sendCommandToServer("CREATE DATABASE school;");
+        sendCommandToServer("USE school;");
+        sendCommandToServer("CREATE TABLE marks (name, mark, pass);");
+        sendCommandToServer("INSERT INTO marks VALUES ('Simon', 10, FALSE), ('Rob', 20, TRUE), ('Simon', 20, TRUE), ('Chris', 5, TRUE);");
+    }
+
+    // AND binds tighter than OR, so this is (name AND pass) OR mark rather than name AND (pass OR mark)
+    @Test
+    public void testAndBindsTighterThanOr() {
+        createMarks();
+        assertEquals("[OK]\nid\n1\n2\n3",
+                sendCommandToServer("SELECT id FROM marks WHERE name == 'Simon' AND pass == FALSE OR mark > 15;"));
+        assertEquals("[OK]\nid\n1\n2\n3",
+                sendCommandToServer("SELECT id FROM marks WHERE mark > 15 OR name == 'Simon' AND pass == FALSE;"));
+        assertEquals("[OK]\nid\n1\n4",
+                sendCommandToServer("SELECT id FROM marks WHERE name == 'Simon' AND mark < 15 OR name == 'Chris' AND pass == TRUE;"));
+    }
+
+    // Parentheses still override the precedence
+    @Test
+    public void testParenthesesOverridePrecedence() {
+        createMarks();
+        assertEquals("[OK]\nid\n1\n3",
+                sendCommandToServer("SELECT id FROM marks WHERE name == 'Simon' AND (pass == FALSE OR mark > 15);"));
+        assertEquals("[OK]\nid\n1\n3",
+                sendCommandToServer("SELECT id FROM marks WHERE (name == 'Simon') AND (pass == FALSE OR mark > 15);"));
+    }
+
+    // Every tuple of a multi-row INSERT gets the next ID in turn, and one bad tuple rejects the whole statement
+    @Test
+    public void testMultiRowInsert() {
+        createMarks();
+        assertEquals("[OK]\nid\tname\n1\tSimon\n2\tRob\n3\tSimon\n4\tChris",
+                sendCommandToServer("SELECT id, name FROM marks;"));
+        assertTrue(sendCommandToServer("INSERT INTO marks VALUES ('Anna', 15, TRUE), ('Ben', 3);").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("INSERT INTO marks VALUES ('Anna', 15, TRUE), ('Ben', 3, FALSE, 1);").startsWith("[ERROR]"));
+        assertEquals("[OK]\nid\n1\n2\n3\n4", sendCommandToServer("SELECT id FROM marks;"));
+        assertEquals("[OK]", sendCommandToServer("INSERT INTO marks VALUES ('Anna', 15, TRUE),('Ben', 3, FALSE);"));
+        assertEquals("[OK]\nid\tname\n5\tAnna\n6\tBen", sendCommandToServer("SELECT id, name FROM marks WHERE id > 4;"));
+    }
+}
@@ -0,0 +1,196 @@
+package edu.uob;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.storage.DBManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransferTests {
+
+    @TempDir
+    Path storageFolder;
+
+    private DBServer server;
+
+    @BeforeEach
+    public void setup() {
+        server = new DBServer(storageFolder.toString());
+        sendCommandToServer("CREATE DATABASE school;");
+        sendCommandToServer("USE school;");
+        sendCommandToServer("CREATE TABLE people (name, age);");
+    }
+
+    @AfterEach
+    public void closeServer() {
+        server.close();
+    }
+
+    private String sendCommandToServer(String command) {
+        return assertTimeoutPreemptively(Duration.ofMillis(1000), () -> { return server.handleCommand(command);},
+        "Server took too long to respond (probably stuck in an infinite loop)");
+    }
+
+    private Path transferFile(String name) {
+        return storageFolder.resolve(DBManager.TRANSFER_FOLDER_NAME).resolve(name);
+    }
+
+    private void writeTransferFile(String name, String content) throws Exception {
+        Files.write(transferFile(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Checks the loaded and rejected counts at the start of a LOAD response
+    private void assertLoaded(int loaded, int rejected, String response) {
+        assertTrue(response.startsWith("[OK]\nloaded\trejected\tseconds\trows_per_second\n" + loaded + "\t" + rejected + "\t"),
+                "Unexpected LOAD response: " + response);
+    }
+
+    // Well-formed lines are loaded and the others are counted as rejected
+    @Test
+    public void testLoadCountsAcceptedAndRejectedRows() throws Exception {
+        writeTransferFile("people.tsv", "Bob\t30\nAmy\t25\nbad\nEve\t41\textra\n\nTom\t19\n");
+        assertLoaded(3, 2, sendCommandToServer("LOAD 'people.tsv' INTO people;"));
+        assertEquals("[OK]\nid\tname\tage\n1\tBob\t30\n2\tAmy\t25\n3\tTom\t19",
+                sendCommandToServer("SELECT * FROM people;"));
+    }
+
+    // A CSV header naming the columns without id is skipped, and quoted fields may hold commas
+    @Test
+    public void testLoadCsvWithHeaderWithoutId() throws Exception {
+        writeTransferFile("people.csv", "name,age\nBob,30\n\"Amy, Jr\",25\n");
+        assertLoaded(2, 0, sendCommandToServer("LOAD 'people.csv' INTO people;"));
+        assertEquals("[OK]\nid\tname\tage\n1\tBob\t30\n2\tAmy, Jr\t25",
+                sendCommandToServer("SELECT * FROM people;"));
+    }
+
+    // With id in the CSV header, the file's IDs are dropped and new ones assigned
+    @Test
+    public void testLoadCsvWithHeaderWithId() throws Exception {
+        sendCommandToServer("INSERT INTO people VALUES ('Sam', 50);");
+        writeTransferFile("people.csv", "id,name,age\n1,Bob,30\n9,Amy,25\n");
+        assertLoaded(2, 0, sendCommandToServer("LOAD 'people.csv' INTO people;"));
+        assertEquals("[OK]\nid\tname\tage\n1\tSam\t50\n2\tBob\t30\n3\tAmy\t25",
+                sendCommandToServer("SELECT * FROM people;"));
+    }
+
+    // Files in subfolders of the transfer folder can be loaded
+    @Test
+    public void testLoadFromTransferSubfolder() throws Exception {
+        Files.createDirectories(transferFile("incoming"));
+        writeTransferFile("incoming/people.tsv", "Bob\t30\n");
+        assertLoaded(1, 0, sendCommandToServer("LOAD 'incoming/people.tsv' INTO people;"));
+    }
+
+    // LOAD cannot read files outside the transfer folder, by absolute path or by climbing out of it
+    @Test
+    public void testLoadRejectsPathsOutsideTransferFolder() throws Exception {
+        Path outside = storageFolder.resolve("outside.tsv");
+        Files.write(outside, "Bob\t30\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(sendCommandToServer("LOAD '" + outside.toAbsolutePath() + "' INTO people;").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("LOAD '../outside.tsv' INTO people;").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("LOAD 'incoming/../../outside.tsv' INTO people;").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("LOAD '../school/people.tab' INTO people;").startsWith("[ERROR]"));
+        assertEquals("[OK]\nid\tname\tage", sendCommandToServer("SELECT * FROM people;"));
+    }
+
+    // The transfer folder is not a database and its name cannot be taken by one
+    @Test
+    public void testTransferFolderIsNotADatabase() {
+        assertTrue(sendCommandToServer("USE " + DBManager.TRANSFER_FOLDER_NAME + ";").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("CREATE DATABASE " + DBManager.TRANSFER_FOLDER_NAME + ";").startsWith("[ERROR]"));
+    }
+
+    private void insertPeople() {
+        sendCommandToServer("INSERT INTO people VALUES ('Bob', 30), ('Amy', 25), ('Tom', 19), ('Eve', 41), ('Sam', 12);");
+    }
+
+    private String readTransferFile(String name) throws Exception {
+        return new String(Files.readAllBytes(transferFile(name)), StandardCharsets.UTF_8);
+    }
+
+    // LOAD and EXPORT are not reserved, so tables and columns may still be called load or export
+    @Test
+    public void testLoadAndExportAreNotReserved() throws Exception {
+        assertEquals("[OK]", sendCommandToServer("CREATE TABLE load (export);"));
+        writeTransferFile("words.tsv", "load\nexport\n");
+        assertLoaded(2, 0, sendCommandToServer("LOAD 'words.tsv' INTO load;"));
+        assertEquals("[OK]\nid\texport\n2\texport", sendCommandToServer("SELECT * FROM load WHERE export == 'export';"));
+        assertTrue(sendCommandToServer("EXPORT load WHERE export != 'x' INTO 'words.tab';").startsWith("[OK]"));
+        assertEquals("id\texport\n1\tload\n2\texport\n", readTransferFile("words.tab"));
+    }
+
+    // EXPORT writes the header and the matching rows as a .tab file in the transfer folder
+    @Test
+    public void testExportTab() throws Exception {
+        insertPeople();
+        assertTrue(sendCommandToServer("EXPORT people WHERE age > 20 INTO 'adults.tab';")
+                .startsWith("[OK]\nexported\tfiles\tseconds\trows_per_second\n3\t1\t"));
+        assertEquals("id\tname\tage\n1\tBob\t30\n2\tAmy\t25\n4\tEve\t41\n", readTransferFile("adults.tab"));
+    }
+
+    // A .tabz export is compressed and can be used as a table file as it is
+    @Test
+    public void testExportTabzCanBeUsedAsTable() throws Exception {
+        insertPeople();
+        assertTrue(sendCommandToServer("EXPORT people INTO 'people.tabz';").startsWith("[OK]"));
+        assertFalse(readTransferFile("people.tabz").startsWith("id\tname"), "A .tabz export should be compressed");
+
+        sendCommandToServer("CREATE DATABASE archive;");
+        server.close();
+        Files.copy(transferFile("people.tabz"), storageFolder.resolve("archive").resolve("people.tabz"));
+        server = new DBServer(storageFolder.toString());
+        sendCommandToServer("USE archive;");
+        assertEquals("[OK]\nid\tname\tage\n1\tBob\t30\n2\tAmy\t25\n3\tTom\t19\n4\tEve\t41\n5\tSam\t12",
+                sendCommandToServer("SELECT * FROM people;"));
+    }
+
+    // PARTITIONS n splits the rows over n files that each start with the header
+    @Test
+    public void testExportPartitions() throws Exception {
+        insertPeople();
+        assertTrue(sendCommandToServer("EXPORT people INTO 'people.tab' PARTITIONS 3;")
+                .startsWith("[OK]\nexported\tfiles\tseconds\trows_per_second\n5\t3\t"));
+        assertFalse(Files.exists(transferFile("people.tab")));
+
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String[] lines = readTransferFile("people-" + i + ".tab").split("\n");
+            assertEquals("id\tname\tage", lines[0]);
+            rows.addAll(List.of(lines).subList(1, lines.length));
+        }
+        assertEquals(List.of("1\tBob\t30", "2\tAmy\t25", "3\tTom\t19", "4\tEve\t41", "5\tSam\t12"), rows);
+    }
+
+    // PARTITIONS is not reserved, so a column may still be called partitions
+    @Test
+    public void testPartitionsIsNotReserved() throws Exception {
+        assertEquals("[OK]", sendCommandToServer("CREATE TABLE shelves (partitions);"));
+        assertEquals("[OK]", sendCommandToServer("INSERT INTO shelves VALUES (3), (5);"));
+        assertTrue(sendCommandToServer("EXPORT shelves WHERE partitions > 4 INTO 'big.tab' PARTITIONS 2;")
+                .startsWith("[OK]\nexported\tfiles\tseconds\trows_per_second\n1\t2\t"));
+    }
+
+    // EXPORT cannot write outside the transfer folder, so it cannot overwrite a database's own files
+    @Test
+    public void testExportRejectsPathsOutsideTransferFolder() throws Exception {
+        insertPeople();
+        Path tableFile = storageFolder.resolve("school").resolve("people.tab");
+        assertTrue(sendCommandToServer("EXPORT people INTO '" + tableFile.toAbsolutePath() + "';").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("EXPORT people INTO '../school/people.tab';").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("EXPORT people INTO '../outside.tab' PARTITIONS 2;").startsWith("[ERROR]"));
+        assertFalse(Files.exists(storageFolder.resolve("outside-0.tab")));
+        assertEquals(5, sendCommandToServer("SELECT * FROM people;").split("\n").length - 2);
+    }
+}
@@ -0,0 +1,205 @@
+package edu.uob.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.DBServer;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+public class JoinTests {
+    private static final String[] STRATEGIES = {"hash", "partitioned", "merge"};
+
+    @TempDir
+    File folder;
+
+    // Rows numbered from 1 whose join column holds the given keys; a null key leaves the column out
+    private static List<Row> rows(String... keys) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            rows.add(keys[i] == null ? new Row(i + 1) : new Row(i + 1, List.of(keys[i])));
+        }
+        return rows;
+    }
+
+    // The pairs a nested loop would produce, as "left id-right id"
+    private static List<String> nestedLoop(List<Row> left, List<Row> right) {
+        List<String> pairs = new ArrayList<>();
+        for (Row leftRow : left) {
+            Object key = JoinKey.of(leftRow.getValue(0));
+            for (Row rightRow : right) {
+                if (key != null && Objects.equals(key, JoinKey.of(rightRow.getValue(0)))) {
+                    pairs.add(leftRow.getId() + "-" + rightRow.getId());
+                }
+            }
+        }
+        return pairs;
+    }
+
+    // The pairs one join strategy produces, as "left id-right id"
+    private List<String> join(String strategy, List<Row> left, List<Row> right) throws Exception {
+        List<String> pairs = new ArrayList<>();
+        BiConsumer<Row, Row> output = (leftRow, rightRow) -> pairs.add(leftRow.getId() + "-" + rightRow.getId());
+        switch (strategy) {
+            case "hash":
+                HashJoin.join(left, 0, right, 0, output);
+                break;
+            case "partitioned":
+                PartitionedHashJoin.join(left, 0, right, 0, folder, output);
+                break;
+            default:
+                SortMergeJoin.join(left, 0, right, 0, SortMergeJoin.isOrdered(left, 0),
+                        SortMergeJoin.isOrdered(right, 0), folder, output);
+        }
+        return pairs;
+    }
+
+    private void assertAllStrategies(List<String> expected, List<Row> left, List<Row> right) throws Exception {
+        for (String strategy : STRATEGIES) {
+            assertEquals(expected, join(strategy, left, right), strategy + " join");
+        }
+    }
+
+    // Numbers match by value however they are written; other text only matches identical text
+    @Test
+    public void testNumericKeysMatchByValue() throws Exception {
+        List<Row> left = rows("7", "0", "x", "7.5", "1e2");
+        List<Row> right = rows("7.0", "+7", "-0", "X", "7.50", "007", "1e2");
+        assertAllStrategies(List.of("1-1", "1-2", "1-6", "2-3", "4-5", "5-7"), left, right);
+    }
+
+    // Rows without a value in the join column match nothing, not even each other
+    @Test
+    public void testMissingKeysMatchNothing() throws Exception {
+        List<Row> left = rows(null, "1", null, "2");
+        List<Row> right = rows(null, "2", null, "1");
+        assertAllStrategies(List.of("2-4", "4-2"), left, right);
+    }
+
+    // With fewer left rows the hash table is built on the left, and pairs still come out in nested-loop order
+    @Test
+    public void testNestedLoopOrderWhenBuildingOnLeft() throws Exception {
+        List<Row> left = rows("b", "a", "b");
+        List<Row> right = rows("a", "b", "b", "a", "c");
+        assertAllStrategies(List.of("1-2", "1-3", "2-1", "2-4", "3-2", "3-3"), left, right);
+        assertAllStrategies(List.of("1-2", "2-1", "2-3", "3-1", "3-3", "4-2"), right, left);
+    }
+
+    // Every strategy gives the nested-loop result on larger inputs with repeated, mixed and missing keys
+    @Test
+    public void testStrategiesAgree() throws Exception {
+        Random random = new Random(42);
+        for (int[] sizes : new int[][] {{500, 2000}, {2000, 500}}) {
+            List<Row> left = rows(randomKeys(random, sizes[0]));
+            List<Row> right = rows(randomKeys(random, sizes[1]));
+            List<String> expected = nestedLoop(left, right);
+            assertTrue(expected.size() > sizes[0]);
+            assertAllStrategies(expected, left, right);
+        }
+    }
+
+    private static String[] randomKeys(Random random, int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            int k = random.nextInt(200);
+            keys[i] = k < 10 ? null : k % 4 == 0 ? "key" + k : k % 4 == 1 ? k + ".0" : k % 4 == 2 ? "0" + k : "" + k;
+        }
+        return keys;
+    }
+
+    // JOIN in auto mode hashes unordered inputs and merges ordered ones, with the same result as a nested loop
+    @Test
+    public void testAutoJoinMatchesNestedLoop() {
+        DBServer server = new DBServer(folder.getPath());
+        try {
+            send(server, "CREATE DATABASE shop;");
+            send(server, "USE shop;");
+            send(server, "CREATE TABLE orders (item);");
+            send(server, "CREATE TABLE items (code);");
+            String[] orderKeys = {"3", "1.0", "2", "3", "7", "01"};
+            String[] itemKeys = {"1", "2", "3.0", "3", "4"};
+            insert(server, "orders", orderKeys);
+            insert(server, "items", itemKeys);
+
+            // Unordered on the orders side, so hashed
+            assertEquals(joinResult("orders.item\titems.code", rows(orderKeys), rows(itemKeys), orderKeys, itemKeys),
+                    send(server, "JOIN orders AND items ON item AND code;"));
+
+            // Both sides ordered, so merged
+            String[] orderIds = {"1", "2", "3", "4", "5", "6"};
+            assertEquals(joinResult("orders.item\titems.code", rows(orderIds), rows(itemKeys), orderKeys, itemKeys),
+                    send(server, "JOIN orders AND items ON id AND code;"));
+        } finally {
+            server.close();
+        }
+    }
+
+    // The table remembers a column's key order; appends and deletes keep it, updates and compaction recheck it
+    @Test
+    public void testTableTracksKeyOrder() {
+        Table table = new Table("t");
+        table.addColumn("k");
+        for (String key : new String[] {"1", "2.0", null, "03"}) {
+            table.addRow(Arrays.asList(key));
+        }
+        assertTrue(isOrdered(table));
+        table.addRow(List.of("3"));
+        assertTrue(isOrdered(table));
+        table.addRow(List.of("2"));
+        assertFalse(isOrdered(table));
+        table.deleteRow(6);
+        table.compact();
+        assertTrue(isOrdered(table));
+        table.updateRow(1, Map.of("k", "9"));
+        assertFalse(isOrdered(table));
+        table.updateRow(1, Map.of("k", "0"));
+        assertTrue(isOrdered(table));
+        table.deleteRow(2);
+        table.addRow(List.of("x"));
+        assertTrue(isOrdered(table));
+    }
+
+    private static boolean isOrdered(Table table) {
+        boolean ordered = table.isOrdered(1, JoinKey::of, JoinKey::compare);
+        assertEquals(SortMergeJoin.isOrdered(table.getRows(), 1), ordered);
+        return ordered;
+    }
+
+    private static String send(DBServer server, String command) {
+        return assertTimeoutPreemptively(Duration.ofMillis(5000), () -> { return server.handleCommand(command);},
+        "Server took too long to respond (probably stuck in an infinite loop)");
+    }
+
+    private static void insert(DBServer server, String table, String[] keys) {
+        for (String key : keys) {
+            assertEquals("[OK]", send(server, "INSERT INTO " + table + " VALUES ('" + key + "');"));
+        }
+    }
+
+    // The JOIN response for the nested-loop pairs of the given join keys, showing each row's stored value
+    private static String joinResult(String header, List<Row> left, List<Row> right, String[] leftValues,
+                                     String[] rightValues) {
+        StringBuilder expected = new StringBuilder("[OK]\nid\t" + header);
+        int id = 1;
+        for (String pair : nestedLoop(left, right)) {
+            int[] ids = Arrays.stream(pair.split("-")).mapToInt(Integer::parseInt).toArray();
+            expected.append('\n').append(id++).append('\t').append(leftValues[ids[0] - 1])
+                    .append('\t').append(rightValues[ids[1] - 1]);
+        }
+        return expected.toString();
+    }
+}
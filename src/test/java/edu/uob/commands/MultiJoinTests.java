@@ -0,0 +1,82 @@
+package edu.uob.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import edu.uob.DBServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class MultiJoinTests {
+    private static final String CHAIN = "JOIN students AND courses ON course AND id AND depts ON dept AND code";
+    private static final String HEADER =
+            "[OK]\nid\tstudents.name\tstudents.course\tcourses.title\tcourses.dept\tdepts.code\tdepts.building";
+
+    @TempDir
+    Path storageFolder;
+
+    private DBServer server;
+
+    @BeforeEach
+    public void setup() {
+        server = new DBServer(storageFolder.toString());
+        sendCommandToServer("CREATE DATABASE uni;");
+        sendCommandToServer("USE uni;");
+        sendCommandToServer("CREATE TABLE students (name, course);");
+        sendCommandToServer("CREATE TABLE courses (title, dept);");
+        sendCommandToServer("CREATE TABLE depts (code, building);");
+        sendCommandToServer("INSERT INTO students VALUES ('Amy', 2), ('Bob', 1), ('Cat', 2), ('Dan', 3), ('Eve', 1);");
+        sendCommandToServer("INSERT INTO courses VALUES ('Maths', 'MA'), ('Physics', 'PH'), ('Art', 'AR');");
+        sendCommandToServer("INSERT INTO depts VALUES ('PH', 'North'), ('MA', 'South'), ('CS', 'East');");
+    }
+
+    @AfterEach
+    public void closeServer() {
+        server.close();
+    }
+
+    private String sendCommandToServer(String command) {
+        return assertTimeoutPreemptively(Duration.ofMillis(1000), () -> { return server.handleCommand(command);},
+        "Server took too long to respond (probably stuck in an infinite loop)");
+    }
+
+    // Each table joins a column of the one before it; rows without a match anywhere in the chain drop out
+    @Test
+    public void testThreeTableChain() {
+        assertEquals(HEADER + "\n1\tAmy\t2\tPhysics\tPH\tPH\tNorth\n2\tBob\t1\tMaths\tMA\tMA\tSouth"
+                        + "\n3\tCat\t2\tPhysics\tPH\tPH\tNorth\n4\tEve\t1\tMaths\tMA\tMA\tSouth",
+                sendCommandToServer(CHAIN + ";"));
+    }
+
+    // A condition on the columns of one table filters that table, here the last one, before the joins
+    @Test
+    public void testConditionOnOneTable() {
+        assertEquals(HEADER + "\n1\tAmy\t2\tPhysics\tPH\tPH\tNorth\n2\tCat\t2\tPhysics\tPH\tPH\tNorth",
+                sendCommandToServer(CHAIN + " WHERE building == 'North';"));
+        assertEquals(HEADER + "\n1\tBob\t1\tMaths\tMA\tMA\tSouth",
+                sendCommandToServer(CHAIN + " WHERE courses.id == 1 AND name != 'Eve';"));
+    }
+
+    // A condition across tables is tested once the tables it names are joined, next to single-table parts
+    @Test
+    public void testConditionAcrossTables() {
+        assertEquals(HEADER + "\n1\tAmy\t2\tPhysics\tPH\tPH\tNorth\n2\tBob\t1\tMaths\tMA\tMA\tSouth"
+                        + "\n3\tEve\t1\tMaths\tMA\tMA\tSouth",
+                sendCommandToServer(CHAIN + " WHERE students.name == 'Amy' OR building == 'South';"));
+        assertEquals(HEADER + "\n1\tAmy\t2\tPhysics\tPH\tPH\tNorth\n2\tBob\t1\tMaths\tMA\tMA\tSouth"
+                        + "\n3\tCat\t2\tPhysics\tPH\tPH\tNorth",
+                sendCommandToServer(CHAIN + " WHERE name != 'Eve' AND (title == 'Maths' OR building == 'North');"));
+    }
+
+    // Columns in the condition must exist and, unless qualified, belong to one table only
+    @Test
+    public void testConditionColumnErrors() {
+        assertEquals("[ERROR] Column not found: nope", sendCommandToServer(CHAIN + " WHERE nope == 1;"));
+        assertEquals("[ERROR] Ambiguous column: id", sendCommandToServer(CHAIN + " WHERE id == 1;"));
+    }
+}
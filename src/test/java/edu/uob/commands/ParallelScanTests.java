@@ -0,0 +1,124 @@
+package edu.uob.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.DBServer;
+import edu.uob.storage.DBManager;
+import edu.uob.storage.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+public class ParallelScanTests {
+    // Enough rows for scans to be split into several morsels
+    private static final int ROWS = MorselScan.PARALLEL_MIN_ROWS + 2 * MorselScan.MORSEL_ROWS + 7;
+
+    @TempDir
+    Path storageFolder;
+
+    private DBServer server;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        server = new DBServer(storageFolder.toString());
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            rows.append("name").append(i % 97).append('\t').append(i % 1000).append('\n');
+        }
+        Files.write(storageFolder.resolve(DBManager.TRANSFER_FOLDER_NAME).resolve("scores.tsv"),
+                rows.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void closeServer() {
+        server.close();
+    }
+
+    private String sendCommandToServer(String command) {
+        return assertTimeoutPreemptively(Duration.ofMillis(10000), () -> { return server.handleCommand(command);},
+        "Server took too long to respond (probably stuck in an infinite loop)");
+    }
+
+    private void createScores(String dbName) {
+        sendCommandToServer("CREATE DATABASE " + dbName + ";");
+        sendCommandToServer("USE " + dbName + ";");
+        sendCommandToServer("CREATE TABLE scores (name, score);");
+        assertTrue(sendCommandToServer("LOAD 'scores.tsv' INTO scores;").startsWith("[OK]"));
+    }
+
+    // The thread count must be at least 1
+    @Test
+    public void testSetParallelism() {
+        assertEquals("[OK]", sendCommandToServer("SET PARALLELISM 4;"));
+        assertEquals("[OK]", sendCommandToServer("SET PARALLELISM 1;"));
+        assertTrue(sendCommandToServer("SET PARALLELISM 0;").startsWith("[ERROR]"));
+        assertTrue(sendCommandToServer("SET PARALLELISM four;").startsWith("[ERROR]"));
+    }
+
+    // The setting belongs to the session that made it, even when other sessions share the manager
+    @Test
+    public void testParallelismIsPerSession() {
+        DBManager dbManager = new DBManager(storageFolder.resolve("sessions").toString());
+        try {
+            Session first = new Session();
+            Session second = new Session();
+            dbManager.execute(first, new SetParallelismCommand(1));
+            dbManager.execute(second, new SetParallelismCommand(3));
+            assertEquals(1, first.getScanParallelism());
+            assertEquals(3, second.getScanParallelism());
+            assertEquals(DBManager.SCAN_PARALLELISM, dbManager.getScanParallelism());
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    // SELECT returns the same rows in the same order whether its scan is serial or parallel
+    @Test
+    public void testParallelSelectMatchesSerial() {
+        createScores("school");
+        String[] queries = {"SELECT * FROM scores;",
+                "SELECT id, name FROM scores WHERE score > 500 AND name LIKE '1';"};
+        for (String query : queries) {
+            sendCommandToServer("SET PARALLELISM 1;");
+            String serial = sendCommandToServer(query);
+            sendCommandToServer("SET PARALLELISM 4;");
+            String parallel = sendCommandToServer(query);
+            assertTrue(serial.split("\n").length > 1000, "The query should match rows in every morsel");
+            assertEquals(serial, parallel);
+        }
+    }
+
+    // UPDATE and DELETE change the same rows whether their scans are serial or parallel
+    @Test
+    public void testParallelUpdateAndDeleteMatchSerial() {
+        createScores("serial");
+        createScores("parallel");
+        String[] changes = {"UPDATE scores SET name = 'top' WHERE score >= 990;",
+                "DELETE FROM scores WHERE score < 100 OR name == 'name5';"};
+
+        sendCommandToServer("SET PARALLELISM 1;");
+        sendCommandToServer("USE serial;");
+        for (String change : changes) {
+            assertEquals("[OK]", sendCommandToServer(change));
+        }
+        String serial = sendCommandToServer("SELECT * FROM scores;");
+
+        sendCommandToServer("SET PARALLELISM 4;");
+        sendCommandToServer("USE parallel;");
+        for (String change : changes) {
+            assertEquals("[OK]", sendCommandToServer(change));
+        }
+        String parallel = sendCommandToServer("SELECT * FROM scores;");
+
+        assertEquals(serial, parallel);
+        assertTrue(serial.contains("\ttop\t"));
+    }
+}
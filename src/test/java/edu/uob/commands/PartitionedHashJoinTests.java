@@ -0,0 +1,123 @@
+package edu.uob.commands;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.models.Row;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class PartitionedHashJoinTests {
+
+    @TempDir
+    File spillFolder;
+
+    // Rows numbered from 1 whose join column holds the given keys; a null key leaves the column out
+    private static List<Row> rows(List<String> keys) {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            rows.add(keys.get(i) == null ? new Row(i + 1) : new Row(i + 1, List.of(keys.get(i))));
+        }
+        return rows;
+    }
+
+    // Keys repeating with the given period, mixing numbers written differently, text and missing values
+    private static List<String> keys(int count, int period) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int k = i % period;
+            keys.add(k % 11 == 0 ? null : k % 3 == 0 ? "key" + k : k % 2 == 0 ? k + ".0" : "0" + k);
+        }
+        return keys;
+    }
+
+    // Mostly three heavy keys, written differently on each side, with a few distinct and missing keys
+    private static List<String> skewedKeys(int count, String[] heavyKeys, int lightStep) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(i % 20 == 0 ? "light" + i * lightStep : i % 20 == 10 ? null : heavyKeys[i % 3]);
+        }
+        return keys;
+    }
+
+    // The pairs a nested loop would produce, as "left id-right id"
+    private static List<String> nestedLoop(List<Row> left, List<Row> right) {
+        List<String> pairs = new ArrayList<>();
+        for (Row leftRow : left) {
+            Object key = JoinKey.of(leftRow.getValue(0));
+            for (Row rightRow : right) {
+                if (key != null && Objects.equals(key, JoinKey.of(rightRow.getValue(0)))) {
+                    pairs.add(leftRow.getId() + "-" + rightRow.getId());
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private List<String> partitionedJoin(List<Row> left, List<Row> right, long memoryBudget) throws Exception {
+        List<String> pairs = new ArrayList<>();
+        PartitionedHashJoin.join(left, 0, right, 0, memoryBudget, spillFolder,
+                (leftRow, rightRow) -> pairs.add(leftRow.getId() + "-" + rightRow.getId()));
+        return pairs;
+    }
+
+    // Without spilling, the pairs come out in nested-loop order whichever side is smaller
+    @Test
+    public void testInMemoryJoinKeepsNestedLoopOrder() throws Exception {
+        List<Row> small = rows(keys(300, 40));
+        List<Row> large = rows(keys(900, 70));
+        assertEquals(nestedLoop(small, large), partitionedJoin(small, large, PartitionedHashJoin.MEMORY_BUDGET));
+        assertEquals(nestedLoop(large, small), partitionedJoin(large, small, PartitionedHashJoin.MEMORY_BUDGET));
+    }
+
+    // Partitions bigger than the budget are spilled and then split again on more hash bits; the result is unchanged
+    @Test
+    public void testSpilledJoinMatchesNestedLoop() throws Exception {
+        List<Row> left = rows(skewedKeys(1500, new String[] {"7", "key1", "12.0"}, 1));
+        List<Row> right = rows(skewedKeys(600, new String[] {"07", "key1", "12"}, 2));
+        List<String> expected = nestedLoop(left, right);
+        assertTrue(expected.size() > 100000);
+        for (long memoryBudget : new long[] {16 * 1024, 64 * 1024}) {
+            assertEquals(expected, partitionedJoin(left, right, memoryBudget));
+            assertEquals(nestedLoop(right, left), partitionedJoin(right, left, memoryBudget));
+        }
+        assertEquals(0, Objects.requireNonNull(spillFolder.list()).length, "Spill files should be deleted");
+    }
+
+    // Partitions that cannot be split further, because every entry has the same key, are joined a block at a time
+    @Test
+    public void testSpilledJoinOnSingleKey() throws Exception {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add("7");
+        }
+        List<Row> left = rows(keys);
+        List<Row> right = rows(keys.subList(0, 50));
+        List<String> expected = nestedLoop(left, right);
+        assertEquals(200 * 50, expected.size());
+        assertEquals(expected, partitionedJoin(left, right, 1));
+        assertEquals(0, Objects.requireNonNull(spillFolder.list()).length, "Spill files should be deleted");
+    }
+
+    // Blocks of several left entries, one key written differently, give the nested-loop result within the budget
+    @Test
+    public void testBlockNestedLoopOnUnsplittablePartition() throws Exception {
+        String[] writings = {"7", "07", "7.0", "+7"};
+        List<String> leftKeys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            leftKeys.add(i % 50 == 0 ? null : writings[i % writings.length]);
+        }
+        List<Row> left = rows(leftKeys);
+        List<Row> right = rows(leftKeys.subList(0, 150));
+        List<String> expected = nestedLoop(left, right);
+        assertTrue(expected.size() > 100000);
+        assertEquals(expected, partitionedJoin(left, right, 8 * 1024));
+        assertEquals(nestedLoop(right, left), partitionedJoin(right, left, 8 * 1024));
+        assertEquals(0, Objects.requireNonNull(spillFolder.list()).length, "Spill files should be deleted");
+    }
+}
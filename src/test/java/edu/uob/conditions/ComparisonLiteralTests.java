@@ -0,0 +1,121 @@
+package edu.uob.conditions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ComparisonLiteralTests {
+    // Literals as written in conditions
+    private static final List<String> LITERALS = List.of(
+            "NULL", "'NULL'", "'abc'", "''", "'7'", "TRUE", "FALSE", "true",
+            "7", "+7", "-7", "007", "7.0", "7.", ".5", "-0.5", "0", "-0",
+            "2147483647", "2147483648", "-2147483648", "-2147483649", "99999999999",
+            "1e3", "1E3", "0x10", "NaN", "Infinity", "-Infinity", "abc", "Abc", "+", "-", "1.2.3", " 7");
+
+    // Cell values as stored, including a missing cell
+    private static final List<String> CELLS = Arrays.asList(
+            null, "", "NULL", "abc", "abd", "ABC", "7", "+7", "-7", "07", "7.0", "7.00", "7.5", ".5", "-0.5",
+            "0", "-0", "0.0", "2147483647", "2147483648", "-2147483648", "-2147483649", "99999999999",
+            "1000", "1e3", "1000.0", "NaN", "Infinity", "TRUE", "FALSE", "true", "False", "+", "-", "1.2.3",
+            " 7", "7 ", "7f", "7d");
+
+    // Equality, as conditions compared before literals were parsed once
+    private static boolean baselineEquals(String value, String rowValue) {
+        if (rowValue == null) {
+            return value.equals("NULL");
+        }
+        if (value.equals("NULL")) {
+            return false;
+        } else if (value.startsWith("'") && value.endsWith("'")) {
+            return rowValue.equals(value.substring(1, value.length() - 1));
+        } else if (value.equals("TRUE") || value.equals("FALSE")) {
+            return rowValue.equalsIgnoreCase(value);
+        }
+        try {
+            if (rowValue.contains(".") || value.contains(".")) {
+                return Float.parseFloat(rowValue) == Float.parseFloat(value);
+            }
+            return Integer.parseInt(rowValue) == Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return rowValue.equals(value);
+        }
+    }
+
+    // Ordering, as conditions compared before literals were parsed once: the sign of cell minus literal, or 0
+    // where neither > nor < holds
+    private static int baselineOrder(String value, String rowValue) {
+        if (rowValue == null || value.equals("NULL")) {
+            return 0;
+        } else if (value.startsWith("'") && value.endsWith("'")) {
+            return Integer.signum(rowValue.compareTo(value.substring(1, value.length() - 1)));
+        } else if (value.equals("TRUE") || value.equals("FALSE")) {
+            if (rowValue.equalsIgnoreCase("TRUE") && value.equals("FALSE")) {
+                return 1;
+            }
+            return rowValue.equalsIgnoreCase("FALSE") && value.equals("TRUE") ? -1 : 0;
+        }
+        try {
+            if (rowValue.contains(".") || value.contains(".")) {
+                float rowFloat = Float.parseFloat(rowValue);
+                float valueFloat = Float.parseFloat(value);
+                return rowFloat > valueFloat ? 1 : rowFloat < valueFloat ? -1 : 0;
+            }
+            return Integer.signum(Integer.compare(Integer.parseInt(rowValue), Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            return Integer.signum(rowValue.compareTo(value));
+        }
+    }
+
+    // Every literal gives the baseline result for every cell and comparison
+    @Test
+    public void testMatchesBaselineSemantics() {
+        for (String value : LITERALS) {
+            ComparisonLiteral literal = ComparisonLiteral.parse(value);
+            for (String cell : CELLS) {
+                String where = value + " against " + (cell == null ? "a missing cell" : "'" + cell + "'");
+                int order = baselineOrder(value, cell);
+                assertEquals(baselineEquals(value, cell), literal.test(ComparisonLiteral.Op.EQUAL, cell), "== " + where);
+                assertEquals(order > 0, literal.test(ComparisonLiteral.Op.GREATER, cell), "> " + where);
+                assertEquals(order < 0, literal.test(ComparisonLiteral.Op.LESS, cell), "< " + where);
+            }
+        }
+    }
+
+    // Cell, literal, then whether the cell is ==, > and < the literal
+    private static final String[][] CASES = {
+            {null, "NULL", "true", "false", "false"},     // NULL matches only missing cells
+            {"NULL", "NULL", "false", "false", "false"},  // The text NULL is not a missing cell
+            {"NULL", "'NULL'", "true", "false", "false"},
+            {"abc", "'abd'", "false", "false", "true"},   // Quoted strings compare as text
+            {"7", "'07'", "false", "true", "false"},
+            {"true", "TRUE", "true", "false", "false"},   // Booleans ignore the cell's case
+            {"TRUE", "FALSE", "false", "true", "false"},
+            {"true", "true", "true", "false", "false"},   // Lower-case true is just text
+            {"07", "7", "true", "false", "false"},        // Ints compare by value
+            {"+7", "-7", "false", "true", "false"},
+            {"7", "7.0", "true", "false", "false"},       // A '.' on either side compares as floats
+            {"7.5", "7", "false", "true", "false"},
+            {"10", "9", "false", "true", "false"},
+            {"2147483648", "2147483647", "false", "true", "false"}, // Not an int, so compared as text
+            {"99999999999", "1", "false", "true", "false"},
+            {"1e3", "1000", "false", "true", "false"},    // No '.', and not an int: text
+            {"1e3", "1000.0", "true", "false", "false"},  // A '.' on the literal: floats
+            {"abc", "7", "false", "true", "false"},       // Text against a number falls back to text
+            {"abc", "7.0", "false", "true", "false"},
+    };
+
+    // A few cases spelled out, so the baseline itself is pinned down
+    @Test
+    public void testExpectedResults() {
+        for (String[] c : CASES) {
+            ComparisonLiteral literal = ComparisonLiteral.parse(c[1]);
+            String where = c[1] + " against " + c[0];
+            assertEquals(Boolean.parseBoolean(c[2]), literal.test(ComparisonLiteral.Op.EQUAL, c[0]), "== " + where);
+            assertEquals(Boolean.parseBoolean(c[3]), literal.test(ComparisonLiteral.Op.GREATER, c[0]), "> " + where);
+            assertEquals(Boolean.parseBoolean(c[4]), literal.test(ComparisonLiteral.Op.LESS, c[0]), "< " + where);
+        }
+    }
+}
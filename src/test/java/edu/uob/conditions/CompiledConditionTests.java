@@ -0,0 +1,210 @@
+package edu.uob.conditions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.uob.models.EncodedRows;
+import edu.uob.models.Row;
+import edu.uob.models.RowBatch;
+import edu.uob.models.Table;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+public class CompiledConditionTests {
+    private static final String[] COLUMNS = {"qty", "price", "flag", "colour", "size", "name"};
+    private static final String[][] LITERALS = {
+            {"0", "5", "-3", "5.0", "2.5", "'5'", "NULL", "abc", "TRUE", "2147483648"},
+            {"1.25", "0", "-2", "1.0", "'1.25'", "NULL", "x", "1e1"},
+            {"TRUE", "FALSE", "'TRUE'", "NULL", "1", "true"},
+            {"'red'", "'blue'", "red", "NULL", "'zzz'", "'NULL'", "5"},
+            {"'small'", "large", "'medium'", "NULL"},
+            {"'name5'", "name50", "NULL", "5", "'name'"}};
+    private static final String[] COMPARISONS = {"==", "!=", ">", "<", ">=", "<=", "LIKE"};
+    private static final String[] COLOURS = {"red", "green", "blue", null, "NULL"};
+
+    private final Random random = new Random(11);
+
+    // A random cell for each column, so each column gets a different encoding
+    private List<String> randomValues(int id, int count) {
+        int qty = random.nextInt(21) - 10;
+        int price = random.nextInt(41) - 20;
+        int flag = random.nextInt(4);
+        return Arrays.asList(String.valueOf(id),
+                qty == 10 ? null : qty == 9 ? "NULL" : String.valueOf(qty),
+                price == 20 ? null : Float.toString(price / 4f),
+                flag == 0 ? "TRUE" : flag == 1 ? "FALSE" : flag == 2 ? null : "NULL",
+                COLOURS[id % COLOURS.length],
+                id <= count / 2 ? "small" : "large",
+                id % 13 == 0 ? null : "name" + id);
+    }
+
+    private static Table table(List<Row> rows) {
+        Table table = new Table("items");
+        for (String column : COLUMNS) {
+            table.addColumn(column);
+        }
+        table.setRows(rows);
+        return table;
+    }
+
+    // A comparison, or below the given depth also AND, OR and NOT of random conditions
+    private Condition randomCondition(int depth) {
+        switch (random.nextInt(depth <= 0 ? 1 : 4)) {
+            case 1:
+                return new AndCondition(randomCondition(depth - 1), randomCondition(depth - 1));
+            case 2:
+                return new OrCondition(randomCondition(depth - 1), randomCondition(depth - 1));
+            case 3:
+                return new Not(randomCondition(depth - 1));
+            default:
+                return randomComparison();
+        }
+    }
+
+    private Condition randomComparison() {
+        int column = random.nextInt(COLUMNS.length);
+        String name = COLUMNS[column];
+        String value = LITERALS[column][random.nextInt(LITERALS[column].length)];
+        switch (COMPARISONS[random.nextInt(COMPARISONS.length)]) {
+            case "==":
+                return new EqualsCondition(name, value);
+            case "!=":
+                return new NotEqualsCondition(name, value);
+            case ">":
+                return new GreaterThanCondition(name, value);
+            case "<":
+                return new LessThanCondition(name, value);
+            case ">=":
+                return new GreaterThanOrEqualsCondition(name, value);
+            case "<=":
+                return new LessThanOrEqualsCondition(name, value);
+            default:
+                return new LikeCondition(name, value);
+        }
+    }
+
+    // Compiled row predicates and batch filters over typed, dictionary, run-length and plain columns,
+    // alone and in AND/OR/NOT trees, select the same rows as testing the plain row values one at a time
+    @Test
+    public void testEncodedEvaluationMatchesRowAtATime() {
+        int count = 2500;
+        List<Row> plainRows = new ArrayList<>();
+        EncodedRows encodedRows = new EncodedRows();
+        for (int id = 1; id <= count; id++) {
+            List<String> values = randomValues(id, count);
+            plainRows.add(new Row(id, values));
+            encodedRows.add(new Row(id, values));
+        }
+        encodedRows.reencode();
+        assertEquals(List.of("delta", "int", "float", "boolean", "dictionary(5)", "rle(2)", "plain"),
+                encodedRows.getEncodings());
+        Table plain = table(plainRows);
+        Table encoded = table(encodedRows);
+
+        for (int c = 0; c < 400; c++) {
+            Condition condition = randomCondition(c % 4);
+            Predicate<Row> rowAtATime = condition.compile(plain);
+            List<Integer> expected = new ArrayList<>();
+            for (Row row : plain.getRows()) {
+                if (rowAtATime.test(row)) {
+                    expected.add(row.getId());
+                }
+            }
+
+            Predicate<Row> compiled = condition.compile(encoded);
+            List<Integer> matched = new ArrayList<>();
+            for (Row row : encoded.getRows()) {
+                if (compiled.test(row)) {
+                    matched.add(row.getId());
+                }
+            }
+            assertEquals(expected, matched, "Row predicate for " + describe(condition));
+
+            BatchFilter filter = condition.compileBatch(encoded);
+            List<Integer> filtered = new ArrayList<>();
+            encoded.scanBatches(batch -> {
+                long[] selection = RowBatch.newSelection();
+                batch.selectAll(selection);
+                filter.filter(batch, selection);
+                RowBatch.forEachSelected(selection, i -> filtered.add(batch.getId(i)));
+            });
+            assertEquals(expected, filtered, "Batch filter for " + describe(condition));
+        }
+    }
+
+    // NULL cells and the text NULL are told apart the same way by every path
+    @Test
+    public void testNullsOnEncodedColumns() {
+        EncodedRows rows = new EncodedRows();
+        String[] qty = {"1", null, "NULL", "2", null, "3"};
+        for (int id = 1; id <= qty.length; id++) {
+            rows.add(new Row(id, Arrays.asList(String.valueOf(id), qty[id - 1], "1.5", "TRUE", "red", "small", "n")));
+        }
+        rows.reencode();
+        assertEquals("int", rows.getEncodings().get(1));
+        Table table = table(rows);
+        assertEquals(List.of(2, 5), ids(table, new EqualsCondition("qty", "NULL")));
+        assertEquals(List.of(1, 3, 4, 6), ids(table, new NotEqualsCondition("qty", "NULL")));
+        assertEquals(List.of(3, 4, 6), ids(table, new GreaterThanCondition("qty", "1"))); // The text NULL sorts after digits
+        assertEquals(List.of(3), ids(table, new EqualsCondition("qty", "'NULL'")));
+        assertEquals(List.of(), ids(table, new LessThanCondition("qty", "NULL")));
+    }
+
+    // The IDs a condition selects, checked to be the same through the row predicate and the batch filter
+    private static List<Integer> ids(Table table, Condition condition) {
+        Predicate<Row> predicate = condition.compile(table);
+        List<Integer> matched = new ArrayList<>();
+        for (Row row : table.getRows()) {
+            if (predicate.test(row)) {
+                matched.add(row.getId());
+            }
+        }
+        BatchFilter filter = condition.compileBatch(table);
+        List<Integer> filtered = new ArrayList<>();
+        table.scanBatches(batch -> {
+            long[] selection = RowBatch.newSelection();
+            batch.selectAll(selection);
+            filter.filter(batch, selection);
+            RowBatch.forEachSelected(selection, i -> filtered.add(batch.getId(i)));
+        });
+        assertEquals(matched, filtered);
+        return matched;
+    }
+
+    private static String describe(Condition condition) {
+        if (condition instanceof Not) {
+            return "NOT (" + describe(((Not) condition).operand) + ")";
+        }
+        return condition.getClass().getSimpleName() + condition.getAttributeNames();
+    }
+
+    /**
+     * Inverts a condition, as NOT would, through the negation of its predicate and of its batch filter.
+     */
+    private static final class Not extends Condition {
+        private final Condition operand; // The condition inverted
+
+        Not(Condition operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public Predicate<Row> compile(ColumnBinding columns) {
+            return operand.compile(columns).negate();
+        }
+
+        @Override
+        public BatchFilter compileBatch(ColumnBinding columns) {
+            return operand.compileBatch(columns).negate();
+        }
+
+        @Override
+        public List<String> getAttributeNames() {
+            return operand.getAttributeNames();
+        }
+    }
+}
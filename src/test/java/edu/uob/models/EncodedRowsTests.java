@@ -0,0 +1,124 @@
+package edu.uob.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class EncodedRowsTests {
+    private static final String[] COLOURS = {"red", "green", "blue", null};
+
+    // ID, then a few repeating colours with NULLs, long runs of one size, and a distinct name per row
+    private static List<List<String>> sampleValues(int count) {
+        List<List<String>> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(Arrays.asList(String.valueOf(i), COLOURS[i % COLOURS.length], i <= count / 2 ? "small" : "large",
+                    i % 7 == 0 ? null : "name" + i));
+        }
+        return rows;
+    }
+
+    private static EncodedRows encoded(List<List<String>> values) {
+        EncodedRows rows = new EncodedRows();
+        for (List<String> row : values) {
+            rows.add(new Row(Integer.parseInt(row.get(0)), row));
+        }
+        return rows;
+    }
+
+    private static void assertRows(List<List<String>> expected, List<Row> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(Integer.parseInt(expected.get(i).get(0)), actual.get(i).getId());
+            assertEquals(expected.get(i), actual.get(i).getValues(), "Row at position " + i);
+        }
+    }
+
+    // Each column gets the encoding that suits it, and every value, NULLs included, reads back unchanged
+    @Test
+    public void testRoundTripThroughEncodings() {
+        List<List<String>> values = sampleValues(200);
+        EncodedRows rows = encoded(values);
+        assertRows(values, rows);
+
+        rows.reencode();
+        assertEquals(List.of("delta", "dictionary(4)", "rle(2)", "plain"), rows.getEncodings());
+        assertRows(values, rows);
+    }
+
+    // Values the chosen encoding cannot hold are still stored, and the other rows are untouched
+    @Test
+    public void testSetAfterReencode() {
+        List<List<String>> values = sampleValues(200);
+        EncodedRows rows = encoded(values);
+        rows.reencode();
+
+        for (int position : new int[] {0, 99, 150}) {
+            List<String> changed = Arrays.asList(String.valueOf(position + 1), "purple", null, "renamed");
+            rows.set(position, new Row(position + 1, changed));
+            values.set(position, changed);
+        }
+        assertRows(values, rows);
+
+        rows.add(new Row(201, Arrays.asList("201", null, "medium", null)));
+        values.add(Arrays.asList("201", null, "medium", null));
+        assertRows(values, rows);
+    }
+
+    // Rows stored with fewer values than the table has columns read back with their own length
+    @Test
+    public void testNarrowRowsKeepTheirLength() {
+        List<List<String>> values = sampleValues(20);
+        values.set(5, Arrays.asList("6", "red"));
+        values.set(12, Arrays.asList("13"));
+        EncodedRows rows = encoded(values);
+        rows.reencode();
+        assertRows(values, rows);
+
+        rows.removeIf(row -> row.getId() % 4 == 0);
+        values.removeIf(row -> Integer.parseInt(row.get(0)) % 4 == 0);
+        assertRows(values, rows);
+    }
+
+    // ALTER TABLE on encoded rows: added columns read as NULL until set, and dropping a column keeps the others
+    @Test
+    public void testAddAndDropColumnOnEncodedTable() {
+        Table table = new Table("items");
+        table.addColumn("colour");
+        table.addColumn("size");
+        table.addColumn("name");
+        List<List<String>> values = sampleValues(120);
+        List<List<String>> inserted = new ArrayList<>();
+        for (List<String> row : values) {
+            inserted.add(row.subList(1, row.size()));
+        }
+        table.addRows(inserted);
+        table.optimizeStorage();
+
+        table.addColumn("price");
+        for (int i = 0; i < values.size(); i++) {
+            values.set(i, new ArrayList<>(values.get(i)));
+            values.get(i).add(null);
+        }
+        assertRows(values, table.getRows());
+
+        table.updateRows(Set.of(3, 60), Map.of("price", "2.5"));
+        values.get(2).set(4, "2.5");
+        values.get(59).set(4, "2.5");
+        table.dropColumn("size");
+        for (List<String> row : values) {
+            row.remove(2);
+        }
+        assertRows(values, table.getRows());
+
+        table.optimizeStorage();
+        assertRows(values, table.getRows());
+        assertEquals(List.of("id", "colour", "name", "price"),
+                table.getColumns().stream().map(Column::getName).toList());
+    }
+}
@@ -0,0 +1,117 @@
+package edu.uob.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.models.QueryResult;
+import edu.uob.parser.SQLParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+public class ColumnarStorageTests {
+
+    @TempDir
+    File storageFolder;
+
+    private DBManager dbManager;
+
+    @BeforeEach
+    public void setup() {
+        dbManager = new DBManager(storageFolder.getPath());
+        run("CREATE DATABASE school;");
+        run("USE school;");
+        run("CREATE TABLE people (name, age, city);");
+        run("INSERT INTO people VALUES ('Bob', 30, 'Leeds'), ('Amy', 25, 'York'), ('Tom', 19, 'Bath');");
+    }
+
+    @AfterEach
+    public void closeManager() {
+        dbManager.close();
+    }
+
+    private List<List<String>> run(String statement) {
+        QueryResult result = dbManager.execute(new SQLParser(statement).parse());
+        return result.getRows();
+    }
+
+    // Starts a new manager on the folder, so every table is back on disk
+    private void restart() {
+        dbManager.close();
+        dbManager = new DBManager(storageFolder.getPath());
+        run("USE school;");
+    }
+
+    private File columnarFile() {
+        return TableFileIO.columnarFile("people", dbManager.getDatabasePath("school"));
+    }
+
+    // SET STORAGE COLUMNAR writes the columnar copy; a query then reads just its columns without loading the table
+    @Test
+    public void testSelectReadsColumnarCopyWithoutLoading() {
+        run("ALTER TABLE people SET STORAGE COLUMNAR;");
+        assertTrue(columnarFile().exists());
+        restart();
+
+        assertEquals(List.of(List.of("Bob", "Leeds"), List.of("Amy", "York")),
+                run("SELECT name, city FROM people WHERE age > 20;"));
+        assertEquals(List.of(List.of("3", "Tom", "19", "Bath")), run("SELECT * FROM people WHERE name == 'Tom';"));
+        assertFalse(dbManager.getTable("people").isLoaded(), "The query should not have loaded the table");
+    }
+
+    // Once rows change, queries see the changes, whether the rows are in memory or in a delta after a restart
+    @Test
+    public void testChangedColumnarTableFallsBackToFullRows() {
+        run("ALTER TABLE people SET STORAGE COLUMNAR;");
+        restart();
+        run("UPDATE people SET age = 40 WHERE name == 'Amy';");
+        run("INSERT INTO people VALUES ('Eve', 50, 'Hull');");
+        List<List<String>> expected = List.of(List.of("Bob"), List.of("Amy"), List.of("Eve"));
+        assertEquals(expected, run("SELECT name FROM people WHERE age > 20;"));
+
+        restart();
+        assertEquals(expected, run("SELECT name FROM people WHERE age > 20;"));
+        assertEquals(List.of(List.of("4", "Eve", "50", "Hull")), run("SELECT * FROM people WHERE id == 4;"));
+    }
+
+    // Converting folds a pending delta in, so the copy can be used straight away
+    @Test
+    public void testConversionFoldsDelta() {
+        restart();
+        run("DELETE FROM people WHERE name == 'Bob';");
+        restart();
+        assertTrue(DeltaSegment.file("people", dbManager.getDatabasePath("school")).exists());
+
+        run("ALTER TABLE people SET STORAGE COLUMNAR;");
+        assertFalse(DeltaSegment.file("people", dbManager.getDatabasePath("school")).exists());
+        restart();
+        assertEquals(List.of(List.of("Amy"), List.of("Tom")), run("SELECT name FROM people;"));
+        assertFalse(dbManager.getTable("people").isLoaded());
+    }
+
+    // SET STORAGE ROW drops the copy and the table keeps its rows
+    @Test
+    public void testRowStorageRemovesColumnarCopy() {
+        run("ALTER TABLE people SET STORAGE COLUMNAR;");
+        run("ALTER TABLE people SET STORAGE ROW;");
+        assertFalse(columnarFile().exists());
+        restart();
+        assertEquals(List.of(List.of("Bob"), List.of("Amy"), List.of("Tom")), run("SELECT name FROM people;"));
+    }
+
+    // A column that does not exist is still an error when only the columnar copy is read
+    @Test
+    public void testUnknownColumnOnColumnarTable() {
+        run("ALTER TABLE people SET STORAGE COLUMNAR;");
+        restart();
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> run("SELECT name FROM people WHERE height > 2;"));
+        assertTrue(error.getMessage().contains("Column not found: height"), error.getMessage());
+    }
+}
@@ -0,0 +1,82 @@
+package edu.uob.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.models.Row;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GroupCommitTests {
+    private static final int WRITERS = 8;
+    private static final int COMMITS_PER_WRITER = 25;
+
+    @TempDir
+    Path folder;
+
+    // Concurrent commits share fsyncs, and every acknowledged commit is in the log when it is opened again
+    @Test
+    public void testConcurrentCommitsShareFlushes() throws Exception {
+        AtomicInteger running = new AtomicInteger(WRITERS);
+        WriteAheadLog log = new WriteAheadLog(folder.toString(), running::get);
+        Set<Integer> acknowledged = ConcurrentHashMap.newKeySet();
+        CyclicBarrier start = new CyclicBarrier(WRITERS);
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                done.add(writers.submit(() -> {
+                    start.await();
+                    try {
+                        for (int c = 0; c < COMMITS_PER_WRITER; c++) {
+                            int id = writer * COMMITS_PER_WRITER + c + 1;
+                            long lsn = log.append(List.of(
+                                    LogRecord.insert("items", new Row(id, List.of(String.valueOf(id), "pen"))),
+                                    LogRecord.commit()));
+                            log.getGroupCommitter().awaitDurable(lsn);
+                            acknowledged.add(id);
+                        }
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+
+        GroupCommitter committer = log.getGroupCommitter();
+        assertEquals(WRITERS * COMMITS_PER_WRITER, committer.getCommitCount());
+        assertTrue(committer.getFlushCount() < committer.getCommitCount(),
+                committer.getFlushCount() + " flushes for " + committer.getCommitCount() + " commits");
+
+        // Open the log again without closing it first, as a restart after a crash would
+        try (WriteAheadLog reopened = new WriteAheadLog(folder.toString(), () -> 0)) {
+            Set<Integer> logged = ConcurrentHashMap.newKeySet();
+            for (LogRecord record : reopened.readAll()) {
+                if (record.getType() == LogRecord.Type.INSERT) {
+                    logged.add(record.getRowId());
+                }
+            }
+            assertEquals(acknowledged, logged);
+        } finally {
+            log.close();
+        }
+    }
+}
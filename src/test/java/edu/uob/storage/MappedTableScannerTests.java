@@ -0,0 +1,131 @@
+package edu.uob.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import edu.uob.models.QueryResult;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+import edu.uob.parser.SQLParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedTableScannerTests {
+
+    @TempDir
+    Path folder;
+
+    // Header, then lines ending in LF and CRLF, trailing empty fields, and a last line without a newline
+    private File writeItems(Path dbFolder, int count) throws IOException {
+        StringBuilder text = new StringBuilder("id\tname\tqty\n");
+        for (int id = 1; id <= count; id++) {
+            text.append(id).append("\titem").append(id).append('\t').append(id % 5 == 0 ? "" : String.valueOf(id % 7));
+            if (id < count) {
+                text.append(id % 3 == 0 ? "\r\n" : "\n");
+            }
+        }
+        File file = dbFolder.resolve("items.tab").toFile();
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    // The ID and values of every row a scan visits, copied since the row object is reused
+    private static List<List<String>> scan(File file, long start, long end) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        MappedTableScanner.scan(file, start, end, row -> {
+            List<String> values = new ArrayList<>(row.getValues());
+            values.add(0, "#" + row.getId());
+            rows.add(values);
+        });
+        return rows;
+    }
+
+    private static List<List<String>> rowsOf(Table table) {
+        List<List<String>> rows = new ArrayList<>();
+        for (Row row : table.getRows()) {
+            List<String> values = new ArrayList<>(row.getValues());
+            values.add(0, "#" + row.getId());
+            rows.add(values);
+        }
+        return rows;
+    }
+
+    // A scan of the whole file visits the same rows, with the same values, as loading the table
+    @Test
+    public void testScanMatchesLoadedTable() throws IOException {
+        File file = writeItems(folder, 500);
+        List<List<String>> scanned = scan(file, 0, file.length());
+        assertEquals(500, scanned.size());
+        assertEquals(List.of("#5", "5", "item5"), scanned.get(4)); // A trailing empty field is dropped, as on load
+        assertEquals(List.of("#6", "6", "item6", "6"), scanned.get(5)); // The line ended in CRLF
+        assertEquals(rowsOf(TableFileIO.loadTable("items", folder.toString(), new ArrayList<>())), scanned);
+    }
+
+    // Blank lines are skipped rather than read as rows
+    @Test
+    public void testBlankLinesAreSkipped() throws IOException {
+        File file = folder.resolve("items.tab").toFile();
+        Files.write(file.toPath(), "id\tname\n\n1\tpen\r\n\r\n\n2\tink\n\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(List.of(List.of("#1", "1", "pen"), List.of("#2", "2", "ink")), scan(file, 0, file.length()));
+    }
+
+    // Scanning line-aligned ranges one after another, as a split scan does, visits every row exactly once
+    @Test
+    public void testSplitScanMatchesFullScan() throws IOException {
+        File file = writeItems(folder, 2000);
+        List<List<String>> whole = scan(file, 0, file.length());
+
+        List<List<String>> parts = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            for (long cut : new long[] {size / 5, size / 2, size / 2 + 1, size - 3}) {
+                long end = ParallelTableLoader.nextLineStart(channel, cut, size);
+                parts.addAll(scan(file, start, end));
+                start = end;
+            }
+            parts.addAll(scan(file, start, size));
+        }
+        assertEquals(whole, parts);
+    }
+
+    // SELECT on a table left on disk scans its file in place, filtering and projecting without loading it
+    @Test
+    public void testSelectScansTableInPlace() throws IOException {
+        Path dbFolder = Files.createDirectories(folder.resolve("shop"));
+        writeItems(dbFolder, 100);
+        DBManager dbManager = new DBManager(folder.toString());
+        try {
+            dbManager.execute(new SQLParser("USE shop;").parse());
+            String dbPath = dbManager.getDatabasePath("shop");
+            Table onDisk = TableFileIO.loadTableHeader("items", dbPath);
+            onDisk.setLoader(() -> {
+                throw new IllegalStateException("The table should be scanned, not loaded");
+            }, 101, 100, true);
+            dbManager.getCurrentDatabase().addTable(onDisk);
+
+            QueryResult result = dbManager.execute(new SQLParser("SELECT qty, id FROM items WHERE qty >= 6;").parse());
+            assertEquals(List.of("qty", "id"), result.getColumnNames());
+            List<List<String>> expected = new ArrayList<>();
+            for (int id = 1; id <= 100; id++) {
+                if (id % 5 != 0 && id % 7 == 6) {
+                    expected.add(List.of("6", String.valueOf(id)));
+                }
+            }
+            assertEquals(expected, result.getRows());
+            assertFalse(onDisk.isLoaded());
+        } finally {
+            dbManager.close();
+        }
+    }
+}
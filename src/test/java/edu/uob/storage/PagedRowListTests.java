@@ -0,0 +1,40 @@
+package edu.uob.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import edu.uob.models.Row;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class PagedRowListTests {
+
+    @TempDir
+    Path folder;
+
+    // Closing a paged table removes its page file straight away rather than at JVM exit
+    @Test
+    public void testCloseDeletesPageFile() throws Exception {
+        Path path = folder.resolve("items" + PagedRowList.FILE_EXTENSION);
+        PagedRowList rows = new PagedRowList(path, new BufferPool());
+        rows.add(new Row(1, List.of("pen")));
+        rows.close();
+        assertFalse(Files.exists(path), "The page file should be deleted when its rows are closed");
+    }
+
+    // A page file left behind by a crashed process is replaced, not read, when the table is opened again
+    @Test
+    public void testOpenReplacesLeftoverPageFile() throws Exception {
+        Path path = folder.resolve("items" + PagedRowList.FILE_EXTENSION);
+        Files.write(path, new byte[3 * 8192]);
+        PagedRowList rows = new PagedRowList(path, new BufferPool());
+        assertEquals(0, rows.size());
+        rows.add(new Row(1, List.of("pen")));
+        assertEquals(List.of("pen"), rows.get(0).getValues());
+        rows.close();
+    }
+}
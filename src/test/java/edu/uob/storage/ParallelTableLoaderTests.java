@@ -0,0 +1,87 @@
+package edu.uob.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.uob.models.Column;
+import edu.uob.models.Row;
+import edu.uob.models.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelTableLoaderTests {
+
+    @TempDir
+    Path folder;
+
+    // A table file of a few megabytes, so it is cut into several chunks, with IDs out of order,
+    // CRLF line ends, trailing empty fields and a last line without a newline
+    private File writeItems(int count) throws IOException {
+        StringBuilder text = new StringBuilder("id\tname\tqty\tnote\r\n");
+        for (int i = 1; i <= count; i++) {
+            int id = i % 1000 == 0 ? count + i / 1000 : i;
+            text.append(id).append("\titem").append(i).append('\t').append(i % 9);
+            text.append('\t').append(i % 4 == 0 ? "" : "a fairly long note to make the file bigger " + i);
+            if (i < count) {
+                text.append(i % 2 == 0 ? "\r\n" : "\n");
+            }
+        }
+        File file = folder.resolve("items.tab").toFile();
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    // Every range starts at the beginning of a line, and together they cover the rows without gaps
+    @Test
+    public void testRangesFollowLineBoundaries() throws IOException {
+        File file = writeItems(50000);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long headerEnd = ParallelTableLoader.nextLineStart(channel, 0, channel.size());
+            List<long[]> ranges = ParallelTableLoader.lineRanges(channel, headerEnd, channel.size());
+            assertTrue(ranges.size() > 1, "A " + bytes.length + " byte file should be cut into several chunks");
+            long expectedStart = headerEnd;
+            for (long[] range : ranges) {
+                assertEquals(expectedStart, range[0]);
+                assertEquals('\n', bytes[(int) range[0] - 1]);
+                expectedStart = range[1];
+            }
+            assertEquals(bytes.length, expectedStart);
+        }
+    }
+
+    // Parsing the chunks in parallel gives the same columns, rows, order and next ID as reading the file line by line
+    @Test
+    public void testParallelLoadMatchesSequentialLoad() throws IOException {
+        int count = 50000;
+        File file = writeItems(count);
+        assertTrue(file.length() < ParallelTableLoader.PARALLEL_THRESHOLD, "The file should still load sequentially");
+        Table sequential = TableFileIO.loadTable("items", folder.toString(), new ArrayList<>());
+        Table parallel = ParallelTableLoader.load("items", file, new ArrayList<>());
+
+        assertEquals(List.of("id", "name", "qty", "note"), parallel.getColumns().stream().map(Column::getName).toList());
+        assertEquals(sequential.getColumns().stream().map(Column::getName).toList(),
+                parallel.getColumns().stream().map(Column::getName).toList());
+        assertEquals(count, parallel.getRows().size());
+        for (int i = 0; i < count; i++) {
+            Row expected = sequential.getRows().get(i);
+            Row actual = parallel.getRows().get(i);
+            assertEquals(expected.getId(), actual.getId(), "Row at position " + i);
+            assertEquals(expected.getValues(), actual.getValues(), "Row at position " + i);
+        }
+        assertEquals(List.of("4", "item4", "4"), parallel.getRows().get(3).getValues());
+        assertEquals(count + 1, parallel.getRows().get(999).getId());
+        assertEquals(count + count / 1000 + 1, sequential.getNextId());
+        assertEquals(sequential.getNextId(), parallel.getNextId());
+    }
+}
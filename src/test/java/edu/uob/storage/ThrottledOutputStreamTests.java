@@ -0,0 +1,30 @@
+package edu.uob.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+public class ThrottledOutputStreamTests {
+
+    // Writes pass through unchanged, but no faster than the allowed rate
+    @Test
+    public void testWritesAreThrottled() throws Exception {
+        byte[] data = new byte[40 * 1024];
+        new Random(7).nextBytes(data);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        try (ThrottledOutputStream out = new ThrottledOutputStream(sink, 100 * 1024)) {
+            for (int offset = 0; offset < data.length - 1; offset += 1000) {
+                out.write(data, offset, Math.min(1000, data.length - 1 - offset));
+            }
+            out.write(data[data.length - 1]);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        assertArrayEquals(data, sink.toByteArray());
+        assertTrue(elapsedMillis >= 350, "40 KB at 100 KB/s took only " + elapsedMillis + " ms");
+    }
+}